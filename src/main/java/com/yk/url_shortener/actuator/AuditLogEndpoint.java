@@ -0,0 +1,56 @@
+package com.yk.url_shortener.actuator;
+
+import com.yk.url_shortener.audit.AuditLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for the url.created audit log (spring.kafka.enabled=true and app.audit.enabled=true).
+ *
+ * GET /actuator/auditlog?from=2025-06-01T00:00&to=2025-06-02T00:00&limit=100
+ *   from inclusive, to exclusive, both optional (ISO local date-time); limit defaults to 100, at most 10000
+ *
+ * Example response:
+ * {
+ *   "count": 18342,
+ *   "records": [{"createdAt":"2025-06-01T00:00:02.114","shortCode":"xY7zK3m",
+ *                "longUrl":"https://example.com/a","shortUrl":"http://localhost:8081/xY7zK3m"}, ...],
+ *   "segments": 12, "bytes": 48211960, "totalRecords": 5120044
+ * }
+ *
+ * "count" = all links created in the range; "records" = the first limit of them, in log order
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "auditlog")
+@ConditionalOnProperty(name = {"spring.kafka.enabled", "app.audit.enabled"}, havingValue = "true")
+public class AuditLogEndpoint {
+
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 10_000;
+
+    private final AuditLog auditLog;
+
+    @ReadOperation
+    public Map<String, Object> query(@Nullable String from, @Nullable String to, @Nullable Integer limit) {
+        LocalDateTime fromTime = from != null ? LocalDateTime.parse(from) : null;
+        LocalDateTime toTime = to != null ? LocalDateTime.parse(to) : null;
+        int max = Math.min(limit != null ? limit : DEFAULT_LIMIT, MAX_LIMIT);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("count", auditLog.count(fromTime, toTime));
+        body.put("records", auditLog.query(fromTime, toTime, max));
+        body.put("segments", auditLog.segmentCount());
+        body.put("bytes", auditLog.sizeBytes());
+        body.put("totalRecords", auditLog.recordCount());
+        return body;
+    }
+}
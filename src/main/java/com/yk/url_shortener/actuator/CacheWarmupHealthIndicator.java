@@ -0,0 +1,26 @@
+package com.yk.url_shortener.actuator;
+
+import com.yk.url_shortener.service.CacheWarmupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Health contributor "cacheWarmup" — OUT_OF_SERVICE until the startup warm-up finishes.
+ *
+ * Part of the readiness group (management.endpoint.health.group.readiness.include),
+ * so /actuator/health/readiness stays 503 while caches are still cold.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheWarmupHealthIndicator implements HealthIndicator {
+
+    private final CacheWarmupService cacheWarmupService;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = cacheWarmupService.isComplete() ? Health.up() : Health.outOfService();
+        return builder.withDetail("warmedEntries", cacheWarmupService.getWarmedEntries()).build();
+    }
+}
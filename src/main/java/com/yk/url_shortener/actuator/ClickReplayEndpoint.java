@@ -0,0 +1,40 @@
+package com.yk.url_shortener.actuator;
+
+import com.yk.url_shortener.service.ClickReplayService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint for rebuilding access counters from url.accessed (spring.kafka.enabled=true only).
+ *
+ * POST /actuator/clickreplay                                  → rebuild every counter from the topic
+ * POST /actuator/clickreplay  {"fromTime":..., "toTime":...}  → add the clicks of that window (epoch millis)
+ *   Starts in the background and returns the progress right away.
+ *
+ * GET  /actuator/clickreplay
+ *   {"state":"READING","mode":"rebuild","recordsRead":41200000,"recordsTotal":100000000,
+ *    "codes":0,"rowsWritten":0,"recordsPerSecond":1030000,"elapsedMillis":40000,"error":null}
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "clickreplay")
+@ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true")
+public class ClickReplayEndpoint {
+
+    private final ClickReplayService clickReplayService;
+
+    @ReadOperation
+    public ClickReplayService.Progress progress() {
+        return clickReplayService.progress();
+    }
+
+    @WriteOperation
+    public ClickReplayService.Progress replay(@Nullable Long fromTime, @Nullable Long toTime) {
+        return clickReplayService.start(fromTime, toTime);
+    }
+}
@@ -0,0 +1,43 @@
+package com.yk.url_shortener.actuator;
+
+import com.yk.url_shortener.sharding.ShardRebalancer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint for sharded persistence (app.db.sharding.enabled=true only).
+ *
+ * GET  /actuator/dbshards
+ *   {"shard-0":{"rows":5012,"misplaced":0},"shard-1":{"rows":4988,"misplaced":1210}, ...}
+ *
+ * POST /actuator/dbshards   body (optional): {"batchSize":500}
+ *   Moves every misplaced row to its owning shard — run after appending a shard.
+ *   {"shard-0":0,"shard-1":1210, ...}
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "dbshards")
+@ConditionalOnProperty(name = "app.db.sharding.enabled", havingValue = "true")
+public class DatabaseShardsEndpoint {
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final ShardRebalancer shardRebalancer;
+
+    @ReadOperation
+    public Map<String, Map<String, Long>> shards() {
+        return shardRebalancer.status();
+    }
+
+    @WriteOperation
+    public Map<String, Integer> rebalance(@Nullable Integer batchSize) {
+        return shardRebalancer.rebalance(batchSize != null && batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE);
+    }
+}
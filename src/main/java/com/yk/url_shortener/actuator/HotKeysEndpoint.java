@@ -0,0 +1,42 @@
+package com.yk.url_shortener.actuator;
+
+import com.yk.url_shortener.service.HotKeyDetector;
+import com.yk.url_shortener.service.LocalHotKeyCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint: GET /actuator/hotkeys
+ *
+ * Example response:
+ * {
+ *   "local":  [{"shortCode":"xY7zK3m","ratePerSecond":812.4}],
+ *   "shared": [{"shortCode":"xY7zK3m","ratePerSecond":2431.0}],
+ *   "pinnedLocally": 1
+ * }
+ *
+ * "local"  = hot on this instance (current sliding window)
+ * "shared" = hot across all instances (summed via Redis, previous complete window)
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "hotkeys")
+public class HotKeysEndpoint {
+
+    private final HotKeyDetector hotKeyDetector;
+    private final LocalHotKeyCache localHotKeyCache;
+
+    @ReadOperation
+    public Map<String, Object> hotKeys() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("local", hotKeyDetector.getLocalHotKeys());
+        body.put("shared", hotKeyDetector.getSharedHotKeys());
+        body.put("pinnedLocally", localHotKeyCache.size());
+        return body;
+    }
+}
@@ -0,0 +1,42 @@
+package com.yk.url_shortener.actuator;
+
+import com.yk.url_shortener.sharding.RedisShard;
+import com.yk.url_shortener.sharding.RedisShardRouter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Health contributor "redisShards" — per-node status of the sharded Redis setup.
+ *
+ * UP   → every node answers PING
+ * DOWN → at least one node is out of routing (its keys are served by its ring neighbour)
+ *
+ * Standalone mode reports UP with a single node — the regular "redis" indicator
+ * already covers that connection.
+ */
+@Component
+@RequiredArgsConstructor
+public class RedisShardsHealthIndicator implements HealthIndicator {
+
+    private final RedisShardRouter redisShardRouter;
+
+    @Override
+    public Health health() {
+        Map<String, Object> nodes = new LinkedHashMap<>();
+        boolean allHealthy = true;
+        for (RedisShard shard : redisShardRouter.getShards()) {
+            nodes.put(shard.getId(), shard.isHealthy() ? "UP" : "DOWN: " + shard.getLastError());
+            allHealthy &= shard.isHealthy();
+        }
+        Health.Builder builder = allHealthy ? Health.up() : Health.down();
+        return builder
+                .withDetail("sharded", redisShardRouter.isSharded())
+                .withDetail("nodes", nodes)
+                .build();
+    }
+}
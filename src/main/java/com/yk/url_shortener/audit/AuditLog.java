@@ -0,0 +1,461 @@
+package com.yk.url_shortener.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+
+/**
+ * Audit log of created links — url.created events in rotated, compressed, append-only
+ * {@link AuditSegment} files on local disk. "All links created between T1 and T2" without a table.
+ *
+ * How it works:
+ * - append(batch)  → one poll of url.created (UrlEventConsumer) is encoded into ~16 KB blocks at
+ *                    DEFLATE level 1 (cheap on the write path), written to the active segment and
+ *                    fsynced once for the whole batch. The listener commits the poll only after that.
+ * - rotation       → the active segment is sealed and a new one started once it holds segment-bytes,
+ *                    or segment-ms after it was started (or reopened)
+ * - query(T1, T2)  → the sparse time index (min/max createdAt per block, in memory) picks the blocks
+ *                    that can hold matches; only those are read and inflated. count(T1, T2) does not
+ *                    even inflate blocks that lie wholly inside the range.
+ *
+ * Retention (every maintenance-interval-ms, sealed segments only, oldest first):
+ * - a segment is deleted once its NEWEST record is older than retention-days
+ * - then the oldest segments are deleted while the log is larger than retention-bytes
+ *
+ * Compaction (same run, after retention):
+ * - quiet hours leave small segments made of small blocks (one block per poll). Runs of adjacent
+ *   sealed segments below compact-below-bytes are merged — up to segment-bytes — into one segment of
+ *   full blocks at DEFLATE level 9; a lone small segment only if its blocks are under half full
+ * - a record seen again within dedup-window records is dropped: at-least-once delivery replays a
+ *   poll whose commit was lost, and the replay lands right behind the original
+ * - the merged segment is named after the ids it replaces ("audit-00000003-00000007.log") and is
+ *   fsynced before the sources are deleted. A crash in between leaves sources whose ids lie inside a
+ *   merged segment's range — they are deleted on open. A lone segment keeps its name: its rewrite
+ *   replaces the files atomically, and only the old file handles are closed.
+ *
+ * Each instance logs the url.created partitions it consumes — query the instance that owns the directory.
+ *
+ * Metrics:
+ *   url.audit.records                                — records appended
+ *   url.audit.append                                 — time per appended batch (encode, write, fsync)
+ *   url.audit.segments                               — segment files
+ *   url.audit.bytes                                  — disk used by the log
+ *   url.audit.maintenance{action=deleted|compacted}  — segments dropped by retention / merged away
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = {"spring.kafka.enabled", "app.audit.enabled"}, havingValue = "true")
+public class AuditLog implements AutoCloseable {
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("audit-(\\d{8})(?:-(\\d{8}))?\\.(log|idx)");
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long segmentMillis;
+    private final long retentionMillis;
+    private final long retentionBytes;
+    private final long compactBelowBytes;
+    private final int dedupWindow;
+    private final boolean fsync;
+
+    /** Oldest first */
+    private final List<AuditSegment> sealed = new ArrayList<>();
+    private AuditSegment active;
+    private long activeStartedAt;
+    /** Fast on the write path, reused across appends */
+    private final Deflater appendDeflater = new Deflater(Deflater.BEST_SPEED);
+    private final Object maintenanceLock = new Object();
+
+    private final Counter appended;
+    private final Timer appendTimer;
+    private final Counter deleted;
+    private final Counter compacted;
+
+    @Autowired
+    public AuditLog(@Value("${app.audit.dir:./data/audit}") String directory,
+                    @Value("${app.audit.segment-bytes:67108864}") long segmentBytes,
+                    @Value("${app.audit.segment-ms:86400000}") long segmentMillis,
+                    @Value("${app.audit.retention-days:365}") long retentionDays,
+                    @Value("${app.audit.retention-bytes:10737418240}") long retentionBytes,
+                    @Value("${app.audit.compact-below-bytes:16777216}") long compactBelowBytes,
+                    @Value("${app.audit.dedup-window:100000}") int dedupWindow,
+                    @Value("${app.audit.fsync:true}") boolean fsync,
+                    MeterRegistry meterRegistry) {
+        this(Path.of(directory), segmentBytes, segmentMillis, TimeUnit.DAYS.toMillis(retentionDays), retentionBytes,
+                compactBelowBytes, dedupWindow, fsync, meterRegistry);
+    }
+
+    public AuditLog(Path directory, long segmentBytes, long segmentMillis, long retentionMillis, long retentionBytes,
+                    long compactBelowBytes, int dedupWindow, boolean fsync, MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.segmentBytes = Math.max(AuditSegment.TARGET_BLOCK_BYTES, segmentBytes);
+        this.segmentMillis = segmentMillis;
+        this.retentionMillis = retentionMillis;
+        this.retentionBytes = retentionBytes;
+        this.compactBelowBytes = compactBelowBytes;
+        this.dedupWindow = Math.max(0, dedupWindow);
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+            openSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open audit log in " + directory, e);
+        }
+
+        this.appended = meterRegistry.counter("url.audit.records");
+        this.appendTimer = meterRegistry.timer("url.audit.append");
+        this.deleted = meterRegistry.counter("url.audit.maintenance", "action", "deleted");
+        this.compacted = meterRegistry.counter("url.audit.maintenance", "action", "compacted");
+        meterRegistry.gauge("url.audit.segments", this, AuditLog::segmentCount);
+        meterRegistry.gauge("url.audit.bytes", this, AuditLog::sizeBytes);
+        log.info("Audit log opened: {} segments, {} records", segmentCount(), recordCount());
+    }
+
+    /**
+     * Append one batch. Durable when this returns (with app.audit.fsync=true); on failure nothing of
+     * the batch is visible and the caller should redeliver it.
+     */
+    public synchronized void append(List<AuditRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        if (active.sizeBytes() >= segmentBytes || activeExpired()) {
+            roll();
+        }
+        try {
+            active.append(records, appendDeflater);
+            active.commit(fsync);
+        } catch (IOException | RuntimeException e) {
+            active.abort();
+            throw e;
+        }
+        appended.increment(records.size());
+        appendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Links created in [from, to) — null = unbounded — in log order (roughly creation order),
+     * at most limit of them.
+     */
+    public synchronized List<AuditRecord> query(LocalDateTime from, LocalDateTime to, int limit) {
+        List<AuditRecord> found = new ArrayList<>();
+        if (limit <= 0) {
+            return found;
+        }
+        long fromMillis = lowerBound(from);
+        long toMillis = upperBound(to);
+        for (AuditSegment segment : segments()) {
+            if (segment.maxTime() < fromMillis || segment.minTime() >= toMillis) {
+                continue;
+            }
+            try {
+                if (!segment.scan(fromMillis, toMillis, (millis, record) -> {
+                    found.add(record);
+                    return found.size() < limit;
+                })) {
+                    break;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Audit read failed in " + segment.path.getFileName(), e);
+            }
+        }
+        return found;
+    }
+
+    /** Number of links created in [from, to) — null = unbounded */
+    public synchronized long count(LocalDateTime from, LocalDateTime to) {
+        long fromMillis = lowerBound(from);
+        long toMillis = upperBound(to);
+        long total = 0;
+        for (AuditSegment segment : segments()) {
+            if (segment.maxTime() < fromMillis || segment.minTime() >= toMillis) {
+                continue;
+            }
+            try {
+                total += segment.count(fromMillis, toMillis);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Audit read failed in " + segment.path.getFileName(), e);
+            }
+        }
+        return total;
+    }
+
+    @Scheduled(fixedDelayString = "${app.audit.maintenance-interval-ms:60000}",
+            initialDelayString = "${app.audit.maintenance-interval-ms:60000}")
+    public void maintain() {
+        maintain(LocalDateTime.now());
+    }
+
+    /** One retention and compaction run; "now" is compared with the records' createdAt */
+    public void maintain(LocalDateTime now) {
+        synchronized (maintenanceLock) {
+            try {
+                synchronized (this) {
+                    if (activeExpired()) {
+                        roll();
+                    }
+                    applyRetention(AuditSegment.toMillis(now) - retentionMillis);
+                }
+                compact();
+            } catch (IOException e) {
+                log.warn("Audit log maintenance failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    public synchronized int segmentCount() {
+        return sealed.size() + 1;
+    }
+
+    public synchronized long sizeBytes() {
+        return segments().stream().mapToLong(AuditSegment::sizeBytes).sum();
+    }
+
+    public synchronized long recordCount() {
+        return segments().stream().mapToLong(AuditSegment::recordCount).sum();
+    }
+
+    @Override
+    public synchronized void close() {
+        appendDeflater.end();
+        for (AuditSegment segment : segments()) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.warn("Could not close {}: {}", segment.path.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Rotation and retention (callers hold the monitor)
+    // ─────────────────────────────────────────────
+
+    private boolean activeExpired() {
+        return !active.isEmpty() && System.currentTimeMillis() - activeStartedAt >= segmentMillis;
+    }
+
+    private void roll() throws IOException {
+        if (active.isEmpty()) {
+            return;
+        }
+        AuditSegment next = AuditSegment.create(directory, active.lastId + 1);
+        active.seal();
+        sealed.add(active);
+        log.info("Audit segment {} sealed: {} records, {} bytes", active.path.getFileName(), active.recordCount(),
+                active.sizeBytes());
+        active = next;
+        activeStartedAt = System.currentTimeMillis();
+    }
+
+    private void applyRetention(long oldestKeptMillis) throws IOException {
+        long total = sizeBytes();
+        Iterator<AuditSegment> oldestFirst = sealed.iterator();
+        while (oldestFirst.hasNext()) {
+            AuditSegment segment = oldestFirst.next();
+            if (segment.maxTime() >= oldestKeptMillis && total <= retentionBytes) {
+                break;
+            }
+            oldestFirst.remove();
+            total -= segment.sizeBytes();
+            segment.delete();
+            deleted.increment();
+            log.info("Audit segment {} deleted by retention ({} records)", segment.path.getFileName(),
+                    segment.recordCount());
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Compaction — merged segments are written without holding the monitor: sealed segments never
+    // change, and only maintenance (serialized by maintenanceLock) removes them
+    // ─────────────────────────────────────────────
+
+    private void compact() throws IOException {
+        List<List<AuditSegment>> runs;
+        synchronized (this) {
+            runs = compactionRuns();
+        }
+        for (List<AuditSegment> run : runs) {
+            AuditSegment merged = merge(run);
+            synchronized (this) {
+                int position = sealed.indexOf(run.get(0));
+                sealed.subList(position, position + run.size()).clear();
+                sealed.add(position, merged);
+            }
+            for (AuditSegment source : run) {
+                if (source.path.equals(merged.path)) {
+                    source.close(); // a lone segment rewritten in place — its files are the merged ones now
+                } else {
+                    source.delete();
+                }
+            }
+            compacted.increment(run.size());
+            log.info("Audit segments {}..{} compacted: {} records, {} bytes", run.get(0).firstId,
+                    run.get(run.size() - 1).lastId, merged.recordCount(), merged.sizeBytes());
+        }
+    }
+
+    /** Adjacent small segments, at most segment-bytes per run */
+    private List<List<AuditSegment>> compactionRuns() {
+        List<List<AuditSegment>> runs = new ArrayList<>();
+        List<AuditSegment> run = new ArrayList<>();
+        long runBytes = 0;
+        for (AuditSegment segment : sealed) {
+            boolean small = segment.sizeBytes() < compactBelowBytes;
+            if (!small || runBytes + segment.sizeBytes() > segmentBytes) {
+                addIfWorthIt(runs, run);
+                run = new ArrayList<>();
+                runBytes = 0;
+            }
+            if (small) {
+                run.add(segment);
+                runBytes += segment.sizeBytes();
+            }
+        }
+        addIfWorthIt(runs, run);
+        return runs;
+    }
+
+    private static void addIfWorthIt(List<List<AuditSegment>> runs, List<AuditSegment> run) {
+        if (run.size() > 1 || (run.size() == 1 && !run.get(0).isEmpty()
+                && run.get(0).rawBytes() / run.get(0).blockCount() < AuditSegment.TARGET_BLOCK_BYTES / 2)) {
+            runs.add(run);
+        }
+    }
+
+    private AuditSegment merge(List<AuditSegment> run) throws IOException {
+        LinkedHashSet<String> recent = new LinkedHashSet<>();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            return AuditSegment.write(directory, run.get(0).firstId, run.get(run.size() - 1).lastId, deflater,
+                    sink -> {
+                        for (AuditSegment source : run) {
+                            source.forEach((millis, record) -> {
+                                if (dedupWindow > 0) {
+                                    if (!recent.add(millis + " " + record.shortCode())) {
+                                        return true;
+                                    }
+                                    if (recent.size() > dedupWindow) {
+                                        recent.remove(recent.iterator().next());
+                                    }
+                                }
+                                return sink.accept(millis, record);
+                            });
+                        }
+                    });
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Opening
+    // ─────────────────────────────────────────────
+
+    private record SegmentName(int firstId, int lastId) {
+
+        boolean inside(SegmentName other) {
+            return !equals(other) && other.firstId <= firstId && lastId <= other.lastId;
+        }
+    }
+
+    private void openSegments() throws IOException {
+        List<SegmentName> logs = new ArrayList<>();
+        List<Path> indexes = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                Matcher matcher = SEGMENT_FILE.matcher(fileName);
+                if (matcher.matches()) {
+                    if (matcher.group(3).equals("idx")) {
+                        indexes.add(file);
+                        continue;
+                    }
+                    int firstId = Integer.parseInt(matcher.group(1));
+                    int lastId = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : firstId;
+                    logs.add(new SegmentName(firstId, lastId));
+                } else if (fileName.startsWith("audit-") && fileName.endsWith(".tmp")) {
+                    // A merged segment whose write never completed — its sources are still there
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        // An index without its log
+        for (Path index : indexes) {
+            String logName = index.getFileName().toString().replaceFirst("\\.idx$", ".log");
+            if (!Files.exists(index.resolveSibling(logName))) {
+                Files.deleteIfExists(index);
+            }
+        }
+        // Sources of a merge that completed just before a crash
+        List<SegmentName> leftovers = logs.stream()
+                .filter(name -> logs.stream().anyMatch(name::inside))
+                .toList();
+        for (SegmentName name : leftovers) {
+            log.info("Deleting audit segment {}..{}: already merged", name.firstId, name.lastId);
+            Files.deleteIfExists(AuditSegment.pathFor(directory, name.firstId, name.lastId));
+            Files.deleteIfExists(AuditSegment.indexPathFor(directory, name.firstId, name.lastId));
+        }
+        logs.removeAll(leftovers);
+        logs.sort((a, b) -> Integer.compare(a.lastId, b.lastId));
+
+        try {
+            for (int i = 0; i < logs.size(); i++) {
+                SegmentName name = logs.get(i);
+                // The newest segment is appended to again, unless it is a merge result (always sealed)
+                boolean writable = i == logs.size() - 1 && name.firstId == name.lastId;
+                AuditSegment segment = AuditSegment.open(directory, name.firstId, name.lastId, writable);
+                if (writable) {
+                    active = segment;
+                } else {
+                    sealed.add(segment);
+                }
+            }
+            if (active == null) {
+                active = AuditSegment.create(directory, logs.isEmpty() ? 1 : logs.get(logs.size() - 1).lastId + 1);
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+        activeStartedAt = System.currentTimeMillis();
+    }
+
+    private List<AuditSegment> segments() {
+        List<AuditSegment> all = new ArrayList<>(sealed);
+        if (active != null) {
+            all.add(active);
+        }
+        return all;
+    }
+
+    private static long lowerBound(LocalDateTime from) {
+        return from == null ? Long.MIN_VALUE : AuditSegment.toMillis(from);
+    }
+
+    private static long upperBound(LocalDateTime to) {
+        return to == null ? Long.MAX_VALUE : AuditSegment.toMillis(to);
+    }
+}
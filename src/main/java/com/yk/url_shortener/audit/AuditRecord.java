@@ -0,0 +1,14 @@
+package com.yk.url_shortener.audit;
+
+import java.time.LocalDateTime;
+
+/**
+ * One url.created event as kept in the audit log.
+ *
+ * @param createdAt when the link was created (from the event; the Kafka record time if it has none)
+ * @param shortCode the 7-character short code
+ * @param longUrl   the original URL
+ * @param shortUrl  the full short URL handed out
+ */
+public record AuditRecord(LocalDateTime createdAt, String shortCode, String longUrl, String shortUrl) {
+}
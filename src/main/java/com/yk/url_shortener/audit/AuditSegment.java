@@ -0,0 +1,572 @@
+package com.yk.url_shortener.audit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One append-only audit file ("audit-00000007.log") and its sparse time index ("audit-00000007.idx").
+ *
+ * Layout of the log — a run of self-describing blocks, one or more per appended batch:
+ *   [magic int][raw length int][compressed length int][record count int]
+ *   [min createdAt long][max createdAt long][crc32 int]          block header, 36 bytes
+ *   [records, DEFLATE-compressed]                                ~16 KB raw at most
+ *
+ * The index holds one entry per BLOCK (file offset + copy of the header), not per record. Kept in
+ * memory it answers "which blocks can hold links created between T1 and T2" without touching the
+ * log, and counts blocks that lie wholly inside the range without inflating them.
+ *
+ * Crash safety: a batch is fsynced to the log before its index entries are written. The newest
+ * segment is re-indexed from its block headers on open (bad crc or torn tail → cut off there);
+ * sealed segments were fsynced when sealed, their index is trusted unless it does not match the log.
+ *
+ * A segment written by compaction covers a range of ids: "audit-00000003-00000007.log".
+ */
+@Slf4j
+final class AuditSegment implements AutoCloseable {
+
+    private static final int MAGIC = 0x41554454; // "AUDT"
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 4 + 8 + 8 + 4;
+    private static final int INDEX_ENTRY_BYTES = 8 + HEADER_BYTES;
+    static final int TARGET_BLOCK_BYTES = 16 * 1024;
+
+    /** Receives decoded records; returning false stops the scan */
+    @FunctionalInterface
+    interface RecordSink {
+        boolean accept(long createdAtMillis, AuditRecord record) throws IOException;
+    }
+
+    final int firstId;
+    final int lastId;
+    final Path path;
+    private final Path indexPath;
+    private final FileChannel channel;
+    /** Open while the segment is written to, null once sealed */
+    private FileChannel index;
+
+    private final List<Block> blocks;
+    /** Written to the log, not yet synced and indexed */
+    private final List<Block> pending = new ArrayList<>();
+    private long end;
+    private long writePosition;
+    private long rawBytes;
+    private long recordCount;
+    private long minTime = Long.MAX_VALUE;
+    private long maxTime = Long.MIN_VALUE;
+
+    private record Block(long offset, int rawLength, int compressedLength, int count, long minTime, long maxTime,
+                         int crc) {
+
+        long end() {
+            return offset + HEADER_BYTES + compressedLength;
+        }
+
+        boolean overlaps(long from, long to) {
+            return maxTime >= from && minTime < to;
+        }
+
+        boolean within(long from, long to) {
+            return minTime >= from && maxTime < to;
+        }
+    }
+
+    private AuditSegment(int firstId, int lastId, Path path, Path indexPath, FileChannel channel, FileChannel index,
+                         List<Block> indexed) {
+        this.firstId = firstId;
+        this.lastId = lastId;
+        this.path = path;
+        this.indexPath = indexPath;
+        this.channel = channel;
+        this.index = index;
+        this.blocks = new ArrayList<>();
+        indexed.forEach(this::publish);
+        this.writePosition = end;
+    }
+
+    static Path pathFor(Path directory, int firstId, int lastId) {
+        return directory.resolve(baseName(firstId, lastId) + ".log");
+    }
+
+    static Path indexPathFor(Path directory, int firstId, int lastId) {
+        return directory.resolve(baseName(firstId, lastId) + ".idx");
+    }
+
+    private static String baseName(int firstId, int lastId) {
+        return firstId == lastId ? String.format("audit-%08d", firstId)
+                : String.format("audit-%08d-%08d", firstId, lastId);
+    }
+
+    /** A new, empty segment to append to */
+    static AuditSegment create(Path directory, int id) throws IOException {
+        return createAt(id, id, pathFor(directory, id, id), indexPathFor(directory, id, id));
+    }
+
+    private static AuditSegment createAt(int firstId, int lastId, Path path, Path indexPath) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            FileChannel index = FileChannel.open(indexPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            return new AuditSegment(firstId, lastId, path, indexPath, channel, index, List.of());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open an existing segment.
+     *
+     * @param writable the newest segment: re-indexed from the log and appended to
+     */
+    static AuditSegment open(Path directory, int firstId, int lastId, boolean writable) throws IOException {
+        Path path = pathFor(directory, firstId, lastId);
+        Path indexPath = indexPathFor(directory, firstId, lastId);
+        FileChannel channel = writable
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            List<Block> blocks = writable ? null : loadIndex(channel, indexPath);
+            if (blocks == null) {
+                blocks = scan(channel, path);
+                if (writable) {
+                    channel.truncate(blocks.isEmpty() ? 0 : blocks.get(blocks.size() - 1).end());
+                }
+                writeIndex(indexPath, blocks);
+            }
+            FileChannel index = writable
+                    ? FileChannel.open(indexPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND) : null;
+            return new AuditSegment(firstId, lastId, path, indexPath, channel, index, blocks);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Write a complete segment — to temp files, fsynced, then renamed into place.
+     * Used by compaction; the compression level comes with the deflater.
+     */
+    static AuditSegment write(Path directory, int firstId, int lastId, Deflater deflater,
+                              RecordSource source) throws IOException {
+        Path path = pathFor(directory, firstId, lastId);
+        Path indexPath = indexPathFor(directory, firstId, lastId);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Path indexTemp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        try (AuditSegment segment = createAt(firstId, lastId, temp, indexTemp)) {
+            BlockEncoder encoder = segment.new BlockEncoder(deflater);
+            source.forEach((millis, record) -> {
+                encoder.add(millis, record);
+                return true;
+            });
+            encoder.flush();
+            segment.commit(true);
+            segment.seal();
+        }
+        // Index first: a log without its index is re-indexed, an index without its log is dropped
+        Files.move(indexTemp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(directory, firstId, lastId, false);
+    }
+
+    @FunctionalInterface
+    interface RecordSource {
+        void forEach(RecordSink sink) throws IOException;
+    }
+
+    /** Encode and write records as blocks — invisible until {@link #commit} */
+    void append(List<AuditRecord> records, Deflater deflater) throws IOException {
+        BlockEncoder encoder = new BlockEncoder(deflater);
+        for (AuditRecord record : records) {
+            encoder.add(toMillis(record.createdAt()), record);
+        }
+        encoder.flush();
+    }
+
+    /** Make appended blocks durable (fsync) and visible to readers */
+    void commit(boolean fsync) throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+        ByteBuffer entries = ByteBuffer.allocate(pending.size() * INDEX_ENTRY_BYTES);
+        for (Block block : pending) {
+            entries.putLong(block.offset);
+            putHeader(entries, block);
+        }
+        entries.flip();
+        while (entries.hasRemaining()) {
+            index.write(entries);
+        }
+        pending.forEach(this::publish);
+        pending.clear();
+    }
+
+    /** Drop appended blocks that were not committed — after a failed write */
+    void abort() throws IOException {
+        pending.clear();
+        writePosition = end;
+        channel.truncate(end);
+    }
+
+    /** No more appends: everything forced to disk */
+    void seal() throws IOException {
+        if (index == null) {
+            return;
+        }
+        channel.force(true);
+        index.force(true);
+        index.close();
+        index = null;
+    }
+
+    boolean sealed() {
+        return index == null;
+    }
+
+    /** Records created in [from, to) in log order, blocks outside the range are skipped via the index */
+    boolean scan(long from, long to, RecordSink sink) throws IOException {
+        for (Block block : blocks) {
+            if (block.overlaps(from, to) && !readBlock(block, (millis, record) ->
+                    millis < from || millis >= to || sink.accept(millis, record))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Records created in [from, to) — only blocks straddling a range boundary are inflated */
+    long count(long from, long to) throws IOException {
+        long total = 0;
+        for (Block block : blocks) {
+            if (block.within(from, to)) {
+                total += block.count;
+            } else if (block.overlaps(from, to)) {
+                long[] matched = new long[1];
+                readBlock(block, (millis, record) -> {
+                    if (millis >= from && millis < to) {
+                        matched[0]++;
+                    }
+                    return true;
+                });
+                total += matched[0];
+            }
+        }
+        return total;
+    }
+
+    void forEach(RecordSink sink) throws IOException {
+        scan(Long.MIN_VALUE, Long.MAX_VALUE, sink);
+    }
+
+    boolean isEmpty() {
+        return blocks.isEmpty();
+    }
+
+    long sizeBytes() {
+        return end;
+    }
+
+    long rawBytes() {
+        return rawBytes;
+    }
+
+    long recordCount() {
+        return recordCount;
+    }
+
+    int blockCount() {
+        return blocks.size();
+    }
+
+    /** Earliest createdAt in the segment (epoch millis, Long.MAX_VALUE when empty) */
+    long minTime() {
+        return minTime;
+    }
+
+    /** Latest createdAt in the segment (epoch millis, Long.MIN_VALUE when empty) */
+    long maxTime() {
+        return maxTime;
+    }
+
+    /** Close and remove both files */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(indexPath);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (index != null) {
+                index.close();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+                (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    private void publish(Block block) {
+        blocks.add(block);
+        end = block.end();
+        rawBytes += block.rawLength;
+        recordCount += block.count;
+        minTime = Math.min(minTime, block.minTime);
+        maxTime = Math.max(maxTime, block.maxTime);
+    }
+
+    // ─────────────────────────────────────────────
+    // Encoding — per record:
+    // [createdAt long (epoch millis UTC)][codeLen short][code][longUrlLen int][longUrl][shortUrlLen short][shortUrl]
+    // (null and "" are stored alike and read back as null)
+    // ─────────────────────────────────────────────
+
+    /** Collects records into one block and writes it when ~TARGET_BLOCK_BYTES of raw data are buffered */
+    private final class BlockEncoder {
+
+        private final Deflater deflater;
+        private final ByteArrayOutputStream raw = new ByteArrayOutputStream(TARGET_BLOCK_BYTES + 2048);
+        private final DataOutputStream data = new DataOutputStream(raw);
+        private int count;
+        private long blockMin = Long.MAX_VALUE;
+        private long blockMax = Long.MIN_VALUE;
+
+        private BlockEncoder(Deflater deflater) {
+            this.deflater = deflater;
+        }
+
+        void add(long millis, AuditRecord record) throws IOException {
+            data.writeLong(millis);
+            writeString(data, record.shortCode(), false);
+            writeString(data, record.longUrl(), true);
+            writeString(data, record.shortUrl(), false);
+            count++;
+            blockMin = Math.min(blockMin, millis);
+            blockMax = Math.max(blockMax, millis);
+            if (raw.size() >= TARGET_BLOCK_BYTES) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            writeBlock(raw.toByteArray(), count, blockMin, blockMax, deflater);
+            raw.reset();
+            count = 0;
+            blockMin = Long.MAX_VALUE;
+            blockMax = Long.MIN_VALUE;
+        }
+    }
+
+    private void writeBlock(byte[] raw, int count, long blockMin, long blockMax, Deflater deflater)
+            throws IOException {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 3 + 64);
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            compressed.write(chunk, 0, deflater.deflate(chunk));
+        }
+        byte[] bytes = compressed.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        Block block = new Block(writePosition, raw.length, bytes.length, count, blockMin, blockMax,
+                (int) crc.getValue());
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + bytes.length);
+        putHeader(buffer, block);
+        buffer.put(bytes).flip();
+        writePosition += writeFully(channel, buffer, writePosition);
+        pending.add(block);
+    }
+
+    private static void putHeader(ByteBuffer buffer, Block block) {
+        buffer.putInt(MAGIC).putInt(block.rawLength).putInt(block.compressedLength).putInt(block.count)
+                .putLong(block.minTime).putLong(block.maxTime).putInt(block.crc);
+    }
+
+    /** @return the header at the buffer's position, null if it is not one */
+    private static Block getHeader(ByteBuffer buffer, long offset) {
+        if (buffer.getInt() != MAGIC) {
+            return null;
+        }
+        Block block = new Block(offset, buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getLong(),
+                buffer.getLong(), buffer.getInt());
+        return block.rawLength < 0 || block.compressedLength < 0 || block.count <= 0 ? null : block;
+    }
+
+    private boolean readBlock(Block block, RecordSink sink) throws IOException {
+        ByteBuffer compressed = readAt(channel, block.offset + HEADER_BYTES, block.compressedLength);
+        CRC32 crc = new CRC32();
+        crc.update(compressed.duplicate());
+        if ((int) crc.getValue() != block.crc) {
+            throw new IOException("Corrupt audit block at offset " + block.offset + " of " + path.getFileName());
+        }
+        byte[] raw = new byte[block.rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                length += inflater.inflate(raw, length, raw.length - length);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt audit block in " + path.getFileName(), e);
+        } finally {
+            inflater.end();
+        }
+        try (DataInputStream data = new DataInputStream(new ByteArrayInputStream(raw))) {
+            while (data.available() > 0) {
+                long millis = data.readLong();
+                AuditRecord record = new AuditRecord(fromMillis(millis), readString(data, false),
+                        readString(data, true), readString(data, false));
+                if (!sink.accept(millis, record)) {
+                    return false;
+                }
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated audit block in " + path.getFileName(), e);
+        }
+        return true;
+    }
+
+    private static void writeString(DataOutputStream data, String value, boolean wide) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        if (wide) {
+            data.writeInt(bytes.length);
+        } else {
+            data.writeShort(bytes.length);
+        }
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data, boolean wide) throws IOException {
+        byte[] bytes = new byte[wide ? data.readInt() : data.readUnsignedShort()];
+        data.readFully(bytes);
+        return bytes.length == 0 ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ─────────────────────────────────────────────
+    // Index
+    // ─────────────────────────────────────────────
+
+    /** The saved index, or null if it is missing or does not describe exactly the log's blocks */
+    private static List<Block> loadIndex(FileChannel channel, Path indexPath) throws IOException {
+        if (!Files.exists(indexPath)) {
+            return null;
+        }
+        long indexSize = Files.size(indexPath);
+        if (indexSize % INDEX_ENTRY_BYTES != 0 || indexSize > Integer.MAX_VALUE) {
+            return null;
+        }
+        ByteBuffer entries;
+        try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            entries = readAt(index, 0, (int) indexSize);
+        }
+        List<Block> blocks = new ArrayList<>();
+        long expected = 0;
+        while (entries.hasRemaining()) {
+            long offset = entries.getLong();
+            Block block = getHeader(entries, offset);
+            if (block == null || offset != expected) {
+                return null;
+            }
+            blocks.add(block);
+            expected = block.end();
+        }
+        return expected == channel.size() ? blocks : null;
+    }
+
+    /** Rebuild the index from the block headers, up to the first block that does not check out */
+    private static List<Block> scan(FileChannel channel, Path path) throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        long size = channel.size();
+        long position = 0;
+        while (position + HEADER_BYTES <= size) {
+            Block block = getHeader(readAt(channel, position, HEADER_BYTES), position);
+            if (block == null || block.end() > size) {
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(readAt(channel, position + HEADER_BYTES, block.compressedLength));
+            if ((int) crc.getValue() != block.crc) {
+                break;
+            }
+            blocks.add(block);
+            position = block.end();
+        }
+        if (position < size) {
+            log.warn("Audit segment {}: {} bytes after offset {} are torn or corrupt", path.getFileName(),
+                    size - position, position);
+        }
+        return blocks;
+    }
+
+    private static void writeIndex(Path indexPath, List<Block> blocks) throws IOException {
+        ByteBuffer entries = ByteBuffer.allocate(blocks.size() * INDEX_ENTRY_BYTES);
+        for (Block block : blocks) {
+            entries.putLong(block.offset);
+            putHeader(entries, block);
+        }
+        entries.flip();
+        try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(index, entries, 0);
+            index.force(true);
+        }
+    }
+
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of audit segment at " + (position + buffer.position()));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += out.write(buffer, position + written);
+        }
+        return written;
+    }
+}
@@ -0,0 +1,194 @@
+package com.yk.url_shortener.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One endpoint class's share of the request threads and of the DB connections.
+ *
+ * How it works:
+ * - At most max-concurrent requests of the class run at once. A request over that waits for a slot
+ *   for up to queue-timeout-ms, with at most max-queued requests waiting — past either, it is refused
+ *   at once (503) instead of holding a request thread for nothing
+ * - A waiting request still holds its Tomcat thread, so a class can never hold more than
+ *   max-concurrent + max-queued of them: the rest of the pool is left to the other classes
+ * - Connection partition (max-connections &gt; 0): at most that many of the class's request threads
+ *   hold DB connections at once, waiting up to connection-timeout-ms for a permit
+ *   ({@link BulkheadDataSource}). The permit is per thread: a nested connection (REQUIRES_NEW,
+ *   cross-shard reads) reuses the one its thread already holds — waiting for a permit the thread
+ *   itself holds would only end at the timeout, and would deadlock max-connections such requests
+ *
+ * The bulkhead of the request being served is bound to its thread ({@link #current()}).
+ *
+ * Metrics (tag bulkhead=&lt;name&gt;):
+ *   url.bulkhead.active               — requests running
+ *   url.bulkhead.queued               — requests waiting for a slot
+ *   url.bulkhead.saturation           — active / max-concurrent
+ *   url.bulkhead.wait                 — time spent waiting by admitted requests that had to wait
+ *   url.bulkhead.rejected{reason}     — queue-full | timeout | connections
+ *   url.bulkhead.connections.active   — connection permits held (partitioned classes only)
+ */
+public class Bulkhead {
+
+    private static final ThreadLocal<Bulkhead> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long queueTimeoutMillis;
+    private final int maxConnections;
+    private final long connectionTimeoutMillis;
+
+    private final Semaphore slots;
+    private final Semaphore connections;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    /** Open connections of the calling thread under its permit */
+    private final ThreadLocal<AtomicInteger> heldByThread = new ThreadLocal<>();
+
+    private final Timer waitTimer;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+    private final Counter rejectedConnections;
+
+    public Bulkhead(String name, int maxConcurrent, int maxQueued, long queueTimeoutMillis,
+                    int maxConnections, long connectionTimeoutMillis, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.queueTimeoutMillis = Math.max(0, queueTimeoutMillis);
+        this.maxConnections = Math.max(0, maxConnections);
+        this.connectionTimeoutMillis = Math.max(0, connectionTimeoutMillis);
+        this.slots = new Semaphore(this.maxConcurrent);
+        this.connections = new Semaphore(Math.max(1, this.maxConnections));
+
+        this.waitTimer = meterRegistry.timer("url.bulkhead.wait", "bulkhead", name);
+        this.rejectedQueueFull = meterRegistry.counter("url.bulkhead.rejected", "bulkhead", name, "reason", "queue-full");
+        this.rejectedTimeout = meterRegistry.counter("url.bulkhead.rejected", "bulkhead", name, "reason", "timeout");
+        this.rejectedConnections = meterRegistry.counter("url.bulkhead.rejected", "bulkhead", name,
+                "reason", "connections");
+        Gauge.builder("url.bulkhead.active", this, Bulkhead::active).tag("bulkhead", name).register(meterRegistry);
+        Gauge.builder("url.bulkhead.queued", queued, AtomicInteger::get).tag("bulkhead", name).register(meterRegistry);
+        Gauge.builder("url.bulkhead.saturation", this, bulkhead -> (double) bulkhead.active() / bulkhead.maxConcurrent)
+                .tag("bulkhead", name).register(meterRegistry);
+        if (this.maxConnections > 0) {
+            Gauge.builder("url.bulkhead.connections.active", activeConnections, AtomicInteger::get)
+                    .tag("bulkhead", name).register(meterRegistry);
+        }
+    }
+
+    /** The bulkhead of the request running on this thread, or null */
+    public static Bulkhead current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Take a slot — at once, or after waiting in the queue for up to queue-timeout-ms.
+     * On success the bulkhead is bound to the calling thread until {@link #exit()}.
+     *
+     * @return null when admitted, else the rejection reason (queue-full or timeout)
+     */
+    public String tryEnter() {
+        if (!slots.tryAcquire()) {
+            if (queued.incrementAndGet() > maxQueued) {
+                queued.decrementAndGet();
+                rejectedQueueFull.increment();
+                return "queue-full";
+            }
+            long start = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = slots.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            } finally {
+                queued.decrementAndGet();
+            }
+            if (!acquired) {
+                rejectedTimeout.increment();
+                return "timeout";
+            }
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        CURRENT.set(this);
+        return null;
+    }
+
+    /** Give the slot back — once per successful {@link #tryEnter()} */
+    public void exit() {
+        CURRENT.remove();
+        slots.release();
+    }
+
+    /** Whether this class has its own share of the DB connections */
+    public boolean partitionsConnections() {
+        return maxConnections > 0;
+    }
+
+    /**
+     * Take a connection permit for the calling thread, waiting up to connection-timeout-ms — or join
+     * the permit the thread already holds.
+     *
+     * @return the thread's hold, to pass to {@link #releaseConnection} once per connection; null on timeout
+     */
+    AtomicInteger tryAcquireConnection() {
+        AtomicInteger held = heldByThread.get();
+        if (held != null && held.getAndUpdate(count -> count > 0 ? count + 1 : count) > 0) {
+            return held;
+        }
+        boolean acquired;
+        try {
+            acquired = connections.tryAcquire(connectionTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejectedConnections.increment();
+            return null;
+        }
+        activeConnections.incrementAndGet();
+        held = new AtomicInteger(1);
+        heldByThread.set(held);
+        return held;
+    }
+
+    /** One connection of the hold closed — the permit goes back with the last one */
+    void releaseConnection(AtomicInteger held) {
+        if (held.decrementAndGet() == 0) {
+            if (heldByThread.get() == held) {
+                heldByThread.remove();
+            }
+            activeConnections.decrementAndGet();
+            connections.release();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int active() {
+        return maxConcurrent - slots.availablePermits();
+    }
+
+    public int queued() {
+        return queued.get();
+    }
+
+    /** Request threads this class can hold at most */
+    public int maxThreads() {
+        return maxConcurrent + maxQueued;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+}
@@ -0,0 +1,89 @@
+package com.yk.url_shortener.bulkhead;
+
+import com.yk.url_shortener.exception.BulkheadFullException;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connection partitions on top of the application DataSource (pool, shard router or replica router).
+ *
+ * A connection requested on a thread serving a partitioned bulkhead first takes one of that
+ * bulkhead's connection permits, and gives it back when the connection is closed — so /api calls
+ * waiting on collision checks can never drain the pool the redirects' counter updates need.
+ * Permits are re-entrant per thread: a connection opened while the thread already holds one
+ * shares its permit, which goes back when the last of them is closed.
+ * Threads outside a bulkhead (scheduled jobs, consumers, fan-out workers) and unpartitioned
+ * bulkheads go straight to the pool.
+ *
+ * No permit within connection-timeout-ms → {@link BulkheadFullException} (503).
+ */
+public class BulkheadDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    public BulkheadDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(() -> super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection(() -> super.getConnection(username, password));
+    }
+
+    /** Replaces the wrapped bean for Spring's inferred destroy method — closes the pool on shutdown */
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+
+    private static Connection getConnection(ConnectionSupplier supplier) throws SQLException {
+        Bulkhead bulkhead = Bulkhead.current();
+        if (bulkhead == null || !bulkhead.partitionsConnections()) {
+            return supplier.get();
+        }
+        AtomicInteger held = bulkhead.tryAcquireConnection();
+        if (held == null) {
+            throw new BulkheadFullException(bulkhead.getName(), "connections");
+        }
+        Connection connection;
+        try {
+            connection = supplier.get();
+        } catch (SQLException | RuntimeException e) {
+            bulkhead.releaseConnection(held);
+            throw e;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(BulkheadDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                        try {
+                            connection.close();
+                        } finally {
+                            bulkhead.releaseConnection(held);
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -0,0 +1,35 @@
+package com.yk.url_shortener.bulkhead;
+
+import com.yk.url_shortener.exception.BulkheadFullException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Admits a request into its endpoint class's bulkhead before the handler runs, and frees the slot
+ * once the response is complete. A refused request never reaches the controller: it fails fast
+ * with {@link BulkheadFullException} (503 + Retry-After, via GlobalExceptionHandler).
+ */
+public class BulkheadInterceptor implements HandlerInterceptor {
+
+    private final Bulkhead bulkhead;
+
+    public BulkheadInterceptor(Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String rejection = bulkhead.tryEnter();
+        if (rejection != null) {
+            throw new BulkheadFullException(bulkhead.getName(), rejection);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        bulkhead.exit();
+    }
+}
@@ -0,0 +1,128 @@
+package com.yk.url_shortener.config;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.util.CountMinSketch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Per-key TTL for the "urls" cache, based on how often each key is read.
+ *
+ * Problem with one static TTL (1 hour):
+ * - A link clicked once sits in Redis for a full hour — wasted memory
+ * - A link clicked 1000x/hour expires every hour anyway — needless DB reload churn
+ *
+ * How it works:
+ * - The "urls" cache runs with time-to-idle enabled, so every cache READ calls
+ *   getTimeToLive(key, null) and Redis refreshes the TTL with GETEX
+ * - Each read bumps a decayed access counter for the key (Count-Min sketch,
+ *   all counters halved every half-life, default 30 min → old popularity fades)
+ * - TTL = min + (max - min) * f / (f + k)
+ *     f = decayed access count,  k = half-saturation (default 20 reads)
+ *   → never-read entries get the MIN TTL (5 min), popular entries approach the MAX (6 hours)
+ *
+ * The counter lives in this process, not next to the entry in Redis: storing it with the entry
+ * would turn every cache read into a read-modify-write and change the value format @Cacheable
+ * reads. Each instance therefore sizes TTLs from the reads it serves — with N instances behind a
+ * balancer every one sees ~1/N of a link's reads, which only shifts where on the curve it sits.
+ *
+ * Metrics:
+ *   cache.urls.ttl.assigned     — distribution of assigned TTLs (seconds)
+ *   cache.urls.memory.saved     — byte-seconds NOT spent vs the static 1h TTL (entries expiring earlier)
+ *   cache.urls.memory.extended  — byte-seconds spent beyond the static TTL (hot entries kept longer)
+ * Hit ratio: cache.gets{result=hit|miss} and cache.urls.hit.ratio (RedisConfig enables statistics).
+ */
+@Slf4j
+@Component
+public class AdaptiveTtlFunction implements RedisCacheWriter.TtlFunction {
+
+    /** Static TTL the "urls" cache used before adaptive TTLs — the baseline for "memory saved" */
+    static final Duration STATIC_TTL = Duration.ofHours(1);
+
+    /** Rough per-entry overhead in Redis beyond the long URL itself (key, JSON fields, dict entry) */
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final CountMinSketch accessCounts = new CountMinSketch(4, 1 << 16);
+
+    private final long minTtlSeconds;
+    private final long maxTtlSeconds;
+    private final double halfSaturation;
+
+    private final DistributionSummary assignedTtl;
+    private final Counter memorySaved;
+    private final Counter memoryExtended;
+
+    public AdaptiveTtlFunction(MeterRegistry meterRegistry,
+                               @Value("${app.cache.adaptive-ttl.min:5m}") Duration minTtl,
+                               @Value("${app.cache.adaptive-ttl.max:6h}") Duration maxTtl,
+                               @Value("${app.cache.adaptive-ttl.half-saturation:20}") double halfSaturation) {
+        this.minTtlSeconds = minTtl.toSeconds();
+        this.maxTtlSeconds = Math.max(minTtlSeconds, maxTtl.toSeconds());
+        this.halfSaturation = halfSaturation;
+
+        this.assignedTtl = DistributionSummary.builder("cache.urls.ttl.assigned")
+                .baseUnit("seconds")
+                .description("TTL assigned to \"urls\" cache entries")
+                .register(meterRegistry);
+        this.memorySaved = Counter.builder("cache.urls.memory.saved")
+                .baseUnit("byte-seconds")
+                .description("Redis memory not spent compared to the static 1h TTL")
+                .register(meterRegistry);
+        this.memoryExtended = Counter.builder("cache.urls.memory.extended")
+                .baseUnit("byte-seconds")
+                .description("Redis memory spent beyond the static 1h TTL on frequently read entries")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param key   the cache key (short code)
+     * @param value the value being written, or null when RedisCache is refreshing the TTL on a read
+     */
+    @Override
+    public Duration getTimeToLive(Object key, @Nullable Object value) {
+        String shortCode = String.valueOf(key);
+        if (value == null) {
+            // Time-to-idle read → this IS an access
+            accessCounts.add(shortCode);
+        }
+        long ttlSeconds = ttlFor(accessCounts.estimate(shortCode));
+        if (value instanceof Url url) {
+            recordMemoryDelta(url, ttlSeconds);
+        }
+        assignedTtl.record(ttlSeconds);
+        return Duration.ofSeconds(ttlSeconds);
+    }
+
+    long ttlFor(long accessCount) {
+        double saturation = accessCount / (accessCount + halfSaturation);
+        return minTtlSeconds + Math.round((maxTtlSeconds - minTtlSeconds) * saturation);
+    }
+
+    /**
+     * Halve every access counter once per half-life so yesterday's viral link
+     * doesn't keep a 6-hour TTL forever.
+     */
+    @Scheduled(fixedDelayString = "${app.cache.adaptive-ttl.half-life-ms:1800000}")
+    public void decay() {
+        accessCounts.decay();
+    }
+
+    private void recordMemoryDelta(Url url, long ttlSeconds) {
+        int approxBytes = ENTRY_OVERHEAD_BYTES + (url.getLongUrl() != null ? url.getLongUrl().length() : 0);
+        long deltaSeconds = STATIC_TTL.toSeconds() - ttlSeconds;
+        if (deltaSeconds > 0) {
+            memorySaved.increment((double) approxBytes * deltaSeconds);
+        } else if (deltaSeconds < 0) {
+            memoryExtended.increment((double) approxBytes * -deltaSeconds);
+        }
+    }
+}
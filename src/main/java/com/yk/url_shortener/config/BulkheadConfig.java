@@ -0,0 +1,115 @@
+package com.yk.url_shortener.config;
+
+import com.yk.url_shortener.bulkhead.Bulkhead;
+import com.yk.url_shortener.bulkhead.BulkheadDataSource;
+import com.yk.url_shortener.bulkhead.BulkheadInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Endpoint bulkheads — only active when app.bulkhead.enabled=true.
+ *
+ *   GET /{shortCode}                  ──► redirect   (the revenue path)
+ *   /api/metrics/**, /api/stats/**    ──► metrics    (recomputes, leaderboard pages)
+ *   other /api/**                     ──► api        (shorten: collision checks, reachability)
+ *   everything else (actuator, swagger, h2-console, /health) is not bulkheaded — their paths are
+ *   excluded from the redirect pattern explicitly, as /actuator alone would match it
+ *
+ * Every endpoint class shares Tomcat's worker pool, but a class can only hold its own
+ * max-concurrent + max-queued threads and its own max-connections DB connections — so a saturated
+ * API side is refused with 503 while the redirects keep the rest of the threads and connections
+ * (see {@link Bulkhead}). Keep server.tomcat.threads.max above the api + metrics thread shares.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.bulkhead.enabled", havingValue = "true")
+public class BulkheadConfig implements WebMvcConfigurer {
+
+    private final Bulkhead redirect;
+    private final Bulkhead api;
+    private final Bulkhead metrics;
+    /** Single-segment paths that are not short codes */
+    private final List<String> notRedirects;
+
+    public BulkheadConfig(MeterRegistry meterRegistry,
+                          @Value("${app.bulkhead.redirect.max-concurrent:150}") int redirectConcurrent,
+                          @Value("${app.bulkhead.redirect.max-queued:50}") int redirectQueued,
+                          @Value("${app.bulkhead.redirect.queue-timeout-ms:100}") long redirectQueueTimeoutMs,
+                          @Value("${app.bulkhead.redirect.max-connections:0}") int redirectConnections,
+                          @Value("${app.bulkhead.api.max-concurrent:30}") int apiConcurrent,
+                          @Value("${app.bulkhead.api.max-queued:20}") int apiQueued,
+                          @Value("${app.bulkhead.api.queue-timeout-ms:500}") long apiQueueTimeoutMs,
+                          @Value("${app.bulkhead.api.max-connections:4}") int apiConnections,
+                          @Value("${app.bulkhead.metrics.max-concurrent:4}") int metricsConcurrent,
+                          @Value("${app.bulkhead.metrics.max-queued:4}") int metricsQueued,
+                          @Value("${app.bulkhead.metrics.queue-timeout-ms:1000}") long metricsQueueTimeoutMs,
+                          @Value("${app.bulkhead.metrics.max-connections:2}") int metricsConnections,
+                          @Value("${app.bulkhead.connection-timeout-ms:1000}") long connectionTimeoutMs,
+                          @Value("${server.tomcat.threads.max:200}") int tomcatThreads,
+                          @Value("${management.endpoints.web.base-path:/actuator}") String actuatorPath,
+                          @Value("${springdoc.api-docs.path:/v3/api-docs}") String apiDocsPath,
+                          @Value("${springdoc.swagger-ui.path:/swagger-ui.html}") String swaggerUiPath,
+                          @Value("${spring.h2.console.path:/h2-console}") String h2ConsolePath) {
+        this.redirect = new Bulkhead("redirect", redirectConcurrent, redirectQueued, redirectQueueTimeoutMs,
+                redirectConnections, connectionTimeoutMs, meterRegistry);
+        this.api = new Bulkhead("api", apiConcurrent, apiQueued, apiQueueTimeoutMs,
+                apiConnections, connectionTimeoutMs, meterRegistry);
+        this.metrics = new Bulkhead("metrics", metricsConcurrent, metricsQueued, metricsQueueTimeoutMs,
+                metricsConnections, connectionTimeoutMs, meterRegistry);
+        this.notRedirects = List.of("/health", "/error",
+                actuatorPath, actuatorPath + "/**",
+                apiDocsPath, apiDocsPath + "/**",
+                swaggerUiPath, "/swagger-ui", "/swagger-ui/**",
+                h2ConsolePath, h2ConsolePath + "/**");
+
+        int leftForRedirects = tomcatThreads - api.maxThreads() - metrics.maxThreads();
+        if (leftForRedirects < Math.min(redirect.maxThreads(), tomcatThreads / 2)) {
+            log.warn("Bulkheads: api and metrics may hold {} of {} Tomcat threads — only {} left for redirects",
+                    api.maxThreads() + metrics.maxThreads(), tomcatThreads, leftForRedirects);
+        }
+        log.info("Bulkheads enabled: redirect {}+{} threads, api {}+{} threads / {} connections, "
+                        + "metrics {}+{} threads / {} connections",
+                redirectConcurrent, redirectQueued, apiConcurrent, apiQueued, apiConnections,
+                metricsConcurrent, metricsQueued, metricsConnections);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new BulkheadInterceptor(redirect))
+                .addPathPatterns("/{shortCode:[a-zA-Z0-9]+}")
+                .excludePathPatterns(notRedirects);
+        registry.addInterceptor(new BulkheadInterceptor(metrics))
+                .addPathPatterns("/api/metrics/**", "/api/stats/**");
+        registry.addInterceptor(new BulkheadInterceptor(api))
+                .addPathPatterns("/api/**")
+                .excludePathPatterns("/api/metrics/**", "/api/stats/**");
+    }
+
+    /**
+     * Wraps the application DataSource (pool, shard router or replica router) with the connection
+     * partitions. Static — BeanPostProcessors are created before regular beans.
+     */
+    @Bean
+    public static BeanPostProcessor bulkheadDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof BulkheadDataSource)) {
+                    return new BulkheadDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
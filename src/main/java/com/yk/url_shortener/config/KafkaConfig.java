@@ -1,5 +1,6 @@
 package com.yk.url_shortener.config;
 
+import com.yk.url_shortener.service.SkewAwarePartitioner;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
@@ -27,6 +28,7 @@ import java.util.Map;
  * Topics:
  *  - url.created  : fired when a new short URL is created
  *  - url.accessed : fired on every redirect (async access count update)
+ *                   hot short codes are salted across its partitions (SkewAwarePartitioner)
  *
  * Graceful degradation:
  *  spring.kafka.enabled=false (default for local/IDE runs) — all beans below are
@@ -41,6 +43,30 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    @Value("${app.kafka.url-accessed.partitions:3}")
+    private int urlAccessedPartitions;
+
+    @Value("${app.kafka.listener-concurrency:3}")
+    private int listenerConcurrency;
+
+    @Value("${app.kafka.exactly-once.max-poll-records:2000}")
+    private int exactlyOnceMaxPollRecords;
+
+    @Value("${app.audit.max-poll-records:1000}")
+    private int auditMaxPollRecords;
+
+    @Value("${app.kafka.skew-partitioner.enabled:true}")
+    private boolean skewPartitionerEnabled;
+
+    @Value("${app.kafka.skew-partitioner.hot-share:0.05}")
+    private double skewHotShare;
+
+    @Value("${app.kafka.skew-partitioner.window-ms:1000}")
+    private long skewWindowMs;
+
+    @Value("${app.kafka.skew-partitioner.min-records:1000}")
+    private long skewMinRecords;
+
     // ─────────────────────────────────────────────
     // Topics — only created when Kafka is enabled
     // ─────────────────────────────────────────────
@@ -58,7 +84,7 @@ public class KafkaConfig {
     @ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true", matchIfMissing = false)
     public NewTopic urlAccessedTopic() {
         return TopicBuilder.name("url.accessed")
-                .partitions(3)
+                .partitions(urlAccessedPartitions)
                 .replicas(1)
                 .build();
     }
@@ -79,6 +105,14 @@ public class KafkaConfig {
         config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
         config.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 3000);
         config.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 3000);
+        if (skewPartitionerEnabled) {
+            // Hot short codes on url.accessed go to any partition; everything else is hashed as usual
+            config.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, SkewAwarePartitioner.class);
+            config.put(SkewAwarePartitioner.TOPICS, "url.accessed");
+            config.put(SkewAwarePartitioner.HOT_SHARE, skewHotShare);
+            config.put(SkewAwarePartitioner.WINDOW_MS, skewWindowMs);
+            config.put(SkewAwarePartitioner.MIN_RECORDS, skewMinRecords);
+        }
         return new DefaultKafkaProducerFactory<>(config);
     }
 
@@ -116,7 +150,43 @@ public class KafkaConfig {
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.RECORD);
-        factory.setConcurrency(3);
+        // Starting point — ConsumerConcurrencyController adjusts it at runtime (app.kafka.autoscale.enabled)
+        factory.setConcurrency(listenerConcurrency);
+        return factory;
+    }
+
+    /**
+     * Batch listener for ExactlyOnceClickConsumer: offsets are stored in the database with the
+     * counters, the Kafka commit is once per poll and only feeds lag monitoring
+     */
+    @Bean
+    @ConditionalOnProperty(name = {"spring.kafka.enabled", "app.kafka.exactly-once.enabled"}, havingValue = "true")
+    public ConcurrentKafkaListenerContainerFactory<String, Object> exactlyOnceListenerContainerFactory() {
+        Map<String, Object> config = new HashMap<>(consumerFactory().getConfigurationProperties());
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, exactlyOnceMaxPollRecords);
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(config));
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.setConcurrency(listenerConcurrency);
+        return factory;
+    }
+
+    /**
+     * Batch listener for url.created: each poll is appended to the audit log as one batch
+     * (one fsync), the offset is committed after that
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true", matchIfMissing = false)
+    public ConcurrentKafkaListenerContainerFactory<String, Object> auditListenerContainerFactory() {
+        Map<String, Object> config = new HashMap<>(consumerFactory().getConfigurationProperties());
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, auditMaxPollRecords);
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(config));
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
         return factory;
     }
 }
@@ -0,0 +1,112 @@
+package com.yk.url_shortener.config;
+
+import com.yk.url_shortener.replication.ReadWriteDataSources;
+import com.yk.url_shortener.replication.ReadYourWritesInterceptor;
+import com.yk.url_shortener.replication.RecentWritesTracker;
+import com.yk.url_shortener.replication.ReplicaRoutingDataSource;
+import com.yk.url_shortener.repository.UrlRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read/write split — only active when app.db.replicas.enabled=true.
+ *
+ *   read-write transaction (save, @Transactional writes) ──► primary
+ *   read-only transaction  (repository reads, @Transactional(readOnly = true)) ──► replicas, round-robin
+ *                          ... unless the key was written here recently ──► primary
+ *
+ * How the route is picked:
+ *   LazyConnectionDataSourceProxy only opens the physical connection on the first statement,
+ *   when the transaction's read-only flag is already known — read-only connections come from
+ *   the "read-only DataSource" ({@link ReplicaRoutingDataSource}), all others from the primary.
+ *
+ * Pool metrics: one Hikari pool per route — hikaricp.connections.* tagged pool=primary|replica-N.
+ *
+ * Mutually exclusive with app.db.sharding.enabled (each shard would need its own replicas).
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.db.replicas.enabled", havingValue = "true")
+public class ReadWriteDataSourceConfig {
+
+    @Bean
+    public ReadWriteDataSources readWriteDataSources(@Value("${spring.datasource.url}") String primaryUrl,
+                                                     @Value("${app.db.replicas.urls}") List<String> replicaUrls,
+                                                     @Value("${spring.datasource.username:sa}") String username,
+                                                     @Value("${spring.datasource.password:}") String password,
+                                                     @Value("${app.db.replicas.pool-size:10}") int poolSize,
+                                                     @Value("${app.db.sharding.enabled:false}") boolean shardingEnabled,
+                                                     MeterRegistry meterRegistry) {
+        if (shardingEnabled) {
+            throw new IllegalStateException(
+                    "app.db.replicas.enabled and app.db.sharding.enabled cannot be combined");
+        }
+        HikariDataSource primary = pool("primary", primaryUrl, username, password, poolSize, meterRegistry);
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            replicas.add(pool("replica-" + i, replicaUrls.get(i).trim(), username, password, poolSize, meterRegistry));
+        }
+        log.info("Read/write split enabled: primary + {} replicas {}", replicas.size(), replicaUrls);
+        return new ReadWriteDataSources(primary, replicas);
+    }
+
+    /**
+     * Primary DataSource for JPA. Spring Boot's own DataSource auto-config backs off.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteDataSources readWriteDataSources) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(readWriteDataSources.getPrimary());
+        proxy.setReadOnlyDataSource(new ReplicaRoutingDataSource(
+                readWriteDataSources.getPrimary(), readWriteDataSources.getReplicas()));
+        return proxy;
+    }
+
+    /**
+     * Adds read-your-writes tracking to the UrlRepository proxy, in front of the
+     * transaction interceptor so the route is decided before the transaction starts.
+     * Static — BeanPostProcessors are created before regular beans.
+     */
+    @Bean
+    public static BeanPostProcessor readYourWritesRepositoryPostProcessor(
+            ObjectProvider<RecentWritesTracker> recentWritesTracker) {
+        ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(recentWritesTracker);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean
+                        && UrlRepository.class.equals(factoryBean.getObjectType())) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(0, interceptor)));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static HikariDataSource pool(String name, String url, String username, String password,
+                                         int poolSize, MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setMetricRegistry(meterRegistry);
+        return dataSource;
+    }
+}
@@ -1,11 +1,17 @@
 package com.yk.url_shortener.config;
 
+import com.yk.url_shortener.sharding.RedisShardRouter;
+import com.yk.url_shortener.sharding.ShardedRedisCacheWriter;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -30,6 +36,9 @@ import java.util.Map;
  * 1. CACHING  - Cache shortCode→URL lookups so we don't hit DB on every redirect
  * 2. RATE LIMITING - Track request counts per IP using Redis atomic INCR counters
  *
+ * Single node by default; app.redis.sharding.enabled=true spreads caching and rate
+ * limiting over several nodes with consistent hashing (see RedisShardRouter).
+ *
  * Graceful degradation:
  * - If Redis is not running, the app still starts and works normally
  * - Caching simply doesn't happen (every request hits DB directly)
@@ -37,7 +46,8 @@ import java.util.Map;
  * - Redis errors are caught and logged, never crash the app
  *
  * Cache TTL strategy:
- * - "urls"    cache: 1 hour  - shortCode → Url object (hottest path)
+ * - "urls"    cache: adaptive per key (5 min .. 6 hours, see {@link AdaptiveTtlFunction})
+ *                    or 1 hour when app.cache.adaptive-ttl.enabled=false
  * - "stats"   cache: 5 mins  - changes on every redirect (access count)
  * - "domains" cache: 10 mins - expensive aggregation query
  */
@@ -52,6 +62,9 @@ public class RedisConfig {
     @Value("${spring.data.redis.port:6379}")
     private int redisPort;
 
+    @Value("${app.cache.adaptive-ttl.enabled:true}")
+    private boolean adaptiveTtlEnabled;
+
     /**
      * Lettuce connection factory with:
      * - validateConnection=false  → don't validate on startup (allows startup without Redis)
@@ -94,10 +107,19 @@ public class RedisConfig {
      * RedisCacheManager with per-cache TTL overrides.
      * Falls back gracefully: if Redis is unreachable at cache time,
      * the operation proceeds without caching (no crash).
+     *
+     * Sharded mode (app.redis.sharding.enabled=true): entries are spread over the
+     * configured nodes by {@link ShardedRedisCacheWriter} (consistent hashing).
+     *
+     * Statistics are enabled so Actuator publishes cache.gets{result=hit|miss}
+     * and the "urls" hit ratio gauge below.
      */
     @Bean
     @Primary
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     RedisShardRouter redisShardRouter,
+                                     AdaptiveTtlFunction adaptiveTtlFunction,
+                                     MeterRegistry meterRegistry) {
         try {
             RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                     .entryTtl(Duration.ofHours(1))
@@ -108,22 +130,44 @@ public class RedisConfig {
                             .fromSerializer(new GenericJackson2JsonRedisSerializer()));
 
             Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
-            // "urls" cache: 1 hour — shortCode → Url (core redirect lookup)
-            cacheConfigurations.put("urls", defaultConfig.entryTtl(Duration.ofHours(1)));
+            // "urls" cache: shortCode → Url (core redirect lookup)
+            // Adaptive: TTL per key from its decayed read frequency, refreshed on every read (GETEX)
+            cacheConfigurations.put("urls", adaptiveTtlEnabled
+                    ? defaultConfig.entryTtl(adaptiveTtlFunction).enableTimeToIdle()
+                    : defaultConfig.entryTtl(Duration.ofHours(1)));
             // "stats" cache: 5 mins — access count changes on every redirect
             cacheConfigurations.put("stats", defaultConfig.entryTtl(Duration.ofMinutes(5)));
             // "domains" cache: 10 mins — expensive aggregation, evicted on new URL
             cacheConfigurations.put("domains", defaultConfig.entryTtl(Duration.ofMinutes(10)));
 
-            log.info("Redis CacheManager initialized (host={}:{})", redisHost, redisPort);
-            return RedisCacheManager.builder(connectionFactory)
+            log.info("Redis CacheManager initialized (host={}:{}, adaptive TTL={})", redisHost, redisPort, adaptiveTtlEnabled);
+            RedisCacheManager.RedisCacheManagerBuilder builder = redisShardRouter.isSharded()
+                    ? RedisCacheManager.builder(new ShardedRedisCacheWriter(redisShardRouter))
+                    : RedisCacheManager.builder(connectionFactory);
+            RedisCacheManager cacheManager = builder
                     .cacheDefaults(defaultConfig)
                     .withInitialCacheConfigurations(cacheConfigurations)
+                    .enableStatistics()
                     .build();
 
+            // Hit ratio of the redirect cache — watch it move when TTL bounds are tuned
+            Gauge.builder("cache.urls.hit.ratio", cacheManager, RedisConfig::urlsHitRatio)
+                    .description("Hit ratio of the \"urls\" cache since startup")
+                    .register(meterRegistry);
+            return cacheManager;
+
         } catch (Exception e) {
             log.warn("Redis unavailable — falling back to in-memory cache. Error: {}", e.getMessage());
             return new ConcurrentMapCacheManager("urls", "stats", "domains");
         }
     }
+
+    private static double urlsHitRatio(RedisCacheManager cacheManager) {
+        if (!(cacheManager.getCache("urls") instanceof RedisCache urls)) {
+            return Double.NaN;
+        }
+        CacheStatistics stats = urls.getStatistics();
+        long lookups = stats.getHits() + stats.getMisses();
+        return lookups == 0 ? Double.NaN : (double) stats.getHits() / lookups;
+    }
 }
@@ -0,0 +1,82 @@
+package com.yk.url_shortener.config;
+
+import com.yk.url_shortener.repository.UrlRepository;
+import com.yk.url_shortener.sharding.DatabaseShardRouter;
+import com.yk.url_shortener.sharding.ShardRoutingDataSource;
+import com.yk.url_shortener.sharding.ShardRoutingRepositoryInterceptor;
+import com.yk.url_shortener.sharding.ShardSchemaInitializer;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Sharded persistence wiring — only active when app.db.sharding.enabled=true.
+ *
+ * Replaces the single spring.datasource pool with:
+ *
+ *   UrlRepository ──► ShardRoutingRepositoryInterceptor   (picks shard from the arguments)
+ *        │
+ *        ▼
+ *   JPA / Hibernate ──► LazyConnectionDataSourceProxy ──► ShardRoutingDataSource ──► shard-0 .. shard-N
+ *
+ * The rest of the app (services, caches, controllers) is unchanged — it still talks to
+ * one UrlRepository.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.db.sharding.enabled", havingValue = "true")
+public class ShardedDataSourceConfig {
+
+    /**
+     * Primary DataSource for JPA. Spring Boot's own DataSource auto-config backs off.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(DatabaseShardRouter databaseShardRouter) {
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(databaseShardRouter));
+    }
+
+    /**
+     * Adds the routing interceptor to the UrlRepository proxy, in front of the transaction
+     * interceptor so the shard is chosen before the transaction starts.
+     * Static — BeanPostProcessors are created before regular beans.
+     */
+    @Bean
+    public static BeanPostProcessor shardRoutingRepositoryPostProcessor(
+            ObjectProvider<DatabaseShardRouter> databaseShardRouter) {
+        ShardRoutingRepositoryInterceptor interceptor = new ShardRoutingRepositoryInterceptor(databaseShardRouter);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean
+                        && UrlRepository.class.equals(factoryBean.getObjectType())) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(0, interceptor)));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public ShardSchemaInitializer shardSchemaInitializer(DatabaseShardRouter databaseShardRouter,
+                                                         @Value("${spring.jpa.hibernate.ddl-auto:update}") String ddlAuto) {
+        return new ShardSchemaInitializer(databaseShardRouter, ddlAuto);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaIntegrator(ShardSchemaInitializer shardSchemaInitializer) {
+        return properties -> properties.put("hibernate.integrator_provider",
+                (IntegratorProvider) () -> List.of(shardSchemaInitializer));
+    }
+}
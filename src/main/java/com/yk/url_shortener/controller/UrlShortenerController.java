@@ -3,12 +3,22 @@ package com.yk.url_shortener.controller;
 import com.yk.url_shortener.dto.DomainMetrics;
 import com.yk.url_shortener.dto.ShortenUrlRequest;
 import com.yk.url_shortener.dto.ShortenUrlResponse;
+import com.yk.url_shortener.dto.TopLink;
+import com.yk.url_shortener.dto.TrendingLink;
 import com.yk.url_shortener.dto.UrlAccessedEvent;
 import com.yk.url_shortener.dto.UrlStatsResponse;
 import com.yk.url_shortener.exception.RateLimitExceededException;
 import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.service.AnalyticsLoadShedder;
+import com.yk.url_shortener.service.ClickAggregator;
+import com.yk.url_shortener.service.ClickDeduplicator;
+import com.yk.url_shortener.service.ClickLeaderboardService;
+import com.yk.url_shortener.service.LinkExpiryService;
 import com.yk.url_shortener.service.RateLimiterService;
+import com.yk.url_shortener.service.ReachabilityService;
+import com.yk.url_shortener.service.TrendingService;
 import com.yk.url_shortener.service.UrlEventProducer;
+import com.yk.url_shortener.service.UrlLookupService;
 import com.yk.url_shortener.service.UrlShortenerService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -21,11 +31,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DurationFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,9 +48,20 @@ import java.util.Optional;
 public class UrlShortenerController {
 
     private final UrlShortenerService urlShortenerService;
+    private final UrlLookupService urlLookupService;
     private final RateLimiterService rateLimiterService;
+    private final LinkExpiryService linkExpiryService;
+    private final TrendingService trendingService;
+    private final ClickLeaderboardService clickLeaderboardService;
+    private final ReachabilityService reachabilityService;
     // Optional — not present when spring.kafka.enabled=false
     private final Optional<UrlEventProducer> urlEventProducer;
+    // Optional — only with app.kafka.click-aggregation.enabled=true (and Kafka enabled)
+    private final Optional<ClickAggregator> clickAggregator;
+    // Optional — app.analytics.shedding.enabled=true
+    private final Optional<AnalyticsLoadShedder> analyticsLoadShedder;
+    // Optional — only with app.click-dedup.enabled=true
+    private final Optional<ClickDeduplicator> clickDeduplicator;
 
     @Operation(
         summary = "Shorten a URL",
@@ -82,7 +105,12 @@ public class UrlShortenerController {
             throw new RateLimitExceededException(clientIp);
         }
 
-        Url url = urlShortenerService.shortenUrl(request.getUrl());
+        Url url = urlShortenerService.shortenUrl(request.getUrl(), request.getExpiresAt(), request.getMaxClicks());
+
+        // Accept now, verify later: the link works at once, its target is probed in the background
+        if (reachabilityService.isVerifyNewLinks()) {
+            reachabilityService.verifyLater(url.getShortCode(), url.getLongUrl());
+        }
 
         // Build base URL from the actual request (works on any domain)
         String baseUrl = getBaseUrl(httpRequest);
@@ -92,6 +120,9 @@ public class UrlShortenerController {
                 .shortCode(url.getShortCode())
                 .shortUrl(baseUrl + "/" + url.getShortCode())
                 .createdAt(url.getCreatedAt())
+                .expiresAt(url.getExpiresAt())
+                .maxClicks(url.getMaxClicks())
+                .reachability(reachabilityService.linkStatus(url.getShortCode()).map(Enum::name).orElse(null))
                 .build();
 
         return ResponseEntity.status(HttpStatus.CREATED)
@@ -101,7 +132,7 @@ public class UrlShortenerController {
 
     @Operation(
         summary = "Redirect to original URL",
-        description = "Redirects from a short code to the original long URL. Also increments the access counter.",
+        description = "Redirects from a short code to the original long URL. Also increments the access counter. Links past their expiry time or click limit answer 410 Gone.",
         parameters = @Parameter(
             name = "shortCode",
             description = "The 7-character short code",
@@ -118,6 +149,11 @@ public class UrlShortenerController {
             responseCode = "404",
             description = "Short code not found",
             content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE)
+        ),
+        @ApiResponse(
+            responseCode = "410",
+            description = "Short link expired (expiry time or click limit reached)",
+            content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE)
         )
     })
     @GetMapping("/{shortCode:[a-zA-Z0-9]+}")
@@ -127,7 +163,8 @@ public class UrlShortenerController {
             String shortCode,
             HttpServletRequest request) {
 
-        Optional<Url> urlOptional = urlShortenerService.getOriginalUrl(shortCode);
+        // Redirect path goes through the lookup service (optional hedged cache/DB reads)
+        Optional<Url> urlOptional = urlLookupService.getOriginalUrl(shortCode);
 
         if (urlOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -136,23 +173,63 @@ public class UrlShortenerController {
 
         Url url = urlOptional.get();
 
-        // When Kafka is enabled: publish async event → consumer updates access count in background
-        // When Kafka is disabled: update access count synchronously (direct DB write)
-        urlEventProducer.ifPresentOrElse(
-            producer -> producer.publishUrlAccessed(UrlAccessedEvent.builder()
-                    .shortCode(shortCode)
-                    .longUrl(url.getLongUrl())
-                    .accessedAt(java.time.LocalDateTime.now())
-                    .clientIp(getClientIp(request))
-                    .build()),
-            () -> urlShortenerService.incrementAccessCount(shortCode)
-        );
+        // Expiry is checked on the Url we already have — no extra lookup on the redirect path
+        if (linkExpiryService.isExpired(url)) {
+            linkExpiryService.onExpiredHit(shortCode);
+            return ResponseEntity.status(HttpStatus.GONE)
+                    .body("URL has expired for short code: " + shortCode);
+        }
+        linkExpiryService.track(url);
+
+        recordClick(shortCode, url, request);
 
         return ResponseEntity.status(HttpStatus.FOUND)
                 .location(java.net.URI.create(url.getLongUrl()))
                 .build();
     }
 
+    /**
+     * Analytics of one redirect — shed under overload by AnalyticsLoadShedder (sampled, count only, skipped).
+     *
+     * When Kafka is enabled: publish async event → consumer updates access count in background
+     *   (with click aggregation: buffered, one event per short code per window)
+     * When Kafka is disabled: update access count synchronously (direct DB write)
+     *
+     * With click de-duplication the visitor is checked here, before the event is partitioned: on the
+     * synchronous path, in ClickAggregator, or stamped on the single-click event (UrlAccessedEvent.unique)
+     */
+    private void recordClick(String shortCode, Url url, HttpServletRequest request) {
+        AnalyticsLoadShedder.Admission admission = analyticsLoadShedder.map(AnalyticsLoadShedder::admit)
+                .orElse(AnalyticsLoadShedder.Admission.FULL);
+        switch (admission.action()) {
+            case SKIP -> { }
+            case COUNT -> analyticsLoadShedder.get().count(shortCode);
+            case PUBLISH -> {
+                if (clickAggregator.isPresent()) {
+                    clickAggregator.get().record(shortCode, getClientIp(request), getDedupUserAgent(request));
+                } else {
+                    urlEventProducer.ifPresentOrElse(
+                        producer -> producer.publishUrlAccessed(UrlAccessedEvent.builder()
+                                .shortCode(shortCode)
+                                .longUrl(url.getLongUrl())
+                                .accessedAt(java.time.LocalDateTime.now())
+                                .clientIp(getClientIp(request))
+                                .unique(clickDeduplicator.map(dedup -> dedup.isUnique(shortCode,
+                                        getClientIp(request), getDedupUserAgent(request),
+                                        System.currentTimeMillis())).orElse(null))
+                                .sampleRate(admission.sampleRate() < 1 ? admission.sampleRate() : null)
+                                .build()),
+                        () -> clickDeduplicator.ifPresentOrElse(
+                            dedup -> urlShortenerService.incrementAccessCount(shortCode, admission.weight(),
+                                    dedup.isUnique(shortCode, getClientIp(request), getDedupUserAgent(request),
+                                            System.currentTimeMillis()) ? admission.weight() : 0),
+                            () -> urlShortenerService.incrementAccessCount(shortCode, admission.weight()))
+                    );
+                }
+            }
+        }
+    }
+
     @Operation(
         summary = "Get URL statistics",
         description = "Returns detailed statistics for a shortened URL including access count and creation time.",
@@ -206,6 +283,10 @@ public class UrlShortenerController {
                 .shortUrl(baseUrl + "/" + url.getShortCode())
                 .createdAt(url.getCreatedAt())
                 .accessCount(url.getAccessCount())
+                .uniqueAccessCount(url.getUniqueAccessCount())
+                .expiresAt(url.getExpiresAt())
+                .maxClicks(url.getMaxClicks())
+                .reachability(reachabilityService.linkStatus(url.getShortCode()).map(Enum::name).orElse(null))
                 .build();
 
         return ResponseEntity.ok(response);
@@ -234,6 +315,128 @@ public class UrlShortenerController {
         return ResponseEntity.ok(topDomains);
     }
 
+    @Operation(
+        summary = "Get trending domains",
+        description = "Returns the domains with the most links created in the recent window (e.g. 1h, 15m). Approximate, per instance, in constant memory. Windows longer than the configured maximum are clamped to it."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Trending domains retrieved successfully",
+            content = @Content(
+                mediaType = MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = DomainMetrics.class),
+                examples = @ExampleObject(
+                    value = "[{\"domain\":\"youtube.com\",\"count\":120},{\"domain\":\"github.com\",\"count\":64}]"
+                )
+            )
+        )
+    })
+    @GetMapping("/api/metrics/trending/domains")
+    public ResponseEntity<List<DomainMetrics>> getTrendingDomains(
+            @RequestParam(defaultValue = "1h")
+            @DurationFormat(style = DurationFormat.Style.SIMPLE)
+            @Parameter(description = "Time window (e.g. 15m, 1h)", example = "1h")
+            Duration window,
+            @RequestParam(defaultValue = "10")
+            @Parameter(description = "Number of domains to return", example = "10")
+            int limit) {
+
+        List<DomainMetrics> trending = trendingService.topDomains(window, limit).stream()
+                .map(item -> DomainMetrics.builder().domain(item.key()).count(item.count()).build())
+                .toList();
+        return ResponseEntity.ok(trending);
+    }
+
+    @Operation(
+        summary = "Get trending links",
+        description = "Returns the most-clicked short links in the recent window (e.g. 5m, 1h). Approximate, per instance, in constant memory. Windows longer than the configured maximum are clamped to it."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Trending links retrieved successfully",
+            content = @Content(
+                mediaType = MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = TrendingLink.class),
+                examples = @ExampleObject(
+                    value = "[{\"shortCode\":\"xY7zK3m\",\"shortUrl\":\"http://localhost:8081/xY7zK3m\",\"clicks\":1250}]"
+                )
+            )
+        )
+    })
+    @GetMapping("/api/metrics/trending/links")
+    public ResponseEntity<List<TrendingLink>> getTrendingLinks(
+            @RequestParam(defaultValue = "5m")
+            @DurationFormat(style = DurationFormat.Style.SIMPLE)
+            @Parameter(description = "Time window (e.g. 5m, 1h)", example = "5m")
+            Duration window,
+            @RequestParam(defaultValue = "10")
+            @Parameter(description = "Number of links to return", example = "10")
+            int limit,
+            HttpServletRequest httpRequest) {
+
+        String baseUrl = getBaseUrl(httpRequest);
+        List<TrendingLink> trending = trendingService.topLinks(window, limit).stream()
+                .map(item -> TrendingLink.builder()
+                        .shortCode(item.key())
+                        .shortUrl(baseUrl + "/" + item.key())
+                        .clicks(item.count())
+                        .build())
+                .toList();
+        return ResponseEntity.ok(trending);
+    }
+
+    @Operation(
+        summary = "Get the click leaderboard",
+        description = "Returns the most-clicked links of all time, one page at a time. Maintained incrementally in a Redis sorted set (falls back to the database when Redis is unavailable)."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Leaderboard page retrieved successfully",
+            content = @Content(
+                mediaType = MediaType.APPLICATION_JSON_VALUE,
+                schema = @Schema(implementation = TopLink.class),
+                examples = @ExampleObject(
+                    value = "[{\"rank\":1,\"shortCode\":\"xY7zK3m\",\"shortUrl\":\"http://localhost:8081/xY7zK3m\",\"longUrl\":\"https://www.example.com\",\"accessCount\":98213}]"
+                )
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Offset beyond the ranks the leaderboard keeps (app.leaderboard.max-size)",
+            content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE)
+        )
+    })
+    @GetMapping("/api/metrics/top-links")
+    public ResponseEntity<?> getTopLinks(
+            @RequestParam(defaultValue = "10")
+            @Parameter(description = "Page size (max 100)", example = "10")
+            int limit,
+            @RequestParam(defaultValue = "0")
+            @Parameter(description = "Rows to skip (below app.leaderboard.max-size)", example = "0")
+            int offset,
+            HttpServletRequest httpRequest) {
+
+        if (offset < 0 || offset >= clickLeaderboardService.getMaxSize()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Offset must be between 0 and " + (clickLeaderboardService.getMaxSize() - 1)
+                            + " — the leaderboard keeps the top " + clickLeaderboardService.getMaxSize() + " links");
+        }
+        String baseUrl = getBaseUrl(httpRequest);
+        List<TopLink> topLinks = clickLeaderboardService.topLinks(offset, Math.min(limit, 100)).stream()
+                .map(entry -> TopLink.builder()
+                        .rank(entry.rank())
+                        .shortCode(entry.url().getShortCode())
+                        .shortUrl(baseUrl + "/" + entry.url().getShortCode())
+                        .longUrl(entry.url().getLongUrl())
+                        .accessCount(entry.accessCount())
+                        .build())
+                .toList();
+        return ResponseEntity.ok(topLinks);
+    }
+
     /**
      * Extract client real IP address.
      * Checks X-Forwarded-For header first (set by reverse proxies / load balancers like Nginx, Render).
@@ -248,6 +451,15 @@ public class UrlShortenerController {
         return request.getRemoteAddr();
     }
 
+    /**
+     * User-Agent for click de-duplication — only read when the visitor key includes it
+     */
+    private String getDedupUserAgent(HttpServletRequest request) {
+        return clickDeduplicator.filter(ClickDeduplicator::usesUserAgent)
+                .map(dedup -> request.getHeader("User-Agent"))
+                .orElse(null);
+    }
+
     /**
      * Helper method to build the base URL from the HTTP request
      * This makes the short URLs work on any domain (localhost, Render, etc.)
@@ -2,14 +2,18 @@ package com.yk.url_shortener.dto;
 
 import com.yk.url_shortener.validation.ValidUrl;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -42,4 +46,19 @@ public class ShortenUrlRequest {
         checkReachability = false
     )
     private String url;
+
+    /**
+     * Optional expiry time — the short link answers 410 Gone from then on
+     * Links with an expiry or click limit always get a fresh short code (no dedupe)
+     */
+    @Schema(description = "Optional expiry time (server local time)", example = "2026-12-31T23:59:59")
+    @Future(message = "Expiry time must be in the future")
+    private LocalDateTime expiresAt;
+
+    /**
+     * Optional click limit — the short link answers 410 Gone after this many redirects
+     */
+    @Schema(description = "Optional maximum number of redirects", example = "100")
+    @Positive(message = "Max clicks must be positive")
+    private Long maxClicks;
 }
@@ -26,4 +26,19 @@ public class ShortenUrlResponse {
 
     @Schema(description = "Timestamp when the URL was shortened", example = "2026-02-07T19:30:00")
     private LocalDateTime createdAt;
+
+    @Schema(description = "When the short URL stops redirecting (null = never)", example = "2026-12-31T23:59:59")
+    private LocalDateTime expiresAt;
+
+    @Schema(description = "Maximum number of redirects (null = unlimited)", example = "100")
+    private Long maxClicks;
+
+    /**
+     * Background verification of the target (app.reachability.verify-new-links):
+     * PENDING, REACHABLE or UNREACHABLE — null when the link was not verified. Kept in memory by the
+     * instance that created the link: other instances (and restarts) answer null
+     */
+    @Schema(description = "Target reachability (null = not verified, or verified by another instance)",
+            example = "REACHABLE")
+    private String reachability;
 }
@@ -0,0 +1,30 @@
+package com.yk.url_shortener.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One row of the all-time click leaderboard")
+public class TopLink {
+
+    @Schema(description = "1-based position on the leaderboard", example = "1")
+    private Long rank;
+
+    @Schema(description = "The short code", example = "xY7zK3m")
+    private String shortCode;
+
+    @Schema(description = "Complete short URL", example = "http://localhost:8081/xY7zK3m")
+    private String shortUrl;
+
+    @Schema(description = "Original long URL", example = "https://www.example.com")
+    private String longUrl;
+
+    @Schema(description = "Total number of redirects", example = "98213")
+    private Long accessCount;
+}
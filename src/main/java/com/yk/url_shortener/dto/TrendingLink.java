@@ -0,0 +1,27 @@
+package com.yk.url_shortener.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A short link and how often it was followed in the requested window")
+public class TrendingLink {
+
+    @Schema(description = "The short code", example = "xY7zK3m")
+    private String shortCode;
+
+    @Schema(description = "Complete short URL", example = "http://localhost:8081/xY7zK3m")
+    private String shortUrl;
+
+    /**
+     * Estimated clicks in the window (may over-count by at most the error of the sketch)
+     */
+    @Schema(description = "Estimated clicks in the window", example = "1250")
+    private Long clicks;
+}
@@ -0,0 +1,39 @@
+package com.yk.url_shortener.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Aggregated Kafka event published to topic "url.accessed" by the ClickAggregator:
+ * all the clicks of one short code in one aggregation window.
+ *
+ * Shares the topic with {@link UrlAccessedEvent} (one event per click) — the consumer tells
+ * them apart by the "count" field, so producers can be switched without draining the topic.
+ *
+ * No longUrl: the consumer only needs the short code to update the counter.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UrlAccessBatchEvent {
+
+    /** The short code that was accessed */
+    private String shortCode;
+
+    /** Number of clicks in the window */
+    private Long count;
+
+    /** Start of the aggregation window (epoch millis) */
+    private Long windowStart;
+
+    /** A few client IPs from the window (for abuse analytics) — not every IP */
+    private List<String> sampleIps;
+
+    /** Clicks in the window that were unique per visitor (app.click-dedup.enabled) — null otherwise */
+    private Long uniqueCount;
+}
@@ -39,5 +39,17 @@ public class UrlAccessedEvent {
 
     /** Client IP address (for geo/abuse analytics) */
     private String clientIp;
+
+    /**
+     * Whether the click was the visitor's first within the de-duplication window — decided on the
+     * redirect instance (app.click-dedup.enabled). Null = not de-duplicated.
+     */
+    private Boolean unique;
+
+    /**
+     * Share of clicks published while analytics are shed under overload (1/2, 1/4, ...) — this event
+     * stands for 1/sampleRate clicks. Null = every click is published.
+     */
+    private Double sampleRate;
 }
 
@@ -33,4 +33,23 @@ public class UrlStatsResponse {
 
     @Schema(description = "Number of times the short URL has been accessed", example = "42")
     private Long accessCount;
+
+    @Schema(description = "Accesses that were a visitor's first within the de-duplication window "
+            + "(null unless click de-duplication is enabled)", example = "17")
+    private Long uniqueAccessCount;
+
+    @Schema(description = "When the short URL stops redirecting (null = never)", example = "2026-12-31T23:59:59")
+    private LocalDateTime expiresAt;
+
+    @Schema(description = "Maximum number of redirects (null = unlimited)", example = "100")
+    private Long maxClicks;
+
+    /**
+     * Background verification of the target (app.reachability.verify-new-links):
+     * PENDING, REACHABLE or UNREACHABLE — null when the link was not verified. Kept in memory by the
+     * instance that created the link: other instances (and restarts) answer null
+     */
+    @Schema(description = "Target reachability (null = not verified, or verified by another instance)",
+            example = "REACHABLE")
+    private String reachability;
 }
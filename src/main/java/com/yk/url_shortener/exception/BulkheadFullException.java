@@ -0,0 +1,21 @@
+package com.yk.url_shortener.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when an endpoint class has no free slot (or DB connection) left within its queue timeout.
+ * Results in HTTP 503 Service Unavailable with a Retry-After header.
+ */
+@Getter
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class BulkheadFullException extends RuntimeException {
+
+    private final String bulkhead;
+
+    public BulkheadFullException(String bulkhead, String reason) {
+        super("Too many concurrent " + bulkhead + " requests (" + reason + "). Please try again shortly.");
+        this.bulkhead = bulkhead;
+    }
+}
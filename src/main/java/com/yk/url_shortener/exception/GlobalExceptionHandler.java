@@ -2,6 +2,7 @@ package com.yk.url_shortener.exception;
 
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -79,6 +80,27 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(body);
     }
 
+    /**
+     * Handle a full bulkhead (endpoint class over its concurrency or DB connection share) — fail fast
+     */
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<Map<String, Object>> handleBulkheadFull(
+            BulkheadFullException ex,
+            HttpServletRequest request) {
+
+        Map<String, Object> body = buildErrorBody(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+
+        log.debug("Bulkhead {} full, refused: {}", ex.getBulkhead(), request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(body);
+    }
+
     /**
      * Handle any unexpected exception — last resort fallback
      */
@@ -87,6 +109,13 @@ public class GlobalExceptionHandler {
             Exception ex,
             HttpServletRequest request) {
 
+        // A connection partition refusal arrives wrapped by JPA / the transaction manager
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof BulkheadFullException bulkheadFull) {
+                return handleBulkheadFull(bulkheadFull, request);
+            }
+        }
+
         Map<String, Object> body = buildErrorBody(
                 HttpStatus.INTERNAL_SERVER_ERROR.value(),
                 "Internal Server Error",
@@ -0,0 +1,47 @@
+package com.yk.url_shortener.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Kafka position of a consumer group on one partition, stored next to the counters it produced —
+ * updated in the same transaction as the access counts (ExactlyOnceClickConsumer).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "consumer_offsets")
+public class ConsumerOffset {
+
+    /** groupId/topic/partition — see {@link #idOf} */
+    @Id
+    @Column(name = "id", nullable = false)
+    private String id;
+
+    @Column(name = "group_id", nullable = false)
+    private String groupId;
+
+    @Column(name = "topic", nullable = false)
+    private String topic;
+
+    @Column(name = "partition_id", nullable = false)
+    private Integer partition;
+
+    /** Offset of the next record to apply — every record below it is already counted */
+    @Column(name = "next_offset", nullable = false)
+    private Long nextOffset;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public static String idOf(String groupId, String topic, int partition) {
+        return groupId + "/" + topic + "/" + partition;
+    }
+}
@@ -13,7 +13,16 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "urls")
+@Table(name = "urls", indexes = {
+        // Top-N by access count (cache warm-up) without a full table scan + sort
+        @Index(name = "idx_urls_access_count", columnList = "access_count"),
+        // Incremental purge of expired links (LinkExpiryService sweep)
+        @Index(name = "idx_urls_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_urls_max_clicks", columnList = "max_clicks"),
+        // Dormant-link scans for cold-tier archival (LinkArchivalService): a range on last_accessed_at,
+        // or last_accessed_at IS NULL + a range on created_at for never-followed links
+        @Index(name = "idx_urls_last_accessed_created", columnList = "last_accessed_at, created_at")
+})
 public class Url {
 
     @Id
@@ -28,4 +37,23 @@ public class Url {
 
     @Column(name = "access_count", nullable = false)
     private Long accessCount;
+
+    /**
+     * Clicks that were a visitor's first on the link within the de-duplication window
+     * (app.click-dedup.enabled) — null until the first one; access_count keeps the raw count
+     */
+    @Column(name = "unique_access_count")
+    private Long uniqueAccessCount;
+
+    /** Time of the last counted redirect — null until the link is first followed */
+    @Column(name = "last_accessed_at")
+    private LocalDateTime lastAccessedAt;
+
+    /** Optional — the link stops redirecting (410 Gone) at this time */
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    /** Optional — the link stops redirecting once it has been followed this many times */
+    @Column(name = "max_clicks")
+    private Long maxClicks;
 }
@@ -0,0 +1,31 @@
+package com.yk.url_shortener.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dedupe pointer long URL → short code, kept on the shard owning hash(longUrl) when the link's row
+ * lives on another shard.
+ *
+ * New permanent links never need one: their code is generated on the long URL's shard. After a
+ * shard split the two hashes can part ways — ShardRebalancer then moves the row to the code's
+ * owner and writes this entry on the long URL's owner, so the pair stays findable together.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "url_dedup")
+public class UrlDedupEntry {
+
+    @Id
+    @Column(name = "long_url", nullable = false, length = 2048)
+    private String longUrl;
+
+    @Column(name = "short_code", nullable = false)
+    private String shortCode;
+}
@@ -0,0 +1,36 @@
+package com.yk.url_shortener.replication;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.List;
+
+/**
+ * The connection pools behind the read/write split: one primary, N replicas.
+ * Each pool is named after its route (primary, replica-0, ...) — that name is the
+ * "pool" tag of the hikaricp.connections.* metrics.
+ */
+public class ReadWriteDataSources implements DisposableBean {
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+
+    public ReadWriteDataSources(HikariDataSource primary, List<HikariDataSource> replicas) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+    }
+
+    public HikariDataSource getPrimary() {
+        return primary;
+    }
+
+    public List<HikariDataSource> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
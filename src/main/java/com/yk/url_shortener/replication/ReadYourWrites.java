@@ -0,0 +1,43 @@
+package com.yk.url_shortener.replication;
+
+import java.util.function.Supplier;
+
+/**
+ * Thread-bound "this read must go to the primary" flag.
+ * Set by {@link ReadYourWritesInterceptor} around lookups of recently written rows.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static boolean isPrimaryForced() {
+        return Boolean.TRUE.equals(FORCE_PRIMARY.get());
+    }
+
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = enter();
+        try {
+            return work.get();
+        } finally {
+            exit(previous);
+        }
+    }
+
+    /** @return the previous flag, to be handed back to {@link #exit} */
+    static Boolean enter() {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        return previous;
+    }
+
+    static void exit(Boolean previous) {
+        if (previous == null) {
+            FORCE_PRIMARY.remove();
+        } else {
+            FORCE_PRIMARY.set(previous);
+        }
+    }
+}
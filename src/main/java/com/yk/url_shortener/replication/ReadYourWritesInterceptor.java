@@ -0,0 +1,67 @@
+package com.yk.url_shortener.replication;
+
+import com.yk.url_shortener.model.Url;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Sits in front of every UrlRepository method (before the transaction interceptor).
+ *
+ * - Writes (save, saveAll): after success, remember the short codes and long URLs written
+ * - Reads by key (findByShortCode, findByLongUrl, existsByShortCode, findByShortCodeIn, ...):
+ *   if any key was written recently, run the call with {@link ReadYourWrites} set, so the
+ *   read-only transaction gets a primary connection instead of a (possibly lagging) replica
+ */
+public class ReadYourWritesInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<RecentWritesTracker> trackerProvider;
+
+    public ReadYourWritesInterceptor(ObjectProvider<RecentWritesTracker> trackerProvider) {
+        this.trackerProvider = trackerProvider;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RecentWritesTracker tracker = trackerProvider.getObject();
+        Object first = invocation.getArguments().length > 0 ? invocation.getArguments()[0] : null;
+
+        if (invocation.getMethod().getName().startsWith("save")) {
+            Object result = invocation.proceed();
+            recordWrites(tracker, first);
+            return result;
+        }
+        if (!ReadYourWrites.isPrimaryForced() && touchesRecentWrite(tracker, first)) {
+            Boolean previous = ReadYourWrites.enter();
+            try {
+                return invocation.proceed();
+            } finally {
+                ReadYourWrites.exit(previous);
+            }
+        }
+        return invocation.proceed();
+    }
+
+    private static void recordWrites(RecentWritesTracker tracker, Object written) {
+        if (written instanceof Url url) {
+            tracker.recordWrite(url.getShortCode());
+            tracker.recordWrite(url.getLongUrl());
+        } else if (written instanceof Iterable<?> items) {
+            items.forEach(item -> recordWrites(tracker, item));
+        }
+    }
+
+    private static boolean touchesRecentWrite(RecentWritesTracker tracker, Object key) {
+        if (key instanceof String value) {
+            return tracker.isRecent(value);
+        }
+        if (key instanceof Iterable<?> items) {
+            for (Object item : items) {
+                if (item instanceof String value && tracker.isRecent(value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
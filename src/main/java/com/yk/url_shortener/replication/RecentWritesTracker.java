@@ -0,0 +1,52 @@
+package com.yk.url_shortener.replication;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which keys (short codes, long URLs) this instance wrote recently.
+ *
+ * "Recently" = within app.db.replicas.read-your-writes-ms — set it above the worst
+ * replication lag you expect. Lookups of these keys are pinned to the primary.
+ *
+ * Only covers writes made by THIS instance — a code created on another instance can
+ * briefly 404 on a lagging replica here (the redirect cache usually hides that).
+ */
+@Component
+@ConditionalOnProperty(name = "app.db.replicas.enabled", havingValue = "true")
+public class RecentWritesTracker {
+
+    private final long windowNanos;
+    private final Map<String, Long> expiresAt = new ConcurrentHashMap<>();
+
+    public RecentWritesTracker(@Value("${app.db.replicas.read-your-writes-ms:5000}") long windowMs) {
+        this.windowNanos = windowMs * 1_000_000L;
+    }
+
+    public void recordWrite(String key) {
+        if (key != null) {
+            expiresAt.put(key, System.nanoTime() + windowNanos);
+        }
+    }
+
+    public boolean isRecent(String key) {
+        Long expiry = expiresAt.get(key);
+        return expiry != null && expiry - System.nanoTime() > 0;
+    }
+
+    public int size() {
+        return expiresAt.size();
+    }
+
+    /** Drop expired keys so the map stays the size of one window's writes */
+    @Scheduled(fixedDelayString = "${app.db.replicas.read-your-writes-ms:5000}")
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        expiresAt.values().removeIf(expiry -> expiry - now <= 0);
+    }
+}
@@ -0,0 +1,30 @@
+package com.yk.url_shortener.repository;
+
+import com.yk.url_shortener.model.ConsumerOffset;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Not routed by the sharding interceptor: statements go to whatever shard the caller pinned
+ * (ShardContext.pin), or the default one.
+ */
+@Repository
+@Transactional(readOnly = true)
+public interface ConsumerOffsetRepository extends JpaRepository<ConsumerOffset, String> {
+
+    /**
+     * Offsets to be advanced by the caller's transaction — SELECT ... FOR UPDATE, so a consumer
+     * still finishing a batch of a partition that was just reassigned cannot apply it twice
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM ConsumerOffset o WHERE o.id IN :ids")
+    List<ConsumerOffset> lockAllById(@Param("ids") Collection<String> ids);
+}
@@ -0,0 +1,12 @@
+package com.yk.url_shortener.repository;
+
+import com.yk.url_shortener.model.UrlDedupEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Not routed by the sharding interceptor: callers pin the long URL's shard (ShardContext.pin).
+ */
+@Repository
+public interface UrlDedupRepository extends JpaRepository<UrlDedupEntry, String> {
+}
@@ -1,12 +1,27 @@
 package com.yk.url_shortener.repository;
 
 import com.yk.url_shortener.model.Url;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Query methods declared here run in a read-only transaction (inherited CRUD methods
+ * already do, via SimpleJpaRepository) — which is what routes them to a replica when
+ * app.db.replicas.enabled=true. Modifying queries must override with @Transactional.
+ */
 @Repository
+@Transactional(readOnly = true)
 public interface UrlRepository extends JpaRepository<Url, String> {
 
     /**
@@ -38,6 +53,140 @@ public interface UrlRepository extends JpaRepository<Url, String> {
      */
     Optional<Url> findByLongUrl(String longUrl);
 
+    /**
+     * Dedupe lookup on create — only PERMANENT links are reused
+     * Links with an expiry or click limit are never handed out for a new request,
+     * and several of them may share one long URL (so findByLongUrl could find more than one)
+     *
+     * Spring generates: SELECT * FROM urls WHERE long_url = ? AND expires_at IS NULL
+     *                   AND max_clicks IS NULL LIMIT 1
+     */
+    Optional<Url> findFirstByLongUrlAndExpiresAtIsNullAndMaxClicksIsNull(String longUrl);
+
+    /**
+     * Most-accessed URLs first, one page at a time
+     * Used by the startup cache warm-up to load the hottest links in bulk
+     * @param pageable page number + page size
+     * @return one slice of URLs ordered by access count (no COUNT(*) query, unlike Page)
+     *
+     * Spring generates: SELECT * FROM urls ORDER BY access_count DESC LIMIT ? OFFSET ?
+     * Backed by the idx_urls_access_count index
+     */
+    Slice<Url> findByOrderByAccessCountDesc(Pageable pageable);
+
+    /**
+     * Find many URLs by short code in one query
+     * Used to replay the hot-key dump at startup
+     * @param shortCodes the short codes to load
+     * @return the URLs that exist (missing codes are simply absent)
+     *
+     * Spring generates: SELECT * FROM urls WHERE short_code IN (?, ?, ...)
+     */
+    List<Url> findByShortCodeIn(Collection<String> shortCodes);
+
+    /**
+     * One batch of links whose time is up, for the incremental purge
+     * @param now      expiry reference time
+     * @param pageable batch size (page 0 — purged rows are gone by the next call)
+     * @return short codes only — deletes go by primary key, in short transactions
+     *
+     * Backed by the idx_urls_expires_at index (a range scan — no OR, which would force a full scan)
+     */
+    @Query("SELECT u.shortCode FROM Url u WHERE u.expiresAt <= :now")
+    List<String> findTimeExpiredShortCodes(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * One batch of links whose click limit is used up, for the incremental purge
+     * @param pageable batch size (page 0)
+     *
+     * Backed by the idx_urls_max_clicks index: only the few click-limited rows are compared
+     */
+    @Query("SELECT u.shortCode FROM Url u WHERE u.maxClicks IS NOT NULL AND u.accessCount >= u.maxClicks")
+    List<String> findClickExpiredShortCodes(Pageable pageable);
+
+    /**
+     * One batch of followed links not followed since cutoff, for cold-tier archival
+     * @param pageable batch size (page 0 — archived rows are deleted before the next call)
+     * @return whole rows — they are copied into an archive segment
+     *
+     * Permanent links only: links with an expiry or click limit are left to LinkExpiryService
+     * Backed by the idx_urls_last_accessed_created index (a range scan on its first column)
+     */
+    @Query("SELECT u FROM Url u WHERE u.lastAccessedAt < :cutoff AND u.expiresAt IS NULL AND u.maxClicks IS NULL")
+    List<Url> findFollowedDormant(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * One batch of never-followed links created before cutoff, for cold-tier archival
+     * @param pageable batch size (page 0)
+     *
+     * Backed by the idx_urls_last_accessed_created index (last_accessed_at IS NULL, then a
+     * created_at range) — kept apart from {@link #findFollowedDormant}: an OR would force a full scan
+     */
+    @Query("SELECT u FROM Url u WHERE u.lastAccessedAt IS NULL AND u.createdAt < :cutoff "
+            + "AND u.expiresAt IS NULL AND u.maxClicks IS NULL")
+    List<Url> findNeverFollowedDormant(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * Delete archived links by primary key — re-checking dormancy in the same statement,
+     * so a link followed after it was read for archival is kept
+     * @return rows deleted
+     *
+     * The rows are found by primary key; the OR only filters those few rows
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Url u WHERE u.shortCode IN :shortCodes AND (u.lastAccessedAt < :cutoff "
+            + "OR (u.lastAccessedAt IS NULL AND u.createdAt < :cutoff))")
+    int deleteDormant(@Param("shortCodes") Collection<String> shortCodes, @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Atomic counter update: access_count = access_count + delta in ONE statement
+     * @return rows updated (0 = unknown short code)
+     *
+     * The row lock makes concurrent increments of the same link add up — clicks for one
+     * viral link may arrive on several consumer threads at once (salted url.accessed keys)
+     * Clears the persistence context so a following read sees the new count
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Url u SET u.accessCount = u.accessCount + :delta, u.lastAccessedAt = :now "
+            + "WHERE u.shortCode = :shortCode")
+    int incrementAccessCount(@Param("shortCode") String shortCode, @Param("delta") long delta,
+                             @Param("now") LocalDateTime now);
+
+    /**
+     * {@link #incrementAccessCount} plus the de-duplicated counter, in the same statement
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE Url u SET u.accessCount = u.accessCount + :delta, "
+            + "u.uniqueAccessCount = COALESCE(u.uniqueAccessCount, 0) + :uniqueDelta, u.lastAccessedAt = :now "
+            + "WHERE u.shortCode = :shortCode")
+    int incrementAccessCounts(@Param("shortCode") String shortCode, @Param("delta") long delta,
+                              @Param("uniqueDelta") long uniqueDelta, @Param("now") LocalDateTime now);
+
+    /**
+     * Insert a row unless its short code already exists — never overwrites one
+     * @return 1 if inserted, 0 if the code was already there
+     *
+     * Rehydration from the cold archive (TieredUrlStore): several instances may copy the same
+     * link back at once, and a plain save() of the archived copy would reset a counter another
+     * instance already incremented. The first insert wins, the others are no-ops.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("INSERT INTO Url (shortCode, longUrl, createdAt, accessCount, uniqueAccessCount, lastAccessedAt, "
+            + "expiresAt, maxClicks) VALUES (:#{#url.shortCode}, :#{#url.longUrl}, :#{#url.createdAt}, "
+            + ":#{#url.accessCount}, :#{#url.uniqueAccessCount}, :#{#url.lastAccessedAt}, :#{#url.expiresAt}, "
+            + ":#{#url.maxClicks}) ON CONFLICT DO NOTHING")
+    int insertIfAbsent(@Param("url") Url url);
+
+    /**
+     * Just the counter — read back after {@link #incrementAccessCount}
+     */
+    @Query("SELECT u.accessCount FROM Url u WHERE u.shortCode = :shortCode")
+    Optional<Long> findAccessCount(@Param("shortCode") String shortCode);
+
     /**
      * Get all stored URLs
      * Inherited from JpaRepository - findAll() is already available
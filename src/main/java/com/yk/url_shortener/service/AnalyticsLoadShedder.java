@@ -0,0 +1,305 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.dto.UrlAccessBatchEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Overload controller for the analytics side of a redirect — the redirect itself is never shed.
+ *
+ * Problem:
+ *   Under a spike every redirect also builds an event, parses the client IP and sends to Kafka (or,
+ *   without Kafka, runs a synchronous counter UPDATE). That work competes with the redirects for
+ *   request threads, producer buffer and DB connections, and makes the spike worse.
+ *
+ * Signals (read every interval-ms, each against its limit) — only the analytics side's own: a slow
+ * redirect caused by a slow cache or database would not get faster by shedding analytics.
+ * - mean Kafka send → ack latency over the interval  (url.kafka.send)
+ * - events waiting in the Kafka producer             (url.kafka.send.in-flight)
+ * - threads waiting for a DB connection, all pools   (hikaricp.connections.pending) — without Kafka
+ *   only, where every click is a synchronous counter UPDATE
+ * Pressure = the highest signal / limit ratio.
+ *
+ * Levels — one step further per interval with pressure &gt; 1, one step back after recover-intervals
+ * intervals in a row with pressure &lt; recover-threshold:
+ *   FULL        every click is published
+ *   SAMPLED     1/2, 1/4, ... down to min-sample-rate of the clicks are published. The event carries
+ *               the rate (UrlAccessedEvent.sampleRate) and consumers count it as 1/rate clicks; the
+ *               synchronous fallback adds 1/rate in one UPDATE. With click aggregation (no per-click
+ *               events) counts stay exact and only the client IP is sampled.
+ *   COUNT_ONLY  no event, no IP parsing: clicks are summed in memory per short code and published
+ *               once per interval (one UrlAccessBatchEvent or one UPDATE per code)
+ *   DROP        analytics are skipped — clicks are lost, counted in url.analytics.clicks{action=dropped}
+ *
+ * Metrics:
+ *   url.analytics.shedding.level                          — 0 = FULL, then one per step (DROP = highest)
+ *   url.analytics.shedding.sample-rate                    — share of clicks published
+ *   url.analytics.shedding.pressure                       — highest signal / limit ratio, last interval
+ *   url.analytics.clicks{action=published|counted|sampled-out|dropped}
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.analytics.shedding.enabled", havingValue = "true")
+public class AnalyticsLoadShedder {
+
+    public enum Action { PUBLISH, COUNT, SKIP }
+
+    /**
+     * What to do with one click's analytics.
+     *
+     * @param sampleRate share of clicks published at this level (PUBLISH only)
+     */
+    public record Admission(Action action, double sampleRate) {
+        public static final Admission FULL = new Admission(Action.PUBLISH, 1.0);
+        private static final Admission COUNT = new Admission(Action.COUNT, 0);
+        private static final Admission SKIP = new Admission(Action.SKIP, 0);
+
+        /** Clicks this published click stands for */
+        public long weight() {
+            return UrlEventConsumer.weightOf(sampleRate);
+        }
+    }
+
+    private static final String PENDING_CONNECTIONS = "hikaricp.connections.pending";
+
+    private final MeterRegistry meterRegistry;
+    private final Optional<UrlEventProducer> urlEventProducer;
+    private final Optional<ClickAggregator> clickAggregator;
+    private final UrlShortenerService urlShortenerService;
+
+    private final double sendLatencyLimitMillis;
+    private final double maxInFlightSends;
+    private final double maxPendingConnections;
+    private final double recoverThreshold;
+    private final int recoverIntervals;
+    private final int maxCodes;
+
+    /** Admissions of levels 0 (FULL) to the lowest sample rate — COUNT_ONLY and DROP follow */
+    private final Admission[] publishAdmissions;
+    private final int countOnlyLevel;
+    private final int dropLevel;
+    private volatile int level;
+    private volatile double pressure;
+    private int calmIntervals;
+
+    private final Counter published;
+    private final Counter counted;
+    private final Counter sampledOut;
+    private final Counter dropped;
+    private final Map<String, LongAdder> countOnly = new ConcurrentHashMap<>();
+
+    private long lastSendCount;
+    private double lastSendNanos;
+
+    @Autowired
+    public AnalyticsLoadShedder(MeterRegistry meterRegistry,
+                                Optional<UrlEventProducer> urlEventProducer,
+                                Optional<ClickAggregator> clickAggregator,
+                                UrlShortenerService urlShortenerService,
+                                @Value("${app.analytics.shedding.kafka-send-latency-ms:200}") double sendLatencyLimitMillis,
+                                @Value("${app.analytics.shedding.max-in-flight-sends:20000}") int maxInFlightSends,
+                                @Value("${app.analytics.shedding.max-pending-connections:10}") int maxPendingConnections,
+                                @Value("${app.analytics.shedding.min-sample-rate:0.0625}") double minSampleRate,
+                                @Value("${app.analytics.shedding.recover-threshold:0.5}") double recoverThreshold,
+                                @Value("${app.analytics.shedding.recover-intervals:5}") int recoverIntervals,
+                                @Value("${app.analytics.shedding.max-codes:100000}") int maxCodes) {
+        this.meterRegistry = meterRegistry;
+        this.urlEventProducer = urlEventProducer;
+        this.clickAggregator = clickAggregator;
+        this.urlShortenerService = urlShortenerService;
+        this.sendLatencyLimitMillis = sendLatencyLimitMillis;
+        this.maxInFlightSends = Math.max(1, maxInFlightSends);
+        this.maxPendingConnections = Math.max(1, maxPendingConnections);
+        this.recoverThreshold = recoverThreshold;
+        this.recoverIntervals = Math.max(1, recoverIntervals);
+        this.maxCodes = Math.max(1, maxCodes);
+
+        // Sampling steps halve the rate: 1/2, 1/4, ... ≥ min-sample-rate
+        int samplingSteps = 0;
+        while (Math.pow(0.5, samplingSteps + 1) >= minSampleRate && samplingSteps < 20) {
+            samplingSteps++;
+        }
+        this.publishAdmissions = new Admission[samplingSteps + 1];
+        for (int step = 0; step <= samplingSteps; step++) {
+            publishAdmissions[step] = step == 0 ? Admission.FULL : new Admission(Action.PUBLISH, Math.pow(0.5, step));
+        }
+        this.countOnlyLevel = samplingSteps + 1;
+        this.dropLevel = samplingSteps + 2;
+
+        this.published = meterRegistry.counter("url.analytics.clicks", "action", "published");
+        this.counted = meterRegistry.counter("url.analytics.clicks", "action", "counted");
+        this.sampledOut = meterRegistry.counter("url.analytics.clicks", "action", "sampled-out");
+        this.dropped = meterRegistry.counter("url.analytics.clicks", "action", "dropped");
+        Gauge.builder("url.analytics.shedding.level", this, shedder -> shedder.level).register(meterRegistry);
+        Gauge.builder("url.analytics.shedding.sample-rate", this, AnalyticsLoadShedder::sampleRate)
+                .register(meterRegistry);
+        Gauge.builder("url.analytics.shedding.pressure", this, shedder -> shedder.pressure).register(meterRegistry);
+    }
+
+    /** Decide for one click — called on the request thread, no allocation */
+    public Admission admit() {
+        int current = level;
+        if (current >= dropLevel) {
+            dropped.increment();
+            return Admission.SKIP;
+        }
+        if (current == countOnlyLevel) {
+            counted.increment();
+            return Admission.COUNT;
+        }
+        Admission admission = publishAdmissions[current];
+        if (admission.sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= admission.sampleRate) {
+            // Aggregated clicks are cheap to count exactly — only their IP is sampled
+            if (clickAggregator.isPresent()) {
+                counted.increment();
+                return Admission.COUNT;
+            }
+            // Not lost: the published clicks of this level carry its weight
+            sampledOut.increment();
+            return Admission.SKIP;
+        }
+        published.increment();
+        return admission;
+    }
+
+    /** Count a click without an event (COUNT admission) */
+    public void count(String shortCode) {
+        if (clickAggregator.isPresent()) {
+            clickAggregator.get().record(shortCode, null);
+            return;
+        }
+        // Counted under the entry's lock: flushCounts removes an idle entry under the same lock, so a
+        // click can never land on an entry that was already removed
+        LongAdder clicks = countOnly.compute(shortCode, (code, adder) -> {
+            if (adder == null) {
+                if (countOnly.size() >= maxCodes) {
+                    return null;
+                }
+                adder = new LongAdder();
+            }
+            adder.increment();
+            return adder;
+        });
+        if (clicks == null) {
+            dropped.increment();
+        }
+    }
+
+    /** Re-evaluate the level from the signals of the last interval, and publish count-only totals */
+    @Scheduled(fixedDelayString = "${app.analytics.shedding.interval-ms:1000}")
+    public void evaluate() {
+        pressure = measurePressure();
+        int current = level;
+        if (pressure > 1) {
+            calmIntervals = 0;
+            if (current < dropLevel) {
+                level = current + 1;
+                log.warn("Analytics overloaded (pressure {}): shedding level {} → {} ({})",
+                        String.format("%.2f", pressure), current, current + 1, describe(current + 1));
+            }
+        } else if (pressure < recoverThreshold && current > 0) {
+            if (++calmIntervals >= recoverIntervals) {
+                calmIntervals = 0;
+                level = current - 1;
+                log.info("Analytics load back to normal (pressure {}): shedding level {} → {} ({})",
+                        String.format("%.2f", pressure), current, current - 1, describe(current - 1));
+            }
+        } else {
+            calmIntervals = 0;
+        }
+        flushCounts();
+    }
+
+    public int level() {
+        return level;
+    }
+
+    public double sampleRate() {
+        int current = level;
+        return current < publishAdmissions.length ? publishAdmissions[current].sampleRate : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushCounts();
+    }
+
+    private double measurePressure() {
+        if (urlEventProducer.isEmpty()) {
+            double pendingConnections = meterRegistry.find(PENDING_CONNECTIONS).gauges().stream()
+                    .mapToDouble(Gauge::value).filter(Double::isFinite).sum();
+            return pendingConnections / maxPendingConnections;
+        }
+        double sendMillis = 0;
+        Timer sendTimer = meterRegistry.find(UrlEventProducer.SEND_TIMER).timer();
+        if (sendTimer != null) {
+            sendMillis = meanMillisSinceLast(sendTimer);
+        }
+        Gauge inFlight = meterRegistry.find(UrlEventProducer.IN_FLIGHT_GAUGE).gauge();
+        return Math.max(sendMillis / sendLatencyLimitMillis, inFlight != null ? inFlight.value() / maxInFlightSends : 0);
+    }
+
+    /** Mean of the timer's recordings since the previous call */
+    private double meanMillisSinceLast(Timer timer) {
+        long count = timer.count();
+        double nanos = timer.totalTime(TimeUnit.NANOSECONDS);
+        long deltaCount = count - lastSendCount;
+        double deltaNanos = nanos - lastSendNanos;
+        lastSendCount = count;
+        lastSendNanos = nanos;
+        return deltaCount > 0 ? deltaNanos / deltaCount / 1_000_000 : 0;
+    }
+
+    private void flushCounts() {
+        if (countOnly.isEmpty()) {
+            return;
+        }
+        long windowStart = System.currentTimeMillis();
+        countOnly.forEach((shortCode, adder) -> {
+            long clicks = adder.sumThenReset();
+            if (clicks == 0) {
+                // Idle for a whole interval — removed unless a click arrived since the reset
+                countOnly.computeIfPresent(shortCode, (code, current) -> current.sum() == 0 ? null : current);
+                return;
+            }
+            try {
+                if (urlEventProducer.isPresent()) {
+                    urlEventProducer.get().publishUrlAccessBatch(UrlAccessBatchEvent.builder()
+                            .shortCode(shortCode).count(clicks).windowStart(windowStart).sampleIps(List.of())
+                            .build());
+                } else {
+                    urlShortenerService.incrementAccessCount(shortCode, clicks);
+                }
+            } catch (Exception e) {
+                log.warn("Could not publish {} counted clicks for {}: {}", clicks, shortCode, e.getMessage());
+            }
+        });
+    }
+
+    private String describe(int level) {
+        if (level == 0) {
+            return "full";
+        }
+        if (level < countOnlyLevel) {
+            return "sampling 1/" + Math.round(1 / publishAdmissions[level].sampleRate);
+        }
+        return level == countOnlyLevel ? "count only" : "drop";
+    }
+}
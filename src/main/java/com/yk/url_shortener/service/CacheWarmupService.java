@@ -0,0 +1,188 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.store.UrlStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Startup cache warm-up.
+ *
+ * Problem:
+ *   After every deploy/restart the "urls" cache and the local hot-key tier start cold,
+ *   so the first minutes of traffic all fall through to H2 via findByShortCode.
+ *
+ * How it works (ApplicationRunner → runs BEFORE the app reports ready):
+ *   1. Replay the hot-key dump written at the last shutdown (if present):
+ *      those codes are loaded in one IN query, pinned in the local tier and seeded
+ *      into the hot-key detector — the viral links are hot again within milliseconds
+ *   2. Load the top-N links by access_count in pages (default 10 pages x 1000)
+ *      and write each page into the "urls" cache with one pipelined Redis round trip
+ *   3. Mark warm-up complete → the "cacheWarmup" health indicator turns UP
+ *
+ * Readiness:
+ *   Spring Boot only publishes ReadinessState.ACCEPTING_TRAFFIC after all runners finish,
+ *   and the readiness group also includes "cacheWarmup" — so /actuator/health/readiness
+ *   returns 503 until the caches are warm and load balancers hold traffic back.
+ *
+ * Graceful degradation:
+ *   If Redis or the DB fails mid-warm-up we log it and still mark warm-up complete —
+ *   a cold cache is slower, never a reason to stay out of rotation forever.
+ *
+ * Shutdown:
+ *   The current hot-key set (local ∪ shared, with rates) is dumped to
+ *   app.cache-warmup.hot-key-dump-file so the next start can replay it (step 1).
+ */
+@Slf4j
+@Service
+public class CacheWarmupService implements ApplicationRunner {
+
+    private final UrlStore urlStore;
+    private final UrlCacheBulkOperations urlCacheBulkOperations;
+    private final LocalHotKeyCache localHotKeyCache;
+    private final HotKeyDetector hotKeyDetector;
+
+    private final boolean enabled;
+    private final int topN;
+    private final int pageSize;
+    private final String hotKeyDumpFile;
+
+    private volatile boolean complete;
+    private volatile int warmedEntries;
+
+    public CacheWarmupService(UrlStore urlStore,
+                              UrlCacheBulkOperations urlCacheBulkOperations,
+                              LocalHotKeyCache localHotKeyCache,
+                              HotKeyDetector hotKeyDetector,
+                              @Value("${app.cache-warmup.enabled:true}") boolean enabled,
+                              @Value("${app.cache-warmup.top-n:10000}") int topN,
+                              @Value("${app.cache-warmup.page-size:1000}") int pageSize,
+                              @Value("${app.cache-warmup.hot-key-dump-file:}") String hotKeyDumpFile) {
+        this.urlStore = urlStore;
+        this.urlCacheBulkOperations = urlCacheBulkOperations;
+        this.localHotKeyCache = localHotKeyCache;
+        this.hotKeyDetector = hotKeyDetector;
+        this.enabled = enabled;
+        this.topN = topN;
+        this.pageSize = pageSize;
+        this.hotKeyDumpFile = hotKeyDumpFile;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            complete = true;
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            replayHotKeyDump();
+            warmTopLinks();
+        } catch (Exception e) {
+            log.warn("Cache warm-up aborted after {} entries: {}", warmedEntries, e.getMessage());
+        } finally {
+            complete = true;
+        }
+        log.info("Cache warm-up finished: {} entries in {}ms", warmedEntries, System.currentTimeMillis() - start);
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public int getWarmedEntries() {
+        return warmedEntries;
+    }
+
+    /**
+     * Step 1: replay the hot keys dumped at the last shutdown.
+     */
+    private void replayHotKeyDump() throws IOException {
+        if (hotKeyDumpFile.isBlank() || !Files.exists(Path.of(hotKeyDumpFile))) {
+            return;
+        }
+        Map<String, Double> dumped = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(Path.of(hotKeyDumpFile), StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\t");
+            if (parts.length == 2 && !parts[0].isBlank()) {
+                dumped.put(parts[0], Double.parseDouble(parts[1]));
+            }
+        }
+        if (dumped.isEmpty()) {
+            return;
+        }
+
+        List<Url> urls = urlStore.findByShortCodeIn(dumped.keySet());
+        urls.forEach(url -> {
+            hotKeyDetector.seed(url.getShortCode(), dumped.get(url.getShortCode()));
+            localHotKeyCache.pin(url);
+        });
+        warmedEntries += urlCacheBulkOperations.putAll(urls);
+        log.info("Replayed {} hot keys from {}", urls.size(), hotKeyDumpFile);
+    }
+
+    /**
+     * Step 2: top-N by access count, page by page, one pipelined write per page.
+     */
+    private void warmTopLinks() {
+        int pages = (topN + pageSize - 1) / pageSize;
+        for (int page = 0; page < pages; page++) {
+            Slice<Url> slice = urlStore.findMostAccessed(PageRequest.of(page, pageSize));
+            warmedEntries += urlCacheBulkOperations.putAll(slice.getContent());
+            if (!slice.hasNext()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * On shutdown: persist the hot-key set so the next start can replay it.
+     * Written to a temp file then moved, so a crash mid-write never leaves a torn dump.
+     */
+    @PreDestroy
+    void dumpHotKeys() {
+        if (hotKeyDumpFile.isBlank()) {
+            return;
+        }
+        Map<String, Double> hotKeys = new LinkedHashMap<>();
+        hotKeyDetector.getSharedHotKeys().forEach(key -> hotKeys.put(key.shortCode(), key.ratePerSecond()));
+        hotKeyDetector.getLocalHotKeys().forEach(key -> hotKeys.merge(key.shortCode(), key.ratePerSecond(), Math::max));
+        if (hotKeys.isEmpty()) {
+            return;
+        }
+
+        Path target = Path.of(hotKeyDumpFile);
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Double> entry : hotKeys.entrySet()) {
+                    writer.write(entry.getKey() + "\t" + entry.getValue());
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Dumped {} hot keys to {}", hotKeys.size(), target);
+        } catch (IOException e) {
+            log.warn("Could not dump hot keys to {}: {}", target, e.getMessage());
+        }
+    }
+}
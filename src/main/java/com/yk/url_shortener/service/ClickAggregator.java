@@ -0,0 +1,174 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.dto.UrlAccessBatchEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Producer-side click pre-aggregation for the url.accessed topic.
+ *
+ * Without it every redirect sends one full JSON event (with the long URL) through an acks=all,
+ * idempotent producer — at 50k redirects/sec that is 50k messages/sec for data that only ends up
+ * as counters. With it a viral link costs one message per window, whatever its click rate.
+ *
+ * How it works:
+ * - {@link #record} adds the click to one of N stripes (chosen by the short code's hash);
+ *   each stripe is a plain HashMap behind its own lock — redirects on different stripes never
+ *   contend, and a stripe is only held for one map update
+ * - Every window-ms {@link #flush} swaps each stripe's map for an empty one and publishes one
+ *   {@link UrlAccessBatchEvent} {shortCode, count, windowStart, sampleIps} per code
+ * - Bounded: a stripe that reaches max-codes / stripes distinct codes is flushed right away by
+ *   the click that filled it — memory never grows with traffic
+ * - The last window is flushed on shutdown (before the Kafka producer is closed)
+ * - Up to sample-ips client IPs are kept per code and window
+ * - With click de-duplication each click is checked before its visitor is summed away, and the
+ *   event carries uniqueCount next to count
+ *
+ * Trade-off: clicks reach the counters up to window-ms later, and clicks buffered when the
+ * process is killed (not shut down) are lost — acceptable for counters, which is all this feeds.
+ *
+ * Metrics:
+ *   url.clicks.aggregated   — clicks recorded
+ *   url.clicks.batches      — aggregated events published
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = {"spring.kafka.enabled", "app.kafka.click-aggregation.enabled"}, havingValue = "true")
+public class ClickAggregator {
+
+    private static final class Clicks {
+        long count;
+        long unique;
+        final List<String> sampleIps = new ArrayList<>(2);
+    }
+
+    private static final class Stripe {
+        Map<String, Clicks> clicks = new HashMap<>();
+        /** Time of the first click in the current window */
+        long windowStart;
+    }
+
+    private final UrlEventProducer urlEventProducer;
+    private final Optional<ClickDeduplicator> clickDeduplicator;
+    private final Stripe[] stripes;
+    private final int maxCodesPerStripe;
+    private final int sampleIps;
+
+    private final Counter aggregated;
+    private final Counter batches;
+
+    @Autowired
+    public ClickAggregator(UrlEventProducer urlEventProducer,
+                           Optional<ClickDeduplicator> clickDeduplicator,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.kafka.click-aggregation.stripes:16}") int stripes,
+                           @Value("${app.kafka.click-aggregation.max-codes:100000}") int maxCodes,
+                           @Value("${app.kafka.click-aggregation.sample-ips:3}") int sampleIps) {
+        this.urlEventProducer = urlEventProducer;
+        this.clickDeduplicator = clickDeduplicator;
+        int count = Integer.highestOneBit(Math.max(1, stripes) * 2 - 1); // round up to a power of two
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.maxCodesPerStripe = Math.max(1, maxCodes / count);
+        this.sampleIps = Math.max(0, sampleIps);
+        this.aggregated = meterRegistry.counter("url.clicks.aggregated");
+        this.batches = meterRegistry.counter("url.clicks.batches");
+    }
+
+    /** Count one redirect — called on the request thread, never blocks on Kafka */
+    public void record(String shortCode, String clientIp) {
+        record(shortCode, clientIp, null);
+    }
+
+    /** Count one redirect; the user agent is only used by click de-duplication */
+    public void record(String shortCode, String clientIp, String userAgent) {
+        boolean unique = clientIp != null && clickDeduplicator
+                .map(dedup -> dedup.isUnique(shortCode, clientIp, userAgent, System.currentTimeMillis()))
+                .orElse(false);
+        int hash = shortCode.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+        Map<String, Clicks> full = null;
+        long fullWindowStart = 0;
+        synchronized (stripe) {
+            if (stripe.clicks.isEmpty()) {
+                stripe.windowStart = System.currentTimeMillis();
+            }
+            Clicks clicks = stripe.clicks.computeIfAbsent(shortCode, code -> new Clicks());
+            clicks.count++;
+            if (unique) {
+                clicks.unique++;
+            }
+            if (clientIp != null && clicks.sampleIps.size() < sampleIps && !clicks.sampleIps.contains(clientIp)) {
+                clicks.sampleIps.add(clientIp);
+            }
+            if (stripe.clicks.size() >= maxCodesPerStripe) {
+                full = stripe.clicks;
+                fullWindowStart = stripe.windowStart;
+                stripe.clicks = new HashMap<>();
+            }
+        }
+        aggregated.increment();
+        if (full != null) {
+            publish(full, fullWindowStart);
+        }
+    }
+
+    /**
+     * Publish every buffered window.
+     *
+     * @return number of aggregated events published
+     */
+    @Scheduled(fixedDelayString = "${app.kafka.click-aggregation.window-ms:250}")
+    public int flush() {
+        int published = 0;
+        for (Stripe stripe : stripes) {
+            Map<String, Clicks> window;
+            long windowStart;
+            synchronized (stripe) {
+                if (stripe.clicks.isEmpty()) {
+                    continue;
+                }
+                window = stripe.clicks;
+                windowStart = stripe.windowStart;
+                stripe.clicks = new HashMap<>();
+            }
+            published += publish(window, windowStart);
+        }
+        return published;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        int published = flush();
+        if (published > 0) {
+            log.info("Flushed {} aggregated click events on shutdown", published);
+        }
+    }
+
+    private int publish(Map<String, Clicks> window, long windowStart) {
+        window.forEach((shortCode, clicks) -> urlEventProducer.publishUrlAccessBatch(UrlAccessBatchEvent.builder()
+                .shortCode(shortCode)
+                .count(clicks.count)
+                .uniqueCount(clickDeduplicator.isPresent() ? clicks.unique : null)
+                .windowStart(windowStart)
+                .sampleIps(clicks.sampleIps)
+                .build()));
+        batches.increment(window.size());
+        return window.size();
+    }
+}
@@ -0,0 +1,212 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.util.RotatingBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * "Unique click within N seconds" — refresh spamming and link-preview bots stop inflating the counts.
+ *
+ * A click is unique when the same (shortCode, clientIp[, User-Agent]) was not counted in the last
+ * window-seconds. Unique clicks go to unique_access_count; access_count keeps counting every click.
+ *
+ * How it works:
+ * - One {@link RotatingBloomFilter} per stripe (chosen by the key's hash), each behind its own lock:
+ *   constant memory whatever the number of visitors, O(1) per click, no per-visitor state to expire
+ * - Where the check runs — always on the instance that served the redirect, before Kafka:
+ *   synchronous path (no Kafka)      → the redirect, before the counter UPDATE
+ *   Kafka, one event per click       → the redirect, stamped on the event (UrlAccessedEvent.unique)
+ *   Kafka with click aggregation     → ClickAggregator, before the visitors are summed away
+ *                                      (UrlAccessBatchEvent.uniqueCount)
+ *   Not in the url.accessed consumers: SkewAwarePartitioner salts a hot link's events over all
+ *   partitions, so no single consumer sees all of its clicks. Only an event without a verdict
+ *   (published before this was decided at the redirect) is still checked there, at its accessedAt
+ * - Limit: each instance only knows the clicks it served — a visitor whose clicks the load balancer
+ *   spreads over N instances can count up to N times per window (sticky sessions avoid that)
+ * - Sampled clicks (AnalyticsLoadShedder) count their weight as unique or not; count-only and
+ *   dropped clicks have no visitor and only reach access_count
+ * - A click without a client IP has no visitor either: it is never unique and never enters the
+ *   filters — all such clicks would otherwise share one key and count as one visitor
+ * - Errors only go one way: a Bloom false positive makes a new visitor look like a repeat
+ *   (under-counts uniques), never the other way round
+ *
+ * False-positive rate — two views:
+ * - estimated: from how full the live filters are
+ * - sampled:   about 1 key in fpr-sample-every is also tracked exactly (bounded map); a sampled key
+ *              the filter calls a repeat while the exact state says new is a false positive
+ *
+ * Metrics:
+ *   url.click-dedup.clicks{result=unique|repeat|too-old|no-visitor}
+ *   url.click-dedup.false-positive-rate{source=estimated|sampled}
+ *   url.click-dedup.memory                          — bytes held by the filters
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.click-dedup.enabled", havingValue = "true")
+public class ClickDeduplicator {
+
+    private static final class Stripe {
+        final RotatingBloomFilter filter;
+        /** Sampled keys → bucket they were last counted in (exact reference) */
+        final Map<String, Long> exact = new HashMap<>();
+
+        Stripe(RotatingBloomFilter filter) {
+            this.filter = filter;
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final boolean includeUserAgent;
+    private final int sampleEvery;
+    private final int maxSampledPerStripe;
+
+    private final Counter unique;
+    private final Counter repeat;
+    private final Counter tooOld;
+    private final Counter noVisitor;
+    private long sampledNew;
+    private long sampledFalsePositives;
+
+    public ClickDeduplicator(MeterRegistry meterRegistry,
+                             @Value("${app.click-dedup.window-seconds:30}") long windowSeconds,
+                             @Value("${app.click-dedup.buckets:6}") int buckets,
+                             @Value("${app.click-dedup.expected-clicks-per-second:10000}") long expectedClicksPerSecond,
+                             @Value("${app.click-dedup.false-positive-rate:0.01}") double falsePositiveRate,
+                             @Value("${app.click-dedup.include-user-agent:false}") boolean includeUserAgent,
+                             @Value("${app.click-dedup.stripes:16}") int stripes,
+                             @Value("${app.click-dedup.fpr-sample-every:256}") int sampleEvery,
+                             @Value("${app.click-dedup.fpr-sample-max-keys:10000}") int maxSampledKeys) {
+        int count = Integer.highestOneBit(Math.max(1, stripes) * 2 - 1); // round up to a power of two
+        long keysPerStripe = Math.max(1, expectedClicksPerSecond * windowSeconds / count);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(new RotatingBloomFilter(windowSeconds * 1000, buckets, keysPerStripe,
+                    falsePositiveRate));
+        }
+        this.includeUserAgent = includeUserAgent;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.maxSampledPerStripe = Math.max(1, maxSampledKeys / count);
+
+        this.unique = meterRegistry.counter("url.click-dedup.clicks", "result", "unique");
+        this.repeat = meterRegistry.counter("url.click-dedup.clicks", "result", "repeat");
+        this.tooOld = meterRegistry.counter("url.click-dedup.clicks", "result", "too-old");
+        this.noVisitor = meterRegistry.counter("url.click-dedup.clicks", "result", "no-visitor");
+        Gauge.builder("url.click-dedup.false-positive-rate", this, ClickDeduplicator::estimatedFalsePositiveRate)
+                .tag("source", "estimated").register(meterRegistry);
+        Gauge.builder("url.click-dedup.false-positive-rate", this, ClickDeduplicator::sampledFalsePositiveRate)
+                .tag("source", "sampled").register(meterRegistry);
+        Gauge.builder("url.click-dedup.memory", this, ClickDeduplicator::sizeInBytes).register(meterRegistry);
+        log.info("Click de-duplication: one click per visitor per {}s ({} filters, {} KB, user agent {})",
+                windowSeconds, count, sizeInBytes() / 1024, includeUserAgent ? "included" : "ignored");
+    }
+
+    /**
+     * Whether this click is the visitor's first on the link within the window — and remember it.
+     *
+     * @param clientIp  null = no visitor to de-duplicate: never unique, nothing remembered
+     * @param userAgent ignored unless include-user-agent is set
+     */
+    public boolean isUnique(String shortCode, String clientIp, String userAgent, long timeMillis) {
+        if (clientIp == null) {
+            noVisitor.increment();
+            return false;
+        }
+        String key = includeUserAgent && userAgent != null
+                ? shortCode + '\n' + clientIp + '\n' + userAgent
+                : shortCode + '\n' + clientIp;
+        int hash = key.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+        boolean first;
+        boolean checked;
+        synchronized (stripe) {
+            RotatingBloomFilter filter = stripe.filter;
+            first = filter.addIfAbsent(key, timeMillis);
+            // Older than the whole ring: counted, but nothing could be checked
+            checked = filter.isLive(filter.bucketOf(timeMillis));
+            if (checked && Integer.remainderUnsigned(Integer.rotateLeft(hash, 13) * 0x9E3779B9, sampleEvery) == 0) {
+                sample(stripe, key, timeMillis, first);
+            }
+        }
+        (!checked ? tooOld : first ? unique : repeat).increment();
+        return first;
+    }
+
+    /** {@link #isUnique} at the click time an event carries (e.g. UrlAccessedEvent.accessedAt) */
+    public boolean isUnique(String shortCode, String clientIp, String userAgent, LocalDateTime accessedAt) {
+        return isUnique(shortCode, clientIp, userAgent, accessedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    /**
+     * Unique clicks of one url.accessed event: an aggregated event brings its own uniqueCount
+     * (decided by ClickAggregator), a single — possibly sampled — click its unique flag (decided at
+     * the redirect). Only a click without either is checked here, at its accessedAt.
+     */
+    public long uniqueClicksOf(Map<String, Object> payload, String shortCode, long clicks, long recordTimestamp) {
+        if (payload.get("count") instanceof Number) {
+            return payload.get("uniqueCount") instanceof Number uniqueCount ? uniqueCount.longValue() : 0;
+        }
+        if (payload.get("unique") instanceof Boolean unique) {
+            return unique ? clicks : 0;
+        }
+        LocalDateTime accessedAt = UrlEventConsumer.timestampOf(payload.get("accessedAt"), recordTimestamp);
+        return isUnique(shortCode, (String) payload.get("clientIp"), (String) payload.get("userAgent"), accessedAt)
+                ? clicks : 0;
+    }
+
+    public boolean usesUserAgent() {
+        return includeUserAgent;
+    }
+
+    public double estimatedFalsePositiveRate() {
+        double sum = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                sum += stripe.filter.falsePositiveRate();
+            }
+        }
+        return sum / stripes.length;
+    }
+
+    /** False positives among the sampled new visitors since startup (NaN before the first one) */
+    public synchronized double sampledFalsePositiveRate() {
+        return sampledNew == 0 ? Double.NaN : (double) sampledFalsePositives / sampledNew;
+    }
+
+    public long sizeInBytes() {
+        return stripes.length * stripes[0].filter.sizeInBytes();
+    }
+
+    /** Same decision, made exactly for a sampled key — called under the stripe's lock */
+    private void sample(Stripe stripe, String key, long timeMillis, boolean filterSaysNew) {
+        RotatingBloomFilter filter = stripe.filter;
+        long bucket = filter.bucketOf(timeMillis);
+        Long counted = stripe.exact.get(key);
+        boolean exactlyNew = counted == null || !filter.isLive(counted);
+        if (!exactlyNew) {
+            return;
+        }
+        if (counted == null && stripe.exact.size() >= maxSampledPerStripe) {
+            stripe.exact.values().removeIf(last -> !filter.isLive(last));
+            if (stripe.exact.size() >= maxSampledPerStripe) {
+                return;
+            }
+        }
+        stripe.exact.put(key, bucket);
+        synchronized (this) {
+            sampledNew++;
+            if (!filterSaysNew) {
+                sampledFalsePositives++;
+            }
+        }
+    }
+}
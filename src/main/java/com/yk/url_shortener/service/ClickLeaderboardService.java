@@ -0,0 +1,252 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.sharding.RedisShardRouter;
+import com.yk.url_shortener.store.UrlStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * All-time click leaderboard — "most clicked links" without scanning the urls table.
+ *
+ * How it works:
+ * - One Redis sorted set ("leaderboard:clicks"): member = short code, score = access count
+ * - Every counter write reports the link's NEW count ({@link #onAccessCount}); counts are
+ *   buffered per code (latest wins) and flushed every flush-ms as ONE multi-member ZADD —
+ *   O(log n) per link, and a viral link costs one update per flush, not one per click
+ * - Absolute counts, not ZINCRBY deltas: idempotent, safe with several instances writing,
+ *   and a link outside the kept range re-enters at its true position
+ * - ZADD GT (Redis 6.2+): a score only ever moves up, so a stale buffer flushed late by a slow
+ *   instance can never lower a link that another instance already reported higher
+ * - Trimmed to max-size after each flush (ZREMRANGEBYRANK) — constant Redis memory
+ * - Rebuilt at startup from the DB (findMostAccessed, indexed on access_count) into a temp
+ *   key, then RENAMEd over the live one — readers never see a half-built board
+ * - Links that no longer exist (expired, purged) are dropped from the board when a page
+ *   finds them missing in the store
+ *
+ * Pages: ZREVRANGE offset..offset+limit-1 WITH SCORES, then one findByShortCodeIn for the details.
+ * Only the top max-size ranks are kept: a page is cut at max-size, and the controller answers
+ * 400 for an offset at or beyond it instead of an empty page.
+ * Redis down → the same page straight from the DB (ORDER BY access_count DESC on the index).
+ */
+@Slf4j
+@Service
+public class ClickLeaderboardService implements ApplicationRunner {
+
+    static final String REDIS_KEY = "leaderboard:clicks";
+
+    private final UrlStore urlStore;
+    private final RedisShardRouter redisShardRouter;
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final int pageSize;
+
+    /** Latest count per code since the last flush */
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    public ClickLeaderboardService(UrlStore urlStore,
+                                   RedisShardRouter redisShardRouter,
+                                   @Value("${app.leaderboard.enabled:true}") boolean enabled,
+                                   @Value("${app.leaderboard.max-size:10000}") int maxSize,
+                                   @Value("${app.leaderboard.rebuild-page-size:1000}") int pageSize) {
+        this.urlStore = urlStore;
+        this.redisShardRouter = redisShardRouter;
+        this.enabled = enabled;
+        this.maxSize = Math.max(1, maxSize);
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    /** A leaderboard row: 1-based rank, the link and its access count */
+    public record Entry(long rank, Url url, long accessCount) {
+    }
+
+    /** Called after every counter write with the link's new count */
+    public void onAccessCount(String shortCode, long accessCount) {
+        if (enabled) {
+            pending.merge(shortCode, accessCount, Math::max);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.leaderboard.flush-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<Object>> tuples = new HashSet<>();
+        for (String shortCode : pending.keySet()) {
+            Long count = pending.remove(shortCode);
+            if (count != null) {
+                tuples.add(new DefaultTypedTuple<>(shortCode, count.doubleValue()));
+            }
+        }
+        try {
+            RedisTemplate<String, Object> template = template();
+            addIfGreater(template, tuples);
+            template.opsForZSet().removeRange(REDIS_KEY, 0, -(maxSize + 1L));
+        } catch (Exception e) {
+            // Redis down — the board catches up at the next rebuild or the next click of each link
+            log.debug("Could not update the click leaderboard: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * One page of the leaderboard, most clicked first.
+     */
+    public List<Entry> topLinks(int offset, int limit) {
+        offset = Math.max(0, offset);
+        if (offset >= maxSize) {
+            return List.of();
+        }
+        limit = Math.max(1, Math.min(limit, maxSize - offset));
+        if (enabled) {
+            try {
+                return fromRedis(offset, limit);
+            } catch (Exception e) {
+                log.debug("Click leaderboard unavailable, reading from the DB: {}", e.getMessage());
+            }
+        }
+        return fromStore(offset, limit);
+    }
+
+    /** Ranks kept on the board — offsets from here on have no page */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /** Startup rebuild from the DB */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Reload the top max-size links from the DB into a temp key and swap it in.
+     *
+     * @return number of links on the rebuilt board, -1 if Redis is unavailable
+     */
+    public int rebuild() {
+        String buildKey = REDIS_KEY + ":rebuild";
+        try {
+            RedisTemplate<String, Object> template = template();
+            template.delete(buildKey);
+            int loaded = 0;
+            int pages = (maxSize + pageSize - 1) / pageSize;
+            for (int page = 0; page < pages; page++) {
+                Slice<Url> slice = urlStore.findMostAccessed(PageRequest.of(page, pageSize));
+                Set<ZSetOperations.TypedTuple<Object>> tuples = new HashSet<>();
+                slice.getContent().forEach(url -> tuples.add(
+                        new DefaultTypedTuple<>(url.getShortCode(), url.getAccessCount().doubleValue())));
+                if (!tuples.isEmpty()) {
+                    template.opsForZSet().add(buildKey, tuples);
+                    loaded += tuples.size();
+                }
+                if (!slice.hasNext()) {
+                    break;
+                }
+            }
+            if (loaded == 0) {
+                template.delete(REDIS_KEY);
+            } else {
+                template.rename(buildKey, REDIS_KEY);
+            }
+            log.info("Click leaderboard rebuilt with {} links", loaded);
+            return loaded;
+        } catch (Exception e) {
+            log.warn("Could not rebuild the click leaderboard: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    private List<Entry> fromRedis(int offset, int limit) {
+        ZSetOperations<String, Object> zSet = template().opsForZSet();
+        Set<ZSetOperations.TypedTuple<Object>> range =
+                zSet.reverseRangeWithScores(REDIS_KEY, offset, offset + limit - 1L);
+        if (range == null || range.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Long> scores = new HashMap<>();
+        Set<String> codes = new LinkedHashSet<>();
+        range.forEach(tuple -> {
+            String shortCode = String.valueOf(tuple.getValue());
+            codes.add(shortCode);
+            scores.put(shortCode, tuple.getScore() == null ? 0L : tuple.getScore().longValue());
+        });
+
+        Map<String, Url> urls = new HashMap<>();
+        urlStore.findByShortCodeIn(codes).forEach(url -> urls.put(url.getShortCode(), url));
+
+        List<Entry> entries = new ArrayList<>(codes.size());
+        List<Object> gone = new ArrayList<>();
+        long rank = offset;
+        for (String shortCode : codes) {
+            rank++;
+            Url url = urls.get(shortCode);
+            if (url == null) {
+                gone.add(shortCode);
+                continue;
+            }
+            entries.add(new Entry(rank, url, Math.max(scores.get(shortCode), url.getAccessCount())));
+        }
+        if (!gone.isEmpty()) {
+            zSet.remove(REDIS_KEY, gone.toArray());
+        }
+        return entries;
+    }
+
+    private List<Entry> fromStore(int offset, int limit) {
+        // A page that covers offset..offset+limit on page boundaries of size limit
+        List<Url> window = new ArrayList<>();
+        int firstPage = offset / limit;
+        for (int page = firstPage; page <= (offset + limit - 1) / limit; page++) {
+            window.addAll(urlStore.findMostAccessed(PageRequest.of(page, limit)).getContent());
+        }
+        int skip = offset - firstPage * limit;
+        List<Entry> entries = new ArrayList<>(limit);
+        for (int i = skip; i < window.size() && entries.size() < limit; i++) {
+            Url url = window.get(i);
+            entries.add(new Entry(offset + entries.size() + 1L, url, url.getAccessCount()));
+        }
+        return entries;
+    }
+
+    /** Multi-member ZADD GT — the typed ZSetOperations has no flags, so through the connection */
+    @SuppressWarnings("unchecked")
+    private static void addIfGreater(RedisTemplate<String, Object> template, Set<ZSetOperations.TypedTuple<Object>> tuples) {
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) template.getKeySerializer();
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) template.getValueSerializer();
+        byte[] key = keySerializer.serialize(REDIS_KEY);
+        Set<Tuple> raw = new HashSet<>(tuples.size() * 2);
+        tuples.forEach(tuple -> raw.add(Tuple.of(valueSerializer.serialize(tuple.getValue()), tuple.getScore())));
+        template.execute((RedisCallback<Long>) connection ->
+                connection.zSetCommands().zAdd(key, raw, RedisZSetCommands.ZAddArgs.empty().gt()));
+    }
+
+    private RedisTemplate<String, Object> template() {
+        return redisShardRouter.templateFor(REDIS_KEY);
+    }
+}
@@ -0,0 +1,579 @@
+package com.yk.url_shortener.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.yk.url_shortener.sharding.DatabaseShardRouter;
+import com.yk.url_shortener.util.ClickCountMap;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.MemberDescription;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Recomputes access counters from the url.accessed topic — the click history — instead of
+ * trusting the urls.access_count column.
+ *
+ * Modes (POST /actuator/clickreplay):
+ * - rebuild (no fromTime): every event from the start of the topic up to the live consumer's position
+ *   is counted and access_count is SET to the result — 0 for links without a replayed click. Exact only
+ *   if the topic still holds the whole history (retention.ms=-1) — otherwise the oldest clicks are gone
+ *   from both.
+ * - add (fromTime, optional toTime, epoch millis): the clicks of that window are ADDED — re-applying a
+ *   window lost with a database restore
+ *
+ * How it works:
+ * - One reader per partition (at most app.replay.readers at once), each with its own KafkaConsumer
+ *   (assign + seek, no consumer group), raw byte[] records and a streaming JSON scan of shortCode/count —
+ *   no Map per event
+ * - Each reader counts into its own {@link ClickCountMap} (primitive arrays, no boxing); the maps are
+ *   merged once all partitions are read
+ * - The totals are written per shard with JDBC batch UPDATEs of write-batch-size rows, one
+ *   transaction per batch; last_accessed_at is moved forward to the newest replayed click. A rebuild
+ *   then resets, in the same batches, every non-zero counter of a code the replay did not see
+ * - Replaying up to the live position pauses the live url.accessed listener for the duration: the
+ *   replay ends exactly where the live consumer resumes (its committed offset, or the offsets stored
+ *   by ExactlyOnceClickConsumer), so no click is counted by both. Only the listeners of this instance
+ *   can be paused, so such a replay is refused while the consumer group has members on other
+ *   instances — scale the group down to this instance first, or replay a closed window (toTime)
+ * - Afterwards the link caches are cleared and the leaderboard rebuilt
+ *
+ * Requires the JPA store (app.store.type=jpa). Time-bucketed counts are not stored by this
+ * app, so only the all-time counter and last_accessed_at are rebuilt. unique_access_count is left
+ * as it is: which clicks were unique depends on the de-duplication window state at the time, which
+ * the topic does not record.
+ *
+ * Metrics:
+ *   url.replay.records — events read by the current / last replay
+ *   url.replay.rows    — rows updated by the current / last replay
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true")
+public class ClickReplayService implements DisposableBean {
+
+    public enum State { IDLE, READING, WRITING, DONE, FAILED }
+
+    public record Progress(State state, String mode, long recordsRead, long recordsTotal, int codes,
+                           long rowsWritten, long recordsPerSecond, long elapsedMillis, String error) {
+    }
+
+    private static final String TOPIC = "url.accessed";
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final Map<String, Object> kafkaConfig;
+    private final DataSource dataSource;
+    private final Optional<DatabaseShardRouter> databaseShardRouter;
+    private final Supplier<List<MessageListenerContainer>> liveListeners;
+    private final Function<Collection<Integer>, Map<Integer, Long>> storedOffsets;
+    private final Runnable afterWrite;
+    private final String groupId;
+    private final int readers;
+    private final int writeBatchSize;
+    private final long progressLogMillis;
+    private final boolean jpaStore;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "click-replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong recordsRead = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private volatile State state = State.IDLE;
+    private volatile String mode;
+    private volatile long recordsTotal;
+    private volatile int codes;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String error;
+
+    @Autowired
+    public ClickReplayService(KafkaAdmin kafkaAdmin,
+                              DataSource dataSource,
+                              Optional<DatabaseShardRouter> databaseShardRouter,
+                              ObjectProvider<KafkaListenerEndpointRegistry> listenerRegistry,
+                              Optional<ExactlyOnceClickConsumer> exactlyOnceClickConsumer,
+                              Optional<CacheManager> cacheManager,
+                              Optional<ClickLeaderboardService> clickLeaderboardService,
+                              MeterRegistry meterRegistry,
+                              @Value("${spring.kafka.consumer.group-id:url-shortener-group}") String groupId,
+                              @Value("${app.store.type:jpa}") String storeType,
+                              @Value("${app.replay.readers:8}") int readers,
+                              @Value("${app.replay.write-batch-size:5000}") int writeBatchSize,
+                              @Value("${app.replay.progress-log-ms:5000}") long progressLogMillis) {
+        this(kafkaAdmin.getConfigurationProperties(), dataSource, databaseShardRouter,
+                () -> liveUrlAccessedListeners(listenerRegistry.getIfAvailable()),
+                partitions -> exactlyOnceClickConsumer.map(consumer -> consumer.storedOffsets(partitions))
+                        .orElse(Map.of()),
+                () -> {
+                    cacheManager.ifPresent(caches -> List.of("urls", "stats").forEach(name -> {
+                        Cache cache = caches.getCache(name);
+                        if (cache != null) {
+                            cache.clear();
+                        }
+                    }));
+                    clickLeaderboardService.ifPresent(ClickLeaderboardService::rebuild);
+                },
+                meterRegistry, groupId, "jpa".equals(storeType), readers, writeBatchSize, progressLogMillis);
+    }
+
+    public ClickReplayService(Map<String, Object> kafkaConfig,
+                              DataSource dataSource,
+                              Optional<DatabaseShardRouter> databaseShardRouter,
+                              Supplier<List<MessageListenerContainer>> liveListeners,
+                              Function<Collection<Integer>, Map<Integer, Long>> storedOffsets,
+                              Runnable afterWrite,
+                              MeterRegistry meterRegistry,
+                              String groupId,
+                              boolean jpaStore,
+                              int readers,
+                              int writeBatchSize,
+                              long progressLogMillis) {
+        this.kafkaConfig = kafkaConfig;
+        this.dataSource = dataSource;
+        this.databaseShardRouter = databaseShardRouter;
+        this.liveListeners = liveListeners;
+        this.storedOffsets = storedOffsets;
+        this.afterWrite = afterWrite;
+        this.groupId = groupId;
+        this.jpaStore = jpaStore;
+        this.readers = Math.max(1, readers);
+        this.writeBatchSize = Math.max(1, writeBatchSize);
+        this.progressLogMillis = Math.max(100, progressLogMillis);
+        meterRegistry.gauge("url.replay.records", recordsRead);
+        meterRegistry.gauge("url.replay.rows", rowsWritten);
+    }
+
+    /**
+     * Start a replay in the background
+     *
+     * @param fromTime null = rebuild from the start of the topic, else add the clicks from this time (epoch millis)
+     * @param toTime   null = up to the live consumer's position, else up to this time (add mode only)
+     * @throws IllegalStateException    when a replay is already running or the store is not JPA
+     * @throws IllegalArgumentException for a rebuild with an end time
+     */
+    public synchronized Progress start(Long fromTime, Long toTime) {
+        validate(fromTime, toTime);
+        begin(fromTime);
+        runner.submit(() -> run(fromTime, toTime));
+        return progress();
+    }
+
+    /** Run a replay on the calling thread */
+    public synchronized Progress replay(Long fromTime, Long toTime) {
+        validate(fromTime, toTime);
+        begin(fromTime);
+        run(fromTime, toTime);
+        return progress();
+    }
+
+    public Progress progress() {
+        long end = state == State.READING || state == State.WRITING ? System.currentTimeMillis() : finishedAt;
+        long elapsed = startedAt > 0 ? end - startedAt : 0;
+        long read = recordsRead.get();
+        return new Progress(state, mode, read, recordsTotal, codes, rowsWritten.get(),
+                elapsed > 0 ? read * 1000 / elapsed : 0, elapsed, error);
+    }
+
+    private void validate(Long fromTime, Long toTime) {
+        if (!jpaStore) {
+            throw new IllegalStateException("Click replay requires app.store.type=jpa");
+        }
+        if (fromTime == null && toTime != null) {
+            throw new IllegalArgumentException("A rebuild always replays up to the live consumer position");
+        }
+        if (state == State.READING || state == State.WRITING) {
+            throw new IllegalStateException("A replay is already running");
+        }
+    }
+
+    private void begin(Long fromTime) {
+        mode = fromTime == null ? "rebuild" : "add";
+        state = State.READING;
+        recordsRead.set(0);
+        rowsWritten.set(0);
+        recordsTotal = 0;
+        codes = 0;
+        error = null;
+        startedAt = System.currentTimeMillis();
+        finishedAt = 0;
+    }
+
+    private void run(Long fromTime, Long toTime) {
+        List<MessageListenerContainer> paused = List.of();
+        try {
+            if (toTime == null) {
+                paused = pauseLiveListeners();
+                requireNoOtherGroupMembers(paused);
+            }
+            ClickCountMap counts = read(fromTime, toTime);
+            codes = counts.size();
+            state = State.WRITING;
+            write(counts, fromTime == null);
+            afterWrite.run();
+            state = State.DONE;
+            log.info("Click replay ({}) done: {}", mode, progress());
+        } catch (Exception e) {
+            error = e.getMessage();
+            state = State.FAILED;
+            log.error("Click replay ({}) failed: {}", mode, e.getMessage(), e);
+        } finally {
+            finishedAt = System.currentTimeMillis();
+            paused.forEach(MessageListenerContainer::resume);
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Reading
+    // ─────────────────────────────────────────────
+
+    private ClickCountMap read(Long fromTime, Long toTime) throws Exception {
+        Map<TopicPartition, Long> starts = new HashMap<>();
+        Map<TopicPartition, Long> ends = new HashMap<>();
+        try (KafkaConsumer<byte[], byte[]> consumer = newConsumer()) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (PartitionInfo info : consumer.partitionsFor(TOPIC)) {
+                partitions.add(new TopicPartition(TOPIC, info.partition()));
+            }
+            Map<TopicPartition, Long> beginnings = consumer.beginningOffsets(partitions);
+            Map<TopicPartition, Long> logEnds = consumer.endOffsets(partitions);
+            starts.putAll(fromTime == null ? beginnings : offsetsForTime(consumer, partitions, fromTime, logEnds));
+            ends.putAll(toTime == null ? livePositions(partitions, beginnings)
+                    : offsetsForTime(consumer, partitions, toTime, logEnds));
+        }
+        long total = 0;
+        for (TopicPartition partition : starts.keySet()) {
+            total += Math.max(0, ends.get(partition) - starts.get(partition));
+        }
+        recordsTotal = total;
+        log.info("Click replay ({}): {} events in {} partitions", mode, total, starts.size());
+
+        AtomicInteger threadId = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(readers, Math.max(1, starts.size())), runnable -> {
+            Thread thread = new Thread(runnable, "click-replay-reader-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<ClickCountMap>> results = new ArrayList<>();
+            for (TopicPartition partition : starts.keySet()) {
+                results.add(pool.submit(() -> readPartition(partition, starts.get(partition), ends.get(partition))));
+            }
+            ClickCountMap merged = null;
+            for (Future<ClickCountMap> result : results) {
+                ClickCountMap partial;
+                while (true) {
+                    try {
+                        partial = result.get(progressLogMillis, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        Progress progress = progress();
+                        log.info("Click replay ({}): {}/{} events, {} events/s", mode, progress.recordsRead(),
+                                progress.recordsTotal(), progress.recordsPerSecond());
+                    }
+                }
+                if (merged == null) {
+                    merged = partial;
+                } else {
+                    merged.addAll(partial);
+                }
+            }
+            return merged != null ? merged : new ClickCountMap(16);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Counts one partition's [start, end) */
+    private ClickCountMap readPartition(TopicPartition partition, long start, long end) throws IOException {
+        ClickCountMap counts = new ClickCountMap((int) Math.min(1 << 20, Math.max(16, (end - start) / 8)));
+        if (start >= end) {
+            return counts;
+        }
+        try (KafkaConsumer<byte[], byte[]> consumer = newConsumer()) {
+            consumer.assign(List.of(partition));
+            consumer.seek(partition, start);
+            long next = start;
+            while (next < end) {
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(Duration.ofMillis(500));
+                long read = 0;
+                for (ConsumerRecord<byte[], byte[]> record : records) {
+                    if (record.offset() >= end) {
+                        next = end;
+                        break;
+                    }
+                    read++;
+                    if (record.value() != null) {
+                        count(record.value(), record.timestamp(), counts);
+                    }
+                    next = record.offset() + 1;
+                }
+                recordsRead.addAndGet(read);
+                if (records.isEmpty()) {
+                    // Gaps (compaction, transaction markers) move the position without returning records
+                    next = Math.max(next, consumer.position(partition));
+                }
+            }
+        }
+        return counts;
+    }
+
+    /** Streaming scan of one event: shortCode, and count for aggregated events (1 otherwise) */
+    public static void count(byte[] json, long timestamp, ClickCountMap counts) throws IOException {
+        String shortCode = null;
+        long clicks = 1;
+        try (JsonParser parser = JSON.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("shortCode".equals(field) && value == JsonToken.VALUE_STRING) {
+                    shortCode = parser.getText();
+                } else if ("count".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                    clicks = parser.getLongValue();
+                } else if ("sampleRate".equals(field) && value.isNumeric()) {
+                    clicks = UrlEventConsumer.weightOf(parser.getDoubleValue());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        if (shortCode != null && !shortCode.isBlank() && clicks > 0) {
+            counts.add(shortCode, clicks, timestamp);
+        }
+    }
+
+    private Map<TopicPartition, Long> offsetsForTime(KafkaConsumer<byte[], byte[]> consumer,
+                                                     List<TopicPartition> partitions, long time,
+                                                     Map<TopicPartition, Long> logEnds) {
+        Map<TopicPartition, Long> query = new HashMap<>();
+        partitions.forEach(partition -> query.put(partition, time));
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        consumer.offsetsForTimes(query).forEach((partition, found) ->
+                offsets.put(partition, found != null ? found.offset() : logEnds.get(partition)));
+        return offsets;
+    }
+
+    /**
+     * Where the live consumer resumes: the offsets stored with the counters (exactly-once mode),
+     * else the group's committed offset, else the start of the partition (nothing counted yet)
+     */
+    private Map<TopicPartition, Long> livePositions(List<TopicPartition> partitions,
+                                                    Map<TopicPartition, Long> beginnings) throws Exception {
+        Map<Integer, Long> stored = storedOffsets.apply(partitions.stream().map(TopicPartition::partition).toList());
+        Map<TopicPartition, OffsetAndMetadata> committed;
+        try (Admin admin = AdminClient.create(kafkaConfig)) {
+            committed = admin.listConsumerGroupOffsets(groupId).partitionsToOffsetAndMetadata()
+                    .get(30, TimeUnit.SECONDS);
+        }
+        Map<TopicPartition, Long> positions = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            Long position = stored.get(partition.partition());
+            OffsetAndMetadata offset = committed.get(partition);
+            if (position == null) {
+                position = offset != null ? offset.offset() : beginnings.get(partition);
+            }
+            positions.put(partition, position);
+        }
+        return positions;
+    }
+
+    private KafkaConsumer<byte[], byte[]> newConsumer() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaConfig.get(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG));
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 10_000);
+        config.put(ConsumerConfig.FETCH_MAX_BYTES_CONFIG, 64 * 1024 * 1024);
+        config.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, 16 * 1024 * 1024);
+        return new KafkaConsumer<>(config, new ByteArrayDeserializer(), new ByteArrayDeserializer());
+    }
+
+    // ─────────────────────────────────────────────
+    // Writing
+    // ─────────────────────────────────────────────
+
+    private void write(ClickCountMap counts, boolean rebuild) {
+        String sql = rebuild
+                ? "UPDATE urls SET access_count = ?, last_accessed_at = GREATEST(COALESCE(last_accessed_at, ?), ?)"
+                  + " WHERE short_code = ?"
+                : "UPDATE urls SET access_count = access_count + ?,"
+                  + " last_accessed_at = GREATEST(COALESCE(last_accessed_at, ?), ?) WHERE short_code = ?";
+
+        Map<String, List<Object[]>> byShard = new LinkedHashMap<>();
+        counts.forEach((shortCode, clicks, lastSeen) -> {
+            String shardId = databaseShardRouter.map(router -> router.shardForShortCode(shortCode)).orElse("");
+            Timestamp lastClick = new Timestamp(lastSeen);
+            byShard.computeIfAbsent(shardId, id -> new ArrayList<>())
+                    .add(new Object[]{clicks, lastClick, lastClick, shortCode});
+        });
+
+        byShard.forEach((shardId, rows) -> writeBatches(dataSourceOf(shardId), sql, rows));
+        if (rebuild) {
+            resetUnseen(counts);
+        }
+    }
+
+    /** Rebuild: a counter the replay saw no click for is 0, not whatever the column held */
+    private void resetUnseen(ClickCountMap counts) {
+        List<String> shardIds = databaseShardRouter.map(DatabaseShardRouter::getShardIds).orElse(List.of(""));
+        for (String shardId : shardIds) {
+            DataSource target = dataSourceOf(shardId);
+            List<Object[]> rows = new ArrayList<>();
+            new JdbcTemplate(target).query("SELECT short_code FROM urls WHERE access_count <> 0",
+                    (RowCallbackHandler) resultSet -> {
+                        String shortCode = resultSet.getString(1);
+                        if (counts.count(shortCode) == 0) {
+                            rows.add(new Object[]{shortCode});
+                        }
+                    });
+            writeBatches(target, "UPDATE urls SET access_count = 0 WHERE short_code = ?", rows);
+        }
+    }
+
+    private void writeBatches(DataSource target, String sql, List<Object[]> rows) {
+        JdbcTemplate jdbc = new JdbcTemplate(target);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(target));
+        for (int from = 0; from < rows.size(); from += writeBatchSize) {
+            List<Object[]> batch = rows.subList(from, Math.min(rows.size(), from + writeBatchSize));
+            int[] updated = transaction.execute(status -> jdbc.batchUpdate(sql, batch));
+            long rowsUpdated = 0;
+            for (int count : updated) {
+                rowsUpdated += Math.max(0, count);
+            }
+            rowsWritten.addAndGet(rowsUpdated);
+        }
+    }
+
+    private DataSource dataSourceOf(String shardId) {
+        return shardId.isEmpty() ? dataSource : databaseShardRouter.get().getDataSource(shardId);
+    }
+
+    // ─────────────────────────────────────────────
+    // Live listener
+    // ─────────────────────────────────────────────
+
+    private List<MessageListenerContainer> pauseLiveListeners() {
+        List<MessageListenerContainer> listeners = liveListeners.get().stream()
+                .filter(MessageListenerContainer::isRunning).toList();
+        listeners.forEach(MessageListenerContainer::pause);
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!listeners.stream().allMatch(MessageListenerContainer::isContainerPaused)) {
+            if (System.currentTimeMillis() > deadline) {
+                listeners.forEach(MessageListenerContainer::resume);
+                throw new IllegalStateException("Live url.accessed listener did not pause within 30s");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while pausing the live listener", e);
+            }
+        }
+        return listeners;
+    }
+
+    /**
+     * The group's other members keep counting while this instance replays up to the live position —
+     * their clicks would be counted twice, or overwritten by a rebuild. Only url.accessed partitions
+     * matter: the group also holds the url.created listeners (audit log) of every instance, this one's
+     * included.
+     */
+    private void requireNoOtherGroupMembers(List<MessageListenerContainer> paused) throws Exception {
+        Set<TopicPartition> local = new HashSet<>();
+        for (MessageListenerContainer listener : paused) {
+            Collection<TopicPartition> assigned = listener.getAssignedPartitions();
+            if (assigned != null) {
+                local.addAll(assigned);
+            }
+        }
+        Collection<MemberDescription> members;
+        try (Admin admin = AdminClient.create(kafkaConfig)) {
+            members = admin.describeConsumerGroups(List.of(groupId)).describedGroups().get(groupId)
+                    .get(30, TimeUnit.SECONDS).members();
+        }
+        Set<Integer> elsewhere = new TreeSet<>();
+        for (MemberDescription member : members) {
+            for (TopicPartition partition : member.assignment().topicPartitions()) {
+                if (TOPIC.equals(partition.topic()) && !local.contains(partition)) {
+                    elsewhere.add(partition.partition());
+                }
+            }
+        }
+        if (!elsewhere.isEmpty()) {
+            throw new IllegalStateException("Consumer group " + groupId + " consumes " + TOPIC + " partitions "
+                    + elsewhere + " outside this instance — a replay up to the live position needs every other"
+                    + " instance's url.accessed listener stopped");
+        }
+    }
+
+    private static List<MessageListenerContainer> liveUrlAccessedListeners(KafkaListenerEndpointRegistry registry) {
+        if (registry == null) {
+            return List.of();
+        }
+        List<MessageListenerContainer> listeners = new ArrayList<>();
+        for (String id : List.of(ConsumerConcurrencyController.LISTENER_ID, ExactlyOnceClickConsumer.LISTENER_ID)) {
+            MessageListenerContainer container = registry.getListenerContainer(id);
+            if (container != null) {
+                listeners.add(container);
+            }
+        }
+        return listeners;
+    }
+
+    @Override
+    public void destroy() {
+        runner.shutdownNow();
+    }
+}
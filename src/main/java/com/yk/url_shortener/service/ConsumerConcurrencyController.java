@@ -0,0 +1,302 @@
+package com.yk.url_shortener.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Lag-driven consumer concurrency for the url.accessed listener.
+ *
+ * Problem:
+ *   A fixed number of consumer threads is wrong twice a day: lag builds up during traffic spikes,
+ *   and at night the threads sit idle.
+ *
+ * How it works (every interval-ms):
+ * 1. Lag per partition = log-end offset - committed offset of the consumer group (AdminClient)
+ * 2. Instance lag = lag of the partitions currently assigned to this instance's listener. Every
+ *    instance runs its own controller, and only its own threads drain its own partitions — the
+ *    group-wide lag would make every member scale up for a backlog that sits on one of them
+ * 3. Processing latency = mean time per url.accessed record since the last run
+ *    (the url.kafka.consumer.processing timer recorded by UrlEventConsumer)
+ * 4. Estimated drain time = instance lag x latency / current threads
+ * 5. Scale UP by one thread when the drain time exceeds target-drain-ms (or, before any latency
+ *    is known, when the instance lag per thread exceeds scale-up-lag)
+ *    Scale DOWN by one thread after scale-down-intervals consecutive runs with instance lag <= scale-down-lag
+ *    No decision while the listener has no partitions assigned (starting up, or mid-rebalance)
+ * 6. Bounds: [min-concurrency, min(max-concurrency, partitions)] — a thread beyond the partition
+ *    count would get nothing to read. The partition count itself is the bootstrap setting
+ *    app.kafka.url-accessed.partitions (KafkaAdmin creates the topic, or adds partitions, on startup)
+ * 7. A change restarts the listener container with the new concurrency (one consumer-group
+ *    rebalance), then no other change for cooldown-ms
+ *
+ * Metrics (/actuator/metrics):
+ *   url.kafka.consumer.lag                   — total lag of the group on the topic
+ *   url.kafka.consumer.instance.lag          — lag of the partitions assigned to this instance
+ *   url.kafka.consumer.partition.lag{partition}
+ *   url.kafka.consumer.concurrency           — current listener threads
+ *   url.kafka.autoscale.decisions{direction} — up / down
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = {"spring.kafka.enabled", "app.kafka.autoscale.enabled"}, havingValue = "true")
+public class ConsumerConcurrencyController implements DisposableBean {
+
+    /** Listener id of UrlEventConsumer.onUrlAccessed */
+    public static final String LISTENER_ID = "url-accessed-listener";
+    public static final String PROCESSING_TIMER = "url.kafka.consumer.processing";
+
+    public enum Decision { UP, DOWN, HOLD }
+
+    private final Supplier<ConcurrentMessageListenerContainer<?, ?>> container;
+    private final Admin admin;
+    private final MeterRegistry meterRegistry;
+
+    private final String topic;
+    private final String groupId;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final long targetDrainMillis;
+    private final long scaleUpLag;
+    private final long scaleDownLag;
+    private final int scaleDownIntervals;
+    private final long cooldownMillis;
+
+    private final AtomicLong totalLag = new AtomicLong();
+    private final AtomicLong instanceLag = new AtomicLong();
+    private final AtomicInteger concurrency = new AtomicInteger();
+    private final MultiGauge partitionLag;
+    private final Counter scaledUp;
+    private final Counter scaledDown;
+
+    private long lastChangeAt;
+    private int quietIntervals;
+    private long lastTimerCount;
+    private double lastTimerTotalMillis;
+
+    @Autowired
+    public ConsumerConcurrencyController(KafkaListenerEndpointRegistry registry,
+                                         KafkaAdmin kafkaAdmin,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${spring.kafka.consumer.group-id:url-shortener-group}") String groupId,
+                                         @Value("${app.kafka.exactly-once.enabled:false}") boolean exactlyOnce,
+                                         @Value("${app.kafka.autoscale.min-concurrency:1}") int minConcurrency,
+                                         @Value("${app.kafka.autoscale.max-concurrency:12}") int maxConcurrency,
+                                         @Value("${app.kafka.autoscale.target-drain-ms:30000}") long targetDrainMillis,
+                                         @Value("${app.kafka.autoscale.scale-up-lag:1000}") long scaleUpLag,
+                                         @Value("${app.kafka.autoscale.scale-down-lag:100}") long scaleDownLag,
+                                         @Value("${app.kafka.autoscale.scale-down-intervals:6}") int scaleDownIntervals,
+                                         @Value("${app.kafka.autoscale.cooldown-ms:60000}") long cooldownMillis) {
+        // Whichever listener currently consumes url.accessed
+        this(() -> (ConcurrentMessageListenerContainer<?, ?>) registry.getListenerContainer(
+                        exactlyOnce ? ExactlyOnceClickConsumer.LISTENER_ID : LISTENER_ID),
+                AdminClient.create(kafkaAdmin.getConfigurationProperties()), meterRegistry, "url.accessed", groupId,
+                minConcurrency, maxConcurrency, targetDrainMillis, scaleUpLag, scaleDownLag, scaleDownIntervals,
+                cooldownMillis);
+    }
+
+    public ConsumerConcurrencyController(Supplier<ConcurrentMessageListenerContainer<?, ?>> container,
+                                         Admin admin,
+                                         MeterRegistry meterRegistry,
+                                         String topic,
+                                         String groupId,
+                                         int minConcurrency,
+                                         int maxConcurrency,
+                                         long targetDrainMillis,
+                                         long scaleUpLag,
+                                         long scaleDownLag,
+                                         int scaleDownIntervals,
+                                         long cooldownMillis) {
+        this.container = container;
+        this.admin = admin;
+        this.meterRegistry = meterRegistry;
+        this.topic = topic;
+        this.groupId = groupId;
+        this.minConcurrency = Math.max(1, minConcurrency);
+        this.maxConcurrency = Math.max(this.minConcurrency, maxConcurrency);
+        this.targetDrainMillis = Math.max(1, targetDrainMillis);
+        this.scaleUpLag = Math.max(1, scaleUpLag);
+        this.scaleDownLag = Math.max(0, scaleDownLag);
+        this.scaleDownIntervals = Math.max(1, scaleDownIntervals);
+        this.cooldownMillis = Math.max(0, cooldownMillis);
+
+        meterRegistry.gauge("url.kafka.consumer.lag", totalLag);
+        meterRegistry.gauge("url.kafka.consumer.instance.lag", instanceLag);
+        meterRegistry.gauge("url.kafka.consumer.concurrency", concurrency);
+        this.partitionLag = MultiGauge.builder("url.kafka.consumer.partition.lag").register(meterRegistry);
+        this.scaledUp = meterRegistry.counter("url.kafka.autoscale.decisions", "direction", "up");
+        this.scaledDown = meterRegistry.counter("url.kafka.autoscale.decisions", "direction", "down");
+    }
+
+    /**
+     * One control step.
+     *
+     * @return what was done (HOLD when the container or the lag is not available, or the
+     *         container is paused — e.g. by a click replay)
+     */
+    @Scheduled(fixedDelayString = "${app.kafka.autoscale.interval-ms:10000}",
+            initialDelayString = "${app.kafka.autoscale.interval-ms:10000}")
+    public synchronized Decision evaluate() {
+        ConcurrentMessageListenerContainer<?, ?> listener = container.get();
+        if (listener == null || listener.isPauseRequested()) {
+            return Decision.HOLD;
+        }
+        int current = listener.getConcurrency();
+        concurrency.set(current);
+
+        Map<Integer, Long> lags;
+        int partitions;
+        try {
+            partitions = partitionCount();
+            lags = partitionLags(partitions);
+        } catch (Exception e) {
+            log.debug("Could not read consumer lag for {}: {}", topic, e.getMessage());
+            return Decision.HOLD;
+        }
+        long lag = lags.values().stream().mapToLong(Long::longValue).sum();
+        totalLag.set(lag);
+        List<MultiGauge.Row<?>> rows = new ArrayList<>();
+        lags.forEach((partition, partitionLagValue) -> rows.add(
+                MultiGauge.Row.of(Tags.of("partition", String.valueOf(partition)), partitionLagValue)));
+        partitionLag.register(rows, true);
+
+        Collection<TopicPartition> assigned = listener.getAssignedPartitions();
+        if (assigned == null || assigned.isEmpty()) {
+            return Decision.HOLD;
+        }
+        long ownLag = assigned.stream()
+                .filter(partition -> topic.equals(partition.topic()))
+                .mapToLong(partition -> lags.getOrDefault(partition.partition(), 0L))
+                .sum();
+        instanceLag.set(ownLag);
+
+        double latencyMillis = processingLatencyMillis();
+        int upper = Math.min(maxConcurrency, Math.max(1, partitions));
+        long now = System.currentTimeMillis();
+        boolean coolingDown = lastChangeAt > 0 && now - lastChangeAt < cooldownMillis;
+
+        boolean behind = latencyMillis > 0
+                ? ownLag * latencyMillis / current > targetDrainMillis
+                : ownLag > scaleUpLag * current;
+        quietIntervals = ownLag <= scaleDownLag ? quietIntervals + 1 : 0;
+
+        Decision decision = Decision.HOLD;
+        int target = current;
+        if (current < minConcurrency) {
+            target = minConcurrency;
+            decision = Decision.UP;
+        } else if (current > upper) {
+            target = upper;
+            decision = Decision.DOWN;
+        } else if (!coolingDown && behind && current < upper) {
+            target = current + 1;
+            decision = Decision.UP;
+        } else if (!coolingDown && quietIntervals >= scaleDownIntervals && current > minConcurrency) {
+            target = current - 1;
+            decision = Decision.DOWN;
+        }
+
+        if (decision != Decision.HOLD) {
+            log.info("Scaling {} consumer threads {} → {} (instance lag {}, group lag {}, {} ms/record, {} partitions)",
+                    topic, current, target, ownLag, lag, String.format("%.2f", latencyMillis), partitions);
+            listener.stop();
+            listener.setConcurrency(target);
+            listener.start();
+            concurrency.set(target);
+            lastChangeAt = now;
+            quietIntervals = 0;
+            (decision == Decision.UP ? scaledUp : scaledDown).increment();
+        }
+        return decision;
+    }
+
+    public long lastTotalLag() {
+        return totalLag.get();
+    }
+
+    public long lastInstanceLag() {
+        return instanceLag.get();
+    }
+
+    @Override
+    public void destroy() {
+        admin.close();
+    }
+
+    private int partitionCount() throws Exception {
+        TopicDescription description = admin.describeTopics(List.of(topic)).allTopicNames()
+                .get(5, TimeUnit.SECONDS).get(topic);
+        return description.partitions().size();
+    }
+
+    private Map<Integer, Long> partitionLags(int partitions) throws Exception {
+        Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(groupId)
+                .partitionsToOffsetAndMetadata().get(5, TimeUnit.SECONDS);
+
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        Map<TopicPartition, OffsetSpec> earliest = new HashMap<>();
+        for (int p = 0; p < partitions; p++) {
+            TopicPartition partition = new TopicPartition(topic, p);
+            latest.put(partition, OffsetSpec.latest());
+            if (committed.get(partition) == null) {
+                earliest.put(partition, OffsetSpec.earliest()); // nothing committed yet — auto-offset-reset=earliest
+            }
+        }
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends =
+                admin.listOffsets(latest).all().get(5, TimeUnit.SECONDS);
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> starts = earliest.isEmpty()
+                ? Map.of() : admin.listOffsets(earliest).all().get(5, TimeUnit.SECONDS);
+
+        Map<Integer, Long> lags = new TreeMap<>();
+        ends.forEach((partition, end) -> {
+            OffsetAndMetadata offset = committed.get(partition);
+            long position = offset != null ? offset.offset() : starts.get(partition).offset();
+            lags.put(partition.partition(), Math.max(0, end.offset() - position));
+        });
+        return lags;
+    }
+
+    /** Mean processing time per record since the last evaluation, 0 if no record was processed */
+    private double processingLatencyMillis() {
+        Timer timer = meterRegistry.find(PROCESSING_TIMER).timer();
+        if (timer == null) {
+            return 0;
+        }
+        long count = timer.count();
+        double totalMillis = timer.totalTime(TimeUnit.MILLISECONDS);
+        long records = count - lastTimerCount;
+        double millis = totalMillis - lastTimerTotalMillis;
+        lastTimerCount = count;
+        lastTimerTotalMillis = totalMillis;
+        return records > 0 ? millis / records : 0;
+    }
+}
@@ -0,0 +1,251 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.model.ConsumerOffset;
+import com.yk.url_shortener.repository.ConsumerOffsetRepository;
+import com.yk.url_shortener.sharding.DatabaseShardRouter;
+import com.yk.url_shortener.sharding.ShardContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Exactly-once consumption of url.accessed — replaces UrlEventConsumer.onUrlAccessed when
+ * app.kafka.exactly-once.enabled=true.
+ *
+ * Problem:
+ *   The per-record listener commits the Kafka offset AFTER the counter UPDATE, in a separate step.
+ *   A crash in between replays the record and counts the click twice — and one offset commit per
+ *   record caps consumer throughput.
+ *
+ * How it works:
+ * - Batch listener: one poll (up to max-poll-records records) is applied at a time
+ * - Clicks are summed per short code, then applied with one UPDATE per code — in the SAME database
+ *   transaction that advances the partition's stored offset (consumer_offsets table). Either both
+ *   are committed or neither is.
+ * - Fencing: the stored offsets are read with SELECT ... FOR UPDATE at the start of the transaction
+ *   and records below them are skipped — a replayed record is never applied again, whoever replays it
+ * - On partition assignment the consumer seeks to the stored offset, so a restart does not even
+ *   re-read what the database already has. The Kafka commit (once per batch) only feeds lag
+ *   monitoring — it is never ahead of the database.
+ *
+ * Sharding: a transaction never spans shards, so every shard keeps its own consumer_offsets rows
+ * and is fenced on its own — a crash between two shard commits replays the batch, and only the shards
+ * that had not committed it apply it. The seek goes to the lowest offset over all shards.
+ *
+ * Counter side effects (expiry, leaderboard, trending) run inside the transaction through
+ * UrlShortenerService; the first two take absolute counts, so a rolled-back and retried batch
+ * leaves them correct. Only the trending window can see such a batch twice.
+ *
+ * Click de-duplication (app.click-dedup.enabled=true): single clicks are checked at their
+ * accessedAt (or the record timestamp) and unique clicks go into the same UPDATE. The filters are
+ * not transactional — a batch that is rolled back and redelivered finds its visitors already
+ * seen, so its clicks are counted raw only; raw counts stay exact.
+ *
+ * Requires the JPA store (app.store.type=jpa).
+ *
+ * Metrics:
+ *   url.kafka.exactly-once.records{result=applied|skipped} — records counted / fenced off as replays
+ *   url.kafka.consumer.processing                          — per-record share of the batch time
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = {"spring.kafka.enabled", "app.kafka.exactly-once.enabled"}, havingValue = "true")
+public class ExactlyOnceClickConsumer implements ConsumerSeekAware {
+
+    public static final String LISTENER_ID = "url-accessed-exactly-once-listener";
+    private static final String TOPIC = "url.accessed";
+
+    private final UrlShortenerService urlShortenerService;
+    private final ConsumerOffsetRepository offsetRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Optional<DatabaseShardRouter> databaseShardRouter;
+    private final Optional<ClickDeduplicator> clickDeduplicator;
+    private final MeterRegistry meterRegistry;
+    private final String groupId;
+
+    private final Counter applied;
+    private final Counter skipped;
+
+    @Autowired
+    public ExactlyOnceClickConsumer(UrlShortenerService urlShortenerService,
+                                    ConsumerOffsetRepository offsetRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    Optional<DatabaseShardRouter> databaseShardRouter,
+                                    Optional<ClickDeduplicator> clickDeduplicator,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${spring.kafka.consumer.group-id:url-shortener-group}") String groupId,
+                                    @Value("${app.store.type:jpa}") String storeType) {
+        if (!"jpa".equals(storeType)) {
+            throw new IllegalStateException("app.kafka.exactly-once.enabled=true requires app.store.type=jpa");
+        }
+        this.urlShortenerService = urlShortenerService;
+        this.offsetRepository = offsetRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.databaseShardRouter = databaseShardRouter;
+        this.clickDeduplicator = clickDeduplicator;
+        this.meterRegistry = meterRegistry;
+        this.groupId = groupId;
+        this.applied = meterRegistry.counter("url.kafka.exactly-once.records", "result", "applied");
+        this.skipped = meterRegistry.counter("url.kafka.exactly-once.records", "result", "skipped");
+    }
+
+    /**
+     * One poll of url.accessed. Exceptions are NOT swallowed: the transaction rolls back and the
+     * container's error handler redelivers the batch.
+     */
+    @KafkaListener(
+            id = LISTENER_ID,
+            topics = TOPIC,
+            groupId = "${spring.kafka.consumer.group-id:url-shortener-group}",
+            containerFactory = "exactlyOnceListenerContainerFactory"
+    )
+    public void onUrlAccessedBatch(List<ConsumerRecord<String, Map<String, Object>>> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        apply(records);
+
+        // The autoscaler reads a per-record latency — each record gets its share of the batch
+        Timer timer = meterRegistry.timer(ConsumerConcurrencyController.PROCESSING_TIMER);
+        long perRecordNanos = (System.nanoTime() - start) / records.size();
+        for (int i = 0; i < records.size(); i++) {
+            timer.record(perRecordNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Apply a batch on every shard — each in one transaction with its offsets */
+    public void apply(List<ConsumerRecord<String, Map<String, Object>>> records) {
+        // Highest offset per partition in this batch → the next offsets to store
+        Map<Integer, Long> nextOffsets = new HashMap<>();
+        for (ConsumerRecord<String, Map<String, Object>> record : records) {
+            nextOffsets.merge(record.partition(), record.offset() + 1, Math::max);
+        }
+        for (String shardId : shardIds()) {
+            long[] result = onShard(shardId, () -> transactionTemplate.execute(
+                    status -> applyOnShard(shardId, records, nextOffsets)));
+            applied.increment(result[0]);
+            skipped.increment(result[1]);
+        }
+    }
+
+    /**
+     * Where each partition should be read from: the lowest stored offset over all shards.
+     * Partitions missing on any shard are left out (the Kafka committed offset, never ahead
+     * of the database, applies).
+     */
+    public Map<Integer, Long> storedOffsets(Collection<Integer> partitions) {
+        List<String> ids = partitions.stream().map(this::idOf).toList();
+        Map<Integer, Long> lowest = new HashMap<>();
+        Map<Integer, Integer> shardsWithOffset = new HashMap<>();
+        List<String> shardIds = shardIds();
+        for (String shardId : shardIds) {
+            for (ConsumerOffset offset : onShard(shardId, () -> offsetRepository.findAllById(ids))) {
+                lowest.merge(offset.getPartition(), offset.getNextOffset(), Math::min);
+                shardsWithOffset.merge(offset.getPartition(), 1, Integer::sum);
+            }
+        }
+        lowest.keySet().removeIf(partition -> shardsWithOffset.get(partition) < shardIds.size());
+        return lowest;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        List<Integer> partitions = new ArrayList<>();
+        assignments.keySet().forEach(topicPartition -> partitions.add(topicPartition.partition()));
+        storedOffsets(partitions).forEach((partition, offset) -> {
+            log.info("Resuming {}-{} at offset {} from the database", TOPIC, partition, offset);
+            callback.seek(TOPIC, partition, offset);
+        });
+    }
+
+    /** @return {records applied, records skipped as already counted} */
+    private long[] applyOnShard(String shardId, List<ConsumerRecord<String, Map<String, Object>>> records,
+                                Map<Integer, Long> nextOffsets) {
+        Map<Integer, ConsumerOffset> stored = new HashMap<>();
+        offsetRepository.lockAllById(nextOffsets.keySet().stream().map(this::idOf).toList())
+                .forEach(offset -> stored.put(offset.getPartition(), offset));
+
+        Map<String, Long> clicksByCode = new LinkedHashMap<>();
+        Map<String, Long> uniqueByCode = new HashMap<>();
+        long appliedRecords = 0;
+        long skippedRecords = 0;
+        for (ConsumerRecord<String, Map<String, Object>> record : records) {
+            Map<String, Object> payload = record.value();
+            String shortCode = payload != null ? (String) payload.get("shortCode") : null;
+            if (shortCode == null || shortCode.isBlank()
+                    || (shardId != null && !shardId.equals(databaseShardRouter.get().shardForShortCode(shortCode)))) {
+                continue;
+            }
+            ConsumerOffset offset = stored.get(record.partition());
+            if (offset != null && record.offset() < offset.getNextOffset()) {
+                skippedRecords++;
+                continue;
+            }
+            long clicks = UrlEventConsumer.clicksOf(payload);
+            if (clicks > 0) {
+                clicksByCode.merge(shortCode, clicks, Long::sum);
+                clickDeduplicator.ifPresent(dedup -> uniqueByCode.merge(shortCode,
+                        dedup.uniqueClicksOf(payload, shortCode, clicks, record.timestamp()), Long::sum));
+                appliedRecords++;
+            }
+        }
+        if (clickDeduplicator.isPresent()) {
+            clicksByCode.forEach((code, clicks) ->
+                    urlShortenerService.incrementAccessCount(code, clicks, uniqueByCode.get(code)));
+        } else {
+            clicksByCode.forEach(urlShortenerService::incrementAccessCount);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        nextOffsets.forEach((partition, next) -> {
+            ConsumerOffset offset = stored.get(partition);
+            if (offset == null) {
+                offset = ConsumerOffset.builder().id(idOf(partition)).groupId(groupId).topic(TOPIC)
+                        .partition(partition).nextOffset(next).build();
+            } else if (next <= offset.getNextOffset()) {
+                return;
+            }
+            offset.setNextOffset(next);
+            offset.setUpdatedAt(now);
+            offsetRepository.save(offset);
+        });
+        return new long[]{appliedRecords, skippedRecords};
+    }
+
+    /** Shards to apply on — a single null entry (no pinning) when sharding is off */
+    private List<String> shardIds() {
+        return databaseShardRouter.map(DatabaseShardRouter::getShardIds).orElse(Collections.singletonList(null));
+    }
+
+    private static <T> T onShard(String shardId, Supplier<T> work) {
+        return shardId == null ? work.get() : ShardContext.pin(shardId, work);
+    }
+
+    private String idOf(int partition) {
+        return ConsumerOffset.idOf(groupId, TOPIC, partition);
+    }
+}
@@ -0,0 +1,226 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.sharding.RedisShardRouter;
+import com.yk.url_shortener.util.CountMinSketch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hot-Key Detector for the redirect path.
+ *
+ * Problem:
+ *   One viral short code can send most of our traffic to ONE Redis key —
+ *   one Redis shard, one connection, one hot spot.
+ *
+ * How it works:
+ * - Every redirect (optionally sampled) is added to a Count-Min sketch for the current window
+ * - Two sketches rotate every window (default 10s): "current" and "previous"
+ *   → rate(key) = (previous + current) / (window + elapsed in current window)
+ * - A key whose rate crosses the threshold (default 50 req/s) is flagged HOT
+ *   and kept in a small bounded map (default max 100 keys)
+ * - {@link LocalHotKeyCache} pins hot keys in-process so they stop hitting Redis at all
+ *
+ * Shared across instances (Redis):
+ * - At every window rotation each instance ZINCRBYs its local hot-key rates into
+ *   "hot_keys:&lt;window-number&gt;" → the sorted set sums rates across instances
+ * - Each instance reads the PREVIOUS (complete) window's set → keys that are hot
+ *   globally get pinned everywhere, even on instances that only see a trickle
+ * - Buckets expire after 3 windows — no cleanup needed
+ * - If Redis is down, detection keeps working locally
+ *
+ * Memory: two 4 x 2048 sketches (64KB total) + at most max-keys map entries,
+ * regardless of how many distinct short codes we serve.
+ */
+@Slf4j
+@Service
+public class HotKeyDetector {
+
+    private static final String REDIS_KEY_PREFIX = "hot_keys:";
+
+    private final RedisShardRouter redisShardRouter;
+
+    private final boolean enabled;
+    private final double thresholdPerSecond;
+    private final long windowMillis;
+    private final int maxKeys;
+    private final double sampleRate;
+    private final boolean shareViaRedis;
+
+    private volatile CountMinSketch currentWindow = new CountMinSketch(4, 2048);
+    private volatile CountMinSketch previousWindow = new CountMinSketch(4, 2048);
+    private volatile long windowStartedAt = System.currentTimeMillis();
+
+    /** Hot keys seen by THIS instance → requests/second */
+    private final Map<String, Double> localHotKeys = new ConcurrentHashMap<>();
+
+    /** Hot keys aggregated across ALL instances (from Redis) → requests/second */
+    private volatile Map<String, Double> sharedHotKeys = Map.of();
+
+    public HotKeyDetector(RedisShardRouter redisShardRouter,
+                          @Value("${app.hot-keys.enabled:true}") boolean enabled,
+                          @Value("${app.hot-keys.threshold-per-second:50}") double thresholdPerSecond,
+                          @Value("${app.hot-keys.window-ms:10000}") long windowMillis,
+                          @Value("${app.hot-keys.max-keys:100}") int maxKeys,
+                          @Value("${app.hot-keys.sample-rate:1.0}") double sampleRate,
+                          @Value("${app.hot-keys.share-via-redis:true}") boolean shareViaRedis) {
+        this.redisShardRouter = redisShardRouter;
+        this.enabled = enabled;
+        this.thresholdPerSecond = thresholdPerSecond;
+        this.windowMillis = windowMillis;
+        this.maxKeys = maxKeys;
+        this.sampleRate = sampleRate;
+        this.shareViaRedis = shareViaRedis;
+    }
+
+    /**
+     * Record one access to a short code. Called on every redirect — must stay cheap:
+     * one random draw, 4 counter increments, 8 counter reads.
+     *
+     * @return true if the key is currently hot (locally or globally)
+     */
+    public boolean recordAccess(String shortCode) {
+        if (!enabled) {
+            return false;
+        }
+        if (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            currentWindow.add(shortCode);
+            double rate = estimateRate(shortCode);
+            if (rate >= thresholdPerSecond) {
+                markHot(shortCode, rate);
+                return true;
+            }
+        }
+        return isHot(shortCode);
+    }
+
+    /**
+     * Seed a key as hot (e.g. replayed from the hot-key dump at startup).
+     * It stays hot only if real traffic confirms it at the next window rotation.
+     */
+    public void seed(String shortCode, double ratePerSecond) {
+        if (enabled) {
+            markHot(shortCode, ratePerSecond);
+        }
+    }
+
+    public boolean isHot(String shortCode) {
+        return enabled && (localHotKeys.containsKey(shortCode) || sharedHotKeys.containsKey(shortCode));
+    }
+
+    /**
+     * Approximate requests/second for a key over the last 1..2 windows (sample rate corrected).
+     */
+    public double estimateRate(String shortCode) {
+        long elapsed = Math.max(1, System.currentTimeMillis() - windowStartedAt);
+        long count = previousWindow.estimate(shortCode) + currentWindow.estimate(shortCode);
+        return count / sampleRate / ((windowMillis + elapsed) / 1000.0);
+    }
+
+    /** Hot keys seen by this instance, hottest first */
+    public List<HotKey> getLocalHotKeys() {
+        return sorted(localHotKeys);
+    }
+
+    /** Hot keys aggregated across all instances (previous complete window), hottest first */
+    public List<HotKey> getSharedHotKeys() {
+        return sorted(sharedHotKeys);
+    }
+
+    /** Every key currently flagged hot — local ∪ shared */
+    public Set<String> hotKeySet() {
+        Set<String> all = new HashSet<>(localHotKeys.keySet());
+        all.addAll(sharedHotKeys.keySet());
+        return all;
+    }
+
+    /**
+     * Window rotation: age out the previous sketch, re-rate local hot keys,
+     * then exchange hot keys with the other instances through Redis.
+     */
+    @Scheduled(fixedDelayString = "${app.hot-keys.window-ms:10000}")
+    public void rotateWindow() {
+        if (!enabled) {
+            return;
+        }
+        CountMinSketch recycled = previousWindow;
+        recycled.clear();
+        previousWindow = currentWindow;
+        currentWindow = recycled;
+        windowStartedAt = System.currentTimeMillis();
+
+        // Keys that cooled down drop out; survivors get a fresh rate
+        localHotKeys.replaceAll((key, oldRate) -> estimateRate(key));
+        localHotKeys.values().removeIf(rate -> rate < thresholdPerSecond);
+
+        if (shareViaRedis) {
+            exchangeWithRedis();
+        }
+    }
+
+    private void markHot(String shortCode, double rate) {
+        if (localHotKeys.containsKey(shortCode) || localHotKeys.size() < maxKeys) {
+            localHotKeys.put(shortCode, rate);
+            return;
+        }
+        // Map full — replace the coolest key only if this one is hotter
+        localHotKeys.entrySet().stream()
+                .min(Map.Entry.comparingByValue())
+                .filter(coolest -> coolest.getValue() < rate)
+                .ifPresent(coolest -> {
+                    localHotKeys.remove(coolest.getKey());
+                    localHotKeys.put(shortCode, rate);
+                });
+    }
+
+    private void exchangeWithRedis() {
+        long window = System.currentTimeMillis() / windowMillis;
+        String currentKey = REDIS_KEY_PREFIX + window;
+        String previousKey = REDIS_KEY_PREFIX + (window - 1);
+        try {
+            if (!localHotKeys.isEmpty()) {
+                RedisTemplate<String, Object> template = redisShardRouter.templateFor(currentKey);
+                ZSetOperations<String, Object> zSet = template.opsForZSet();
+                localHotKeys.forEach((key, rate) -> zSet.incrementScore(currentKey, key, rate));
+                template.expire(currentKey, Duration.ofMillis(windowMillis * 3));
+            }
+
+            Set<ZSetOperations.TypedTuple<Object>> global = redisShardRouter.templateFor(previousKey).opsForZSet()
+                    .reverseRangeByScoreWithScores(previousKey, thresholdPerSecond, Double.MAX_VALUE, 0, maxKeys);
+            Map<String, Double> shared = new HashMap<>();
+            if (global != null) {
+                global.forEach(tuple -> shared.put(String.valueOf(tuple.getValue()), tuple.getScore()));
+            }
+            sharedHotKeys = shared;
+
+        } catch (Exception e) {
+            // Redis down — keep local detection, drop shared view so it can't go stale
+            log.debug("Could not exchange hot keys via Redis: {}", e.getMessage());
+            sharedHotKeys = Map.of();
+        }
+    }
+
+    private static List<HotKey> sorted(Map<String, Double> keys) {
+        return keys.entrySet().stream()
+                .map(entry -> new HotKey(entry.getKey(), Math.round(entry.getValue() * 10) / 10.0))
+                .sorted(Comparator.comparingDouble(HotKey::ratePerSecond).reversed())
+                .toList();
+    }
+
+    /** A hot short code and its approximate request rate */
+    public record HotKey(String shortCode, double ratePerSecond) {
+    }
+}
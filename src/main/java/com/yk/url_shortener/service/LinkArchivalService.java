@@ -0,0 +1,130 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.store.ColdArchive;
+import com.yk.url_shortener.store.JpaUrlStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Cold-tier archival — moves dormant links out of the `urls` table into {@link ColdArchive} segments.
+ *
+ * Dormant = permanent link not followed for dormant-days (never-followed links: created that long ago).
+ *
+ * How it works (every interval-ms, at most max-batches of batch-size links per run):
+ * 1. Read one batch of dormant links (indexed on last_accessed_at)
+ * 2. Write them into one new compressed segment and fsync it — the archive copy is durable first
+ * 3. Delete them from the hot tier by primary key, re-checking dormancy in the same DELETE:
+ *    a link followed since step 1 stays hot (its stale archive copy is shadowed, hot always wins)
+ * 4. Evict them from the Redis caches (one pipelined DEL per shard) and the local hot-key tier
+ *
+ * A crash between 2 and 3 leaves links in both tiers — harmless, and the next run archives them again.
+ * They come back on their first access via {@link com.yk.url_shortener.store.TieredUrlStore}.
+ *
+ * Metrics:
+ *   url.archive.archived     — links moved to the cold tier
+ *   url.archive.rehydrated   — links brought back (TieredUrlStore)
+ *   url.archive.segments     — segment files
+ *   url.archive.bytes        — disk used by the archive
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true")
+public class LinkArchivalService {
+
+    private final JpaUrlStore hotStore;
+    private final ColdArchive archive;
+    private final UrlCacheBulkOperations urlCacheBulkOperations;
+    private final LocalHotKeyCache localHotKeyCache;
+
+    private final long dormantDays;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    private final Counter archived;
+
+    public LinkArchivalService(JpaUrlStore hotStore,
+                               ColdArchive archive,
+                               UrlCacheBulkOperations urlCacheBulkOperations,
+                               LocalHotKeyCache localHotKeyCache,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.archive.dormant-days:30}") long dormantDays,
+                               @Value("${app.archive.batch-size:10000}") int batchSize,
+                               @Value("${app.archive.max-batches:10}") int maxBatchesPerRun) {
+        this.hotStore = hotStore;
+        this.archive = archive;
+        this.urlCacheBulkOperations = urlCacheBulkOperations;
+        this.localHotKeyCache = localHotKeyCache;
+        this.dormantDays = dormantDays;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+
+        this.archived = meterRegistry.counter("url.archive.archived");
+        meterRegistry.gauge("url.archive.segments", archive, ColdArchive::segmentCount);
+        meterRegistry.gauge("url.archive.bytes", archive, ColdArchive::sizeBytes);
+    }
+
+    /**
+     * One archival run.
+     *
+     * @return number of links moved to the cold tier
+     */
+    @Scheduled(fixedDelayString = "${app.archive.interval-ms:3600000}",
+            initialDelayString = "${app.archive.interval-ms:3600000}")
+    public int archiveDormant() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(dormantDays);
+        int moved = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Url> dormant;
+            try {
+                dormant = hotStore.findDormant(cutoff, batchSize);
+            } catch (Exception e) {
+                log.warn("Dormant-link query failed: {}", e.getMessage());
+                break;
+            }
+            if (dormant.isEmpty()) {
+                break;
+            }
+            List<String> shortCodes = dormant.stream().map(Url::getShortCode).toList();
+            try {
+                archive.archive(dormant);
+            } catch (Exception e) {
+                // Nothing left the hot tier — retried on the next run
+                log.warn("Could not write archive segment for {} links: {}", dormant.size(), e.getMessage());
+                break;
+            }
+            int deleted;
+            try {
+                deleted = hotStore.deleteDormant(shortCodes, cutoff);
+            } catch (Exception e) {
+                log.warn("Archived {} links but could not delete them from the hot tier: {}",
+                        dormant.size(), e.getMessage());
+                break;
+            }
+            try {
+                urlCacheBulkOperations.evictAll(shortCodes);
+            } catch (Exception e) {
+                log.warn("Cache eviction after archival failed: {}", e.getMessage());
+            }
+            localHotKeyCache.evictAll(shortCodes);
+
+            moved += deleted;
+            archived.increment(deleted);
+            if (dormant.size() < batchSize) {
+                break;
+            }
+        }
+        if (moved > 0) {
+            log.info("Archived {} dormant links (not followed for {} days)", moved, dormantDays);
+        }
+        return moved;
+    }
+}
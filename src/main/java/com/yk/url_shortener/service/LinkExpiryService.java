@@ -0,0 +1,265 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.store.UrlStore;
+import com.yk.url_shortener.util.HierarchicalTimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-link expiry: a time limit (expiresAt) and/or a click limit (maxClicks).
+ *
+ * Enforcement (redirect path, always on):
+ *   {@link #isExpired(Url)} compares the fields of the Url the lookup already returned —
+ *   no extra query, no extra cache round trip. An expired link answers 410 Gone.
+ *
+ * Removal — two paths, neither ever runs a long table-locking DELETE:
+ *
+ * 1. Timing wheel (prompt, in memory)
+ *    Links with an expiry are scheduled on a {@link HierarchicalTimingWheel} (1s ticks, 4 levels
+ *    ≈ 194 days) when they are created or served here. Every tick, due links are purged:
+ *    deleted by primary key and evicted from the "urls"/"stats" caches and the local hot-key
+ *    tier in bulk. Click-limited links are purged as soon as the counter write reaches the limit:
+ *    the count returned by the atomic increment is compared with the link's limit, which is loaded
+ *    from the store the first time this instance counts a code (clicks are often counted on
+ *    another instance than the one that served the redirect). Limits never change, so a bounded
+ *    LRU of them (app.link-expiry.click-limit-cache-size, permanent links included) is never stale.
+ *
+ * 2. Incremental sweep (complete, on the DB)
+ *    The wheel only knows links this instance has seen. Every sweep-interval the store is asked
+ *    for up to batch-size expired codes (indexed on expires_at), those are purged, then a pause —
+ *    at most max-batches per run. Each batch is one short transaction deleting by primary key,
+ *    so a backlog of a million expired links drains over a few runs instead of locking the table.
+ *
+ * Metrics:
+ *   url.expiry.purged         — tagged source=wheel|sweep
+ *   url.expiry.wheel.size     — links currently scheduled
+ */
+@Slf4j
+@Service
+public class LinkExpiryService {
+
+    private static final long NO_LIMIT = Long.MAX_VALUE;
+
+    private final UrlStore urlStore;
+    private final UrlCacheBulkOperations urlCacheBulkOperations;
+    private final LocalHotKeyCache localHotKeyCache;
+
+    private final boolean purgeEnabled;
+    private final int batchSize;
+    private final int maxBatchesPerSweep;
+    private final long batchPauseMillis;
+
+    private final HierarchicalTimingWheel<String> wheel;
+    /** Links counted or served by this instance: short code → maxClicks (NO_LIMIT for permanent links) */
+    private final Map<String, Long> clickLimits;
+    /** Codes found expired on the redirect path or at their click limit — purged on the next tick */
+    private final Set<String> purgeNow = ConcurrentHashMap.newKeySet();
+
+    private final Counter purgedByWheel;
+    private final Counter purgedBySweep;
+
+    public LinkExpiryService(UrlStore urlStore,
+                             UrlCacheBulkOperations urlCacheBulkOperations,
+                             LocalHotKeyCache localHotKeyCache,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.link-expiry.purge-enabled:true}") boolean purgeEnabled,
+                             @Value("${app.link-expiry.tick-ms:1000}") long tickMillis,
+                             @Value("${app.link-expiry.wheel-levels:4}") int wheelLevels,
+                             @Value("${app.link-expiry.sweep.batch-size:500}") int batchSize,
+                             @Value("${app.link-expiry.sweep.max-batches:20}") int maxBatchesPerSweep,
+                             @Value("${app.link-expiry.sweep.batch-pause-ms:100}") long batchPauseMillis,
+                             @Value("${app.link-expiry.click-limit-cache-size:100000}") int clickLimitCacheSize) {
+        this.urlStore = urlStore;
+        this.urlCacheBulkOperations = urlCacheBulkOperations;
+        this.localHotKeyCache = localHotKeyCache;
+        this.purgeEnabled = purgeEnabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerSweep = Math.max(1, maxBatchesPerSweep);
+        this.batchPauseMillis = batchPauseMillis;
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, wheelLevels, System.currentTimeMillis());
+        int maxLimits = Math.max(1, clickLimitCacheSize);
+        this.clickLimits = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxLimits;
+            }
+        });
+
+        this.purgedByWheel = meterRegistry.counter("url.expiry.purged", "source", "wheel");
+        this.purgedBySweep = meterRegistry.counter("url.expiry.purged", "source", "sweep");
+        meterRegistry.gauge("url.expiry.wheel.size", wheel, HierarchicalTimingWheel::size);
+    }
+
+    /**
+     * Redirect-path check — pure field comparison on the already-loaded Url.
+     * The access count of a cached Url may lag; the counter write path closes that gap
+     * by evicting the link the moment its limit is reached ({@link #onAccessCount}).
+     */
+    public static boolean isExpired(Url url, LocalDateTime now) {
+        if (url.getExpiresAt() != null && !now.isBefore(url.getExpiresAt())) {
+            return true;
+        }
+        return url.getMaxClicks() != null && url.getAccessCount() != null
+                && url.getAccessCount() >= url.getMaxClicks();
+    }
+
+    public boolean isExpired(Url url) {
+        return isExpired(url, LocalDateTime.now());
+    }
+
+    /**
+     * Start tracking a link with limits (on create, and whenever one is served here).
+     * Permanent links return immediately; already-tracked links cost one map lookup.
+     */
+    public void track(Url url) {
+        if (url.getExpiresAt() != null && !wheel.contains(url.getShortCode())) {
+            long deadline = url.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            // Beyond the wheel's horizon → left to the sweep
+            wheel.schedule(url.getShortCode(), deadline);
+        }
+        if (url.getMaxClicks() != null) {
+            clickLimits.putIfAbsent(url.getShortCode(), url.getMaxClicks());
+        }
+    }
+
+    /** The redirect path served 410 — purge it with the next tick instead of waiting for the sweep */
+    public void onExpiredHit(String shortCode) {
+        purgeNow.add(shortCode);
+    }
+
+    /** Called after every counter write with the count returned by the atomic increment */
+    public void onAccessCount(String shortCode, long accessCount) {
+        if (accessCount >= clickLimitOf(shortCode)) {
+            // Evict right away so the next redirect sees the final count (→ 410), delete on the next tick
+            urlCacheBulkOperations.evictAll(List.of(shortCode));
+            localHotKeyCache.evict(shortCode);
+            purgeNow.add(shortCode);
+        }
+    }
+
+    /** Advance the wheel and purge everything that came due */
+    @Scheduled(fixedDelayString = "${app.link-expiry.tick-ms:1000}")
+    public void tick() {
+        List<String> due = new ArrayList<>();
+        wheel.advance(System.currentTimeMillis(), due::add);
+        for (String shortCode : purgeNow) {
+            purgeNow.remove(shortCode);
+            due.add(shortCode);
+        }
+        if (due.isEmpty() || !purgeEnabled) {
+            return;
+        }
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<String> batch = due.subList(from, Math.min(due.size(), from + batchSize));
+            if (purge(batch)) {
+                purgedByWheel.increment(batch.size());
+            }
+        }
+    }
+
+    /**
+     * Incremental DB purge: at most max-batches of batch-size rows per run, with a pause
+     * between batches so the purge never competes with redirect traffic for long.
+     *
+     * @return number of links purged
+     */
+    @Scheduled(fixedDelayString = "${app.link-expiry.sweep-interval-ms:60000}",
+            initialDelayString = "${app.link-expiry.sweep-interval-ms:60000}")
+    public int sweep() {
+        if (!purgeEnabled) {
+            return 0;
+        }
+        int purged = 0;
+        for (int batch = 0; batch < maxBatchesPerSweep; batch++) {
+            List<String> expired;
+            try {
+                expired = urlStore.findExpiredShortCodes(LocalDateTime.now(), batchSize);
+            } catch (Exception e) {
+                log.warn("Expired-link sweep query failed: {}", e.getMessage());
+                break;
+            }
+            if (expired.isEmpty() || !purge(expired)) {
+                break;
+            }
+            purged += expired.size();
+            purgedBySweep.increment(expired.size());
+            if (expired.size() < batchSize) {
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+        }
+        if (purged > 0) {
+            log.info("Expired-link sweep purged {} links", purged);
+        }
+        return purged;
+    }
+
+    private long clickLimitOf(String shortCode) {
+        Long limit = clickLimits.get(shortCode);
+        if (limit == null) {
+            try {
+                limit = urlStore.findByShortCode(shortCode).map(Url::getMaxClicks).orElse(NO_LIMIT);
+            } catch (Exception e) {
+                // Not remembered — the next counter write or the sweep catches the limit
+                log.warn("Could not load click limit of {}: {}", shortCode, e.getMessage());
+                return NO_LIMIT;
+            }
+            clickLimits.put(shortCode, limit);
+        }
+        return limit;
+    }
+
+    /** Delete by primary key, then evict every cache tier in bulk */
+    private boolean purge(Collection<String> shortCodes) {
+        try {
+            urlStore.deleteAllByShortCode(shortCodes);
+        } catch (Exception e) {
+            // Rows stay until the next sweep; redirects keep answering 410 meanwhile
+            log.warn("Could not purge {} expired links: {}", shortCodes.size(), e.getMessage());
+            return false;
+        }
+        try {
+            urlCacheBulkOperations.evictAll(shortCodes);
+        } catch (Exception e) {
+            log.warn("Cache eviction after purge failed: {}", e.getMessage());
+        }
+        localHotKeyCache.evictAll(shortCodes);
+        shortCodes.forEach(shortCode -> {
+            clickLimits.remove(shortCode);
+            wheel.cancel(shortCode);
+        });
+        return true;
+    }
+
+    private boolean pause() {
+        if (batchPauseMillis <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(batchPauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.store.UrlStore;
+import com.yk.url_shortener.util.UrlPrefixDictionary;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local in-process tier for HOT short codes (L1 in front of the Redis "urls" cache).
+ *
+ * Only keys flagged by {@link HotKeyDetector} are pinned here, so the map stays tiny
+ * (bounded by app.hot-keys.max-keys plus the shared keys) while absorbing the bulk
+ * of a viral link's traffic without a network hop.
+ *
+ * Freshness:
+ * - Every entry has a short TTL (default 5s) — a stale mapping can never live long
+ * - A background refresh (default every 2s) reloads entries that are STILL hot from the DB,
+ *   so a hot key never expires while it is hot and never serves a mapping older than the TTL
+ * - Keys that cooled down are dropped on the next refresh
+ * - Keys that are hot on OTHER instances (shared via Redis) are pre-loaded proactively
+ *
+ * Memory:
+ * - The long URL of each entry is held prefix-compressed ({@link UrlPrefixDictionary}):
+ *   viral links cluster on a few hosts and paths, so the shared heads are stored once and
+ *   an entry keeps only its tail — decoded on read (one String and one Url per hit —
+ *   cheap next to the heap the compressed entries save)
+ */
+@Slf4j
+@Service
+public class LocalHotKeyCache {
+
+    private final HotKeyDetector hotKeyDetector;
+    private final UrlStore urlStore;
+
+    private final long ttlMillis;
+    private final UrlPrefixDictionary urlDictionary;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public LocalHotKeyCache(HotKeyDetector hotKeyDetector,
+                            UrlStore urlStore,
+                            @Value("${app.hot-keys.local-ttl-ms:5000}") long ttlMillis,
+                            @Value("${app.hot-keys.url-dictionary.max-entries:4096}") int dictionaryMaxEntries) {
+        this.hotKeyDetector = hotKeyDetector;
+        this.urlStore = urlStore;
+        this.ttlMillis = ttlMillis;
+        this.urlDictionary = new UrlPrefixDictionary(dictionaryMaxEntries, 3, 2);
+    }
+
+    /**
+     * Look up a pinned entry. Expired entries are removed on read.
+     */
+    public Optional<Url> get(String shortCode) {
+        Entry entry = entries.get(shortCode);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(shortCode, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.toUrl(urlDictionary));
+    }
+
+    /**
+     * Called after every redirect lookup: feeds the detector and pins the key if it is hot.
+     */
+    public void recordAccess(String shortCode, Url url) {
+        if (hotKeyDetector.recordAccess(shortCode) && !entries.containsKey(shortCode)) {
+            pin(url);
+        }
+    }
+
+    public void pin(Url url) {
+        entries.put(url.getShortCode(), Entry.of(url, urlDictionary, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public void evict(String shortCode) {
+        entries.remove(shortCode);
+    }
+
+    public void evictAll(Collection<String> shortCodes) {
+        shortCodes.forEach(entries::remove);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Background refresh: reload still-hot keys, drop cooled-down keys,
+     * and pre-load keys that are hot elsewhere in the cluster.
+     */
+    @Scheduled(fixedDelayString = "${app.hot-keys.refresh-ms:2000}")
+    public void refresh() {
+        entries.keySet().removeIf(shortCode -> !hotKeyDetector.isHot(shortCode));
+
+        for (String shortCode : hotKeyDetector.hotKeySet()) {
+            try {
+                urlStore.findByShortCode(shortCode).ifPresentOrElse(
+                        this::pin,
+                        () -> entries.remove(shortCode));
+            } catch (Exception e) {
+                // DB hiccup — keep serving the current entry until its TTL runs out
+                log.debug("Could not refresh hot key {}: {}", shortCode, e.getMessage());
+            }
+        }
+    }
+
+    /** Everything the redirect path needs, with the long URL prefix-encoded */
+    private record Entry(String shortCode, byte[] longUrl, LocalDateTime createdAt, Long accessCount,
+                         LocalDateTime expiresAt, Long maxClicks, long entryExpiresAt) {
+
+        static Entry of(Url url, UrlPrefixDictionary dictionary, long entryExpiresAt) {
+            return new Entry(url.getShortCode(), dictionary.encode(url.getLongUrl()), url.getCreatedAt(),
+                    url.getAccessCount(), url.getExpiresAt(), url.getMaxClicks(), entryExpiresAt);
+        }
+
+        Url toUrl(UrlPrefixDictionary dictionary) {
+            return Url.builder()
+                    .shortCode(shortCode)
+                    .longUrl(dictionary.decode(longUrl))
+                    .createdAt(createdAt)
+                    .accessCount(accessCount)
+                    .expiresAt(expiresAt)
+                    .maxClicks(maxClicks)
+                    .build();
+        }
+
+        boolean isExpired(long now) {
+            return now >= entryExpiresAt;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.yk.url_shortener.service;
 
+import com.yk.url_shortener.sharding.RedisShardRouter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -28,13 +29,16 @@ import java.time.Duration;
  * - Atomic increment (INCR) is thread-safe, no race conditions
  * - TTL-based auto-expiry means no cleanup needed
  * - Works across multiple app instances (unlike in-memory maps)
+ *
+ * Sharded Redis: each IP's counter lives on the node its key hashes to
+ * (RedisShardRouter), so rate limiting scales out with the cache.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RateLimiterService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisShardRouter redisShardRouter;
 
     @Value("${app.rate-limit.max-requests:20}")
     private int maxRequests;
@@ -53,6 +57,7 @@ public class RateLimiterService {
     public boolean isAllowed(String clientIp) {
         String key = KEY_PREFIX + clientIp;
         try {
+            RedisTemplate<String, Object> redisTemplate = redisShardRouter.templateFor(key);
             Long count = redisTemplate.opsForValue().increment(key);
 
             if (count == null) {
@@ -90,7 +95,7 @@ public class RateLimiterService {
     public long getRemainingRequests(String clientIp) {
         String key = KEY_PREFIX + clientIp;
         try {
-            Object value = redisTemplate.opsForValue().get(key);
+            Object value = redisShardRouter.templateFor(key).opsForValue().get(key);
             if (value == null) return maxRequests;
             long used = Long.parseLong(value.toString());
             return Math.max(0, maxRequests - used);
@@ -0,0 +1,276 @@
+package com.yk.url_shortener.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * URL reachability checks — off the request thread, bounded, and cached per host.
+ *
+ * The old check opened a blocking HttpURLConnection HEAD (3s connect + 3s read) inside bean
+ * validation: a slow host held a Tomcat thread for up to 6 seconds, on every submission.
+ *
+ * How it works:
+ * - Probes run on a small dedicated pool (max-concurrency threads, bounded queue) with one
+ *   java.net.http.HttpClient HEAD request and a single overall timeout. A full queue means
+ *   "unknown" — never an unbounded backlog of network calls
+ * - Results are cached per origin (scheme://host:port): reachable for positive-ttl, unreachable
+ *   for the shorter negative-ttl — repeat submissions for a host cost nothing
+ * - One probe per host at a time: concurrent checks for the same origin share the in-flight probe
+ *   (per-host concurrency limit of 1 — a popular target is never hammered)
+ * - Reachable = the server answered with a status below 500. The result stands for the whole
+ *   host, so a 404 on one path (or a 405 from a server that refuses HEAD) does not count against it
+ *
+ * Two ways to use it:
+ * - {@link #checkNow}: @ValidUrl(checkReachability = true) waits at most wait-ms for the result;
+ *   a probe still running after that answers PENDING (accepted) and keeps filling the cache.
+ *   Advisory unless wait-ms >= timeout-ms — see {@link com.yk.url_shortener.validation.ValidUrl}
+ * - {@link #verifyLater} ("accept now, verify later", app.reachability.verify-new-links=true):
+ *   new links are created at once and marked PENDING; the probe runs in the background and the
+ *   link becomes REACHABLE or UNREACHABLE (shown in its stats). Statuses are kept in
+ *   memory on the instance that created the link, for its most recent max-tracked-links links —
+ *   stats served by another instance (or after a restart) show the link as not verified.
+ *
+ * Metrics:
+ *   url.reachability.probes{result}  — network probes (reachable / unreachable / rejected)
+ *   url.reachability.cache.hits      — checks answered from the per-host cache
+ */
+@Slf4j
+@Service
+public class ReachabilityService {
+
+    public enum Status {
+        /** Not verified yet (probe queued or running, or the pool was full) */
+        PENDING,
+        REACHABLE,
+        UNREACHABLE
+    }
+
+    private record CachedResult(Status status, long expiresAtMillis) {
+    }
+
+    private final HttpClient httpClient;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean verifyNewLinks;
+    private final Duration timeout;
+    private final long waitMillis;
+    private final long positiveTtlMillis;
+    private final long negativeTtlMillis;
+
+    /** origin → last result (LRU, max-hosts) */
+    private final Map<String, CachedResult> hostResults;
+    /** origin → the probe in flight */
+    private final Map<String, CompletableFuture<Status>> inFlight = new ConcurrentHashMap<>();
+    /** short code → verification status of links created in deferred mode (LRU, max-tracked-links) */
+    private final Map<String, Status> linkStatuses;
+
+    public ReachabilityService(MeterRegistry meterRegistry,
+                               @Value("${app.reachability.verify-new-links:false}") boolean verifyNewLinks,
+                               @Value("${app.reachability.max-concurrency:16}") int maxConcurrency,
+                               @Value("${app.reachability.queue-capacity:1000}") int queueCapacity,
+                               @Value("${app.reachability.timeout-ms:3000}") long timeoutMs,
+                               @Value("${app.reachability.wait-ms:1000}") long waitMs,
+                               @Value("${app.reachability.positive-ttl-seconds:600}") long positiveTtlSeconds,
+                               @Value("${app.reachability.negative-ttl-seconds:60}") long negativeTtlSeconds,
+                               @Value("${app.reachability.max-hosts:10000}") int maxHosts,
+                               @Value("${app.reachability.max-tracked-links:100000}") int maxTrackedLinks) {
+        this.meterRegistry = meterRegistry;
+        this.verifyNewLinks = verifyNewLinks;
+        this.timeout = Duration.ofMillis(Math.max(1, timeoutMs));
+        this.waitMillis = Math.max(0, waitMs);
+        this.positiveTtlMillis = positiveTtlSeconds * 1000;
+        this.negativeTtlMillis = negativeTtlSeconds * 1000;
+        this.hostResults = lruMap(maxHosts);
+        this.linkStatuses = lruMap(maxTrackedLinks);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        int threads = Math.max(1, maxConcurrency);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+            Thread thread = new Thread(runnable, "reachability-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build(); // own internal executor — the probe threads block in send()
+    }
+
+    /** Default settings — for validators created outside Spring */
+    public static ReachabilityService standalone() {
+        return StandaloneHolder.INSTANCE;
+    }
+
+    private static final class StandaloneHolder {
+        static final ReachabilityService INSTANCE = new ReachabilityService(new SimpleMeterRegistry(),
+                false, 16, 1000, 3000, 1000, 600, 60, 10000, 100000);
+    }
+
+    /**
+     * Reachability of the URL's host: cached result, or a probe (shared with concurrent callers).
+     * Completes with PENDING if the probe pool is full.
+     */
+    public CompletableFuture<Status> check(String url) {
+        String origin = origin(url);
+        if (origin == null) {
+            return CompletableFuture.completedFuture(Status.UNREACHABLE);
+        }
+        Optional<Status> cached = cachedForOrigin(origin);
+        if (cached.isPresent()) {
+            meterRegistry.counter("url.reachability.cache.hits").increment();
+            return CompletableFuture.completedFuture(cached.get());
+        }
+        CompletableFuture<Status> created = new CompletableFuture<>();
+        CompletableFuture<Status> probe = inFlight.putIfAbsent(origin, created);
+        if (probe != null) {
+            return probe;
+        }
+        try {
+            executor.execute(() -> {
+                Status status = probe(url);
+                hostResults.put(origin, new CachedResult(status, System.currentTimeMillis()
+                        + (status == Status.REACHABLE ? positiveTtlMillis : negativeTtlMillis)));
+                inFlight.remove(origin);
+                created.complete(status);
+            });
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("url.reachability.probes", "result", "rejected").increment();
+            inFlight.remove(origin);
+            created.complete(Status.PENDING);
+        }
+        return created;
+    }
+
+    /**
+     * For request-time validation: waits at most wait-ms.
+     *
+     * @return REACHABLE / UNREACHABLE, or PENDING if the answer is not in yet (the probe keeps running)
+     */
+    public Status checkNow(String url) {
+        CompletableFuture<Status> result = check(url);
+        try {
+            return result.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return Status.PENDING;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Status.PENDING;
+        } catch (ExecutionException e) {
+            return Status.PENDING;
+        }
+    }
+
+    /** The cached result for the URL's host, without probing */
+    public Optional<Status> cached(String url) {
+        String origin = origin(url);
+        return origin == null ? Optional.empty() : cachedForOrigin(origin);
+    }
+
+    public boolean isVerifyNewLinks() {
+        return verifyNewLinks;
+    }
+
+    /**
+     * Accept now, verify later: mark the link PENDING and probe its URL in the background.
+     */
+    public void verifyLater(String shortCode, String longUrl) {
+        linkStatuses.put(shortCode, Status.PENDING);
+        check(longUrl).thenAccept(status -> {
+            linkStatuses.put(shortCode, status);
+            if (status == Status.UNREACHABLE) {
+                log.warn("Short link {} points to an unreachable URL: {}", shortCode, longUrl);
+            }
+        });
+    }
+
+    /** Verification status of a link created in deferred mode (empty if it was never verified here) */
+    public Optional<Status> linkStatus(String shortCode) {
+        return Optional.ofNullable(linkStatuses.get(shortCode));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Optional<Status> cachedForOrigin(String origin) {
+        CachedResult result = hostResults.get(origin);
+        if (result == null) {
+            return Optional.empty();
+        }
+        if (result.expiresAtMillis() <= System.currentTimeMillis()) {
+            hostResults.remove(origin);
+            return Optional.empty();
+        }
+        return Optional.of(result.status());
+    }
+
+    private Status probe(String url) {
+        Status status;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .timeout(timeout)
+                    .build();
+            int code = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            status = code < 500 ? Status.REACHABLE : Status.UNREACHABLE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = Status.UNREACHABLE;
+        } catch (Exception e) {
+            log.debug("Reachability probe for {} failed: {}", url, e.getMessage());
+            status = Status.UNREACHABLE;
+        }
+        meterRegistry.counter("url.reachability.probes", "result", status.name().toLowerCase()).increment();
+        return status;
+    }
+
+    /** scheme://host:port, or null if the URL has no host */
+    static String origin(String url) {
+        try {
+            URI uri = URI.create(url);
+            if (uri.getScheme() == null || uri.getHost() == null) {
+                return null;
+            }
+            return uri.getScheme().toLowerCase() + "://" + uri.getHost().toLowerCase() + ":" + uri.getPort();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static <V> Map<String, V> lruMap(int maxEntries) {
+        int max = Math.max(1, maxEntries);
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > max;
+            }
+        });
+    }
+}
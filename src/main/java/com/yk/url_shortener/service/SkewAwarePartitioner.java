@@ -0,0 +1,145 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.util.CountMinSketch;
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Kafka partitioner that spreads hot keys of url.accessed across all partitions.
+ *
+ * Problem:
+ *   url.accessed is keyed by short code, so a viral link pins all its clicks to ONE partition —
+ *   one consumer thread does the work while the others sit idle.
+ *
+ * How it works:
+ * - Per salted topic, two Count-Min sketches (current + previous window, rotated every window-ms)
+ *   count records per key, next to the total record count — constant memory
+ * - A key whose share of the last window(s) reaches hot-share (default 5%) is HOT: its records
+ *   go to a random partition ("salted") instead of its hash partition
+ * - Every other key — and every other topic — gets exactly the default keyed partition
+ *   (murmur2(key) % partitions), so the long tail keeps its per-key ordering
+ * - Nothing is evaluated until a window has seen min-records records (no flapping at low rates)
+ *
+ * Downstream merge: a salted key's clicks are consumed on several threads at once. That is
+ * correct because every click event is a commutative increment, applied in the DB with one
+ * atomic UPDATE ... SET access_count = access_count + n (JpaUrlStore) — per-code totals
+ * add up no matter which partition a click travelled through. Unique clicks are decided before
+ * the partitioner, on the redirect instance (ClickDeduplicator), and travel as a flag or count.
+ *
+ * Configured through producer properties (KafkaConfig):
+ *   partitioner.skew.topics, partitioner.skew.hot-share, partitioner.skew.window-ms,
+ *   partitioner.skew.min-records
+ */
+public class SkewAwarePartitioner implements Partitioner {
+
+    public static final String TOPICS = "partitioner.skew.topics";
+    public static final String HOT_SHARE = "partitioner.skew.hot-share";
+    public static final String WINDOW_MS = "partitioner.skew.window-ms";
+    public static final String MIN_RECORDS = "partitioner.skew.min-records";
+
+    private Set<String> topics = Set.of("url.accessed");
+    private double hotShare = 0.05;
+    private long windowMillis = 1000;
+    private long minRecords = 1000;
+
+    private final Map<String, KeyRates> rates = new ConcurrentHashMap<>();
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        Object value = configs.get(TOPICS);
+        if (value != null) {
+            topics = Arrays.stream(value.toString().split(","))
+                    .map(String::trim).filter(topic -> !topic.isEmpty()).collect(Collectors.toSet());
+        }
+        if ((value = configs.get(HOT_SHARE)) != null) {
+            hotShare = Double.parseDouble(value.toString());
+        }
+        if ((value = configs.get(WINDOW_MS)) != null) {
+            windowMillis = Math.max(1, Long.parseLong(value.toString()));
+        }
+        if ((value = configs.get(MIN_RECORDS)) != null) {
+            minRecords = Math.max(1, Long.parseLong(value.toString()));
+        }
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        int partitions = cluster.partitionsForTopic(topic).size();
+        return partition(topic, key, keyBytes, partitions);
+    }
+
+    /** Partition choice for a topic with this many partitions */
+    public int partition(String topic, Object key, byte[] keyBytes, int partitions) {
+        if (keyBytes == null) {
+            return ThreadLocalRandom.current().nextInt(partitions);
+        }
+        if (partitions > 1 && key != null && topics.contains(topic)
+                && rates.computeIfAbsent(topic, t -> new KeyRates()).recordAndCheckHot(key.toString())) {
+            return ThreadLocalRandom.current().nextInt(partitions);
+        }
+        return Utils.toPositive(Utils.murmur2(keyBytes)) % partitions;
+    }
+
+    /** Whether the key is currently salted on the topic (monitoring, tests) */
+    public boolean isHot(String topic, String key) {
+        KeyRates keyRates = rates.get(topic);
+        return keyRates != null && keyRates.isHot(key);
+    }
+
+    @Override
+    public void close() {
+        rates.clear();
+    }
+
+    /** Sliding two-window key counts for one topic */
+    private final class KeyRates {
+
+        private volatile CountMinSketch current = new CountMinSketch(4, 2048);
+        private volatile CountMinSketch previous = new CountMinSketch(4, 2048);
+        private final AtomicLong currentTotal = new AtomicLong();
+        private volatile long previousTotal;
+        private volatile long windowStart = System.currentTimeMillis();
+
+        boolean recordAndCheckHot(String key) {
+            rotateIfDue();
+            current.add(key);
+            currentTotal.incrementAndGet();
+            return isHot(key);
+        }
+
+        boolean isHot(String key) {
+            long total = previousTotal + currentTotal.get();
+            if (total < minRecords) {
+                return false;
+            }
+            return previous.estimate(key) + current.estimate(key) >= hotShare * total;
+        }
+
+        private void rotateIfDue() {
+            long now = System.currentTimeMillis();
+            if (now - windowStart < windowMillis) {
+                return;
+            }
+            synchronized (this) {
+                if (now - windowStart < windowMillis) {
+                    return;
+                }
+                CountMinSketch recycled = previous;
+                recycled.clear();
+                previous = current;
+                previousTotal = currentTotal.getAndSet(0);
+                current = recycled;
+                windowStart = now;
+            }
+        }
+    }
+}
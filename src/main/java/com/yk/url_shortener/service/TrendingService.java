@@ -0,0 +1,70 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.util.PublicSuffixTrie;
+import com.yk.url_shortener.util.SlidingWindowTopK;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Trending domains (links created) and trending links (clicks) over a recent time window.
+ *
+ * How it works:
+ * - Two {@link SlidingWindowTopK} engines: one bucket per bucket-seconds (default 1 minute),
+ *   enough buckets for max-window-minutes (default 60), capacity keys per bucket
+ * - Domains are fed by UrlShortenerService whenever a link is CREATED (a dedupe hit is not a
+ *   new link) — registrable domain via the public-suffix trie
+ * - Links are fed from the counter path (UrlShortenerService.incrementAccessCount), which every
+ *   click goes through whether it arrives synchronously or from the Kafka access stream
+ *
+ * Counts are per instance (each instance sees its own share of the traffic) and approximate:
+ * exact for keys that stay in every bucket's summary, an upper bound with a reported error otherwise.
+ *
+ * Memory: 2 x (buckets x capacity) counters — constant, whatever the number of links or domains.
+ */
+@Service
+public class TrendingService {
+
+    private final SlidingWindowTopK domains;
+    private final SlidingWindowTopK links;
+    private final int maxResults;
+
+    public TrendingService(@Value("${app.trending.bucket-seconds:60}") long bucketSeconds,
+                           @Value("${app.trending.max-window-minutes:60}") long maxWindowMinutes,
+                           @Value("${app.trending.capacity:200}") int capacity,
+                           @Value("${app.trending.max-results:50}") int maxResults) {
+        long bucketMillis = Math.max(1, bucketSeconds) * 1000;
+        int bucketCount = (int) Math.max(2, (maxWindowMinutes * 60_000 + bucketMillis - 1) / bucketMillis + 1);
+        this.domains = new SlidingWindowTopK(bucketMillis, bucketCount, capacity);
+        this.links = new SlidingWindowTopK(bucketMillis, bucketCount, capacity);
+        this.maxResults = Math.max(1, maxResults);
+    }
+
+    public void recordCreated(String longUrl) {
+        domains.add(PublicSuffixTrie.getDefault().registrableDomain(longUrl), 1, System.currentTimeMillis());
+    }
+
+    public void recordClicks(String shortCode, long clicks) {
+        links.add(shortCode, clicks, System.currentTimeMillis());
+    }
+
+    /** Top domains by links created in the window (clamped to the longest window kept, limit to 1..max-results) */
+    public List<SlidingWindowTopK.Item> topDomains(Duration window, int limit) {
+        return domains.top(window.toMillis(), clamp(limit), System.currentTimeMillis());
+    }
+
+    /** Top short codes by clicks in the window (clamped to the longest window kept, limit to 1..max-results) */
+    public List<SlidingWindowTopK.Item> topLinks(Duration window, int limit) {
+        return links.top(window.toMillis(), clamp(limit), System.currentTimeMillis());
+    }
+
+    public Duration maxWindow() {
+        return Duration.ofMillis(links.maxWindowMillis());
+    }
+
+    private int clamp(int limit) {
+        return Math.max(1, Math.min(limit, maxResults));
+    }
+}
@@ -0,0 +1,134 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.sharding.RedisShard;
+import com.yk.url_shortener.sharding.RedisShardRouter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.util.ByteUtils;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk operations on the "urls" cache (and per-code eviction of "urls" + "stats").
+ *
+ * Why not just call cache.put() in a loop?
+ *   RedisCache.put() is one network round trip per entry. Loading 10,000 links
+ *   one by one at startup costs 10,000 RTTs; pipelining sends the whole page
+ *   in one go and reads all replies at the end — ~100x faster over a real network.
+ *
+ * Entries are written exactly like RedisCache would write them:
+ * same key prefix ("urls::"), same value serializer, same TTL function —
+ * so @Cacheable reads them back transparently.
+ *
+ * Sharded Redis: entries are grouped by owning node and each node gets its own pipeline.
+ *
+ * If the "urls" cache is not Redis-backed (in-memory fallback), falls back to cache.put().
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UrlCacheBulkOperations {
+
+    private static final String CACHE_NAME = "urls";
+    private static final List<String> PER_CODE_CACHES = List.of("urls", "stats");
+
+    private final CacheManager cacheManager;
+    private final RedisShardRouter redisShardRouter;
+
+    /**
+     * Write all URLs into the "urls" cache using one pipelined round trip.
+     *
+     * @return number of entries written
+     */
+    public int putAll(Collection<Url> urls) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null || urls.isEmpty()) {
+            return 0;
+        }
+        if (!(cache instanceof RedisCache redisCache)) {
+            urls.forEach(url -> cache.put(url.getShortCode(), url));
+            return urls.size();
+        }
+
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        String prefix = config.getKeyPrefixFor(CACHE_NAME);
+
+        Map<RedisShard, List<Url>> byShard = new LinkedHashMap<>();
+        for (Url url : urls) {
+            byShard.computeIfAbsent(redisShardRouter.shardFor(prefix + url.getShortCode()), shard -> new ArrayList<>())
+                    .add(url);
+        }
+
+        byShard.forEach((shard, shardUrls) -> {
+            try (RedisConnection connection = shard.getConnectionFactory().getConnection()) {
+                connection.openPipeline();
+                for (Url url : shardUrls) {
+                    byte[] key = ByteUtils.getBytes(config.getKeySerializationPair().write(prefix + url.getShortCode()));
+                    byte[] value = ByteUtils.getBytes(config.getValueSerializationPair().write(url));
+                    Duration ttl = config.getTtlFunction().getTimeToLive(url.getShortCode(), url);
+                    Expiration expiration = ttl.isZero() || ttl.isNegative()
+                            ? Expiration.persistent()
+                            : Expiration.from(ttl);
+                    connection.stringCommands().set(key, value, expiration, RedisStringCommands.SetOption.upsert());
+                }
+                connection.closePipeline();
+            }
+        });
+        return urls.size();
+    }
+
+    /**
+     * Remove many short codes from the "urls" and "stats" caches — one pipelined
+     * DEL round trip per Redis node instead of one per key (expired-link purge).
+     */
+    public void evictAll(Collection<String> shortCodes) {
+        if (shortCodes.isEmpty()) {
+            return;
+        }
+        for (String cacheName : PER_CODE_CACHES) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache == null) {
+                continue;
+            }
+            if (!(cache instanceof RedisCache redisCache)) {
+                shortCodes.forEach(cache::evict);
+                continue;
+            }
+
+            RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+            String prefix = config.getKeyPrefixFor(cacheName);
+            Map<RedisShard, List<byte[]>> byShard = new LinkedHashMap<>();
+            for (String shortCode : shortCodes) {
+                byShard.computeIfAbsent(redisShardRouter.shardFor(prefix + shortCode), shard -> new ArrayList<>())
+                        .add(ByteUtils.getBytes(config.getKeySerializationPair().write(prefix + shortCode)));
+            }
+
+            byShard.forEach((shard, keys) -> {
+                try (RedisConnection connection = shard.getConnectionFactory().getConnection()) {
+                    connection.openPipeline();
+                    for (byte[] key : keys) {
+                        connection.keyCommands().del(key);
+                    }
+                    connection.closePipeline();
+                } catch (Exception e) {
+                    // Entries still expire by TTL, and the redirect path re-checks expiry on every hit
+                    log.warn("Bulk evict on Redis node {} failed: {}", shard.getId(), e.getMessage());
+                }
+            });
+        }
+    }
+}
@@ -1,12 +1,29 @@
 package com.yk.url_shortener.service;
 
+import com.yk.url_shortener.audit.AuditLog;
+import com.yk.url_shortener.audit.AuditRecord;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Kafka Event Consumer — only active when spring.kafka.enabled=true (the default).
@@ -20,20 +37,33 @@ import java.util.Map;
 public class UrlEventConsumer {
 
     private final UrlShortenerService urlShortenerService;
+    private final MeterRegistry meterRegistry;
+    private final Optional<AuditLog> auditLog;
+    // Optional — only with app.click-dedup.enabled=true
+    private final Optional<ClickDeduplicator> clickDeduplicator;
 
     /**
-     * Consume "url.accessed" events and update access count in DB.
+     * Consume "url.accessed" events (single clicks or aggregated windows) and update access count in DB.
      *
      * groupId = "url-shortener-group"
      *   → All instances of this app share the partition load.
      *   → If you run 3 app instances, each gets 1 partition (3 partitions total).
+     *
+     * Not started when app.kafka.exactly-once.enabled=true — ExactlyOnceClickConsumer takes over the topic.
+     *
+     * @param recordTimestamp the Kafka record time — the click time of an event without accessedAt
      */
     @KafkaListener(
+            id = ConsumerConcurrencyController.LISTENER_ID,
             topics = "url.accessed",
             groupId = "url-shortener-group",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "#{!${app.kafka.exactly-once.enabled:false}}"
     )
-    public void onUrlAccessed(Map<String, Object> payload) {
+    public void onUrlAccessed(@Payload Map<String, Object> payload,
+                              @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long recordTimestamp) {
+        // Per-record processing time — ConsumerConcurrencyController sizes the thread count from it
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
             String shortCode = (String) payload.get("shortCode");
             if (shortCode == null || shortCode.isBlank()) {
@@ -41,39 +71,107 @@ public class UrlEventConsumer {
                 return;
             }
 
+            long clicks = clicksOf(payload);
+            if (clicks <= 0) {
+                return;
+            }
+
             // This is the async DB write — happens in background, not on the request thread
-            urlShortenerService.incrementAccessCount(shortCode);
-            log.debug("Access count incremented for shortCode={} via Kafka", shortCode);
+            if (clickDeduplicator.isPresent()) {
+                urlShortenerService.incrementAccessCount(shortCode, clicks, clickDeduplicator.get()
+                        .uniqueClicksOf(payload, shortCode, clicks, recordTimestamp));
+            } else {
+                urlShortenerService.incrementAccessCount(shortCode, clicks);
+            }
+            log.debug("Access count incremented by {} for shortCode={} via Kafka", clicks, shortCode);
 
         } catch (Exception e) {
             log.error("Error processing url.accessed event: payload={}, error={}", payload, e.getMessage(), e);
             // Do NOT rethrow — a bad message should not crash the consumer thread
+        } finally {
+            sample.stop(meterRegistry.timer(ConsumerConcurrencyController.PROCESSING_TIMER));
         }
     }
 
     /**
-     * Consume "url.created" events for audit/analytics logging.
-     * Extend this method to: store audit records, send notifications, feed dashboards.
+     * Two event shapes share url.accessed: one click (UrlAccessedEvent) or the clicks of one
+     * aggregation window (UrlAccessBatchEvent — has a "count"). A click published while
+     * AnalyticsLoadShedder was sampling carries its "sampleRate" and stands for 1/sampleRate clicks.
+     */
+    static long clicksOf(Map<String, Object> payload) {
+        Object count = payload.get("count");
+        if (count instanceof Number number) {
+            return number.longValue();
+        }
+        Object sampleRate = payload.get("sampleRate");
+        return sampleRate instanceof Number rate ? weightOf(rate.doubleValue()) : 1;
+    }
+
+    /** Clicks one sampled event stands for — sample rates are powers of two, so this is exact */
+    static long weightOf(double sampleRate) {
+        return sampleRate > 0 && sampleRate < 1 ? Math.round(1 / sampleRate) : 1;
+    }
+
+    /**
+     * Consume "url.created" events into the audit log — one poll at a time (batch listener).
+     *
+     * The poll is appended to {@link AuditLog} as one batch and fsynced before the listener returns,
+     * so the offset is committed only once the events are on disk. A failed append is rethrown and
+     * the container's error handler redelivers the poll; compaction drops the duplicates a
+     * redelivery leaves behind.
+     *
+     * Without the audit log (app.audit.enabled=false) every event is only logged.
      */
     @KafkaListener(
             topics = "url.created",
             groupId = "url-shortener-group",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "auditListenerContainerFactory"
     )
-    public void onUrlCreated(Map<String, Object> payload) {
-        try {
-            String shortCode = (String) payload.get("shortCode");
-            String longUrl   = (String) payload.get("longUrl");
-            String shortUrl  = (String) payload.get("shortUrl");
+    public void onUrlCreated(List<ConsumerRecord<String, Map<String, Object>>> records) {
+        List<AuditRecord> batch = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, Map<String, Object>> record : records) {
+            Map<String, Object> payload = record.value();
+            try {
+                String shortCode = (String) payload.get("shortCode");
+                String longUrl   = (String) payload.get("longUrl");
+                String shortUrl  = (String) payload.get("shortUrl");
+                if (shortCode == null || shortCode.isBlank()) {
+                    log.warn("Received url.created event with null/blank shortCode — skipping");
+                    continue;
+                }
 
-            log.info("[AUDIT] New URL created | shortCode={} | longUrl={} | shortUrl={}",
-                    shortCode, longUrl, shortUrl);
+                if (auditLog.isEmpty()) {
+                    log.info("[AUDIT] New URL created | shortCode={} | longUrl={} | shortUrl={}",
+                            shortCode, longUrl, shortUrl);
+                    continue;
+                }
+                batch.add(new AuditRecord(timestampOf(payload.get("createdAt"), record.timestamp()), shortCode,
+                        longUrl, shortUrl));
 
-            // TODO: extend here — e.g., persist to an audit_log table, send Slack notification, etc.
+            } catch (Exception e) {
+                log.error("Error processing url.created event: payload={}, error={}", payload, e.getMessage(), e);
+                // A bad message is skipped — it must not block the rest of the poll
+            }
+        }
+        if (auditLog.isPresent() && !batch.isEmpty()) {
+            try {
+                auditLog.get().append(batch);
+                log.debug("Appended {} url.created events to the audit log", batch.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Audit log append failed — poll will be redelivered", e);
+            }
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("Error processing url.created event: payload={}, error={}", payload, e.getMessage(), e);
+    /** createdAt / accessedAt as the producer's JsonSerializer writes it (ISO string), else the Kafka record time */
+    static LocalDateTime timestampOf(Object timestamp, long recordTimestamp) {
+        if (timestamp instanceof String text) {
+            try {
+                return LocalDateTime.parse(text);
+            } catch (DateTimeParseException e) {
+                // fall through to the record time
+            }
         }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(recordTimestamp), ZoneId.systemDefault());
     }
 }
-
@@ -1,8 +1,10 @@
 package com.yk.url_shortener.service;
 
+import com.yk.url_shortener.dto.UrlAccessBatchEvent;
 import com.yk.url_shortener.dto.UrlAccessedEvent;
 import com.yk.url_shortener.dto.UrlCreatedEvent;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.core.KafkaTemplate;
@@ -10,6 +12,8 @@ import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Kafka Event Producer
@@ -25,22 +29,38 @@ import java.util.concurrent.CompletableFuture;
  *    - Key: shortCode
  *    - This makes the redirect endpoint non-blocking — user gets the 302 redirect
  *      immediately, and the access count DB write happens async via the consumer
+ *    - With app.kafka.click-aggregation.enabled=true the ClickAggregator publishes one
+ *      UrlAccessBatchEvent per short code per window instead
  *
  * Graceful degradation:
  *    If Kafka is not running, errors are caught and logged.
  *    The app keeps working — URL shortening and redirects still function.
+ *
+ * Metrics (overload signals for AnalyticsLoadShedder):
+ *   url.kafka.send            — send → broker ack (or failure) per event
+ *   url.kafka.send.in-flight  — events handed to the producer and not yet acked
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 @ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true", matchIfMissing = false)
 public class UrlEventProducer {
 
+    public static final String SEND_TIMER = "url.kafka.send";
+    public static final String IN_FLIGHT_GAUGE = "url.kafka.send.in-flight";
+
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final Timer sendTimer;
+    private final AtomicInteger inFlight = new AtomicInteger();
 
     private static final String TOPIC_URL_CREATED  = "url.created";
     private static final String TOPIC_URL_ACCESSED = "url.accessed";
 
+    public UrlEventProducer(KafkaTemplate<String, Object> kafkaTemplate, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.sendTimer = meterRegistry.timer(SEND_TIMER);
+        meterRegistry.gauge(IN_FLIGHT_GAUGE, inFlight);
+    }
+
     /**
      * Publish a "url.created" event after a new short URL is saved.
      *
@@ -48,7 +68,7 @@ public class UrlEventProducer {
      */
     public void publishUrlCreated(UrlCreatedEvent event) {
         CompletableFuture<SendResult<String, Object>> future =
-                kafkaTemplate.send(TOPIC_URL_CREATED, event.getShortCode(), event);
+                send(TOPIC_URL_CREATED, event.getShortCode(), event);
 
         future.whenComplete((result, ex) -> {
             if (ex != null) {
@@ -72,7 +92,7 @@ public class UrlEventProducer {
      */
     public void publishUrlAccessed(UrlAccessedEvent event) {
         CompletableFuture<SendResult<String, Object>> future =
-                kafkaTemplate.send(TOPIC_URL_ACCESSED, event.getShortCode(), event);
+                send(TOPIC_URL_ACCESSED, event.getShortCode(), event);
 
         future.whenComplete((result, ex) -> {
             if (ex != null) {
@@ -87,5 +107,44 @@ public class UrlEventProducer {
             }
         });
     }
-}
 
+    /**
+     * Publish an aggregated "url.accessed" event — the clicks of one short code in one window.
+     *
+     * @param event the event payload
+     */
+    public void publishUrlAccessBatch(UrlAccessBatchEvent event) {
+        CompletableFuture<SendResult<String, Object>> future =
+                send(TOPIC_URL_ACCESSED, event.getShortCode(), event);
+
+        future.whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.error("Failed to publish url.accessed batch for shortCode={} ({} clicks): {}",
+                        event.getShortCode(), event.getCount(), ex.getMessage());
+            } else {
+                log.debug("Published url.accessed batch | shortCode={} | count={} | partition={} | offset={}",
+                        event.getShortCode(),
+                        event.getCount(),
+                        result.getRecordMetadata().partition(),
+                        result.getRecordMetadata().offset());
+            }
+        });
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(String topic, String key, Object event) {
+        long start = System.nanoTime();
+        inFlight.incrementAndGet();
+        CompletableFuture<SendResult<String, Object>> future;
+        try {
+            future = kafkaTemplate.send(topic, key, event);
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+        future.whenComplete((result, ex) -> {
+            inFlight.decrementAndGet();
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        });
+        return future;
+    }
+}
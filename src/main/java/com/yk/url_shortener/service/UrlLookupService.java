@@ -0,0 +1,372 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.store.UrlStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Redirect-path lookup: shortCode → Url.
+ *
+ * Tier 0 — {@link LocalHotKeyCache}:
+ *   Viral short codes flagged by the hot-key detector are served from an in-process map
+ *   and never reach Redis. Every lookup feeds the detector.
+ *
+ * Plain mode (app.hedged-reads.enabled=false, the default):
+ *   Delegates to {@link UrlShortenerService#getOriginalUrl(String)} — "urls" cache first, DB on miss.
+ *
+ * Hedged mode (app.hedged-reads.enabled=true):
+ *   A Redis hiccup (GC pause, AOF fsync stall, network blip) otherwise pins the redirect
+ *   to the 2s Lettuce timeout even though H2 answers findByShortCode in well under 1ms.
+ *
+ *   1. Start the cache lookup on the hedge executor
+ *   2. Wait up to the hedge delay = observed p95 of recent cache lookups (clamped to min/max)
+ *   3. Still no answer → start the DB lookup in parallel (if the hedge budget allows)
+ *   4. First usable result wins, the loser is cancelled
+ *   5. A DB win is written to the cache in the background — the next lookup is a hit again,
+ *      and the redirect never waits on the cache it just gave up on
+ *
+ * Hedge budget:
+ *   Every lookup earns {@code max-ratio} tokens, every hedge spends one token.
+ *   So at most ~10% (default) of lookups can fire a hedge — if Redis is fully down,
+ *   we don't double the DB load, we fall back to waiting on the cache like before.
+ *
+ * Metrics (Micrometer, visible under /actuator/metrics):
+ *   url.lookup.hedge.fired       — hedges started
+ *   url.lookup.hedge.won         — tagged winner=cache|db
+ *   url.lookup.hedge.throttled   — hedges skipped because the budget was exhausted
+ *   url.lookup.cache.latency     — cache lookup latency (the p95 source)
+ */
+@Slf4j
+@Service
+public class UrlLookupService {
+
+    private static final String CACHE_NAME = "urls";
+
+    /** Token scale — 1 hedge costs 1000 units, so fractional ratios work with integer math */
+    private static final long TOKEN_UNIT = 1000;
+
+    private final UrlShortenerService urlShortenerService;
+    private final UrlStore urlStore;
+    private final CacheManager cacheManager;
+    private final LocalHotKeyCache localHotKeyCache;
+
+    private final boolean hedgingEnabled;
+    private final double hedgePercentile;
+    private final long minHedgeDelayMicros;
+    private final long maxHedgeDelayMicros;
+    private final long tokensPerLookup;
+    private final long maxTokens;
+
+    private final LatencyWindow cacheLatency = new LatencyWindow(1024);
+    private final AtomicLong hedgeTokens;
+    private final ThreadPoolExecutor hedgeExecutor;
+
+    private final Counter hedgesFired;
+    private final Counter hedgesWonByCache;
+    private final Counter hedgesWonByDb;
+    private final Counter hedgesThrottled;
+    private final Timer cacheLatencyTimer;
+
+    public UrlLookupService(UrlShortenerService urlShortenerService,
+                            UrlStore urlStore,
+                            CacheManager cacheManager,
+                            LocalHotKeyCache localHotKeyCache,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.hedged-reads.enabled:false}") boolean hedgingEnabled,
+                            @Value("${app.hedged-reads.percentile:0.95}") double hedgePercentile,
+                            @Value("${app.hedged-reads.min-delay-ms:2}") long minHedgeDelayMs,
+                            @Value("${app.hedged-reads.max-delay-ms:50}") long maxHedgeDelayMs,
+                            @Value("${app.hedged-reads.max-ratio:0.1}") double maxHedgeRatio,
+                            @Value("${app.hedged-reads.pool-size:16}") int poolSize) {
+        this.urlShortenerService = urlShortenerService;
+        this.urlStore = urlStore;
+        this.cacheManager = cacheManager;
+        this.localHotKeyCache = localHotKeyCache;
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.minHedgeDelayMicros = TimeUnit.MILLISECONDS.toMicros(minHedgeDelayMs);
+        this.maxHedgeDelayMicros = TimeUnit.MILLISECONDS.toMicros(maxHedgeDelayMs);
+        this.tokensPerLookup = Math.round(maxHedgeRatio * TOKEN_UNIT);
+        // Allow a short burst of hedges (10) before the ratio kicks in
+        this.maxTokens = 10 * TOKEN_UNIT;
+        this.hedgeTokens = new AtomicLong(maxTokens);
+
+        // Bounded pool + bounded queue: if the executor is saturated we skip hedging, never block
+        AtomicInteger threadId = new AtomicInteger();
+        this.hedgeExecutor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(poolSize * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "hedged-read-" + threadId.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.hedgeExecutor.allowCoreThreadTimeOut(true);
+
+        this.hedgesFired = meterRegistry.counter("url.lookup.hedge.fired");
+        this.hedgesWonByCache = meterRegistry.counter("url.lookup.hedge.won", "winner", "cache");
+        this.hedgesWonByDb = meterRegistry.counter("url.lookup.hedge.won", "winner", "db");
+        this.hedgesThrottled = meterRegistry.counter("url.lookup.hedge.throttled");
+        this.cacheLatencyTimer = meterRegistry.timer("url.lookup.cache.latency");
+
+        if (hedgingEnabled) {
+            log.info("Hedged reads enabled (p{}, delay {}..{}ms, max ratio {})",
+                    Math.round(hedgePercentile * 100), minHedgeDelayMs, maxHedgeDelayMs, maxHedgeRatio);
+        }
+    }
+
+    /**
+     * Resolve a short code for the redirect path.
+     *
+     * @param shortCode the short code
+     * @return the Url if it exists
+     */
+    public Optional<Url> getOriginalUrl(String shortCode) {
+        Optional<Url> pinned = localHotKeyCache.get(shortCode);
+        if (pinned.isPresent()) {
+            localHotKeyCache.recordAccess(shortCode, pinned.get());
+            return pinned;
+        }
+        Optional<Url> url = lookup(shortCode);
+        url.ifPresent(found -> localHotKeyCache.recordAccess(shortCode, found));
+        return url;
+    }
+
+    private Optional<Url> lookup(String shortCode) {
+        if (!hedgingEnabled) {
+            return urlShortenerService.getOriginalUrl(shortCode);
+        }
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return urlShortenerService.getOriginalUrl(shortCode);
+        }
+        earnToken();
+
+        CompletableFuture<Url> cacheLookup;
+        try {
+            cacheLookup = CompletableFuture.supplyAsync(() -> readCache(cache, shortCode), hedgeExecutor);
+        } catch (RejectedExecutionException e) {
+            // Hedge pool saturated — plain path, same as hedging disabled
+            return urlShortenerService.getOriginalUrl(shortCode);
+        }
+
+        try {
+            Url cached = cacheLookup.get(hedgeDelayMicros(), TimeUnit.MICROSECONDS);
+            return cached != null ? Optional.of(cached) : loadAndCache(cache, shortCode);
+
+        } catch (TimeoutException slowCache) {
+            return hedge(cache, shortCode, cacheLookup);
+
+        } catch (ExecutionException e) {
+            log.warn("Cache lookup failed for shortCode={}: {} — reading from DB", shortCode, e.getCause().getMessage());
+            return urlStore.findByShortCode(shortCode);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cacheLookup.cancel(true);
+            return urlStore.findByShortCode(shortCode);
+        }
+    }
+
+    /**
+     * The cache lookup is slower than the hedge delay — race it against the DB.
+     */
+    private Optional<Url> hedge(Cache cache, String shortCode, CompletableFuture<Url> cacheLookup) {
+        if (!tryAcquireToken()) {
+            hedgesThrottled.increment();
+            return awaitCache(cache, shortCode, cacheLookup);
+        }
+
+        CompletableFuture<Optional<Url>> dbLookup;
+        try {
+            dbLookup = CompletableFuture.supplyAsync(() -> urlStore.findByShortCode(shortCode), hedgeExecutor);
+        } catch (RejectedExecutionException e) {
+            hedgesThrottled.increment();
+            return awaitCache(cache, shortCode, cacheLookup);
+        }
+        hedgesFired.increment();
+
+        // A cache HIT completes the race; a cache MISS (null) leaves the DB to decide
+        CompletableFuture<HedgeResult> winner = new CompletableFuture<>();
+        cacheLookup.thenAccept(cached -> {
+            if (cached != null) {
+                winner.complete(new HedgeResult(Optional.of(cached), true));
+            }
+        });
+        dbLookup.whenComplete((result, ex) -> {
+            if (ex != null) {
+                winner.completeExceptionally(ex);
+            } else {
+                winner.complete(new HedgeResult(result, false));
+            }
+        });
+
+        try {
+            HedgeResult result = winner.get();
+            if (result.fromCache()) {
+                hedgesWonByCache.increment();
+            } else {
+                hedgesWonByDb.increment();
+                result.url().ifPresent(found -> cacheInBackground(cache, shortCode, found));
+            }
+            return result.url();
+        } catch (InterruptedException e) {
+            // Interrupted while racing — still answer from the DB, never a false "not found"
+            Thread.currentThread().interrupt();
+            return urlStore.findByShortCode(shortCode);
+        } catch (ExecutionException e) {
+            log.warn("Hedged DB lookup failed for shortCode={}: {}", shortCode, e.getCause().getMessage());
+            return awaitCache(cache, shortCode, cacheLookup);
+        } finally {
+            // Loser is cancelled — a no-op for whichever side already completed
+            cacheLookup.cancel(true);
+            dbLookup.cancel(true);
+        }
+    }
+
+    /**
+     * No hedge allowed — behave like the plain path and wait for the cache.
+     */
+    private Optional<Url> awaitCache(Cache cache, String shortCode, CompletableFuture<Url> cacheLookup) {
+        try {
+            Url cached = cacheLookup.get();
+            return cached != null ? Optional.of(cached) : loadAndCache(cache, shortCode);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cacheLookup.cancel(true);
+            return urlStore.findByShortCode(shortCode);
+        } catch (Exception e) {
+            return urlStore.findByShortCode(shortCode);
+        }
+    }
+
+    private Optional<Url> loadAndCache(Cache cache, String shortCode) {
+        log.debug("Cache MISS for shortCode: {} — fetching from DB", shortCode);
+        Optional<Url> url = urlStore.findByShortCode(shortCode);
+        url.ifPresent(found -> putCache(cache, shortCode, found));
+        return url;
+    }
+
+    /** Populate the cache off the request thread — skipped when the hedge pool is saturated */
+    private void cacheInBackground(Cache cache, String shortCode, Url url) {
+        try {
+            hedgeExecutor.execute(() -> putCache(cache, shortCode, url));
+        } catch (RejectedExecutionException e) {
+            log.debug("Hedge pool saturated — not caching shortCode={}", shortCode);
+        }
+    }
+
+    private void putCache(Cache cache, String shortCode, Url url) {
+        try {
+            cache.put(shortCode, url);
+        } catch (Exception e) {
+            log.debug("Could not populate cache for shortCode={}: {}", shortCode, e.getMessage());
+        }
+    }
+
+    private Url readCache(Cache cache, String shortCode) {
+        long start = System.nanoTime();
+        try {
+            Cache.ValueWrapper wrapper = cache.get(shortCode);
+            return wrapper != null ? (Url) wrapper.get() : null;
+        } finally {
+            // Recorded even when the caller has already given up — slow samples must raise the p95
+            long elapsed = System.nanoTime() - start;
+            cacheLatency.record(TimeUnit.NANOSECONDS.toMicros(elapsed));
+            cacheLatencyTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Adaptive hedge delay: the observed percentile of recent cache latencies, clamped.
+     */
+    long hedgeDelayMicros() {
+        long observed = cacheLatency.percentile(hedgePercentile);
+        return Math.min(maxHedgeDelayMicros, Math.max(minHedgeDelayMicros, observed));
+    }
+
+    private void earnToken() {
+        hedgeTokens.getAndUpdate(tokens -> Math.min(maxTokens, tokens + tokensPerLookup));
+    }
+
+    private boolean tryAcquireToken() {
+        while (true) {
+            long tokens = hedgeTokens.get();
+            if (tokens < TOKEN_UNIT) {
+                return false;
+            }
+            if (hedgeTokens.compareAndSet(tokens, tokens - TOKEN_UNIT)) {
+                return true;
+            }
+        }
+    }
+
+    /** Outcome of a hedged race — which side answered first */
+    private record HedgeResult(Optional<Url> url, boolean fromCache) {
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hedgeExecutor.shutdownNow();
+    }
+
+    /**
+     * Fixed-size ring of recent latency samples (microseconds).
+     * Writes are lock-free; percentile() copies and sorts a snapshot, cached for 100ms
+     * so the redirect path doesn't sort 1024 longs on every request.
+     */
+    static final class LatencyWindow {
+
+        private static final long SNAPSHOT_TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+        private final long[] samples;
+        private final AtomicLong writeIndex = new AtomicLong();
+
+        private volatile long[] sortedSnapshot = new long[0];
+        private volatile long snapshotTakenAt;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        void record(long micros) {
+            int slot = (int) (writeIndex.getAndIncrement() % samples.length);
+            samples[slot] = micros;
+        }
+
+        long percentile(double percentile) {
+            long now = System.nanoTime();
+            long[] sorted = sortedSnapshot;
+            if (sorted.length == 0 || now - snapshotTakenAt > SNAPSHOT_TTL_NANOS) {
+                int filled = (int) Math.min(writeIndex.get(), samples.length);
+                sorted = Arrays.copyOf(samples, filled);
+                Arrays.sort(sorted);
+                sortedSnapshot = sorted;
+                snapshotTakenAt = now;
+            }
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+}
@@ -3,16 +3,19 @@ package com.yk.url_shortener.service;
 import com.yk.url_shortener.dto.DomainMetrics;
 import com.yk.url_shortener.dto.UrlCreatedEvent;
 import com.yk.url_shortener.model.Url;
-import com.yk.url_shortener.repository.UrlRepository;
+import com.yk.url_shortener.sharding.DatabaseShardRouter;
+import com.yk.url_shortener.store.UrlStore;
+import com.yk.url_shortener.util.PublicSuffixTrie;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -28,15 +31,32 @@ import java.util.stream.Collectors;
 @Service
 public class UrlShortenerService {
 
-    private final UrlRepository urlRepository;
+    private final UrlStore urlStore;
 
     // Optional — not present when spring.kafka.enabled=false
     private final Optional<UrlEventProducer> urlEventProducer;
 
-    public UrlShortenerService(UrlRepository urlRepository,
-                               Optional<UrlEventProducer> urlEventProducer) {
-        this.urlRepository = urlRepository;
+    // Optional — only present when app.db.sharding.enabled=true
+    private final Optional<DatabaseShardRouter> databaseShardRouter;
+
+    // Optional — always beans in the app; tests that build the service by hand pass Optional.empty()
+    private final Optional<LinkExpiryService> linkExpiryService;
+    private final Optional<TrendingService> trendingService;
+    private final Optional<ClickLeaderboardService> clickLeaderboardService;
+
+    @Autowired
+    public UrlShortenerService(UrlStore urlStore,
+                               Optional<UrlEventProducer> urlEventProducer,
+                               Optional<DatabaseShardRouter> databaseShardRouter,
+                               Optional<LinkExpiryService> linkExpiryService,
+                               Optional<TrendingService> trendingService,
+                               Optional<ClickLeaderboardService> clickLeaderboardService) {
+        this.urlStore = urlStore;
         this.urlEventProducer = urlEventProducer;
+        this.databaseShardRouter = databaseShardRouter;
+        this.linkExpiryService = linkExpiryService;
+        this.trendingService = trendingService;
+        this.clickLeaderboardService = clickLeaderboardService;
     }
 
     /**
@@ -57,34 +77,86 @@ public class UrlShortenerService {
      * Cache behaviour:
      * - @CachePut("urls"): After saving, put the result into the "urls" cache keyed by shortCode
      * - @CacheEvict("domains"): Evict the domains cache since a new URL changes domain counts
+     *
+     * @Transactional: dedupe check, collision check and insert run in one read-write
+     * transaction — on the primary when reads are split off to replicas
      */
+    @Transactional
     @Caching(
         put = @CachePut(value = "urls", key = "#result.shortCode"),
         evict = @CacheEvict(value = "domains", allEntries = true)
     )
     public Url shortenUrl(String longUrl) {
+        return createPermanent(longUrl);
+    }
+
+    /**
+     * Shorten a long URL, optionally with an expiry time and/or a click limit
+     *
+     * Links with limits are never deduplicated: every request gets its own short code
+     * (two campaigns for the same page must not share a click budget), and they are
+     * never returned by the dedupe lookup of a later permanent request either.
+     *
+     * @param expiresAt optional — redirects answer 410 Gone from this time on
+     * @param maxClicks optional — redirects answer 410 Gone after this many clicks
+     */
+    @Transactional
+    @Caching(
+        put = @CachePut(value = "urls", key = "#result.shortCode"),
+        evict = @CacheEvict(value = "domains", allEntries = true)
+    )
+    public Url shortenUrl(String longUrl, LocalDateTime expiresAt, Long maxClicks) {
+        if (expiresAt == null && maxClicks == null) {
+            return createPermanent(longUrl);
+        }
+
+        String shortCode = generateShortCode(longUrl + "|" + expiresAt + "|" + maxClicks + "|" + System.nanoTime());
+        int attempt = 0;
+        while (urlStore.existsByShortCode(shortCode)) {
+            shortCode = generateShortCode(longUrl + System.nanoTime() + attempt);
+            attempt++;
+        }
+
+        Url saved = save(Url.builder()
+                .shortCode(shortCode)
+                .longUrl(longUrl)
+                .createdAt(LocalDateTime.now())
+                .accessCount(0L)
+                .expiresAt(expiresAt)
+                .maxClicks(maxClicks)
+                .build());
+        linkExpiryService.ifPresent(expiry -> expiry.track(saved));
+        return saved;
+    }
+
+    private Url createPermanent(String longUrl) {
         // Check if URL already exists in our database
-        Optional<Url> existingUrl = urlRepository.findByLongUrl(longUrl);
+        Optional<Url> existingUrl = urlStore.findByLongUrl(longUrl);
         if (existingUrl.isPresent()) {
             return existingUrl.get();
         }
 
         String shortCode = generateShortCode(longUrl);
 
+        // Sharded storage: also retry until the code lives on the same shard as the long URL,
+        // so the dedupe lookup above (routed by long URL) finds it next time
         int attempt = 0;
-        while (urlRepository.existsByShortCode(shortCode)) {
+        while (!onLongUrlShard(shortCode, longUrl) || urlStore.existsByShortCode(shortCode)) {
             shortCode = generateShortCode(longUrl + attempt);
             attempt++;
         }
 
-        Url url = Url.builder()
+        return save(Url.builder()
                 .shortCode(shortCode)
                 .longUrl(longUrl)
                 .createdAt(LocalDateTime.now())
                 .accessCount(0L)
-                .build();
+                .build());
+    }
 
-        Url saved = urlRepository.save(url);
+    private Url save(Url url) {
+        Url saved = urlStore.save(url);
+        trendingService.ifPresent(trending -> trending.recordCreated(saved.getLongUrl()));
 
         // Publish Kafka event — only when Kafka is enabled (producer bean present)
         urlEventProducer.ifPresent(producer -> producer.publishUrlCreated(UrlCreatedEvent.builder()
@@ -104,11 +176,14 @@ public class UrlShortenerService {
      * - @Cacheable("urls"): On first call → hits DB, stores in Redis for 1hr
      *   On subsequent calls → returns from Redis, DB is NOT hit at all
      *   This is the most impactful cache — every redirect goes through here
+     *
+     * Read-only transaction → served by a replica when app.db.replicas.enabled=true
      */
+    @Transactional(readOnly = true)
     @Cacheable(value = "urls", key = "#shortCode")
     public Optional<Url> getOriginalUrl(String shortCode) {
         log.debug("Cache MISS for shortCode: {} — fetching from DB", shortCode);
-        return urlRepository.findByShortCode(shortCode);
+        return urlStore.findByShortCode(shortCode);
     }
 
     /**
@@ -118,13 +193,51 @@ public class UrlShortenerService {
      * - @CacheEvict("stats"): Evict the stats cache for this shortCode
      *   because access count just changed — stale stats would be wrong
      * - "urls" cache is NOT evicted — longUrl itself didn't change
+     *
+     * Read-modify-write in one read-write transaction, so the read also comes from the primary
+     *
+     * The new count goes to the expiry service — a click-limited link is evicted from the
+     * caches the moment it reaches its limit — the click to the trending-links window, and
+     * the new count to the all-time click leaderboard
      */
+    @Transactional
     @CacheEvict(value = "stats", key = "#shortCode")
     public void incrementAccessCount(String shortCode) {
-        urlRepository.findByShortCode(shortCode).ifPresent(url -> {
-            url.setAccessCount(url.getAccessCount() + 1);
-            urlRepository.save(url);
-        });
+        incrementAccessCount(shortCode, 1);
+    }
+
+    /**
+     * Add several clicks at once — one aggregated url.accessed event (ClickAggregator) carries
+     * all the clicks of a link in one window
+     */
+    @Transactional
+    @CacheEvict(value = "stats", key = "#shortCode")
+    public void incrementAccessCount(String shortCode, long clicks) {
+        onAccessCount(shortCode, clicks, urlStore.incrementAccessCount(shortCode, clicks));
+    }
+
+    /**
+     * Add clicks of which uniqueClicks were a visitor's first within the de-duplication window
+     * (ClickDeduplicator) — both counters in one UPDATE
+     */
+    @Transactional
+    @CacheEvict(value = "stats", key = "#shortCode")
+    public void incrementAccessCount(String shortCode, long clicks, long uniqueClicks) {
+        onAccessCount(shortCode, clicks, urlStore.incrementAccessCount(shortCode, clicks, uniqueClicks));
+    }
+
+    private void onAccessCount(String shortCode, long clicks, long accessCount) {
+        if (accessCount >= 0) {
+            linkExpiryService.ifPresent(expiry -> expiry.onAccessCount(shortCode, accessCount));
+            trendingService.ifPresent(trending -> trending.recordClicks(shortCode, clicks));
+            clickLeaderboardService.ifPresent(leaderboard -> leaderboard.onAccessCount(shortCode, accessCount));
+        }
+    }
+
+    private boolean onLongUrlShard(String shortCode, String longUrl) {
+        return databaseShardRouter
+                .map(router -> router.shardForShortCode(shortCode).equals(router.shardForLongUrl(longUrl)))
+                .orElse(true);
     }
 
     /**
@@ -184,36 +297,22 @@ public class UrlShortenerService {
     }
 
     /**
-     * Extract domain name from a URL
+     * Extract the registrable domain (eTLD+1) from a URL
      *
      * Examples:
      * - https://www.youtube.com/watch?v=abc -> youtube.com
      * - https://stackoverflow.com/questions/123 -> stackoverflow.com
      * - https://en.wikipedia.org/wiki/Java -> wikipedia.org
-     * - https://www.udemy.com/course/java -> udemy.com
+     * - https://www.bbc.co.uk/news -> bbc.co.uk
+     *
+     * Scans the host straight out of the string against the bundled public-suffix trie —
+     * no URI parsing, the only allocation is the returned domain
      *
      * @param url The full URL
-     * @return The domain name (without www.)
+     * @return The registrable domain, or "unknown" when the URL has no host
      */
     private String extractDomain(String url) {
-        try {
-            URI uri = new URI(url);
-            String host = uri.getHost();
-
-            if (host == null) {
-                return "unknown";
-            }
-
-            // Remove "www." prefix if present
-            if (host.startsWith("www.")) {
-                host = host.substring(4);
-            }
-
-            return host;
-
-        } catch (Exception e) {
-            return "unknown";
-        }
+        return PublicSuffixTrie.getDefault().registrableDomain(url);
     }
 
     /**
@@ -223,10 +322,13 @@ public class UrlShortenerService {
      * - @Cacheable("domains"): Cache for 10 mins (configured in RedisConfig)
      *   This queries ALL urls and aggregates — expensive without cache
      *   Evicted automatically when a new URL is shortened (domain counts change)
+     *
+     * Read-only transaction → served by a replica when app.db.replicas.enabled=true
      */
+    @Transactional(readOnly = true)
     @Cacheable(value = "domains", key = "'top3'")
     public List<DomainMetrics> getTop3Domains() {
-        Collection<Url> allUrls = urlRepository.findAll();
+        Collection<Url> allUrls = urlStore.findAll();
 
         // Count occurrences of each domain
         Map<String, Long> domainCounts = allUrls.stream()
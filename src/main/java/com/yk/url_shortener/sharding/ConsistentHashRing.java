@@ -0,0 +1,160 @@
+package com.yk.url_shortener.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Consistent hash ring with virtual nodes.
+ *
+ * How it works:
+ * - Every node is placed on a 64-bit ring at {@code virtualNodes} pseudo-random points
+ *   (hash of "nodeId#0", "nodeId#1", ...)
+ * - A key belongs to the first node point clockwise from hash(key)
+ *
+ * Why virtual nodes?
+ * - With one point per node, 3 nodes split the ring very unevenly (one can own 60%)
+ * - With 160 points per node the largest share stays within a few % of 1/N
+ *
+ * Why consistent hashing (and not hash % N)?
+ * - Adding a 4th node to hash % 3 remaps ~75% of all keys
+ * - Adding a 4th node to the ring remaps only ~25% — and ONLY onto the new node
+ * - Removing a node moves only that node's keys, to its ring neighbours
+ *
+ * Thread safety: the ring is copy-on-write — lookups read an immutable snapshot,
+ * add/remove (rare) build a new one.
+ *
+ * @param <T> node type (a Redis shard, a datasource shard, ...)
+ */
+public class ConsistentHashRing<T> {
+
+    private final int virtualNodes;
+
+    private volatile NavigableMap<Long, T> ring = Collections.emptyNavigableMap();
+    private volatile Map<String, T> nodes = Collections.emptyMap();
+
+    public ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes must be >= 1");
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    public synchronized void addNode(String nodeId, T node) {
+        NavigableMap<Long, T> next = new TreeMap<>(ring);
+        for (int i = 0; i < virtualNodes; i++) {
+            next.put(hash(nodeId + "#" + i), node);
+        }
+        Map<String, T> nextNodes = new LinkedHashMap<>(nodes);
+        nextNodes.put(nodeId, node);
+        ring = Collections.unmodifiableNavigableMap(next);
+        nodes = Collections.unmodifiableMap(nextNodes);
+    }
+
+    public synchronized void removeNode(String nodeId) {
+        T node = nodes.get(nodeId);
+        if (node == null) {
+            return;
+        }
+        NavigableMap<Long, T> next = new TreeMap<>(ring);
+        for (int i = 0; i < virtualNodes; i++) {
+            next.remove(hash(nodeId + "#" + i), node);
+        }
+        Map<String, T> nextNodes = new LinkedHashMap<>(nodes);
+        nextNodes.remove(nodeId);
+        ring = Collections.unmodifiableNavigableMap(next);
+        nodes = Collections.unmodifiableMap(nextNodes);
+    }
+
+    /**
+     * @return the node owning this key
+     * @throws IllegalStateException if the ring is empty
+     */
+    public T nodeFor(String key) {
+        return nodeFor(key, node -> true);
+    }
+
+    /**
+     * Owner of the key, skipping nodes that fail the predicate (e.g. unhealthy nodes).
+     * Skipped nodes' keys fall through to their clockwise neighbours — keys of healthy
+     * nodes never move.
+     *
+     * @return the first acceptable node clockwise from hash(key); if none is acceptable,
+     *         the key's regular owner (callers fail/degrade on it as usual)
+     */
+    public T nodeFor(String key, Predicate<T> acceptable) {
+        NavigableMap<Long, T> snapshot = ring;
+        if (snapshot.isEmpty()) {
+            throw new IllegalStateException("Consistent hash ring has no nodes");
+        }
+        long hash = hash(key);
+        Map.Entry<Long, T> entry = snapshot.ceilingEntry(hash);
+        T owner = (entry != null ? entry : snapshot.firstEntry()).getValue();
+        if (acceptable.test(owner)) {
+            return owner;
+        }
+        // Slow path — only taken while a node is excluded
+        for (T node : clockwiseFrom(snapshot, hash)) {
+            if (acceptable.test(node)) {
+                return node;
+            }
+        }
+        return owner;
+    }
+
+    public List<T> getNodes() {
+        return new ArrayList<>(nodes.values());
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Distinct nodes in ring order starting at the given hash (wrapping around).
+     */
+    private List<T> clockwiseFrom(NavigableMap<Long, T> snapshot, long hash) {
+        List<T> ordered = new ArrayList<>(nodes.size());
+        for (T node : snapshot.tailMap(hash, true).values()) {
+            if (!ordered.contains(node)) {
+                ordered.add(node);
+                if (ordered.size() == nodes.size()) {
+                    return ordered;
+                }
+            }
+        }
+        for (T node : snapshot.headMap(hash, false).values()) {
+            if (!ordered.contains(node)) {
+                ordered.add(node);
+                if (ordered.size() == nodes.size()) {
+                    return ordered;
+                }
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the murmur3 mixer
+     * (FNV alone clusters similar keys like "rate_limit:10.0.0.1" / "...2").
+     */
+    static long hash(String key) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,114 @@
+package com.yk.url_shortener.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sharded persistence — only active when app.db.sharding.enabled=true.
+ *
+ * app.db.sharding.urls=jdbc:h2:file:./data/urlshortener-0,jdbc:h2:file:./data/urlshortener-1,...
+ *
+ * - Each URL becomes one shard ("shard-0", "shard-1", ... by position) with its own Hikari pool
+ *   (metrics: hikaricp.connections.* tagged pool=shard-N)
+ * - A row lives on the shard owning hash(shortCode) on a {@link ConsistentHashRing}
+ * - Dedupe lookups (findByLongUrl) go to the shard owning hash(longUrl); new short codes are
+ *   generated so both hashes land on the same shard (see UrlShortenerService); links whose hashes
+ *   part ways in a split are found through a dedupe pointer ({@link ShardRebalancer})
+ *
+ * Splitting: append a new URL at the END of the list (ids are positional) and restart —
+ * ~1/N of the rows now belong to the new shard. POST /actuator/dbshards moves them
+ * ({@link ShardRebalancer}). Until then, those rows are simply not found by code.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.db.sharding.enabled", havingValue = "true")
+public class DatabaseShardRouter implements DisposableBean {
+
+    private final Map<String, HikariDataSource> shards = new LinkedHashMap<>();
+    private final ConsistentHashRing<String> ring;
+    private final ExecutorService fanOutExecutor;
+
+    public DatabaseShardRouter(@Value("${app.db.sharding.urls}") List<String> jdbcUrls,
+                               @Value("${spring.datasource.username:sa}") String username,
+                               @Value("${spring.datasource.password:}") String password,
+                               @Value("${app.db.sharding.virtual-nodes:160}") int virtualNodes,
+                               @Value("${app.db.sharding.pool-size:10}") int poolSize,
+                               MeterRegistry meterRegistry) {
+        if (jdbcUrls.isEmpty()) {
+            throw new IllegalStateException("app.db.sharding.enabled=true requires app.db.sharding.urls");
+        }
+        this.ring = new ConsistentHashRing<>(virtualNodes);
+
+        for (int i = 0; i < jdbcUrls.size(); i++) {
+            String id = "shard-" + i;
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName(id);
+            dataSource.setJdbcUrl(jdbcUrls.get(i).trim());
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setMetricRegistry(meterRegistry);
+            shards.put(id, dataSource);
+            ring.addNode(id, id);
+        }
+
+        AtomicInteger threadId = new AtomicInteger();
+        this.fanOutExecutor = Executors.newFixedThreadPool(shards.size() * 2, runnable -> {
+            Thread thread = new Thread(runnable, "shard-fanout-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Database sharding enabled across {} shards: {}", shards.size(), jdbcUrls);
+    }
+
+    /** Shard owning a short code — where the row lives */
+    public String shardForShortCode(String shortCode) {
+        return ring.nodeFor(shortCode);
+    }
+
+    /** Shard answering dedupe lookups for a long URL */
+    public String shardForLongUrl(String longUrl) {
+        return ring.nodeFor(longUrl);
+    }
+
+    public List<String> getShardIds() {
+        return new ArrayList<>(shards.keySet());
+    }
+
+    public String getDefaultShardId() {
+        return shards.keySet().iterator().next();
+    }
+
+    public DataSource getDataSource(String shardId) {
+        DataSource dataSource = shards.get(shardId);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Unknown shard: " + shardId);
+        }
+        return dataSource;
+    }
+
+    /** Threads for parallel cross-shard reads (findAll, count, top-N, ...) */
+    ExecutorService getFanOutExecutor() {
+        return fanOutExecutor;
+    }
+
+    @Override
+    public void destroy() {
+        fanOutExecutor.shutdownNow();
+        shards.values().forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,42 @@
+package com.yk.url_shortener.sharding;
+
+import lombok.Getter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * One Redis node in the client-side sharded setup.
+ * Holds its own connection factory (own connection pool) and template.
+ */
+@Getter
+public class RedisShard {
+
+    /** "host:port" — also the node's identity on the hash ring */
+    private final String id;
+    private final RedisConnectionFactory connectionFactory;
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private volatile boolean healthy = true;
+    private volatile String lastError;
+
+    public RedisShard(String id, RedisConnectionFactory connectionFactory, RedisTemplate<String, Object> redisTemplate) {
+        this.id = id;
+        this.connectionFactory = connectionFactory;
+        this.redisTemplate = redisTemplate;
+    }
+
+    void markHealthy() {
+        this.healthy = true;
+        this.lastError = null;
+    }
+
+    void markUnhealthy(String error) {
+        this.healthy = false;
+        this.lastError = error;
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
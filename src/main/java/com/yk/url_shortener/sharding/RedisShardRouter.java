@@ -0,0 +1,211 @@
+package com.yk.url_shortener.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Client-side Redis sharding — routes every Redis key to one node of a consistent hash ring.
+ *
+ * Standalone mode (app.redis.sharding.enabled=false, the default):
+ *   A single "shard" wrapping the primary connection factory from RedisConfig.
+ *   Callers always go through the router, so switching modes needs no code changes.
+ *
+ * Sharded mode (app.redis.sharding.enabled=true):
+ *   app.redis.sharding.nodes=localhost:6379,localhost:6380,localhost:6381
+ *   - Each node gets its own LettuceConnectionFactory with its own connection pool
+ *   - Keys map to nodes via {@link ConsistentHashRing} (160 virtual nodes per node)
+ *   - Adding a node remaps only ~1/N of the keys (all onto the new node)
+ *
+ * Who uses it:
+ *   - the "urls"/"stats"/"domains" caches ({@link ShardedRedisCacheWriter})
+ *   - RateLimiterService (rate_limit:&lt;ip&gt; counters)
+ *   - hot-key sharing and pipelined cache warm-up
+ *
+ * Health:
+ *   Every node is PINGed periodically (default 5s). An unreachable node is taken out of
+ *   routing — its keys fall through to the next node clockwise (a cache miss or a fresh
+ *   rate-limit window, never an error) and come back when the node recovers.
+ *   A recovered node still holds what was written before the failover — entries evicted or
+ *   updated on the fallback node meanwhile would come back stale. So before it is routed to
+ *   again, the keys matching resync-patterns (the caches and rate-limit counters) are deleted
+ *   with SCAN + UNLINK; a node that cannot be resynced stays out of routing until the next check.
+ *   Per-node status is exposed by the "redisShards" health indicator.
+ */
+@Slf4j
+@Component
+public class RedisShardRouter implements DisposableBean {
+
+    private static final int RESYNC_BATCH = 500;
+
+    private final boolean sharded;
+    private final List<RedisShard> shards = new ArrayList<>();
+    private final List<LettuceConnectionFactory> ownedFactories = new ArrayList<>();
+    private final ConsistentHashRing<RedisShard> ring;
+    private final List<String> resyncPatterns;
+
+    public RedisShardRouter(LettuceConnectionFactory primaryConnectionFactory,
+                            RedisTemplate<String, Object> primaryRedisTemplate,
+                            @Value("${app.redis.sharding.enabled:false}") boolean sharded,
+                            @Value("${app.redis.sharding.nodes:}") List<String> nodes,
+                            @Value("${app.redis.sharding.virtual-nodes:160}") int virtualNodes,
+                            @Value("${app.redis.sharding.pool.max-active:16}") int poolMaxActive,
+                            @Value("${app.redis.sharding.pool.max-idle:8}") int poolMaxIdle,
+                            @Value("${app.redis.sharding.pool.min-idle:1}") int poolMinIdle,
+                            @Value("${app.redis.sharding.resync-patterns:urls::*,stats::*,domains::*,rate_limit:*}")
+                            List<String> resyncPatterns) {
+        this.sharded = sharded && !nodes.isEmpty();
+        this.ring = new ConsistentHashRing<>(virtualNodes);
+        this.resyncPatterns = resyncPatterns;
+
+        if (!this.sharded) {
+            String id = primaryConnectionFactory.getHostName() + ":" + primaryConnectionFactory.getPort();
+            addShard(new RedisShard(id, primaryConnectionFactory, primaryRedisTemplate));
+            return;
+        }
+
+        GenericObjectPoolConfig<Object> poolConfig = new GenericObjectPoolConfig<>();
+        poolConfig.setMaxTotal(poolMaxActive);
+        poolConfig.setMaxIdle(poolMaxIdle);
+        poolConfig.setMinIdle(poolMinIdle);
+
+        for (String node : nodes) {
+            String[] hostPort = node.trim().split(":");
+            String host = hostPort[0];
+            int port = hostPort.length > 1 ? Integer.parseInt(hostPort[1]) : 6379;
+
+            LettucePoolingClientConfiguration clientConfig = LettucePoolingClientConfiguration.builder()
+                    .commandTimeout(Duration.ofSeconds(2))
+                    .poolConfig(poolConfig)
+                    .build();
+            LettuceConnectionFactory factory = new LettuceConnectionFactory(
+                    new RedisStandaloneConfiguration(host, port), clientConfig);
+            factory.setValidateConnection(false);
+            // Dedicated (pooled) connections per operation instead of one shared multiplexed connection
+            factory.setShareNativeConnection(false);
+            factory.afterPropertiesSet();
+            factory.start();
+            ownedFactories.add(factory);
+
+            addShard(new RedisShard(host + ":" + port, factory, createTemplate(factory)));
+        }
+        log.info("Redis sharding enabled across {} nodes: {}", shards.size(), shards);
+    }
+
+    public boolean isSharded() {
+        return sharded;
+    }
+
+    /** The (healthy) shard owning this key */
+    public RedisShard shardFor(String key) {
+        return ring.nodeFor(key, RedisShard::isHealthy);
+    }
+
+    public RedisTemplate<String, Object> templateFor(String key) {
+        return shardFor(key).getRedisTemplate();
+    }
+
+    public RedisConnectionFactory connectionFactoryFor(String key) {
+        return shardFor(key).getConnectionFactory();
+    }
+
+    public List<RedisShard> getShards() {
+        return List.copyOf(shards);
+    }
+
+    /**
+     * PING every node; flip its routing status on change.
+     * Standalone mode has nothing to fail over to, so it is never marked unhealthy.
+     */
+    @Scheduled(fixedDelayString = "${app.redis.sharding.health-check-ms:5000}")
+    public void checkHealth() {
+        if (!sharded) {
+            return;
+        }
+        for (RedisShard shard : shards) {
+            try (RedisConnection connection = shard.getConnectionFactory().getConnection()) {
+                connection.ping();
+                if (!shard.isHealthy()) {
+                    long deleted = resync(connection);
+                    log.info("Redis shard {} is back — dropped {} pre-failover keys, routing its keys to it again",
+                            shard.getId(), deleted);
+                }
+                shard.markHealthy();
+            } catch (Exception e) {
+                if (shard.isHealthy()) {
+                    log.warn("Redis shard {} is unreachable — routing its keys to the next node: {}",
+                            shard.getId(), e.getMessage());
+                }
+                shard.markUnhealthy(e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        ownedFactories.forEach(LettuceConnectionFactory::destroy);
+    }
+
+    /** Delete the keys a recovered node may hold stale — @return keys deleted */
+    private long resync(RedisConnection connection) {
+        long deleted = 0;
+        for (String pattern : resyncPatterns) {
+            List<byte[]> batch = new ArrayList<>(RESYNC_BATCH);
+            try (Cursor<byte[]> keys = connection.keyCommands()
+                    .scan(ScanOptions.scanOptions().match(pattern).count(RESYNC_BATCH).build())) {
+                while (keys.hasNext()) {
+                    batch.add(keys.next());
+                    if (batch.size() == RESYNC_BATCH) {
+                        deleted += unlink(connection, batch);
+                    }
+                }
+            }
+            deleted += unlink(connection, batch);
+        }
+        return deleted;
+    }
+
+    private static long unlink(RedisConnection connection, List<byte[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Long unlinked = connection.keyCommands().unlink(batch.toArray(new byte[0][]));
+        batch.clear();
+        return unlinked != null ? unlinked : 0;
+    }
+
+    private void addShard(RedisShard shard) {
+        shards.add(shard);
+        ring.addNode(shard.getId(), shard);
+    }
+
+    /** Same serializers as the primary template in RedisConfig */
+    private static RedisTemplate<String, Object> createTemplate(RedisConnectionFactory factory) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(factory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+        template.setValueSerializer(jsonSerializer);
+        template.setHashValueSerializer(jsonSerializer);
+        template.afterPropertiesSet();
+        return template;
+    }
+}
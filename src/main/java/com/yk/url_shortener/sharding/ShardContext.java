@@ -0,0 +1,64 @@
+package com.yk.url_shortener.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Thread-bound "which database shard should this statement go to?".
+ *
+ * Set by {@link ShardRoutingRepositoryInterceptor} around every UrlRepository call and read
+ * by {@link ShardRoutingDataSource} when the (lazy) JDBC connection is actually opened.
+ *
+ * Two flavours:
+ * - routed: chosen by the interceptor from the method arguments (short code / long URL)
+ * - pinned: chosen explicitly by the caller via {@link #pin} — the interceptor then runs the
+ *   call on that shard as-is (used by tooling such as the rebalancer that must read/delete
+ *   rows on a shard that no longer owns them)
+ */
+public final class ShardContext {
+
+    record Route(String shardId, boolean pinned) {
+    }
+
+    private static final ThreadLocal<Route> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /** Shard for the current thread, or null → default shard */
+    public static String currentShard() {
+        Route route = CURRENT.get();
+        return route != null ? route.shardId() : null;
+    }
+
+    /**
+     * Run repository calls against one specific shard, bypassing routing.
+     */
+    public static <T> T pin(String shardId, Supplier<T> work) {
+        Route previous = enter(shardId, true);
+        try {
+            return work.get();
+        } finally {
+            exit(previous);
+        }
+    }
+
+    static boolean isPinned() {
+        Route route = CURRENT.get();
+        return route != null && route.pinned();
+    }
+
+    /** @return the previous route, to be handed back to {@link #exit} */
+    static Route enter(String shardId, boolean pinned) {
+        Route previous = CURRENT.get();
+        CURRENT.set(new Route(shardId, pinned));
+        return previous;
+    }
+
+    static void exit(Route previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.yk.url_shortener.sharding;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.model.UrlDedupEntry;
+import com.yk.url_shortener.repository.UrlDedupRepository;
+import com.yk.url_shortener.repository.UrlRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Shard split / rebalance tool.
+ *
+ * After a shard is appended to app.db.sharding.urls, the ring hands ~1/N of all short codes
+ * (and, independently, ~1/N of all long URLs) to the new shard — but the rows still sit on the
+ * old ones. rebalance() moves every link as a pair: the row goes to the owner of hash(shortCode),
+ * and its dedupe entry to the owner of hash(longUrl).
+ *
+ * For every shard, for every row whose short code is now owned by another shard:
+ *   1. read the batch on the source shard (pinned)
+ *   2. saveAll() — routed, so each row is written to its new owner
+ *   3. write the dedupe pointers ({@link UrlDedupEntry}) of permanent links whose long URL is
+ *      owned by yet another shard — pinned to that shard
+ *   4. delete the batch on the source shard (pinned)
+ * Rows that stay put get a pointer too when their long URL moved away, and pointers left on a
+ * shard that no longer owns their long URL follow it.
+ *
+ * Shards are walked in pages of batchSize rows, keyset-paginated on the primary key
+ * (WHERE short_code > last ORDER BY short_code) — never a whole shard in memory, and rows
+ * deleted behind the cursor don't shift the next page.
+ *
+ * Copy-then-delete: a crash between 2 and 4 leaves a harmless duplicate on the old shard
+ * (never read — routing points at the new owner); re-running finishes the move. Pointers are
+ * keyed by long URL, so writing one twice is a no-op.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.db.sharding.enabled", havingValue = "true")
+public class ShardRebalancer {
+
+    private static final String SELECT_ROWS = "SELECT short_code, long_url, "
+            + "CASE WHEN expires_at IS NULL AND max_clicks IS NULL THEN TRUE ELSE FALSE END FROM urls "
+            + "WHERE short_code > ? ORDER BY short_code LIMIT ?";
+    private static final String SELECT_DEDUP = "SELECT long_url, short_code FROM url_dedup "
+            + "WHERE long_url > ? ORDER BY long_url LIMIT ?";
+    /** Page size of the read-only status() scan */
+    private static final int STATUS_PAGE_SIZE = 1000;
+
+    private record Row(String shortCode, String longUrl, boolean permanent) {
+    }
+
+    private final DatabaseShardRouter router;
+    private final UrlRepository urlRepository;
+    private final UrlDedupRepository urlDedupRepository;
+
+    /**
+     * @return per shard: rows stored there, and how many of them belong to another shard
+     */
+    public Map<String, Map<String, Long>> status() {
+        Map<String, Map<String, Long>> status = new LinkedHashMap<>();
+        for (String shardId : router.getShardIds()) {
+            long[] counts = new long[2];
+            forEachPage(shardId, STATUS_PAGE_SIZE, rows -> {
+                counts[0] += rows.size();
+                counts[1] += rows.stream().filter(row -> !router.shardForShortCode(row.shortCode()).equals(shardId)).count();
+            });
+            Map<String, Long> shardStatus = new LinkedHashMap<>();
+            shardStatus.put("rows", counts[0]);
+            shardStatus.put("misplaced", counts[1]);
+            status.put(shardId, shardStatus);
+        }
+        return status;
+    }
+
+    /**
+     * Move every misplaced row to its owning shard, together with its dedupe entry.
+     *
+     * @return rows moved off each shard
+     */
+    public Map<String, Integer> rebalance(int batchSize) {
+        Map<String, Integer> moved = new LinkedHashMap<>();
+        int[] pointers = new int[1];
+        for (String shardId : router.getShardIds()) {
+            int[] misplacedCount = new int[1];
+            forEachPage(shardId, batchSize, rows -> {
+                List<Row> misplaced = rows.stream()
+                        .filter(row -> !router.shardForShortCode(row.shortCode()).equals(shardId))
+                        .toList();
+                if (!misplaced.isEmpty()) {
+                    List<Url> urls = ShardContext.pin(shardId,
+                            () -> urlRepository.findByShortCodeIn(misplaced.stream().map(Row::shortCode).toList()));
+                    urlRepository.saveAll(urls);
+                    pointers[0] += writePointers(misplaced);
+                    ShardContext.pin(shardId, () -> {
+                        urlRepository.deleteAllInBatch(urls);
+                        return null;
+                    });
+                    misplacedCount[0] += misplaced.size();
+                }
+                // Staying here, but the long URL moved to another shard
+                pointers[0] += writePointers(rows.stream()
+                        .filter(row -> router.shardForShortCode(row.shortCode()).equals(shardId))
+                        .toList());
+            });
+            pointers[0] += movePointers(shardId, batchSize);
+
+            moved.put(shardId, misplacedCount[0]);
+            if (misplacedCount[0] > 0) {
+                log.info("Rebalance: moved {} rows off {}", misplacedCount[0], shardId);
+            }
+        }
+        if (pointers[0] > 0) {
+            log.info("Rebalance: wrote {} dedupe pointers", pointers[0]);
+        }
+        return moved;
+    }
+
+    /** Pointer on the long URL's shard for every permanent link whose row lives elsewhere */
+    private int writePointers(List<Row> rows) {
+        int written = 0;
+        for (Row row : rows) {
+            String longUrlShard = router.shardForLongUrl(row.longUrl());
+            if (row.permanent() && !longUrlShard.equals(router.shardForShortCode(row.shortCode()))) {
+                UrlDedupEntry entry = new UrlDedupEntry(row.longUrl(), row.shortCode());
+                ShardContext.pin(longUrlShard, () -> urlDedupRepository.save(entry));
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /** Pointers on a shard that no longer owns their long URL go to the one that does */
+    private int movePointers(String shardId, int batchSize) {
+        JdbcTemplate jdbc = new JdbcTemplate(router.getDataSource(shardId));
+        int moved = 0;
+        String after = "";
+        List<UrlDedupEntry> page;
+        do {
+            page = jdbc.query(SELECT_DEDUP, (rs, i) -> new UrlDedupEntry(rs.getString(1), rs.getString(2)),
+                    after, batchSize);
+            List<UrlDedupEntry> misplaced = page.stream()
+                    .filter(entry -> !router.shardForLongUrl(entry.getLongUrl()).equals(shardId))
+                    .toList();
+            for (UrlDedupEntry entry : misplaced) {
+                ShardContext.pin(router.shardForLongUrl(entry.getLongUrl()), () -> urlDedupRepository.save(entry));
+            }
+            if (!misplaced.isEmpty()) {
+                ShardContext.pin(shardId, () -> {
+                    urlDedupRepository.deleteAllInBatch(misplaced);
+                    return null;
+                });
+            }
+            moved += misplaced.size();
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getLongUrl();
+            }
+        } while (page.size() == batchSize);
+        return moved;
+    }
+
+    /** Every row of one shard, one page at a time, in short-code order */
+    private void forEachPage(String shardId, int pageSize, Consumer<List<Row>> consumer) {
+        JdbcTemplate jdbc = new JdbcTemplate(router.getDataSource(shardId));
+        String after = "";
+        List<Row> page;
+        do {
+            page = jdbc.query(SELECT_ROWS, (rs, i) -> new Row(rs.getString(1), rs.getString(2), rs.getBoolean(3)),
+                    after, pageSize);
+            if (!page.isEmpty()) {
+                consumer.accept(page);
+                after = page.get(page.size() - 1).shortCode();
+            }
+        } while (page.size() == pageSize);
+    }
+}
@@ -0,0 +1,33 @@
+package com.yk.url_shortener.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * DataSource that hands out connections of the shard selected in {@link ShardContext}.
+ *
+ * Always used behind a LazyConnectionDataSourceProxy: JPA asks for a connection when the
+ * transaction begins, but the physical connection (and therefore the shard) is only chosen
+ * on the first statement — by then the repository interceptor has set the route.
+ *
+ * No route set → default shard (shard-0). Hibernate's own startup schema update and any
+ * query issued outside UrlRepository land there.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    public ShardRoutingDataSource(DatabaseShardRouter router) {
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        router.getShardIds().forEach(id -> targets.put(id, router.getDataSource(id)));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(router.getDataSource(router.getDefaultShardId()));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.currentShard();
+    }
+}
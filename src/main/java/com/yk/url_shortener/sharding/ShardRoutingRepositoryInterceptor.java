@@ -0,0 +1,236 @@
+package com.yk.url_shortener.sharding;
+
+import com.yk.url_shortener.model.Url;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.parser.PartTree;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Sits in front of every UrlRepository method (before the transaction interceptor) and
+ * decides which shard(s) the call runs on.
+ *
+ * Routing rules, by first argument:
+ * - method name mentions LongUrl (findByLongUrl) → shard of hash(longUrl)
+ * - a Url (save, delete)                          → shard of its short code
+ * - a String (findByShortCode, findById, ...)     → shard of that short code
+ * - a collection (saveAll, findByShortCodeIn)     → split per shard, run in parallel, merged
+ * - anything else (findAll, count, top-N pages)   → fan out to ALL shards in parallel, merged
+ *
+ * Merging fan-out results:
+ * - lists are concatenated (and re-sorted if the query was sorted)
+ * - pages/slices: every shard returns its first offset+size rows, the merged list is
+ *   sorted and cut to the requested page — the global top-N is always correct
+ * - counts are summed, Optionals take the first present value
+ *
+ * Each shard runs in its own transaction — a transaction never spans shards.
+ */
+public class ShardRoutingRepositoryInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<DatabaseShardRouter> routerProvider;
+
+    public ShardRoutingRepositoryInterceptor(ObjectProvider<DatabaseShardRouter> routerProvider) {
+        this.routerProvider = routerProvider;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (ShardContext.isPinned() || !(invocation instanceof ProxyMethodInvocation proxyInvocation)) {
+            return invocation.proceed();
+        }
+        DatabaseShardRouter router = routerProvider.getObject();
+        Object[] args = invocation.getArguments();
+        Object first = args.length > 0 ? args[0] : null;
+
+        if (first instanceof String value) {
+            String shardId = invocation.getMethod().getName().contains("LongUrl")
+                    ? router.shardForLongUrl(value)
+                    : router.shardForShortCode(value);
+            return proceedOn(shardId, proxyInvocation, args);
+        }
+        if (first instanceof Url url) {
+            return proceedOn(router.shardForShortCode(url.getShortCode()), proxyInvocation, args);
+        }
+        if (first instanceof Iterable<?> items) {
+            return split(router, proxyInvocation, items);
+        }
+        return fanOut(router, proxyInvocation);
+    }
+
+    private Object split(DatabaseShardRouter router, ProxyMethodInvocation invocation, Iterable<?> items)
+            throws Throwable {
+        Map<String, List<Object>> byShard = new LinkedHashMap<>();
+        for (Object item : items) {
+            String shortCode = item instanceof Url url ? url.getShortCode() : String.valueOf(item);
+            byShard.computeIfAbsent(router.shardForShortCode(shortCode), id -> new ArrayList<>()).add(item);
+        }
+        if (byShard.isEmpty()) {
+            return proceedOn(router.getDefaultShardId(), invocation, invocation.getArguments());
+        }
+
+        Map<String, Object[]> argsByShard = new LinkedHashMap<>();
+        byShard.forEach((shardId, shardItems) -> {
+            Object[] shardArgs = invocation.getArguments().clone();
+            shardArgs[0] = shardItems;
+            argsByShard.put(shardId, shardArgs);
+        });
+        return merge(invocation, invokeAll(router, invocation, argsByShard), null, Sort.unsorted());
+    }
+
+    private Object fanOut(DatabaseShardRouter router, ProxyMethodInvocation invocation) throws Throwable {
+        Object[] args = invocation.getArguments();
+        Pageable pageable = null;
+        Sort sort = derivedSort(invocation);
+        Object[] shardArgs = args.clone();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof Pageable page && page.isPaged()) {
+                pageable = page;
+                // Every shard must return enough rows to cover the whole requested page
+                shardArgs[i] = PageRequest.of(0, (int) page.getOffset() + page.getPageSize(), page.getSort());
+                sort = sort.and(page.getSort());
+            } else if (args[i] instanceof Sort argSort) {
+                sort = sort.and(argSort);
+            }
+        }
+
+        Map<String, Object[]> argsByShard = new LinkedHashMap<>();
+        router.getShardIds().forEach(shardId -> argsByShard.put(shardId, shardArgs));
+        return merge(invocation, invokeAll(router, invocation, argsByShard), pageable, sort);
+    }
+
+    private List<Object> invokeAll(DatabaseShardRouter router, ProxyMethodInvocation invocation,
+                                   Map<String, Object[]> argsByShard) throws Throwable {
+        if (argsByShard.size() == 1) {
+            Map.Entry<String, Object[]> only = argsByShard.entrySet().iterator().next();
+            List<Object> results = new ArrayList<>(1);
+            results.add(proceedOn(only.getKey(), invocation, only.getValue()));
+            return results;
+        }
+
+        List<CompletableFuture<Object>> futures = new ArrayList<>(argsByShard.size());
+        argsByShard.forEach((shardId, shardArgs) -> futures.add(CompletableFuture.supplyAsync(() -> {
+            try {
+                return proceedOn(shardId, invocation, shardArgs);
+            } catch (Throwable e) {
+                throw new CompletionException(e);
+            }
+        }, router.getFanOutExecutor())));
+
+        List<Object> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<Object> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() != null ? e.getCause() : e;
+        }
+        return results;
+    }
+
+    private static Object proceedOn(String shardId, ProxyMethodInvocation invocation, Object[] args) throws Throwable {
+        ShardContext.Route previous = ShardContext.enter(shardId, false);
+        try {
+            return invocation.invocableClone(args).proceed();
+        } finally {
+            ShardContext.exit(previous);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object merge(ProxyMethodInvocation invocation, List<Object> results, Pageable pageable, Sort sort) {
+        Class<?> returnType = invocation.getMethod().getReturnType();
+
+        if (returnType == void.class) {
+            return null;
+        }
+        if (Slice.class.isAssignableFrom(returnType)) {
+            List<Object> content = new ArrayList<>();
+            long total = 0;
+            for (Object result : results) {
+                Slice<Object> slice = (Slice<Object>) result;
+                content.addAll(slice.getContent());
+                if (slice instanceof Page<Object> page) {
+                    total += page.getTotalElements();
+                }
+            }
+            sortInMemory(content, sort);
+            if (pageable == null) {
+                return Page.class.isAssignableFrom(returnType) ? new PageImpl<>(content) : new SliceImpl<>(content);
+            }
+            int from = (int) Math.min(pageable.getOffset(), content.size());
+            int to = Math.min(from + pageable.getPageSize(), content.size());
+            List<Object> pageContent = new ArrayList<>(content.subList(from, to));
+            return Page.class.isAssignableFrom(returnType)
+                    ? new PageImpl<>(pageContent, pageable, total)
+                    : new SliceImpl<>(pageContent, pageable, content.size() > to);
+        }
+        if (Iterable.class.isAssignableFrom(returnType)) {
+            List<Object> merged = new ArrayList<>();
+            results.forEach(result -> ((Iterable<Object>) result).forEach(merged::add));
+            sortInMemory(merged, sort);
+            return merged;
+        }
+        if (returnType == Optional.class) {
+            return results.stream()
+                    .map(result -> (Optional<Object>) result)
+                    .filter(Optional::isPresent)
+                    .findFirst()
+                    .orElse(Optional.empty());
+        }
+        if (returnType == long.class || returnType == Long.class) {
+            return results.stream().mapToLong(result -> ((Number) result).longValue()).sum();
+        }
+        if (returnType == int.class || returnType == Integer.class) {
+            return results.stream().mapToInt(result -> ((Number) result).intValue()).sum();
+        }
+        if (returnType == boolean.class || returnType == Boolean.class) {
+            return results.stream().anyMatch(Boolean.TRUE::equals);
+        }
+        return results.stream().filter(result -> result != null).findFirst().orElse(null);
+    }
+
+    /** ORDER BY clause of a derived query method (e.g. findByOrderByAccessCountDesc) */
+    private static Sort derivedSort(MethodInvocation invocation) {
+        try {
+            return new PartTree(invocation.getMethod().getName(), Url.class).getSort();
+        } catch (RuntimeException e) {
+            return Sort.unsorted();
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void sortInMemory(List<Object> rows, Sort sort) {
+        if (sort.isUnsorted() || rows.size() < 2) {
+            return;
+        }
+        Comparator<Object> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Object> byProperty = Comparator.comparing(
+                    row -> (Comparable) new BeanWrapperImpl(row).getPropertyValue(order.getProperty()),
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+            if (order.isDescending()) {
+                byProperty = byProperty.reversed();
+            }
+            comparator = comparator == null ? byProperty : comparator.thenComparing(byProperty);
+        }
+        rows.sort(comparator);
+    }
+}
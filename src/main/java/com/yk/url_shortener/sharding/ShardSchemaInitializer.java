@@ -0,0 +1,91 @@
+package com.yk.url_shortener.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.TargetType;
+import org.hibernate.tool.schema.internal.ExceptionHandlerLoggedImpl;
+import org.hibernate.tool.schema.spi.ContributableMatcher;
+import org.hibernate.tool.schema.spi.ExecutionOptions;
+import org.hibernate.tool.schema.spi.SchemaManagementTool;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.hibernate.tool.schema.spi.ScriptTargetOutput;
+import org.hibernate.tool.schema.spi.TargetDescriptor;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * Creates/updates the "urls" schema on every shard, not just the default one.
+ *
+ * Hibernate's ddl-auto runs once at startup, through the routing DataSource with no route
+ * set — i.e. only on shard-0. This class is registered as a Hibernate Integrator to capture
+ * the mapping metadata, then (once the EntityManagerFactory is up) runs the same
+ * schema migration (= ddl-auto=update) against each remaining shard.
+ *
+ * Skipped when spring.jpa.hibernate.ddl-auto is none/validate.
+ */
+@Slf4j
+public class ShardSchemaInitializer implements Integrator, SmartInitializingSingleton {
+
+    private final DatabaseShardRouter router;
+    private final boolean enabled;
+
+    private volatile Metadata metadata;
+    private volatile ServiceRegistry serviceRegistry;
+
+    public ShardSchemaInitializer(DatabaseShardRouter router, String ddlAuto) {
+        this.router = router;
+        this.enabled = !"none".equalsIgnoreCase(ddlAuto) && !"validate".equalsIgnoreCase(ddlAuto);
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                          SessionFactoryImplementor sessionFactory) {
+        this.metadata = metadata;
+        this.serviceRegistry = sessionFactory.getServiceRegistry();
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        this.metadata = null;
+        this.serviceRegistry = null;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled || metadata == null) {
+            return;
+        }
+        SchemaManagementTool tool = serviceRegistry.getService(SchemaManagementTool.class);
+        ExecutionOptions options = SchemaManagementToolCoordinator.buildExecutionOptions(
+                Map.of(), ExceptionHandlerLoggedImpl.INSTANCE);
+        TargetDescriptor database = new TargetDescriptor() {
+            @Override
+            public EnumSet<TargetType> getTargetTypes() {
+                return EnumSet.of(TargetType.DATABASE);
+            }
+
+            @Override
+            public ScriptTargetOutput getScriptTargetOutput() {
+                return null;
+            }
+        };
+
+        for (String shardId : router.getShardIds()) {
+            if (shardId.equals(router.getDefaultShardId())) {
+                continue;
+            }
+            ShardContext.pin(shardId, () -> {
+                tool.getSchemaMigrator(Map.of()).doMigration(metadata, options, ContributableMatcher.ALL, database);
+                return null;
+            });
+            log.info("Schema updated on {}", shardId);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.yk.url_shortener.sharding;
+
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.lang.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * RedisCacheWriter that spreads cache entries over the nodes of a {@link RedisShardRouter}.
+ *
+ * RedisCache hands us already-serialized keys ("urls::xY7zK3m"); each key is routed to
+ * its ring node and executed by that node's own non-locking writer.
+ * clean() (cache.clear / allEntries evictions) fans out to every node.
+ *
+ * All per-node writers share ONE statistics collector, so cache.gets / hit ratio
+ * metrics stay cache-wide instead of per node.
+ */
+public class ShardedRedisCacheWriter implements RedisCacheWriter {
+
+    private final RedisShardRouter router;
+    private final CacheStatisticsCollector statistics;
+    private final Map<String, RedisCacheWriter> writers = new LinkedHashMap<>();
+
+    public ShardedRedisCacheWriter(RedisShardRouter router) {
+        this(router, CacheStatisticsCollector.none());
+    }
+
+    private ShardedRedisCacheWriter(RedisShardRouter router, CacheStatisticsCollector statistics) {
+        this.router = router;
+        this.statistics = statistics;
+        for (RedisShard shard : router.getShards()) {
+            writers.put(shard.getId(), RedisCacheWriter.nonLockingRedisCacheWriter(shard.getConnectionFactory())
+                    .withStatisticsCollector(statistics));
+        }
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        return writerFor(key).get(name, key);
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key, @Nullable Duration ttl) {
+        return writerFor(key).get(name, key, ttl);
+    }
+
+    @Override
+    public boolean supportsAsyncRetrieve() {
+        return writers.values().stream().allMatch(RedisCacheWriter::supportsAsyncRetrieve);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> retrieve(String name, byte[] key, @Nullable Duration ttl) {
+        return writerFor(key).retrieve(name, key, ttl);
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, @Nullable Duration ttl) {
+        writerFor(key).put(name, key, value, ttl);
+    }
+
+    @Override
+    public CompletableFuture<Void> store(String name, byte[] key, byte[] value, @Nullable Duration ttl) {
+        return writerFor(key).store(name, key, value, ttl);
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, @Nullable Duration ttl) {
+        return writerFor(key).putIfAbsent(name, key, value, ttl);
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        writerFor(key).remove(name, key);
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        writers.values().forEach(writer -> writer.clean(name, pattern));
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+        statistics.reset(name);
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return new ShardedRedisCacheWriter(router, cacheStatisticsCollector);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return statistics.getCacheStatistics(cacheName);
+    }
+
+    private RedisCacheWriter writerFor(byte[] key) {
+        return writers.get(router.shardFor(new String(key, StandardCharsets.UTF_8)).getId());
+    }
+}
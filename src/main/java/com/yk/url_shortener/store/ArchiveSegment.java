@@ -0,0 +1,365 @@
+package com.yk.url_shortener.store;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.util.BloomFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One immutable, compressed archive file ("archive-00000007.seg") of dormant links.
+ *
+ * Layout:
+ *   [block 0][block 1]...[block N]      links sorted by short code, ~16 KB raw per block, DEFLATE-compressed
+ *   [block index]                       per block: first short code, file offset, compressed/raw length, crc32
+ *   [bloom filter]                      all short codes of the file, 1% false positives
+ *   [footer 32 bytes]                   index offset, bloom offset, link count, crc32(index + bloom), magic
+ *
+ * The magic is the format version: "URLB" segments carry the unique-visitor count per link, older
+ * "URLA" segments don't and still open — their links come back with a NULL unique count.
+ *
+ * Lookup: Bloom filter (in memory) → binary search of the block index (in memory) → one positional
+ * read + inflate of a single block. A miss usually costs nothing but the Bloom check.
+ *
+ * Written once to a temp file, fsynced and atomically renamed — never modified afterwards.
+ */
+final class ArchiveSegment implements AutoCloseable {
+
+    private static final int MAGIC = 0x55524C42; // "URLB"
+    private static final int MAGIC_V1 = 0x55524C41; // "URLA" — no unique count
+    private static final int FOOTER_BYTES = 8 + 8 + 4 + 4 + 4 + 4;
+    private static final int TARGET_BLOCK_BYTES = 16 * 1024;
+    private static final long NONE = Long.MIN_VALUE;
+
+    final int id;
+    final Path path;
+    private final FileChannel channel;
+    private final List<BlockRef> blocks;
+    private final BloomFilter bloom;
+    private final int linkCount;
+    private final boolean withUniqueCount;
+
+    private record BlockRef(String firstCode, long offset, int compressedLength, int rawLength, int crc) {
+    }
+
+    private ArchiveSegment(int id, Path path, FileChannel channel, List<BlockRef> blocks, BloomFilter bloom,
+                           int linkCount, boolean withUniqueCount) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.blocks = blocks;
+        this.bloom = bloom;
+        this.linkCount = linkCount;
+        this.withUniqueCount = withUniqueCount;
+    }
+
+    static Path pathFor(Path directory, int id) {
+        return directory.resolve(String.format("archive-%08d.seg", id));
+    }
+
+    /**
+     * Write a new segment. The links are sorted by short code here.
+     */
+    static ArchiveSegment write(Path directory, int id, List<Url> links) throws IOException {
+        List<Url> sorted = new ArrayList<>(links);
+        sorted.sort(Comparator.comparing(Url::getShortCode));
+
+        Path path = pathFor(directory, id);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        List<BlockRef> blocks = new ArrayList<>();
+        BloomFilter bloom = new BloomFilter(sorted.size(), 0.01);
+
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            long position = 0;
+            ByteArrayOutputStream raw = new ByteArrayOutputStream(TARGET_BLOCK_BYTES * 2);
+            DataOutputStream data = new DataOutputStream(raw);
+            String firstCode = null;
+            for (Url url : sorted) {
+                if (firstCode == null) {
+                    firstCode = url.getShortCode();
+                }
+                writeLink(data, url);
+                bloom.put(url.getShortCode());
+                if (raw.size() >= TARGET_BLOCK_BYTES) {
+                    position = writeBlock(out, position, firstCode, raw.toByteArray(), blocks);
+                    raw.reset();
+                    firstCode = null;
+                }
+            }
+            if (raw.size() > 0) {
+                position = writeBlock(out, position, firstCode, raw.toByteArray(), blocks);
+            }
+
+            ByteBuffer index = encodeIndex(blocks);
+            ByteBuffer bloomBytes = ByteBuffer.allocate(bloom.serializedSize());
+            bloom.writeTo(bloomBytes);
+            bloomBytes.flip();
+            CRC32 crc = new CRC32();
+            crc.update(index.duplicate());
+            crc.update(bloomBytes.duplicate());
+
+            long indexOffset = position;
+            position += writeFully(out, index, position);
+            long bloomOffset = position;
+            position += writeFully(out, bloomBytes, position);
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES)
+                    .putLong(indexOffset).putLong(bloomOffset).putInt(sorted.size())
+                    .putInt(blocks.size()).putInt((int) crc.getValue()).putInt(MAGIC);
+            footer.flip();
+            writeFully(out, footer, position);
+            out.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new ArchiveSegment(id, path, FileChannel.open(path, StandardOpenOption.READ), blocks, bloom,
+                sorted.size(), true);
+    }
+
+    /** Open an existing segment — only the footer, block index and Bloom filter are read */
+    static ArchiveSegment open(Path path, int id) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < FOOTER_BYTES) {
+                throw new IOException("Archive segment too small: " + path);
+            }
+            ByteBuffer footer = readAt(channel, size - FOOTER_BYTES, FOOTER_BYTES);
+            long indexOffset = footer.getLong();
+            long bloomOffset = footer.getLong();
+            int linkCount = footer.getInt();
+            int blockCount = footer.getInt();
+            int crc = footer.getInt();
+            int magic = footer.getInt();
+            if ((magic != MAGIC && magic != MAGIC_V1) || indexOffset > bloomOffset || bloomOffset > size - FOOTER_BYTES) {
+                throw new IOException("Not an archive segment (bad footer): " + path);
+            }
+            ByteBuffer meta = readAt(channel, indexOffset, (int) (size - FOOTER_BYTES - indexOffset));
+            CRC32 check = new CRC32();
+            check.update(meta.duplicate());
+            if ((int) check.getValue() != crc) {
+                throw new IOException("Archive segment index is corrupt: " + path);
+            }
+            List<BlockRef> blocks = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                byte[] code = new byte[meta.getShort() & 0xFFFF];
+                meta.get(code);
+                blocks.add(new BlockRef(new String(code, StandardCharsets.UTF_8), meta.getLong(), meta.getInt(),
+                        meta.getInt(), meta.getInt()));
+            }
+            meta.position((int) (bloomOffset - indexOffset));
+            return new ArchiveSegment(id, path, channel, blocks, BloomFilter.readFrom(meta), linkCount,
+                    magic == MAGIC);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Optional<Url> find(String shortCode) throws IOException {
+        if (blocks.isEmpty() || !bloom.mightContain(shortCode)) {
+            return Optional.empty();
+        }
+        // Last block whose first code <= shortCode
+        int low = 0;
+        int high = blocks.size() - 1;
+        int candidate = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (blocks.get(mid).firstCode.compareTo(shortCode) <= 0) {
+                candidate = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (candidate < 0) {
+            return Optional.empty();
+        }
+        Url[] found = new Url[1];
+        readBlock(blocks.get(candidate), url -> {
+            if (found[0] == null && url.getShortCode().equals(shortCode)) {
+                found[0] = url;
+            }
+        });
+        return Optional.ofNullable(found[0]);
+    }
+
+    /** Stream every link of the segment, in short-code order */
+    void forEach(Consumer<Url> consumer) throws IOException {
+        for (BlockRef block : blocks) {
+            readBlock(block, consumer);
+        }
+    }
+
+    int linkCount() {
+        return linkCount;
+    }
+
+    long sizeBytes() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // ─────────────────────────────────────────────
+    // Encoding — per link:
+    // [codeLen short][code][urlLen int][url][createdAt long][accessCount long]
+    // [lastAccessedAt long][expiresAt long][maxClicks long][uniqueAccessCount long]
+    // (epoch millis UTC, NONE = null; "URLA" segments end after maxClicks)
+    // ─────────────────────────────────────────────
+
+    private static void writeLink(DataOutputStream data, Url url) throws IOException {
+        byte[] code = url.getShortCode().getBytes(StandardCharsets.UTF_8);
+        byte[] longUrl = url.getLongUrl().getBytes(StandardCharsets.UTF_8);
+        data.writeShort(code.length);
+        data.write(code);
+        data.writeInt(longUrl.length);
+        data.write(longUrl);
+        data.writeLong(toMillis(url.getCreatedAt()));
+        data.writeLong(url.getAccessCount() != null ? url.getAccessCount() : 0L);
+        data.writeLong(toMillis(url.getLastAccessedAt()));
+        data.writeLong(toMillis(url.getExpiresAt()));
+        data.writeLong(url.getMaxClicks() != null ? url.getMaxClicks() : NONE);
+        data.writeLong(url.getUniqueAccessCount() != null ? url.getUniqueAccessCount() : NONE);
+    }
+
+    private static Url readLink(DataInputStream data, boolean withUniqueCount) throws IOException {
+        byte[] code = new byte[data.readUnsignedShort()];
+        data.readFully(code);
+        byte[] longUrl = new byte[data.readInt()];
+        data.readFully(longUrl);
+        LocalDateTime createdAt = fromMillis(data.readLong());
+        long accessCount = data.readLong();
+        LocalDateTime lastAccessedAt = fromMillis(data.readLong());
+        LocalDateTime expiresAt = fromMillis(data.readLong());
+        long maxClicks = data.readLong();
+        long uniqueAccessCount = withUniqueCount ? data.readLong() : NONE;
+        return Url.builder()
+                .shortCode(new String(code, StandardCharsets.UTF_8))
+                .longUrl(new String(longUrl, StandardCharsets.UTF_8))
+                .createdAt(createdAt)
+                .accessCount(accessCount)
+                .lastAccessedAt(lastAccessedAt)
+                .expiresAt(expiresAt)
+                .maxClicks(maxClicks == NONE ? null : maxClicks)
+                .uniqueAccessCount(uniqueAccessCount == NONE ? null : uniqueAccessCount)
+                .build();
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? NONE : time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return millis == NONE ? null : LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+                (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    private static long writeBlock(FileChannel out, long position, String firstCode, byte[] raw,
+                                   List<BlockRef> blocks) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 3 + 64);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                compressed.write(chunk, 0, deflater.deflate(chunk));
+            }
+            byte[] bytes = compressed.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            blocks.add(new BlockRef(firstCode, position, bytes.length, raw.length, (int) crc.getValue()));
+            return position + writeFully(out, ByteBuffer.wrap(bytes), position);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void readBlock(BlockRef block, Consumer<Url> consumer) throws IOException {
+        ByteBuffer compressed = readAt(channel, block.offset, block.compressedLength);
+        CRC32 crc = new CRC32();
+        crc.update(compressed.duplicate());
+        if ((int) crc.getValue() != block.crc) {
+            throw new IOException("Corrupt archive block at offset " + block.offset + " of " + path.getFileName());
+        }
+        byte[] raw = new byte[block.rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                length += inflater.inflate(raw, length, raw.length - length);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt archive block in " + path.getFileName(), e);
+        } finally {
+            inflater.end();
+        }
+        try (DataInputStream data = new DataInputStream(new java.io.ByteArrayInputStream(raw))) {
+            while (data.available() > 0) {
+                consumer.accept(readLink(data, withUniqueCount));
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated archive block in " + path.getFileName(), e);
+        }
+    }
+
+    private static ByteBuffer encodeIndex(List<BlockRef> blocks) {
+        int length = 0;
+        for (BlockRef block : blocks) {
+            length += 2 + block.firstCode.getBytes(StandardCharsets.UTF_8).length + 8 + 4 + 4 + 4;
+        }
+        ByteBuffer index = ByteBuffer.allocate(length);
+        for (BlockRef block : blocks) {
+            byte[] code = block.firstCode.getBytes(StandardCharsets.UTF_8);
+            index.putShort((short) code.length).put(code)
+                    .putLong(block.offset).putInt(block.compressedLength).putInt(block.rawLength).putInt(block.crc);
+        }
+        index.flip();
+        return index;
+    }
+
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of archive segment at " + (position + buffer.position()));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += out.write(buffer, position + written);
+        }
+        return written;
+    }
+}
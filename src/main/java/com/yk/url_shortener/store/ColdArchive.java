@@ -0,0 +1,222 @@
+package com.yk.url_shortener.store;
+
+import com.yk.url_shortener.model.Url;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cold tier — dormant links in immutable, compressed {@link ArchiveSegment} files on local disk.
+ *
+ * How it works:
+ * - archive(links)  → one new segment per archival batch (written, fsynced, renamed)
+ * - find(code)      → segments newest-first; each costs a Bloom filter check unless it may hold the code
+ * - rehydration     → the link is copied back into the hot store by {@link TieredUrlStore}, then
+ *                     {@link #markRehydrated} masks it here: one "segmentId shortCode" line appended to
+ *                     rehydrated.log. Segments are never rewritten, so the mask is what keeps the
+ *                     tiers disjoint. A link archived again later lands in a newer segment, which
+ *                     the mask (segment id ≤ masked id) no longer covers.
+ *
+ * Only this instance's disk is searched — run the archival job on the instance that owns the directory.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true")
+public class ColdArchive implements AutoCloseable {
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("archive-(\\d{8})\\.seg");
+    private static final String REHYDRATED_LOG = "rehydrated.log";
+
+    private final Path directory;
+    /** Newest first */
+    private final List<ArchiveSegment> segments = new CopyOnWriteArrayList<>();
+    /** Short code → highest segment id it was rehydrated from */
+    private final Map<String, Integer> rehydratedUpTo = new ConcurrentHashMap<>();
+    private final BufferedWriter rehydratedLog;
+
+    public ColdArchive(@Value("${app.archive.dir:./data/archive}") String directory) {
+        this.directory = Path.of(directory);
+        try {
+            Files.createDirectories(this.directory);
+            openSegments();
+            Path logFile = this.directory.resolve(REHYDRATED_LOG);
+            if (Files.exists(logFile)) {
+                loadRehydrated(logFile);
+            }
+            this.rehydratedLog = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open link archive in " + directory, e);
+        }
+        log.info("Link archive opened: {} segments, {} links", segments.size(), archivedLinks());
+    }
+
+    /** The archived copy of a link, unless it was rehydrated since */
+    public Optional<Url> find(String shortCode) {
+        return lookup(shortCode).map(Hit::url);
+    }
+
+    public boolean contains(String shortCode) {
+        return find(shortCode).isPresent();
+    }
+
+    /** Mask a link that was copied back into the hot store — in the segment it was found in and all older ones */
+    public synchronized void markRehydrated(String shortCode) {
+        Optional<Hit> hit = lookup(shortCode);
+        if (hit.isEmpty()) {
+            return;
+        }
+        int segmentId = hit.get().segmentId();
+        try {
+            rehydratedLog.write(segmentId + " " + shortCode);
+            rehydratedLog.newLine();
+            rehydratedLog.flush();
+        } catch (IOException e) {
+            // The hot copy wins on every lookup anyway — only findAll() may briefly see both
+            log.warn("Could not record rehydration of {}: {}", shortCode, e.getMessage());
+        }
+        rehydratedUpTo.merge(shortCode, segmentId, Math::max);
+    }
+
+    /**
+     * Write links into a new segment. Durable when this returns — only then may they leave the hot store.
+     */
+    public synchronized void archive(List<Url> links) throws IOException {
+        if (links.isEmpty()) {
+            return;
+        }
+        int id = segments.isEmpty() ? 1 : segments.get(0).id + 1;
+        ArchiveSegment segment = ArchiveSegment.write(directory, id, links);
+        segments.add(0, segment);
+        log.info("Archived {} links into {} ({} bytes)", links.size(), segment.path.getFileName(),
+                segment.sizeBytes());
+    }
+
+    /** Every archived link that was not rehydrated, once each (newest copy), in no particular order */
+    public void forEachLive(Consumer<Url> consumer) {
+        Set<String> seen = new HashSet<>();
+        for (ArchiveSegment segment : segments) {
+            try {
+                segment.forEach(url -> {
+                    Integer masked = rehydratedUpTo.get(url.getShortCode());
+                    if ((masked == null || segment.id > masked) && seen.add(url.getShortCode())) {
+                        consumer.accept(url);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Archive read failed in " + segment.path.getFileName(), e);
+            }
+        }
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /** Links stored across all segments (including masked and superseded copies) */
+    public long archivedLinks() {
+        return segments.stream().mapToLong(ArchiveSegment::linkCount).sum();
+    }
+
+    public long sizeBytes() {
+        long total = 0;
+        for (ArchiveSegment segment : segments) {
+            try {
+                total += segment.sizeBytes();
+            } catch (IOException e) {
+                // A closed channel — leave it out of the total
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            rehydratedLog.close();
+        } catch (IOException e) {
+            log.warn("Could not close {}: {}", REHYDRATED_LOG, e.getMessage());
+        }
+        for (ArchiveSegment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.warn("Could not close {}: {}", segment.path.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    private record Hit(int segmentId, Url url) {
+    }
+
+    private Optional<Hit> lookup(String shortCode) {
+        Integer masked = rehydratedUpTo.get(shortCode);
+        for (ArchiveSegment segment : segments) {
+            if (masked != null && segment.id <= masked) {
+                return Optional.empty();
+            }
+            try {
+                Optional<Url> url = segment.find(shortCode);
+                if (url.isPresent()) {
+                    return Optional.of(new Hit(segment.id, url.get()));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Archive read failed in " + segment.path.getFileName(), e);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void openSegments() throws IOException {
+        List<ArchiveSegment> opened = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Matcher matcher = SEGMENT_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    opened.add(ArchiveSegment.open(file, Integer.parseInt(matcher.group(1))));
+                } else if (file.getFileName().toString().endsWith(".seg.tmp")) {
+                    // A segment whose write never completed — its links are still in the hot store
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        opened.sort((a, b) -> Integer.compare(b.id, a.id));
+        segments.addAll(opened);
+    }
+
+    private void loadRehydrated(Path logFile) throws IOException {
+        for (String line : Files.readAllLines(logFile, StandardCharsets.UTF_8)) {
+            int space = line.indexOf(' ');
+            if (space <= 0) {
+                continue; // torn last line
+            }
+            try {
+                rehydratedUpTo.merge(line.substring(space + 1), Integer.parseInt(line.substring(0, space)),
+                        Math::max);
+            } catch (NumberFormatException e) {
+                // torn last line
+            }
+        }
+    }
+}
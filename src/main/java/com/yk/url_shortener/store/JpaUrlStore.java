@@ -0,0 +1,185 @@
+package com.yk.url_shortener.store;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.model.UrlDedupEntry;
+import com.yk.url_shortener.repository.UrlDedupRepository;
+import com.yk.url_shortener.repository.UrlRepository;
+import com.yk.url_shortener.sharding.DatabaseShardRouter;
+import com.yk.url_shortener.sharding.ShardContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Default backend — a thin adapter over UrlRepository (Spring Data JPA).
+ *
+ * Sharded: a dedupe lookup that misses on the long URL's shard also checks the pointers
+ * ShardRebalancer leaves there ({@link UrlDedupEntry}) and reads the row from its own shard.
+ */
+@Component
+@ConditionalOnProperty(name = "app.store.type", havingValue = "jpa", matchIfMissing = true)
+public class JpaUrlStore implements UrlStore {
+
+    private final UrlRepository urlRepository;
+    private final UrlDedupRepository urlDedupRepository;
+    // Optional — only present when app.db.sharding.enabled=true
+    private final Optional<DatabaseShardRouter> databaseShardRouter;
+    /** Reads the row a dedupe pointer names — on another shard, so never inside the caller's transaction */
+    private final TransactionTemplate otherShardRead;
+
+    public JpaUrlStore(UrlRepository urlRepository) {
+        this(urlRepository, null, null, Optional.empty());
+    }
+
+    @Autowired
+    public JpaUrlStore(UrlRepository urlRepository,
+                       UrlDedupRepository urlDedupRepository,
+                       PlatformTransactionManager transactionManager,
+                       Optional<DatabaseShardRouter> databaseShardRouter) {
+        this.urlRepository = urlRepository;
+        this.urlDedupRepository = urlDedupRepository;
+        this.databaseShardRouter = databaseShardRouter;
+        if (databaseShardRouter.isPresent()) {
+            this.otherShardRead = new TransactionTemplate(transactionManager);
+            this.otherShardRead.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            this.otherShardRead.setReadOnly(true);
+        } else {
+            this.otherShardRead = null;
+        }
+    }
+
+    @Override
+    public Optional<Url> findByShortCode(String shortCode) {
+        return urlRepository.findByShortCode(shortCode);
+    }
+
+    @Override
+    public boolean existsByShortCode(String shortCode) {
+        return urlRepository.existsByShortCode(shortCode);
+    }
+
+    @Override
+    public Optional<Url> findByLongUrl(String longUrl) {
+        Optional<Url> url = urlRepository.findFirstByLongUrlAndExpiresAtIsNullAndMaxClicksIsNull(longUrl);
+        if (url.isPresent() || databaseShardRouter.isEmpty()) {
+            return url;
+        }
+        // Same shard as the lookup above — joins the caller's transaction, if any
+        Optional<UrlDedupEntry> pointer = ShardContext.pin(databaseShardRouter.get().shardForLongUrl(longUrl),
+                () -> urlDedupRepository.findById(longUrl));
+        // A transaction never spans shards: the row is read in one of its own. A pointer to a
+        // deleted or no longer permanent link is ignored.
+        return pointer.flatMap(entry -> otherShardRead.execute(status -> urlRepository.findByShortCode(entry.getShortCode())))
+                .filter(found -> longUrl.equals(found.getLongUrl())
+                        && found.getExpiresAt() == null && found.getMaxClicks() == null);
+    }
+
+    @Override
+    public Url save(Url url) {
+        return urlRepository.save(url);
+    }
+
+    /**
+     * Insert unless the code exists — see {@link UrlRepository#insertIfAbsent}
+     *
+     * Primary-key lookup first: where the dialect has no ON CONFLICT (H2), Hibernate runs a plain
+     * INSERT and swallows the key violation, logging an ERROR for it. The lookup keeps that to the
+     * rare insert racing another one.
+     */
+    public boolean insertIfAbsent(Url url) {
+        return !urlRepository.existsByShortCode(url.getShortCode()) && urlRepository.insertIfAbsent(url) > 0;
+    }
+
+    @Override
+    public long incrementAccessCount(String shortCode, long delta) {
+        // One UPDATE ... SET access_count = access_count + delta, not read-modify-write:
+        // concurrent increments of one link (several consumer threads) must not lose clicks
+        if (urlRepository.incrementAccessCount(shortCode, delta, LocalDateTime.now()) == 0) {
+            return -1L;
+        }
+        return urlRepository.findAccessCount(shortCode).orElse(-1L);
+    }
+
+    @Override
+    public long incrementAccessCount(String shortCode, long delta, long uniqueDelta) {
+        if (urlRepository.incrementAccessCounts(shortCode, delta, uniqueDelta, LocalDateTime.now()) == 0) {
+            return -1L;
+        }
+        return urlRepository.findAccessCount(shortCode).orElse(-1L);
+    }
+
+    @Override
+    public List<Url> findAll() {
+        return urlRepository.findAll();
+    }
+
+    @Override
+    public List<Url> findByShortCodeIn(Collection<String> shortCodes) {
+        return urlRepository.findByShortCodeIn(shortCodes);
+    }
+
+    @Override
+    public Slice<Url> findMostAccessed(Pageable pageable) {
+        return urlRepository.findByOrderByAccessCountDesc(pageable);
+    }
+
+    @Override
+    public List<String> findExpiredShortCodes(LocalDateTime now, int limit) {
+        // Two index-backed queries instead of one OR; a link both timed out and clicked out is listed once
+        List<String> expired = new ArrayList<>(urlRepository.findTimeExpiredShortCodes(now, PageRequest.of(0, limit)));
+        if (expired.size() < limit) {
+            Set<String> seen = new HashSet<>(expired);
+            for (String shortCode : urlRepository.findClickExpiredShortCodes(PageRequest.of(0, limit - expired.size()))) {
+                if (seen.add(shortCode)) {
+                    expired.add(shortCode);
+                }
+            }
+        }
+        return expired;
+    }
+
+    @Override
+    public void deleteAllByShortCode(Collection<String> shortCodes) {
+        if (!shortCodes.isEmpty()) {
+            urlRepository.deleteAllByIdInBatch(shortCodes);
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Cold-tier archival (JPA backend only — see TieredUrlStore)
+    // ─────────────────────────────────────────────
+
+    /** Up to limit links not followed since cutoff (never-followed links count from createdAt) */
+    public List<Url> findDormant(LocalDateTime cutoff, int limit) {
+        // Two index-backed queries instead of one OR; the two sets are disjoint
+        List<Url> dormant = new ArrayList<>(urlRepository.findFollowedDormant(cutoff, PageRequest.of(0, limit)));
+        if (dormant.size() < limit) {
+            dormant.addAll(urlRepository.findNeverFollowedDormant(cutoff, PageRequest.of(0, limit - dormant.size())));
+        }
+        return dormant;
+    }
+
+    /**
+     * Delete archived links — only those still dormant, so a link followed while its
+     * segment was being written stays in the hot tier (which always wins over the archive)
+     *
+     * @return rows deleted
+     */
+    public int deleteDormant(Collection<String> shortCodes, LocalDateTime cutoff) {
+        return shortCodes.isEmpty() ? 0 : urlRepository.deleteDormant(shortCodes, cutoff);
+    }
+}
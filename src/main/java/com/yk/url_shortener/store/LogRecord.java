@@ -0,0 +1,92 @@
+package com.yk.url_shortener.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * One record of the log store.
+ *
+ * On-disk layout (big-endian):
+ *   [crc32 int][type byte][keyLen short][valueLen int][key bytes][value bytes]
+ *
+ * The CRC covers everything after itself — a torn write at the tail of the log
+ * (crash mid-append) fails the check and is cut off during recovery.
+ */
+final class LogRecord {
+
+    static final byte PUT = 1;
+    static final byte COUNTER = 2;
+    /** Tombstone: key = short code, empty value */
+    static final byte DELETE = 3;
+
+    static final int HEADER_BYTES = 4 + 1 + 2 + 4;
+
+    final byte type;
+    final byte[] key;
+    final byte[] value;
+
+    private LogRecord(byte type, byte[] key, byte[] value) {
+        this.type = type;
+        this.key = key;
+        this.value = value;
+    }
+
+    int length() {
+        return HEADER_BYTES + key.length + value.length;
+    }
+
+    static ByteBuffer encode(byte type, byte[] key, byte[] value) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + key.length + value.length);
+        buffer.position(4);
+        buffer.put(type).putShort((short) key.length).putInt(value.length).put(key).put(value);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 4, buffer.capacity() - 4);
+        buffer.putInt(0, (int) crc.getValue());
+        buffer.rewind();
+        return buffer;
+    }
+
+    /**
+     * @return the record at offset, or null if it is incomplete or fails its CRC
+     */
+    static LogRecord read(FileChannel channel, long offset, long fileSize) throws IOException {
+        if (offset + HEADER_BYTES > fileSize) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, offset);
+        int crc = header.getInt(0);
+        byte type = header.get(4);
+        int keyLength = header.getShort(5) & 0xFFFF;
+        int valueLength = header.getInt(7);
+        if (valueLength < 0 || offset + HEADER_BYTES + keyLength + valueLength > fileSize) {
+            return null;
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(keyLength + valueLength);
+        readFully(channel, body, offset + HEADER_BYTES);
+        CRC32 check = new CRC32();
+        check.update(header.array(), 4, HEADER_BYTES - 4);
+        check.update(body.array());
+        if ((int) check.getValue() != crc) {
+            return null;
+        }
+
+        byte[] key = new byte[keyLength];
+        byte[] value = new byte[valueLength];
+        body.rewind();
+        body.get(key).get(value);
+        return new LogRecord(type, key, value);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of segment at " + (position + buffer.position()));
+            }
+        }
+    }
+}
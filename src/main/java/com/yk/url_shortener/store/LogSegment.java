@@ -0,0 +1,73 @@
+package com.yk.url_shortener.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One append-only segment file ("segment-00000042.log") of the log store.
+ *
+ * Only the newest segment is appended to; older ones are immutable until compaction
+ * replaces them. Reads use positional FileChannel reads, safe from many threads.
+ */
+final class LogSegment implements AutoCloseable {
+
+    final int id;
+    final Path path;
+    private final FileChannel channel;
+    private volatile long size;
+
+    LogSegment(Path directory, int id) throws IOException {
+        this.id = id;
+        this.path = pathFor(directory, id);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.size = channel.size();
+    }
+
+    static Path pathFor(Path directory, int id) {
+        return directory.resolve(String.format("segment-%08d.log", id));
+    }
+
+    static Path hintPathFor(Path directory, int id) {
+        return directory.resolve(String.format("segment-%08d.hint", id));
+    }
+
+    /** Caller serializes appends (the store's append monitor) */
+    int append(ByteBuffer record) throws IOException {
+        long offset = size;
+        long position = offset;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+        size = position;
+        return (int) offset;
+    }
+
+    LogRecord read(long offset) throws IOException {
+        return LogRecord.read(channel, offset, size);
+    }
+
+    long size() {
+        return size;
+    }
+
+    /** Cut off a torn tail found during recovery */
+    void truncate(long newSize) throws IOException {
+        channel.truncate(newSize);
+        size = newSize;
+    }
+
+    void force() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,825 @@
+package com.yk.url_shortener.store;
+
+import com.yk.url_shortener.model.Url;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded log-structured store (Bitcask-style) — app.store.type=log.
+ *
+ * Why?
+ *   Our data is a short code → URL mapping that never changes plus a counter that only
+ *   goes up. That fits an append-only log far better than Hibernate + a relational DB:
+ *   every write is one sequential append, every read is one hash probe + one positional read.
+ *
+ * On disk (app.store.log.dir):
+ *   segment-00000001.log, segment-00000002.log, ...   append-only, newest one is "active"
+ *   segment-0000000N.hint                              compact index of a closed segment
+ *
+ *   PUT     record: key = short code, value = long URL + createdAt + access count (+ expiry, click limit)
+ *   COUNTER record: key = short code, value = new absolute access count (8 bytes)
+ *   DELETE  record: key = short code (tombstone — purged / expired link)
+ *
+ * In memory (off-heap, {@link OffHeapHashIndex}):
+ *   short code → (segment, offset) of its latest PUT + current access count
+ *   long URL   → (segment, offset) of the PUT (dedupe lookups, permanent links only)
+ *   On heap: short code → expiry / click limit, for the few links that have one (purge candidates)
+ *
+ * Crash recovery (on startup):
+ *   Segments are replayed in order — from the hint file when a closed segment has a valid
+ *   one, otherwise by scanning its records (CRC-checked). A torn record at the tail of the
+ *   active segment (crash mid-append) is truncated away.
+ *
+ * Compaction (background, once app.store.log.compaction-min-segments closed segments exist):
+ *   Live PUT records of all closed segments are copied into ONE new segment with the current
+ *   counts baked in; superseded PUTs, deleted links and all old COUNTER / DELETE records disappear. Reads and writes
+ *   continue during the copy — only the final swap takes the write lock.
+ *
+ * Locking: reads and counter increments share the read lock; an increment only serializes with
+ *   increments of codes in the same stripe (app.store.log.counter-stripes) and, for the append
+ *   itself, with other writers. Saves, deletes and the compaction swap take the write lock.
+ *
+ * Durability: appends go to the OS page cache and are fsynced every app.store.log.flush-ms
+ * (or on every write with app.store.log.fsync-every-write=true).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.store.type", havingValue = "log")
+public class LogStructuredUrlStore implements UrlStore, AutoCloseable {
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("segment-(\\d{8})\\.log");
+    private static final String COMPACTION_SUFFIX = ".compact";
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final boolean fsyncEveryWrite;
+    private final int compactionMinSegments;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object compactionMonitor = new Object();
+    private final Object appendMonitor = new Object();
+    private final Object[] counterStripes;
+    // Concurrent: an increment may roll the active segment while other readers look up segments
+    private final NavigableMap<Integer, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final OffHeapHashIndex codeIndex;
+    private final OffHeapHashIndex longUrlIndex;
+    private final Map<String, Limits> limitedLinks = new HashMap<>();
+    private volatile LogSegment active;
+
+    @Autowired
+    public LogStructuredUrlStore(@Value("${app.store.log.dir:./data/url-log}") String directory,
+                                 @Value("${app.store.log.max-segment-bytes:67108864}") long maxSegmentBytes,
+                                 @Value("${app.store.log.fsync-every-write:false}") boolean fsyncEveryWrite,
+                                 @Value("${app.store.log.compaction-min-segments:4}") int compactionMinSegments,
+                                 @Value("${app.store.log.index-initial-capacity:65536}") int indexInitialCapacity,
+                                 @Value("${app.store.log.counter-stripes:64}") int counterStripes,
+                                 @Value("${app.click-dedup.enabled:false}") boolean clickDedup) {
+        this(directory, maxSegmentBytes, fsyncEveryWrite, compactionMinSegments, indexInitialCapacity, counterStripes);
+        if (clickDedup) {
+            // No unique counter in this store — de-duplicated clicks would silently be dropped
+            close();
+            throw new IllegalStateException("app.click-dedup.enabled=true requires app.store.type=jpa");
+        }
+    }
+
+    public LogStructuredUrlStore(String directory, long maxSegmentBytes, boolean fsyncEveryWrite,
+                                 int compactionMinSegments, int indexInitialCapacity, int counterStripes) {
+        this.counterStripes = new Object[Integer.highestOneBit(Math.max(1, counterStripes - 1)) << 1];
+        Arrays.setAll(this.counterStripes, i -> new Object());
+        this.directory = Path.of(directory);
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.fsyncEveryWrite = fsyncEveryWrite;
+        this.compactionMinSegments = Math.max(2, compactionMinSegments);
+        this.codeIndex = new OffHeapHashIndex(indexInitialCapacity);
+        this.longUrlIndex = new OffHeapHashIndex(indexInitialCapacity);
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open log store in " + directory, e);
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // UrlStore
+    // ─────────────────────────────────────────────
+
+    @Override
+    public Optional<Url> findByShortCode(String shortCode) {
+        lock.readLock().lock();
+        try {
+            int slot = findCode(shortCode.getBytes(StandardCharsets.UTF_8));
+            return slot < 0 ? Optional.empty() : Optional.of(readUrl(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsByShortCode(String shortCode) {
+        lock.readLock().lock();
+        try {
+            return findCode(shortCode.getBytes(StandardCharsets.UTF_8)) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Url> findByLongUrl(String longUrl) {
+        lock.readLock().lock();
+        try {
+            int urlSlot = longUrlIndex.find(OffHeapHashIndex.hash(longUrl), null,
+                    (segment, offset) -> longUrl.equals(decodeLongUrl(readRecord(segment, offset).value)));
+            if (urlSlot < 0) {
+                return Optional.empty();
+            }
+            LogRecord record = readRecord(longUrlIndex.segment(urlSlot), longUrlIndex.offset(urlSlot));
+            int codeSlot = findCode(record.key);
+            return codeSlot < 0 ? Optional.empty() : Optional.of(readUrl(codeSlot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Url save(Url url) {
+        byte[] key = url.getShortCode().getBytes(StandardCharsets.UTF_8);
+        long accessCount = url.getAccessCount() != null ? url.getAccessCount() : 0L;
+        Limits limits = Limits.of(url);
+        byte[] value = encodeUrl(url.getLongUrl(), url.getCreatedAt(), accessCount, limits);
+
+        lock.writeLock().lock();
+        try {
+            int offset = append(LogRecord.encode(LogRecord.PUT, key, value));
+            applyPut(key, OffHeapHashIndex.hash(url.getLongUrl()), active.id, offset, accessCount, limits);
+            return url;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Log store write failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long incrementAccessCount(String shortCode, long delta) {
+        byte[] key = shortCode.getBytes(StandardCharsets.UTF_8);
+        long hash = OffHeapHashIndex.hash(key);
+        // Read lock: no insert / delete / resize can move the slot; the stripe makes read-add-write atomic per code
+        lock.readLock().lock();
+        try {
+            synchronized (counterStripes[(int) hash & (counterStripes.length - 1)]) {
+                int slot = findCode(key);
+                if (slot < 0) {
+                    return -1L;
+                }
+                long count = codeIndex.value(slot) + delta;
+                append(LogRecord.encode(LogRecord.COUNTER, key, ByteBuffer.allocate(8).putLong(0, count).array()));
+                codeIndex.setValue(slot, count);
+                return count;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Log store write failed", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Url> findAll() {
+        lock.readLock().lock();
+        try {
+            List<Url> urls = new ArrayList<>(codeIndex.size());
+            codeIndex.forEach(slot -> urls.add(readUrl(slot)));
+            return urls;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Url> findByShortCodeIn(Collection<String> shortCodes) {
+        List<Url> urls = new ArrayList<>(shortCodes.size());
+        shortCodes.forEach(code -> findByShortCode(code).ifPresent(urls::add));
+        return urls;
+    }
+
+    /**
+     * One pass over the index keeping the top (offset + size) counts in a min-heap —
+     * only the records of the requested page are read from disk.
+     */
+    @Override
+    public Slice<Url> findMostAccessed(Pageable pageable) {
+        int limit = (int) pageable.getOffset() + pageable.getPageSize();
+        lock.readLock().lock();
+        try {
+            PriorityQueue<long[]> top = new PriorityQueue<>(Comparator.comparingLong(entry -> entry[0]));
+            codeIndex.forEach(slot -> {
+                top.offer(new long[]{codeIndex.value(slot), slot});
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            });
+            List<long[]> ordered = new ArrayList<>(top);
+            ordered.sort(Comparator.comparingLong((long[] entry) -> entry[0]).reversed());
+
+            List<Url> content = new ArrayList<>(pageable.getPageSize());
+            for (int i = (int) pageable.getOffset(); i < ordered.size(); i++) {
+                content.add(readUrl((int) ordered.get(i)[1]));
+            }
+            return new SliceImpl<>(content, pageable, codeIndex.size() > limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Only the on-heap map of limited links is scanned — permanent links can never expire */
+    @Override
+    public List<String> findExpiredShortCodes(LocalDateTime now, int limit) {
+        long nowMillis = now.toInstant(ZoneOffset.UTC).toEpochMilli();
+        List<String> expired = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<String, Limits> entry : limitedLinks.entrySet()) {
+                if (expired.size() >= limit) {
+                    break;
+                }
+                Limits limits = entry.getValue();
+                boolean timeUp = limits.expiresAtMillis != Limits.NONE && limits.expiresAtMillis <= nowMillis;
+                boolean clicksUsedUp = false;
+                if (!timeUp && limits.maxClicks != Limits.NONE) {
+                    int slot = findCode(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                    clicksUsedUp = slot >= 0 && codeIndex.value(slot) >= limits.maxClicks;
+                }
+                if (timeUp || clicksUsedUp) {
+                    expired.add(entry.getKey());
+                }
+            }
+            return expired;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllByShortCode(Collection<String> shortCodes) {
+        lock.writeLock().lock();
+        try {
+            for (String shortCode : shortCodes) {
+                byte[] key = shortCode.getBytes(StandardCharsets.UTF_8);
+                if (findCode(key) >= 0) {
+                    append(LogRecord.encode(LogRecord.DELETE, key, new byte[0]));
+                    applyDelete(key);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Log store write failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Background work
+    // ─────────────────────────────────────────────
+
+    /** Make recent appends durable */
+    @Scheduled(fixedDelayString = "${app.store.log.flush-ms:1000}")
+    public void flush() {
+        try {
+            active.force();
+        } catch (IOException e) {
+            log.warn("Log store fsync failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.store.log.compaction-interval-ms:60000}")
+    public void compactIfNeeded() {
+        if (closedSegmentCount() >= compactionMinSegments) {
+            compact();
+        }
+    }
+
+    /**
+     * Merge all closed segments into one. Safe against crashes at any point:
+     * 1. live PUTs are copied to segment-K.log.compact (+ hint), fsynced
+     * 2. under the write lock: the temp file atomically replaces segment-K (the newest closed one),
+     *    index entries still pointing at the copied records are moved to their new offsets
+     * 3. the older segments are deleted — if we crash before that, replaying them before
+     *    segment-K is harmless because segment-K's records win
+     */
+    public void compact() {
+        synchronized (compactionMonitor) {
+            try {
+                doCompact();
+            } catch (IOException e) {
+                log.warn("Log store compaction failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    int segmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            for (LogSegment segment : segments.values()) {
+                segment.force();
+                segment.close();
+            }
+        } catch (IOException e) {
+            log.warn("Log store close failed: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Recovery
+    // ─────────────────────────────────────────────
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Integer> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                Matcher matcher = SEGMENT_FILE.matcher(name);
+                if (matcher.matches()) {
+                    ids.add(Integer.parseInt(matcher.group(1)));
+                } else if (name.endsWith(COMPACTION_SUFFIX)) {
+                    // Leftover of a compaction interrupted before its swap — the originals are intact
+                    Files.delete(file);
+                }
+            }
+        }
+        ids.sort(Integer::compare);
+        if (ids.isEmpty()) {
+            ids.add(1);
+        }
+
+        long start = System.currentTimeMillis();
+        int fromHints = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            LogSegment segment = new LogSegment(directory, ids.get(i));
+            segments.put(segment.id, segment);
+            boolean last = i == ids.size() - 1;
+            if (!last && replayHint(segment)) {
+                fromHints++;
+            } else {
+                replaySegment(segment, last);
+            }
+        }
+        active = segments.lastEntry().getValue();
+        log.info("Log store opened: {} segments ({} from hint files), {} URLs, {} KB off-heap index, in {}ms",
+                segments.size(), fromHints, codeIndex.size(),
+                (codeIndex.memoryBytes() + longUrlIndex.memoryBytes()) / 1024, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Scan every record of a segment. A closed segment gets a hint file afterwards,
+     * so the next start can skip the scan.
+     */
+    private void replaySegment(LogSegment segment, boolean isActive) throws IOException {
+        List<HintEntry> hints = new ArrayList<>();
+        long offset = 0;
+        while (offset < segment.size()) {
+            LogRecord record = segment.read(offset);
+            if (record == null) {
+                if (isActive) {
+                    log.warn("Log store: truncating torn tail of {} at offset {} ({} bytes)",
+                            segment.path.getFileName(), offset, segment.size() - offset);
+                    segment.truncate(offset);
+                } else {
+                    log.error("Log store: corrupt record in closed segment {} at offset {} — rest of segment skipped",
+                            segment.path.getFileName(), offset);
+                }
+                break;
+            }
+            HintEntry entry = HintEntry.of(record, (int) offset);
+            apply(entry, segment.id);
+            hints.add(entry);
+            offset += record.length();
+        }
+        if (!isActive) {
+            writeHint(LogSegment.hintPathFor(directory, segment.id), hints);
+        }
+    }
+
+    private void apply(HintEntry entry, int segmentId) {
+        if (entry.type == LogRecord.PUT) {
+            applyPut(entry.key, entry.longUrlHash, segmentId, entry.offset, entry.count, entry.limits);
+        } else if (entry.type == LogRecord.DELETE) {
+            applyDelete(entry.key);
+        } else {
+            int slot = findCode(entry.key);
+            if (slot >= 0) {
+                codeIndex.setValue(slot, entry.count);
+            }
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Hint files: [type][keyLen short][key][offset int][longUrlHash long][count long]... [crc32 int]
+    // A PUT of a limited link is written as type HINT_LIMITED_PUT with [expiresAt long][maxClicks long] appended
+    // ─────────────────────────────────────────────
+
+    private static final byte HINT_LIMITED_PUT = 0x11;
+
+    private record HintEntry(byte type, byte[] key, int offset, long longUrlHash, long count, Limits limits) {
+
+        static HintEntry of(LogRecord record, int offset) {
+            if (record.type == LogRecord.PUT) {
+                String longUrl = decodeLongUrl(record.value);
+                return new HintEntry(LogRecord.PUT, record.key, offset,
+                        OffHeapHashIndex.hash(longUrl), decodeAccessCount(record.value), decodeLimits(record.value));
+            }
+            if (record.type == LogRecord.DELETE) {
+                return new HintEntry(LogRecord.DELETE, record.key, offset, 0L, 0L, Limits.UNLIMITED);
+            }
+            return new HintEntry(LogRecord.COUNTER, record.key, offset, 0L, ByteBuffer.wrap(record.value).getLong(),
+                    Limits.UNLIMITED);
+        }
+
+        boolean isLimitedPut() {
+            return type == LogRecord.PUT && limits.isLimited();
+        }
+
+        int length() {
+            return 1 + 2 + key.length + 4 + 8 + 8 + (isLimitedPut() ? 16 : 0);
+        }
+    }
+
+    private static void writeHint(Path path, List<HintEntry> entries) throws IOException {
+        int length = 4;
+        for (HintEntry entry : entries) {
+            length += entry.length();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (HintEntry entry : entries) {
+            buffer.put(entry.isLimitedPut() ? HINT_LIMITED_PUT : entry.type)
+                    .putShort((short) entry.key.length).put(entry.key)
+                    .putInt(entry.offset).putLong(entry.longUrlHash).putLong(entry.count);
+            if (entry.isLimitedPut()) {
+                buffer.putLong(entry.limits.expiresAtMillis).putLong(entry.limits.maxClicks);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, length - 4);
+        buffer.putInt((int) crc.getValue());
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temp, buffer.array());
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** @return false if there is no valid hint file (the segment is scanned instead) */
+    private boolean replayHint(LogSegment segment) throws IOException {
+        Path path = LogSegment.hintPathFor(directory, segment.id);
+        if (!Files.exists(path)) {
+            return false;
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        if (bytes.length < 4) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if ((int) crc.getValue() != buffer.getInt(bytes.length - 4)) {
+            log.warn("Log store: invalid hint file {} — scanning the segment instead", path.getFileName());
+            return false;
+        }
+        while (buffer.position() < bytes.length - 4) {
+            byte type = buffer.get();
+            byte[] key = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(key);
+            int offset = buffer.getInt();
+            long longUrlHash = buffer.getLong();
+            long count = buffer.getLong();
+            Limits limits = Limits.UNLIMITED;
+            if (type == HINT_LIMITED_PUT) {
+                type = LogRecord.PUT;
+                limits = new Limits(buffer.getLong(), buffer.getLong());
+            }
+            apply(new HintEntry(type, key, offset, longUrlHash, count, limits), segment.id);
+        }
+        return true;
+    }
+
+    // ─────────────────────────────────────────────
+    // Compaction
+    // ─────────────────────────────────────────────
+
+    private record LiveEntry(int segment, int offset, long count) {
+    }
+
+    private int closedSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size() - 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void doCompact() throws IOException {
+        // 1. Snapshot: which closed segments, and which of their PUTs are still live
+        List<Integer> closed;
+        NavigableMap<Integer, LogSegment> closedSegments;
+        List<LiveEntry> live = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            closedSegments = new TreeMap<>(segments.headMap(active.id, false));
+            closed = new ArrayList<>(closedSegments.keySet());
+            if (closed.size() < 2) {
+                return;
+            }
+            int newestClosed = closed.get(closed.size() - 1);
+            codeIndex.forEach(slot -> {
+                if (codeIndex.segment(slot) <= newestClosed) {
+                    live.add(new LiveEntry(codeIndex.segment(slot), codeIndex.offset(slot), codeIndex.value(slot)));
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        int target = closed.get(closed.size() - 1);
+        live.sort(Comparator.comparingInt(LiveEntry::segment).thenComparingInt(LiveEntry::offset));
+
+        // 2. Copy live PUTs (closed segments are immutable — no lock needed to read them)
+        Path tempSegment = directory.resolve(LogSegment.pathFor(directory, target).getFileName() + COMPACTION_SUFFIX);
+        List<HintEntry> hints = new ArrayList<>(live.size());
+        long[] newOffsets = new long[live.size()];
+        try (FileChannel out = FileChannel.open(tempSegment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long position = 0;
+            for (int i = 0; i < live.size(); i++) {
+                LiveEntry entry = live.get(i);
+                LogRecord record = closedSegments.get(entry.segment).read(entry.offset);
+                if (record == null) {
+                    throw new IOException("Corrupt record at segment " + entry.segment + " offset " + entry.offset);
+                }
+                String longUrl = decodeLongUrl(record.value);
+                Limits limits = decodeLimits(record.value);
+                byte[] value = encodeUrl(longUrl, decodeCreatedAt(record.value), entry.count, limits);
+                ByteBuffer encoded = LogRecord.encode(LogRecord.PUT, record.key, value);
+                newOffsets[i] = position;
+                while (encoded.hasRemaining()) {
+                    position += out.write(encoded, position);
+                }
+                hints.add(new HintEntry(LogRecord.PUT, record.key, (int) newOffsets[i],
+                        OffHeapHashIndex.hash(longUrl), entry.count, limits));
+            }
+            out.force(true);
+        }
+
+        // 3. Swap
+        long before;
+        long after;
+        lock.writeLock().lock();
+        try {
+            before = closed.stream().mapToLong(id -> segments.get(id).size()).sum();
+            for (int id : closed) {
+                segments.remove(id).close();
+            }
+            Files.deleteIfExists(LogSegment.hintPathFor(directory, target));
+            Files.move(tempSegment, LogSegment.pathFor(directory, target),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LogSegment compacted = new LogSegment(directory, target);
+            segments.put(target, compacted);
+            after = compacted.size();
+
+            for (int i = 0; i < live.size(); i++) {
+                LiveEntry entry = live.get(i);
+                HintEntry hint = hints.get(i);
+                relocate(hint.key, hint.longUrlHash, entry.segment, entry.offset, target, (int) newOffsets[i]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        for (int id : closed) {
+            if (id != target) {
+                Files.deleteIfExists(LogSegment.pathFor(directory, id));
+                Files.deleteIfExists(LogSegment.hintPathFor(directory, id));
+            }
+        }
+        writeHint(LogSegment.hintPathFor(directory, target), hints);
+        log.info("Log store compacted {} segments into segment {}: {} KB → {} KB, {} live URLs",
+                closed.size(), target, before / 1024, after / 1024, live.size());
+    }
+
+    /** Point index entries at a copied record — unless a newer write superseded it meanwhile */
+    private void relocate(byte[] key, long longUrlHash, int oldSegment, int oldOffset, int newSegment, int newOffset) {
+        int slot = findCode(key);
+        if (slot >= 0 && codeIndex.segment(slot) == oldSegment && codeIndex.offset(slot) == oldOffset) {
+            codeIndex.setLocation(slot, newSegment, newOffset);
+        }
+        int urlSlot = longUrlIndex.find(longUrlHash, null,
+                (segment, offset) -> segment == oldSegment && offset == oldOffset);
+        if (urlSlot >= 0) {
+            longUrlIndex.setLocation(urlSlot, newSegment, newOffset);
+        }
+    }
+
+    // ─────────────────────────────────────────────
+    // Internals (callers hold the lock — the read lock plus a stripe for increments)
+    // ─────────────────────────────────────────────
+
+    private int findCode(byte[] key) {
+        return codeIndex.find(OffHeapHashIndex.hash(key), key,
+                (segment, offset) -> Arrays.equals(key, readRecord(segment, offset).key));
+    }
+
+    private void applyPut(byte[] key, long longUrlHash, int segment, int offset, long count, Limits limits) {
+        int slot = findCode(key);
+        if (slot >= 0) {
+            // Re-save of an existing code: drop its old long-URL entry
+            int oldSegment = codeIndex.segment(slot);
+            int oldOffset = codeIndex.offset(slot);
+            codeIndex.setLocation(slot, segment, offset);
+            codeIndex.setValue(slot, count);
+            int urlSlot = findLongUrlEntry(oldSegment, oldOffset);
+            if (urlSlot >= 0) {
+                longUrlIndex.remove(urlSlot);
+            }
+        } else {
+            codeIndex.insert(OffHeapHashIndex.hash(key), key, segment, offset, count);
+        }
+        String shortCode = new String(key, StandardCharsets.UTF_8);
+        if (limits.isLimited()) {
+            // Never a dedupe target — see UrlStore#findByLongUrl
+            limitedLinks.put(shortCode, limits);
+        } else {
+            limitedLinks.remove(shortCode);
+            longUrlIndex.insert(longUrlHash, null, segment, offset, 0L);
+        }
+    }
+
+    private void applyDelete(byte[] key) {
+        int slot = findCode(key);
+        if (slot < 0) {
+            return;
+        }
+        int urlSlot = findLongUrlEntry(codeIndex.segment(slot), codeIndex.offset(slot));
+        if (urlSlot >= 0) {
+            longUrlIndex.remove(urlSlot);
+        }
+        codeIndex.remove(slot);
+        limitedLinks.remove(new String(key, StandardCharsets.UTF_8));
+    }
+
+    /** The long-URL entry pointing at a given PUT record */
+    private int findLongUrlEntry(int segment, int offset) {
+        LogRecord record = readRecord(segment, offset);
+        long hash = OffHeapHashIndex.hash(decodeLongUrl(record.value));
+        return longUrlIndex.find(hash, null, (s, o) -> s == segment && o == offset);
+    }
+
+    /** Increments append under the read lock only, so appends are serialized here */
+    private int append(ByteBuffer record) throws IOException {
+        synchronized (appendMonitor) {
+            if (active.size() >= maxSegmentBytes) {
+                active.force();
+                LogSegment next = new LogSegment(directory, active.id + 1);
+                segments.put(next.id, next);
+                active = next;
+            }
+            int offset = active.append(record);
+            if (fsyncEveryWrite) {
+                active.force();
+            }
+            return offset;
+        }
+    }
+
+    private LogRecord readRecord(int segment, int offset) {
+        try {
+            LogRecord record = segments.get(segment).read(offset);
+            if (record == null) {
+                throw new IOException("Corrupt record at segment " + segment + " offset " + offset);
+            }
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Url readUrl(int slot) {
+        LogRecord record = readRecord(codeIndex.segment(slot), codeIndex.offset(slot));
+        Limits limits = decodeLimits(record.value);
+        return Url.builder()
+                .shortCode(new String(record.key, StandardCharsets.UTF_8))
+                .longUrl(decodeLongUrl(record.value))
+                .createdAt(decodeCreatedAt(record.value))
+                .accessCount(codeIndex.value(slot))
+                .expiresAt(limits.expiresAtMillis == Limits.NONE ? null
+                        : LocalDateTime.ofEpochSecond(Math.floorDiv(limits.expiresAtMillis, 1000),
+                        (int) Math.floorMod(limits.expiresAtMillis, 1000) * 1_000_000, ZoneOffset.UTC))
+                .maxClicks(limits.maxClicks == Limits.NONE ? null : limits.maxClicks)
+                .build();
+    }
+
+    /** Expiry (epoch millis, UTC like createdAt) and click limit of a link; NONE = not set */
+    private record Limits(long expiresAtMillis, long maxClicks) {
+
+        static final long NONE = Long.MIN_VALUE;
+        static final Limits UNLIMITED = new Limits(NONE, NONE);
+
+        static Limits of(Url url) {
+            return new Limits(
+                    url.getExpiresAt() != null ? url.getExpiresAt().toInstant(ZoneOffset.UTC).toEpochMilli() : NONE,
+                    url.getMaxClicks() != null ? url.getMaxClicks() : NONE);
+        }
+
+        boolean isLimited() {
+            return expiresAtMillis != NONE || maxClicks != NONE;
+        }
+    }
+
+    // PUT value: [urlLen int][url utf-8][createdAt epochSecond long][createdAt nano int][accessCount long]
+    //            [expiresAt epochMilli long][maxClicks long]   ← only present for limited links
+
+    private static byte[] encodeUrl(String longUrl, LocalDateTime createdAt, long accessCount, Limits limits) {
+        byte[] url = longUrl.getBytes(StandardCharsets.UTF_8);
+        LocalDateTime created = createdAt != null ? createdAt : LocalDateTime.now();
+        ByteBuffer buffer = ByteBuffer.allocate(4 + url.length + 8 + 4 + 8 + (limits.isLimited() ? 16 : 0))
+                .putInt(url.length).put(url)
+                .putLong(created.toEpochSecond(ZoneOffset.UTC)).putInt(created.getNano())
+                .putLong(accessCount);
+        if (limits.isLimited()) {
+            buffer.putLong(limits.expiresAtMillis).putLong(limits.maxClicks);
+        }
+        return buffer.array();
+    }
+
+    private static String decodeLongUrl(byte[] value) {
+        int length = ByteBuffer.wrap(value).getInt();
+        return new String(value, 4, length, StandardCharsets.UTF_8);
+    }
+
+    private static LocalDateTime decodeCreatedAt(byte[] value) {
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        buffer.position(4 + buffer.getInt(0));
+        return LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+    }
+
+    private static long decodeAccessCount(byte[] value) {
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        return buffer.getLong(4 + buffer.getInt(0) + 8 + 4);
+    }
+
+    private static Limits decodeLimits(byte[] value) {
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        int limitsAt = 4 + buffer.getInt(0) + 8 + 4 + 8;
+        if (value.length < limitsAt + 16) {
+            return Limits.UNLIMITED;
+        }
+        return new Limits(buffer.getLong(limitsAt), buffer.getLong(limitsAt + 8));
+    }
+}
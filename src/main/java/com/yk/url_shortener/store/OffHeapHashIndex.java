@@ -0,0 +1,210 @@
+package com.yk.url_shortener.store;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntConsumer;
+
+/**
+ * Open-addressing hash table in a direct (off-heap) ByteBuffer: key → (segment, offset, value).
+ *
+ * Why off-heap?
+ * - Millions of entries as HashMap nodes cost ~100 bytes each on the heap and are
+ *   scanned by every GC; here an entry is one fixed 40-byte slot the GC never looks at.
+ *
+ * Slot layout (40 bytes):
+ *   [hash long][segment int][offset int][value long][keyLen byte][key 15 bytes]
+ *
+ * - hash 0 = empty slot, hash 1 = deleted (tombstone); real hashes avoid both
+ * - keys up to 15 bytes (short codes) are stored inline → exact match without disk I/O;
+ *   longer keys (long URLs) are verified by the caller against the record on disk
+ * - linear probing, doubled (and tombstones dropped) at 75% load
+ *
+ * Not thread-safe — the store guards it with its read/write lock (counter increments write
+ * their own slot's value under the read lock, one code per stripe).
+ */
+final class OffHeapHashIndex {
+
+    static final int MAX_INLINE_KEY = 15;
+
+    private static final int SLOT_BYTES = 40;
+    private static final int HASH = 0;
+    private static final int SEGMENT = 8;
+    private static final int OFFSET = 12;
+    private static final int VALUE = 16;
+    private static final int KEY_LENGTH = 24;
+    private static final int KEY = 25;
+
+    private static final long EMPTY = 0L;
+    private static final long TOMBSTONE = 1L;
+
+    /** Checks a candidate slot's record on disk when the key is not stored inline */
+    @FunctionalInterface
+    interface DiskMatcher {
+        boolean matches(int segment, int offset);
+    }
+
+    private ByteBuffer table;
+    private int capacity;
+    private int used;
+    private int size;
+
+    OffHeapHashIndex(int initialCapacity) {
+        this.capacity = Integer.highestOneBit(Math.max(16, initialCapacity - 1)) << 1;
+        this.table = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+    }
+
+    /** 64-bit FNV-1a + murmur3 finalizer, never EMPTY or TOMBSTONE */
+    static long hash(byte[] bytes) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : bytes) {
+            h ^= b;
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h == EMPTY || h == TOMBSTONE ? h + 2 : h;
+    }
+
+    static long hash(String key) {
+        return hash(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param key     the key bytes if they may be stored inline, otherwise null
+     * @param matcher verifies candidates whose key is not inline
+     * @return slot index, or -1
+     */
+    int find(long hash, byte[] key, DiskMatcher matcher) {
+        int mask = capacity - 1;
+        int slot = start(hash, mask);
+        for (int probes = 0; probes < capacity; probes++, slot = (slot + 1) & mask) {
+            long slotHash = table.getLong(slot * SLOT_BYTES + HASH);
+            if (slotHash == EMPTY) {
+                return -1;
+            }
+            if (slotHash == hash && matches(slot, key, matcher)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Add an entry (the caller has checked it is not present). Slot indexes returned
+     * earlier are invalid after an insert — the table may have been resized.
+     */
+    int insert(long hash, byte[] key, int segment, int offset, long value) {
+        if ((used + 1) * 4L >= capacity * 3L) {
+            resize(capacity * 2);
+        }
+        int mask = capacity - 1;
+        int slot = start(hash, mask);
+        while (table.getLong(slot * SLOT_BYTES + HASH) != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        int base = slot * SLOT_BYTES;
+        table.putLong(base + HASH, hash);
+        table.putInt(base + SEGMENT, segment);
+        table.putInt(base + OFFSET, offset);
+        table.putLong(base + VALUE, value);
+        if (key != null && key.length <= MAX_INLINE_KEY) {
+            table.put(base + KEY_LENGTH, (byte) key.length);
+            table.put(base + KEY, key);
+        } else {
+            table.put(base + KEY_LENGTH, (byte) 0);
+        }
+        used++;
+        size++;
+        return slot;
+    }
+
+    void remove(int slot) {
+        table.putLong(slot * SLOT_BYTES + HASH, TOMBSTONE);
+        size--;
+    }
+
+    int segment(int slot) {
+        return table.getInt(slot * SLOT_BYTES + SEGMENT);
+    }
+
+    int offset(int slot) {
+        return table.getInt(slot * SLOT_BYTES + OFFSET);
+    }
+
+    long value(int slot) {
+        return table.getLong(slot * SLOT_BYTES + VALUE);
+    }
+
+    void setLocation(int slot, int segment, int offset) {
+        table.putInt(slot * SLOT_BYTES + SEGMENT, segment);
+        table.putInt(slot * SLOT_BYTES + OFFSET, offset);
+    }
+
+    void setValue(int slot, long value) {
+        table.putLong(slot * SLOT_BYTES + VALUE, value);
+    }
+
+    /** Visit every live slot */
+    void forEach(IntConsumer visitor) {
+        for (int slot = 0; slot < capacity; slot++) {
+            long slotHash = table.getLong(slot * SLOT_BYTES + HASH);
+            if (slotHash != EMPTY && slotHash != TOMBSTONE) {
+                visitor.accept(slot);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Off-heap bytes held by the table */
+    long memoryBytes() {
+        return (long) capacity * SLOT_BYTES;
+    }
+
+    private boolean matches(int slot, byte[] key, DiskMatcher matcher) {
+        int base = slot * SLOT_BYTES;
+        int inlineLength = table.get(base + KEY_LENGTH);
+        if (key != null && inlineLength > 0) {
+            if (inlineLength != key.length) {
+                return false;
+            }
+            for (int i = 0; i < inlineLength; i++) {
+                if (table.get(base + KEY + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return matcher.matches(segment(slot), offset(slot));
+    }
+
+    private void resize(int newCapacity) {
+        ByteBuffer old = table;
+        int oldCapacity = capacity;
+        table = ByteBuffer.allocateDirect(newCapacity * SLOT_BYTES);
+        capacity = newCapacity;
+        used = 0;
+        int mask = newCapacity - 1;
+        byte[] slotBytes = new byte[SLOT_BYTES];
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            long slotHash = old.getLong(slot * SLOT_BYTES + HASH);
+            if (slotHash == EMPTY || slotHash == TOMBSTONE) {
+                continue;
+            }
+            int target = start(slotHash, mask);
+            while (table.getLong(target * SLOT_BYTES + HASH) != EMPTY) {
+                target = (target + 1) & mask;
+            }
+            old.get(slot * SLOT_BYTES, slotBytes);
+            table.put(target * SLOT_BYTES, slotBytes);
+            used++;
+        }
+    }
+
+    private static int start(long hash, int mask) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,180 @@
+package com.yk.url_shortener.store;
+
+import com.yk.url_shortener.model.Url;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Two-tier store (app.archive.enabled=true): the JPA store is the hot tier, {@link ColdArchive} the cold one.
+ * Injected wherever a UrlStore is needed (@Primary) — callers never see the tiers.
+ *
+ * How it works:
+ * - Lookups (findByShortCode, incrementAccessCount) try the hot tier first. On a miss the archived
+ *   copy is rehydrated: inserted back into the hot tier with lastAccessedAt = now (so the next archival
+ *   run does not take it straight back), then masked in the archive. Only the first access after
+ *   archival pays for the segment read.
+ * - Rehydration commits in its own read-write transaction — lookups usually run inside a read-only
+ *   one (redirects), where the insert would never be flushed. The archive is masked only after that
+ *   transaction committed, so a failed insert leaves the link in the archive, never in neither tier.
+ * - The insert is conditional (INSERT ... ON CONFLICT DO NOTHING): when several instances rehydrate
+ *   the same link at once, the first wins and the others read its row instead of overwriting it.
+ * - existsByShortCode checks both tiers — an archived code is never handed out again.
+ * - findAll / findByShortCodeIn (stats, exports, cache warm-up) merge both tiers without rehydrating;
+ *   the hot copy wins where a link is briefly in both.
+ * - Hot tier only: findByLongUrl (an archived long URL shortened again gets a new code),
+ *   findMostAccessed (warm-up wants links in use now) and expiry — only permanent links are archived.
+ *
+ * Archival itself is the job of LinkArchivalService.
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true")
+public class TieredUrlStore implements UrlStore {
+
+    private final JpaUrlStore hot;
+    private final ColdArchive archive;
+    private final TransactionTemplate rehydration;
+    private final Counter rehydrated;
+
+    public TieredUrlStore(ObjectProvider<JpaUrlStore> hotStore, ColdArchive archive,
+                          PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.hot = hotStore.getIfAvailable();
+        if (this.hot == null) {
+            throw new IllegalStateException("app.archive.enabled=true requires app.store.type=jpa");
+        }
+        this.archive = archive;
+        this.rehydration = new TransactionTemplate(transactionManager);
+        this.rehydration.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rehydration.setReadOnly(false);
+        this.rehydrated = meterRegistry.counter("url.archive.rehydrated");
+    }
+
+    @Override
+    public Optional<Url> findByShortCode(String shortCode) {
+        Optional<Url> url = hot.findByShortCode(shortCode);
+        return url.isPresent() ? url : rehydrate(shortCode);
+    }
+
+    @Override
+    public boolean existsByShortCode(String shortCode) {
+        return hot.existsByShortCode(shortCode) || archive.contains(shortCode);
+    }
+
+    @Override
+    public Optional<Url> findByLongUrl(String longUrl) {
+        return hot.findByLongUrl(longUrl);
+    }
+
+    @Override
+    public Url save(Url url) {
+        return hot.save(url);
+    }
+
+    @Override
+    public long incrementAccessCount(String shortCode, long delta) {
+        long count = hot.incrementAccessCount(shortCode, delta);
+        if (count < 0 && rehydrate(shortCode).isPresent()) {
+            count = hot.incrementAccessCount(shortCode, delta);
+        }
+        return count;
+    }
+
+    @Override
+    public long incrementAccessCount(String shortCode, long delta, long uniqueDelta) {
+        long count = hot.incrementAccessCount(shortCode, delta, uniqueDelta);
+        if (count < 0 && rehydrate(shortCode).isPresent()) {
+            count = hot.incrementAccessCount(shortCode, delta, uniqueDelta);
+        }
+        return count;
+    }
+
+    @Override
+    public List<Url> findAll() {
+        List<Url> all = new ArrayList<>(hot.findAll());
+        Set<String> hotCodes = new HashSet<>(all.size() * 2);
+        all.forEach(url -> hotCodes.add(url.getShortCode()));
+        archive.forEachLive(url -> {
+            if (!hotCodes.contains(url.getShortCode())) {
+                all.add(url);
+            }
+        });
+        return all;
+    }
+
+    @Override
+    public List<Url> findByShortCodeIn(Collection<String> shortCodes) {
+        List<Url> found = new ArrayList<>(hot.findByShortCodeIn(shortCodes));
+        Set<String> missing = new LinkedHashSet<>(shortCodes);
+        found.forEach(url -> missing.remove(url.getShortCode()));
+        for (String shortCode : missing) {
+            archive.find(shortCode).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public Slice<Url> findMostAccessed(Pageable pageable) {
+        return hot.findMostAccessed(pageable);
+    }
+
+    @Override
+    public List<String> findExpiredShortCodes(LocalDateTime now, int limit) {
+        return hot.findExpiredShortCodes(now, limit);
+    }
+
+    @Override
+    public void deleteAllByShortCode(Collection<String> shortCodes) {
+        hot.deleteAllByShortCode(shortCodes);
+    }
+
+    /**
+     * Copy an archived link back into the hot tier, in a transaction of its own. Concurrent
+     * rehydrations (this or other instances) are safe: the insert never overwrites an existing row,
+     * so a counter incremented in between is kept.
+     */
+    Optional<Url> rehydrate(String shortCode) {
+        Optional<Url> archived = archive.find(shortCode);
+        if (archived.isEmpty()) {
+            return Optional.empty();
+        }
+        Url url = archived.get();
+        url.setLastAccessedAt(LocalDateTime.now());
+        return rehydration.execute(status -> {
+            boolean inserted = hot.insertIfAbsent(url);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    archive.markRehydrated(shortCode);
+                    if (inserted) {
+                        rehydrated.increment();
+                        log.debug("Rehydrated {} from the archive", shortCode);
+                    }
+                }
+            });
+            // The row as committed — ours, or the one a concurrent rehydration inserted first
+            return hot.findByShortCode(shortCode);
+        });
+    }
+}
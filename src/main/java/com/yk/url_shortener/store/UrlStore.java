@@ -0,0 +1,62 @@
+package com.yk.url_shortener.store;
+
+import com.yk.url_shortener.model.Url;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage backend for short links — exactly the operations the services need.
+ *
+ * Implementations (app.store.type):
+ * - jpa (default) → {@link JpaUrlStore}: UrlRepository / Hibernate / H2
+ *                   (and everything layered on it: sharding, read replicas)
+ * - log           → {@link LogStructuredUrlStore}: embedded append-only log + off-heap hash index
+ */
+public interface UrlStore {
+
+    Optional<Url> findByShortCode(String shortCode);
+
+    boolean existsByShortCode(String shortCode);
+
+    /** Dedupe lookup on create — permanent links only (no expiry, no click limit) */
+    Optional<Url> findByLongUrl(String longUrl);
+
+    Url save(Url url);
+
+    /**
+     * Add delta to the access counter; unknown codes are ignored
+     *
+     * @return the new access count, or -1 if the code does not exist
+     */
+    long incrementAccessCount(String shortCode, long delta);
+
+    /**
+     * Add delta to the access counter and uniqueDelta to the de-duplicated one (ClickDeduplicator).
+     * Stores without a de-duplicated counter only count the raw clicks.
+     *
+     * @return the new (raw) access count, or -1 if the code does not exist
+     */
+    default long incrementAccessCount(String shortCode, long delta, long uniqueDelta) {
+        return incrementAccessCount(shortCode, delta);
+    }
+
+    /** Full scan — domain metrics, exports */
+    List<Url> findAll();
+
+    /** Missing codes are simply absent from the result */
+    List<Url> findByShortCodeIn(Collection<String> shortCodes);
+
+    /** Most-accessed first, one page at a time (cache warm-up) */
+    Slice<Url> findMostAccessed(Pageable pageable);
+
+    /** Up to limit links that expired (expiresAt reached or maxClicks used up) — purge candidates */
+    List<String> findExpiredShortCodes(LocalDateTime now, int limit);
+
+    /** Remove links by short code; missing codes are ignored */
+    void deleteAllByShortCode(Collection<String> shortCodes);
+}
@@ -0,0 +1,128 @@
+package com.yk.url_shortener.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Bloom filter — "definitely not present" or "maybe present" in ~10 bits per key.
+ *
+ * How it works:
+ * - A bit array of m bits and k hash functions
+ * - put(key):          set the k bits the key hashes to
+ * - mightContain(key): true only if all k bits are set
+ *
+ * No false negatives; the false-positive rate for n keys is about (1 - e^(-kn/m))^k.
+ * Sized from the expected key count and the target false-positive rate (1% → ~9.6 bits/key, k = 7).
+ *
+ * The k positions come from one 64-bit hash split into two halves
+ * (Kirsch–Mitzenmacher double hashing: h1 + i * h2) — no need for k real hash functions.
+ *
+ * Not thread-safe for concurrent put(); immutable once built (archive segments).
+ */
+public class BloomFilter {
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedKeys        keys that will be added
+     * @param falsePositiveRate   e.g. 0.01 for 1%
+     */
+    public BloomFilter(long expectedKeys, double falsePositiveRate) {
+        long n = Math.max(1, expectedKeys);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        this.bits = new long[(int) Math.max(1, (m + 63) / 64)];
+        this.bitCount = (long) bits.length * 64;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    private BloomFilter(long[] bits, int hashCount) {
+        this.bits = bits;
+        this.bitCount = (long) bits.length * 64;
+        this.hashCount = hashCount;
+    }
+
+    public void put(String key) {
+        put(hash(key));
+    }
+
+    /** put() with the key's {@link #hash} computed once by the caller (several filters, one key) */
+    void put(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(String key) {
+        return mightContain(hash(key));
+    }
+
+    boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Clear every bit (reuse the allocation) */
+    public void clear() {
+        Arrays.fill(bits, 0L);
+    }
+
+    /** Expected false-positive rate once this many keys were added: (1 - e^(-kn/m))^k */
+    public double falsePositiveRate(long keys) {
+        return Math.pow(1 - Math.exp(-(double) hashCount * keys / bitCount), hashCount);
+    }
+
+    public long sizeInBytes() {
+        return (long) bits.length * 8;
+    }
+
+    // Serialized form: [hashCount int][words int][words x long]
+
+    public int serializedSize() {
+        return 4 + 4 + bits.length * 8;
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(hashCount).putInt(bits.length);
+        for (long word : bits) {
+            buffer.putLong(word);
+        }
+    }
+
+    public static BloomFilter readFrom(ByteBuffer buffer) {
+        int hashCount = buffer.getInt();
+        long[] bits = new long[buffer.getInt()];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = buffer.getLong();
+        }
+        return new BloomFilter(bits, hashCount);
+    }
+
+    /** 64-bit FNV-1a with a murmur3 finalizer — both halves must be well mixed */
+    static long hash(String key) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
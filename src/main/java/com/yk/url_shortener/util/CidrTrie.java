@@ -0,0 +1,123 @@
+package com.yk.url_shortener.util;
+
+import java.util.Arrays;
+
+/**
+ * Binary radix tree over IPv4 and IPv6 CIDR blocks — "is this address inside any of the ranges?".
+ *
+ * How it works:
+ * - One binary trie per address family; each level consumes one bit of the address
+ * - add("10.0.0.0/8") walks the first 8 bits and marks that node terminal
+ * - contains(address) walks the address bits from the root and stops at the first terminal
+ *   node (a covering prefix) or at a missing child — at most 32 (IPv4) / 128 (IPv6) steps,
+ *   no allocation, no regex
+ * - A prefix inside a block that is already stored is skipped
+ *
+ * Nodes live in flat int arrays (children at 2*node and 2*node+1) instead of objects — a few
+ * thousand ranges cost a few hundred KB and the walk stays in cache.
+ *
+ * Built once, then read-only: safe to share between threads after construction
+ * (the blocklist swaps in a whole new trie on reload).
+ */
+public class CidrTrie {
+
+    private final Family v4 = new Family();
+    private final Family v6 = new Family();
+
+    /**
+     * Add a block in CIDR notation ("10.0.0.0/8", "fc00::/7"); a bare address is a /32 or /128.
+     *
+     * @throws IllegalArgumentException if the block cannot be parsed
+     */
+    public void add(String cidr) {
+        int slash = cidr.indexOf('/');
+        String address = slash < 0 ? cidr : cidr.substring(0, slash);
+        byte[] bytes = IpLiteral.parse(address.trim());
+        if (bytes == null) {
+            throw new IllegalArgumentException("Not an IP address: " + cidr);
+        }
+        int maxBits = bytes.length * 8;
+        int prefix = maxBits;
+        if (slash >= 0) {
+            try {
+                prefix = Integer.parseInt(cidr.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad prefix length: " + cidr);
+            }
+            // ::ffff:a.b.c.d/104 was unmapped to IPv4 — shift the prefix length with it
+            if (maxBits == 32 && address.indexOf(':') >= 0) {
+                prefix -= 96;
+            }
+        }
+        if (prefix < 0 || prefix > maxBits) {
+            throw new IllegalArgumentException("Bad prefix length: " + cidr);
+        }
+        (bytes.length == 4 ? v4 : v6).add(bytes, prefix);
+    }
+
+    /** @param address 4 or 16 bytes, as returned by {@link IpLiteral#parse} */
+    public boolean contains(byte[] address) {
+        return (address.length == 4 ? v4 : v6).contains(address);
+    }
+
+    /** Number of stored prefixes */
+    public int size() {
+        return v4.prefixes + v6.prefixes;
+    }
+
+    private static final class Family {
+
+        private int[] children = new int[64];
+        private boolean[] terminal = new boolean[32];
+        private int nodes = 1; // node 0 is the root
+        private int prefixes;
+
+        void add(byte[] address, int prefix) {
+            int node = 0;
+            for (int i = 0; i < prefix; i++) {
+                if (terminal[node]) {
+                    return; // already covered by a shorter prefix
+                }
+                int slot = 2 * node + bit(address, i);
+                if (children[slot] == 0) {
+                    int child = newNode(); // may grow the arrays — assign after
+                    children[slot] = child;
+                }
+                node = children[slot];
+            }
+            if (!terminal[node]) {
+                terminal[node] = true;
+                prefixes++;
+            }
+        }
+
+        boolean contains(byte[] address) {
+            int node = 0;
+            int bits = address.length * 8;
+            for (int i = 0; ; i++) {
+                if (terminal[node]) {
+                    return true;
+                }
+                if (i == bits) {
+                    return false;
+                }
+                node = children[2 * node + bit(address, i)];
+                if (node == 0) {
+                    return false;
+                }
+            }
+        }
+
+        private int newNode() {
+            if (nodes == terminal.length) {
+                terminal = Arrays.copyOf(terminal, nodes * 2);
+                children = Arrays.copyOf(children, nodes * 4);
+            }
+            return nodes++;
+        }
+
+        private static int bit(byte[] address, int i) {
+            return (address[i >>> 3] >>> (7 - (i & 7))) & 1;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.yk.url_shortener.util;
+
+/**
+ * Open-addressing hash map short code → (click count, last click time), values in primitive arrays.
+ *
+ * Why not HashMap&lt;String, Long&gt;?
+ * - Counting 100M events into a HashMap boxes a Long on every update and keeps a node object per
+ *   key; here an update is a probe plus two array writes — no allocation, nothing for the GC
+ *
+ * Layout: parallel arrays keys[] / counts[] / lastSeen[], linear probing, doubled at 50% load.
+ *
+ * Not thread-safe — one map per reader thread, merged with {@link #addAll} at the end.
+ */
+public final class ClickCountMap {
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(String shortCode, long count, long lastSeen);
+    }
+
+    private String[] keys;
+    private long[] counts;
+    private long[] lastSeen;
+    private int size;
+
+    public ClickCountMap(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedKeys * 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /** Add clicks to a short code; the last-click time only moves forward */
+    public void add(String shortCode, long clicks, long timestamp) {
+        int slot = slotOf(shortCode);
+        if (keys[slot] == null) {
+            keys[slot] = shortCode;
+            counts[slot] = clicks;
+            lastSeen[slot] = timestamp;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+            return;
+        }
+        counts[slot] += clicks;
+        if (timestamp > lastSeen[slot]) {
+            lastSeen[slot] = timestamp;
+        }
+    }
+
+    public void addAll(ClickCountMap other) {
+        other.forEach(this::add);
+    }
+
+    /** Clicks counted for the code, 0 if never seen */
+    public long count(String shortCode) {
+        int slot = slotOf(shortCode);
+        return keys[slot] != null ? counts[slot] : 0;
+    }
+
+    /** Latest click time of the code, 0 if never seen */
+    public long lastSeen(String shortCode) {
+        int slot = slotOf(shortCode);
+        return keys[slot] != null ? lastSeen[slot] : 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null) {
+                consumer.accept(keys[slot], counts[slot], lastSeen[slot]);
+            }
+        }
+    }
+
+    /** Slot holding the key, or the empty slot where it would go */
+    private int slotOf(String shortCode) {
+        int mask = keys.length - 1;
+        int hash = shortCode.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != null && !keys[slot].equals(shortCode)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        long[] oldCounts = counts;
+        long[] oldLastSeen = lastSeen;
+        allocate(oldKeys.length * 2);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != null) {
+                int target = slotOf(oldKeys[slot]);
+                keys[target] = oldKeys[slot];
+                counts[target] = oldCounts[slot];
+                lastSeen[target] = oldLastSeen[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        counts = new long[capacity];
+        lastSeen = new long[capacity];
+    }
+}
@@ -0,0 +1,88 @@
+package com.yk.url_shortener.util;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Count-Min Sketch — approximate frequency counts in constant memory.
+ *
+ * How it works:
+ * - A {@code depth x width} grid of counters, one independent hash function per row
+ * - add(key):      increment one counter per row (the cell the row's hash picks)
+ * - estimate(key): the MINIMUM of the key's counters across rows
+ *
+ * Collisions can only ever ADD to a counter, so the estimate never under-counts.
+ * With width w and depth d the over-count is at most (e / w) * totalCount
+ * with probability 1 - e^-d. Defaults used in this app (4 x 2048, 32KB) keep the
+ * error well under 0.2% of traffic — plenty to tell a viral link from the long tail.
+ *
+ * Thread safety: counters are an AtomicIntegerArray, so concurrent adds are lock-free.
+ */
+public class CountMinSketch {
+
+    private static final long[] ROW_SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x2545F4914F6CDD1DL, 0x94D049BB133111EBL
+    };
+
+    private final int depth;
+    private final int width;
+    private final int mask;
+    private final AtomicIntegerArray counters;
+
+    /**
+     * @param depth number of hash rows (1..8)
+     * @param width counters per row, rounded up to a power of two
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || depth > ROW_SEEDS.length) {
+            throw new IllegalArgumentException("depth must be between 1 and " + ROW_SEEDS.length);
+        }
+        this.depth = depth;
+        this.width = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.mask = this.width - 1;
+        this.counters = new AtomicIntegerArray(depth * this.width);
+    }
+
+    public void add(String key) {
+        add(key, 1);
+    }
+
+    public void add(String key, int count) {
+        int hash = key.hashCode();
+        for (int row = 0; row < depth; row++) {
+            counters.addAndGet(index(row, hash), count);
+        }
+    }
+
+    public long estimate(String key) {
+        int hash = key.hashCode();
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters.get(index(row, hash)));
+        }
+        return min;
+    }
+
+    /** Reset every counter to zero (used when a window rotates) */
+    public void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    /** Halve every counter — exponential decay so old traffic fades out */
+    public void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> 1);
+        }
+    }
+
+    private int index(int row, int hash) {
+        // Per-row seed + murmur3 finalizer → independent-enough hash functions from one hashCode
+        long h = (hash ^ ROW_SEEDS[row]) * 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return row * width + (int) (h & mask);
+    }
+}
@@ -0,0 +1,177 @@
+package com.yk.url_shortener.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel — O(1) schedule, O(1) amortized expiry, for millions of deadlines.
+ *
+ * How it works:
+ * - {@code levels} wheels of 64 slots each; a slot on level L covers 64^L ticks
+ *   (1s ticks: level 0 = the next 64s, level 1 = ~68min, level 2 = ~3 days, level 3 = ~194 days)
+ * - schedule(key, deadline): dropped into the slot of the lowest level whose range still covers it
+ * - advance(now): walks tick by tick; whenever a level wraps, the next slot of the level above
+ *   is emptied and its keys re-inserted lower down ("cascading"), then the current level-0 slot fires
+ *
+ * A priority queue would pay O(log n) per insert and keep every deadline sorted all the time;
+ * the wheel only sorts a deadline once it is within 64 ticks of firing.
+ *
+ * Deadlines beyond the horizon (64^levels ticks) are rejected — the caller needs another path
+ * for those (the link expiry service leaves them to its DB sweep).
+ *
+ * Rescheduling or cancelling is lazy: the latest deadline per key is kept in a map and stale
+ * slot entries are skipped when they come up.
+ *
+ * Thread safety: all methods are synchronized — schedule() runs on request threads,
+ * advance() on a single scheduler thread, both are a handful of array operations.
+ */
+public class HierarchicalTimingWheel<K> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final int levels;
+    private final List<List<Entry<K>>> slots;
+    private final Map<K, Long> deadlines = new HashMap<>();
+
+    private long currentTick;
+
+    /**
+     * @param tickMillis resolution — deadlines fire at most one tick late
+     * @param levels     number of wheels (1..10)
+     * @param nowMillis  start time
+     */
+    public HierarchicalTimingWheel(long tickMillis, int levels, long nowMillis) {
+        if (levels < 1 || levels > 10) {
+            throw new IllegalArgumentException("levels must be between 1 and 10");
+        }
+        this.tickMillis = Math.max(1, tickMillis);
+        this.levels = levels;
+        this.slots = new ArrayList<>(levels * SLOTS);
+        for (int i = 0; i < levels * SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.currentTick = nowMillis / this.tickMillis;
+    }
+
+    /**
+     * @return false if the deadline is beyond the horizon (not scheduled)
+     */
+    public synchronized boolean schedule(K key, long deadlineMillis) {
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        if (deadlineTick - currentTick >= horizonTicks()) {
+            return false;
+        }
+        deadlines.put(key, deadlineTick);
+        place(new Entry<>(key, deadlineTick));
+        return true;
+    }
+
+    public synchronized void cancel(K key) {
+        deadlines.remove(key);
+    }
+
+    public synchronized boolean contains(K key) {
+        return deadlines.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    /** How far ahead deadlines can be scheduled */
+    public long horizonMillis() {
+        return horizonTicks() * tickMillis;
+    }
+
+    /**
+     * Move time forward and hand every key whose deadline has passed to {@code expired}.
+     * Keys scheduled in the past fire on the next call.
+     */
+    public synchronized void advance(long nowMillis, Consumer<K> expired) {
+        long targetTick = nowMillis / tickMillis;
+        // Fire anything placed "now or earlier" (level 0, current slot) before moving on
+        fire(0, (int) (currentTick & SLOT_MASK), expired);
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade(expired);
+            fire(0, (int) (currentTick & SLOT_MASK), expired);
+        }
+    }
+
+    /** Re-distribute the upper-level slots that start at the current tick, highest level first */
+    private void cascade(Consumer<K> expired) {
+        int wrapped = 0;
+        while (wrapped + 1 < levels && ((currentTick >>> (SLOT_BITS * (wrapped + 1))) << (SLOT_BITS * (wrapped + 1)))
+                == currentTick) {
+            wrapped++;
+        }
+        for (int level = wrapped; level >= 1; level--) {
+            int index = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            List<Entry<K>> slot = slots.get(level * SLOTS + index);
+            if (slot.isEmpty()) {
+                continue;
+            }
+            List<Entry<K>> moving = new ArrayList<>(slot);
+            slot.clear();
+            for (Entry<K> entry : moving) {
+                if (isCurrent(entry)) {
+                    place(entry);
+                }
+            }
+        }
+    }
+
+    private void fire(int level, int index, Consumer<K> expired) {
+        List<Entry<K>> slot = slots.get(level * SLOTS + index);
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<Entry<K>> due = new ArrayList<>(slot);
+        slot.clear();
+        for (Entry<K> entry : due) {
+            if (!isCurrent(entry)) {
+                continue;
+            }
+            if (entry.deadlineTick > currentTick) {
+                // Scheduled a full wheel turn ahead of a slot that shares its index
+                place(entry);
+            } else {
+                deadlines.remove(entry.key);
+                expired.accept(entry.key);
+            }
+        }
+    }
+
+    private void place(Entry<K> entry) {
+        long delta = entry.deadlineTick - currentTick;
+        if (delta <= 0) {
+            slots.get((int) (currentTick & SLOT_MASK)).add(entry);
+            return;
+        }
+        int level = 0;
+        while (level + 1 < levels && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int index = (int) ((entry.deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        slots.get(level * SLOTS + index).add(entry);
+    }
+
+    /** False for entries superseded by a later schedule() or cancel() of the same key */
+    private boolean isCurrent(Entry<K> entry) {
+        Long deadline = deadlines.get(entry.key);
+        return deadline != null && deadline == entry.deadlineTick;
+    }
+
+    private long horizonTicks() {
+        return 1L << (SLOT_BITS * levels);
+    }
+
+    private record Entry<K>(K key, long deadlineTick) {
+    }
+}
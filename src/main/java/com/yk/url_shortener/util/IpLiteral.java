@@ -0,0 +1,246 @@
+package com.yk.url_shortener.util;
+
+/**
+ * Parses the host of a URL as an IP address literal — without DNS and without regexes.
+ *
+ * Accepts every form a browser or HTTP client would connect to, not just dotted quads:
+ * - IPv4 the way inet_aton reads it: 1 to 4 parts, each decimal, hex (0x7f) or octal (0177),
+ *   the last part filling the remaining bytes — "2130706433", "0x7f000001", "127.1" are all 127.0.0.1
+ * - IPv6 with "::" compression, an embedded dotted quad (::ffff:10.0.0.1), optional [brackets]
+ *   (URI.getHost keeps them) and an optional %zone suffix
+ *
+ * IPv4-mapped IPv6 addresses (::ffff:a.b.c.d) are returned as the 4-byte IPv4 address, so
+ * they are classified by the IPv4 rules.
+ *
+ * Anything else (a host name) → null.
+ */
+public final class IpLiteral {
+
+    private IpLiteral() {
+    }
+
+    /**
+     * @return 4 bytes (IPv4), 16 bytes (IPv6) or null if the host is not an IP literal
+     */
+    public static byte[] parse(String host) {
+        if (host == null || host.isEmpty()) {
+            return null;
+        }
+        int start = 0;
+        int end = host.length();
+        if (host.charAt(0) == '[') {
+            if (host.charAt(end - 1) != ']') {
+                return null;
+            }
+            start = 1;
+            end--;
+        }
+        int zone = host.indexOf('%', start);
+        if (zone >= 0 && zone < end) {
+            end = zone;
+        }
+        if (host.indexOf(':', start) >= 0) {
+            byte[] v6 = parseV6(host, start, end);
+            return v6 == null ? null : unmapV4(v6);
+        }
+        return start == 0 ? parseV4(host, 0, end) : null;
+    }
+
+    // IPv4 (inet_aton)
+
+    private static byte[] parseV4(String s, int start, int end) {
+        if (start >= end || s.charAt(end - 1) == '.') {
+            return null;
+        }
+        long[] parts = new long[4];
+        int count = 0;
+        int pos = start;
+        while (pos < end) {
+            if (count == 4) {
+                return null;
+            }
+            int dot = s.indexOf('.', pos);
+            if (dot < 0 || dot > end) {
+                dot = end;
+            }
+            long value = parseV4Part(s, pos, dot);
+            if (value < 0) {
+                return null;
+            }
+            parts[count++] = value;
+            pos = dot + 1;
+        }
+
+        // The last part fills the bytes that are left: a.b.c.d, a.b.(16 bits), a.(24 bits), (32 bits)
+        for (int i = 0; i < count - 1; i++) {
+            if (parts[i] > 0xFF) {
+                return null;
+            }
+        }
+        int lastBits = 8 * (5 - count);
+        if (parts[count - 1] >= (1L << lastBits)) {
+            return null;
+        }
+        long address = parts[count - 1];
+        for (int i = 0; i < count - 1; i++) {
+            address |= parts[i] << (24 - 8 * i);
+        }
+        return new byte[]{
+                (byte) (address >>> 24), (byte) (address >>> 16), (byte) (address >>> 8), (byte) address};
+    }
+
+    /** One inet_aton part, or -1 */
+    private static long parseV4Part(String s, int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+        int radix = 10;
+        if (end - start > 1 && s.charAt(start) == '0') {
+            char next = s.charAt(start + 1);
+            if (next == 'x' || next == 'X') {
+                radix = 16;
+                start += 2;
+                if (start == end) {
+                    return 0; // "0x" alone is 0 for inet_aton
+                }
+            } else {
+                radix = 8;
+                start++;
+            }
+        }
+        if (end - start > 11) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(s.charAt(i), radix);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * radix + digit;
+        }
+        return value > 0xFFFFFFFFL ? -1 : value;
+    }
+
+    // IPv6
+
+    private static byte[] parseV6(String s, int start, int end) {
+        byte[] address = new byte[16];
+        int index = 0;          // next byte to write
+        int compressAt = -1;    // byte index of "::"
+        int pos = start;
+
+        if (end - start >= 2 && s.charAt(start) == ':' && s.charAt(start + 1) == ':') {
+            compressAt = 0;
+            pos += 2;
+        } else if (start < end && s.charAt(start) == ':') {
+            return null;
+        }
+
+        while (pos < end) {
+            if (index == 16) {
+                return null;
+            }
+            int groupEnd = pos;
+            while (groupEnd < end && s.charAt(groupEnd) != ':' && s.charAt(groupEnd) != '.') {
+                groupEnd++;
+            }
+            if (groupEnd < end && s.charAt(groupEnd) == '.') {
+                // Embedded dotted quad — must be the last 4 bytes
+                if (index > 12) {
+                    return null;
+                }
+                byte[] v4 = parseDottedQuad(s, pos, end);
+                if (v4 == null) {
+                    return null;
+                }
+                System.arraycopy(v4, 0, address, index, 4);
+                index += 4;
+                pos = end;
+                break;
+            }
+            int length = groupEnd - pos;
+            if (length == 0 || length > 4) {
+                return null;
+            }
+            int group = 0;
+            for (int i = pos; i < groupEnd; i++) {
+                int digit = Character.digit(s.charAt(i), 16);
+                if (digit < 0) {
+                    return null;
+                }
+                group = (group << 4) | digit;
+            }
+            address[index++] = (byte) (group >>> 8);
+            address[index++] = (byte) group;
+            pos = groupEnd;
+            if (pos < end) {
+                pos++; // ':'
+                if (pos < end && s.charAt(pos) == ':') {
+                    if (compressAt >= 0) {
+                        return null;
+                    }
+                    compressAt = index;
+                    pos++;
+                } else if (pos == end) {
+                    return null; // trailing single ':'
+                }
+            }
+        }
+
+        if (compressAt >= 0) {
+            if (index == 16) {
+                return null;
+            }
+            int tail = index - compressAt;
+            System.arraycopy(address, compressAt, address, 16 - tail, tail);
+            for (int i = compressAt; i < 16 - tail; i++) {
+                address[i] = 0;
+            }
+        } else if (index != 16) {
+            return null;
+        }
+        return address;
+    }
+
+    /** Strict a.b.c.d (decimal only) — the only IPv4 form allowed inside IPv6 */
+    private static byte[] parseDottedQuad(String s, int start, int end) {
+        byte[] out = new byte[4];
+        int part = 0;
+        int value = -1;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '.') {
+                if (value < 0 || part == 3) {
+                    return null;
+                }
+                out[part++] = (byte) value;
+                value = -1;
+            } else if (c >= '0' && c <= '9') {
+                value = value < 0 ? c - '0' : value * 10 + (c - '0');
+                if (value > 255) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        if (value < 0 || part != 3) {
+            return null;
+        }
+        out[3] = (byte) value;
+        return out;
+    }
+
+    private static byte[] unmapV4(byte[] v6) {
+        for (int i = 0; i < 10; i++) {
+            if (v6[i] != 0) {
+                return v6;
+            }
+        }
+        if (v6[10] != (byte) 0xFF || v6[11] != (byte) 0xFF) {
+            return v6;
+        }
+        return new byte[]{v6[12], v6[13], v6[14], v6[15]};
+    }
+}
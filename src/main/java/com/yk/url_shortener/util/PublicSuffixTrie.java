@@ -0,0 +1,290 @@
+package com.yk.url_shortener.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Registrable domain (eTLD+1) extraction backed by the Public Suffix List
+ * (bundled as public_suffix_list.dat — ICANN and private sections, from https://publicsuffix.org).
+ *
+ * Examples:
+ * - https://en.wikipedia.org/wiki/Java     -> wikipedia.org
+ * - https://www.bbc.co.uk/news             -> bbc.co.uk
+ * - https://user:pw@Shop.Example.COM:8443/ -> example.com
+ * - https://someone.github.io/blog         -> someone.github.io   (github.io is a public suffix)
+ *
+ * How it works:
+ * - At load, every rule is compiled into a trie over labels, right to left
+ *   ("co.uk" → root -uk-> node -co-> node[SUFFIX]). Wildcard rules ("*.ck") set a flag on
+ *   their parent, exception rules ("!www.ck") a flag on their own node.
+ * - The trie's edges live in ONE open-addressing table keyed by (parent node, label): lookups hash
+ *   the label straight out of the URL string and compare chars in place — no substring per label.
+ * - {@link #registrableDomain(String)} scans the host out of the URL (no java.net.URI), walks its
+ *   labels from the right to find the longest matching public suffix, and returns that suffix plus
+ *   one label. The only allocation is the returned String.
+ *
+ * Hosts that are IP literals, single labels or public suffixes themselves are returned whole;
+ * URLs without a host give "unknown". Internationalized hosts match only in their ASCII (punycode) form.
+ *
+ * Immutable after load — safe to share.
+ */
+public final class PublicSuffixTrie {
+
+    public static final String UNKNOWN = "unknown";
+
+    private static final String RESOURCE = "/public_suffix_list.dat";
+    private static final int SUFFIX = 1;
+    private static final int WILDCARD = 2;
+    private static final int EXCEPTION = 4;
+
+    private int[] nodeFlags = new int[1024];
+    private int nodeCount = 1; // node 0 = root
+
+    // Edge table: slot → parent node, label, child node (child 0 = empty slot)
+    private int[] edgeParent;
+    private String[] edgeLabel;
+    private int[] edgeChild;
+    private int edgeMask;
+    private int edgeCount;
+
+    private PublicSuffixTrie(int expectedEdges) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedEdges * 2) - 1) << 1;
+        edgeParent = new int[capacity];
+        edgeLabel = new String[capacity];
+        edgeChild = new int[capacity];
+        edgeMask = capacity - 1;
+    }
+
+    /** The bundled list, loaded once on first use */
+    public static PublicSuffixTrie getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    private static final class DefaultHolder {
+        static final PublicSuffixTrie INSTANCE = loadBundled();
+    }
+
+    private static PublicSuffixTrie loadBundled() {
+        try (InputStream in = PublicSuffixTrie.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException(RESOURCE + " is missing from the classpath");
+            }
+            return load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + RESOURCE, e);
+        }
+    }
+
+    /** Compile a list in the Public Suffix List format ("//" comments, one rule per line) */
+    public static PublicSuffixTrie load(InputStream in) throws IOException {
+        PublicSuffixTrie trie = new PublicSuffixTrie(16_384);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int space = line.indexOf(' ');
+            String rule = (space >= 0 ? line.substring(0, space) : line).trim();
+            if (!rule.isEmpty() && !rule.startsWith("//")) {
+                trie.addRule(rule.toLowerCase(Locale.ROOT));
+            }
+        }
+        return trie;
+    }
+
+    /**
+     * eTLD+1 of the URL's host, lower-case
+     */
+    public String registrableDomain(String url) {
+        int scheme = url.indexOf("://");
+        if (scheme < 0) {
+            return UNKNOWN;
+        }
+        int start = scheme + 3;
+        int end = start;
+        int at = -1;
+        while (end < url.length()) {
+            char c = url.charAt(end);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            if (c == '@') {
+                at = end;
+            }
+            end++;
+        }
+        if (at >= 0) {
+            start = at + 1; // user info
+        }
+        if (start < end && url.charAt(start) == '[') {
+            int close = url.indexOf(']', start);
+            return close > start && close < end ? url.substring(start, close + 1) : UNKNOWN; // IPv6
+        }
+        int colon = url.indexOf(':', start);
+        if (colon >= 0 && colon < end) {
+            end = colon; // port
+        }
+        if (end > start && url.charAt(end - 1) == '.') {
+            end--; // "example.com."
+        }
+        if (start >= end) {
+            return UNKNOWN;
+        }
+        int domainStart = registrableStart(url, start, end);
+        return url.substring(domainStart, end).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Start index of the registrable domain within url[start, end)
+     */
+    private int registrableStart(CharSequence host, int start, int end) {
+        if (isIpv4(host, start, end)) {
+            return start;
+        }
+        int node = 0;
+        // Default rule "*": the last label alone is a public suffix
+        int labelEnd = end;
+        int labelStart = lastIndexOf(host, '.', start, labelEnd) + 1;
+        int suffixStart = labelStart;
+        while (true) {
+            int child = findEdge(node, host, labelStart, labelEnd);
+            if (child != 0 && (nodeFlags[child] & EXCEPTION) != 0) {
+                // Exception: the suffix stops before this label, this label is the registrable one
+                return labelStart;
+            }
+            if (child != 0 && (nodeFlags[child] & SUFFIX) != 0 || (nodeFlags[node] & WILDCARD) != 0) {
+                suffixStart = labelStart;
+            }
+            if (child == 0 || labelStart == start) {
+                break;
+            }
+            node = child;
+            labelEnd = labelStart - 1;
+            labelStart = lastIndexOf(host, '.', start, labelEnd) + 1;
+        }
+        if (suffixStart == start) {
+            return start; // the host is a public suffix itself
+        }
+        return lastIndexOf(host, '.', start, suffixStart - 1) + 1;
+    }
+
+    // ─────────────────────────────────────────────
+    // Trie construction
+    // ─────────────────────────────────────────────
+
+    private void addRule(String rule) {
+        int flags = SUFFIX;
+        if (rule.startsWith("!")) {
+            flags = EXCEPTION;
+            rule = rule.substring(1);
+        }
+        String[] labels = rule.split("\\.");
+        int node = 0;
+        for (int i = labels.length - 1; i >= 0; i--) {
+            if (i == 0 && labels[i].equals("*")) {
+                nodeFlags[node] |= WILDCARD;
+                return;
+            }
+            int child = findEdge(node, labels[i], 0, labels[i].length());
+            if (child == 0) {
+                child = addEdge(node, labels[i]);
+            }
+            node = child;
+        }
+        nodeFlags[node] |= flags;
+    }
+
+    private int addEdge(int parent, String label) {
+        if (edgeCount * 2 >= edgeChild.length) {
+            growEdges();
+        }
+        int child = nodeCount++;
+        if (child >= nodeFlags.length) {
+            nodeFlags = Arrays.copyOf(nodeFlags, nodeFlags.length * 2);
+        }
+        insertEdge(parent, label, child);
+        return child;
+    }
+
+    private void insertEdge(int parent, String label, int child) {
+        int slot = hash(parent, label, 0, label.length()) & edgeMask;
+        while (edgeChild[slot] != 0) {
+            slot = (slot + 1) & edgeMask;
+        }
+        edgeParent[slot] = parent;
+        edgeLabel[slot] = label;
+        edgeChild[slot] = child;
+        edgeCount++;
+    }
+
+    private void growEdges() {
+        int[] parents = edgeParent;
+        String[] labels = edgeLabel;
+        int[] children = edgeChild;
+        edgeParent = new int[parents.length * 2];
+        edgeLabel = new String[parents.length * 2];
+        edgeChild = new int[parents.length * 2];
+        edgeMask = edgeChild.length - 1;
+        edgeCount = 0;
+        for (int i = 0; i < children.length; i++) {
+            if (children[i] != 0) {
+                insertEdge(parents[i], labels[i], children[i]);
+            }
+        }
+    }
+
+    /** Child of parent for the label text[from, to), case-insensitive; 0 if none */
+    private int findEdge(int parent, CharSequence text, int from, int to) {
+        int slot = hash(parent, text, from, to) & edgeMask;
+        while (edgeChild[slot] != 0) {
+            if (edgeParent[slot] == parent && labelEquals(edgeLabel[slot], text, from, to)) {
+                return edgeChild[slot];
+            }
+            slot = (slot + 1) & edgeMask;
+        }
+        return 0;
+    }
+
+    private static int hash(int parent, CharSequence text, int from, int to) {
+        int h = parent * 0x9E3779B9;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + Character.toLowerCase(text.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean labelEquals(String label, CharSequence text, int from, int to) {
+        if (label.length() != to - from) {
+            return false;
+        }
+        for (int i = 0; i < label.length(); i++) {
+            if (label.charAt(i) != Character.toLowerCase(text.charAt(from + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int lastIndexOf(CharSequence text, char c, int start, int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return start - 1;
+    }
+
+    private static boolean isIpv4(CharSequence host, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = host.charAt(i);
+            if (c != '.' && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
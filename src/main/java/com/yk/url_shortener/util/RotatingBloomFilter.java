@@ -0,0 +1,113 @@
+package com.yk.url_shortener.util;
+
+/**
+ * "Seen in the last N seconds?" in constant memory — a ring of Bloom filters, one per time bucket.
+ *
+ * How it works:
+ * - Time is cut into buckets of N / buckets; the ring holds buckets + 1 filters, each tagged with
+ *   the bucket number it covers
+ * - {@link #addIfAbsent}: the key is looked up in every live filter; if none has it, it goes into
+ *   the filter of its own bucket and the call answers true (first time in the window)
+ * - A bucket newer than the newest one seen moves the ring on: the filters of buckets that fell
+ *   out of the window are cleared and reused — nothing is allocated after construction, and no
+ *   per-key state ever has to be expired
+ * - A key is remembered for N to N + N/buckets after it was added (its bucket stays live until
+ *   buckets + 1 newer ones exist). A repeat does not re-add the key: the window runs from the
+ *   first occurrence
+ * - A time older than the whole ring cannot be checked — answered true, not added
+ *
+ * No false negatives inside the window. False positives (a new key reported as seen) follow the
+ * fill of the live filters — see {@link #falsePositiveRate()}.
+ *
+ * Not thread-safe — callers stripe instances and hold a lock per instance (ClickDeduplicator).
+ */
+public class RotatingBloomFilter {
+
+    private final BloomFilter[] filters;
+    private final long[] bucketOf;
+    private final long[] added;
+    private final long bucketMillis;
+    private long newest = Long.MIN_VALUE;
+
+    /**
+     * @param windowMillis         N — how long a key is remembered (at least)
+     * @param buckets              filters the window is cut into (more = tighter window, more hashing)
+     * @param expectedKeysPerWindow distinct keys added per window, for sizing
+     * @param falsePositiveRate    target rate once the window is full, e.g. 0.01
+     */
+    public RotatingBloomFilter(long windowMillis, int buckets, long expectedKeysPerWindow, double falsePositiveRate) {
+        int count = Math.max(1, buckets);
+        this.bucketMillis = Math.max(1, windowMillis / count);
+        this.filters = new BloomFilter[count + 1];
+        this.bucketOf = new long[count + 1];
+        this.added = new long[count + 1];
+        // A lookup ORs the errors of all live filters — give each its share of the target rate
+        long perBucket = Math.max(1, expectedKeysPerWindow / count);
+        for (int i = 0; i < filters.length; i++) {
+            filters[i] = new BloomFilter(perBucket, falsePositiveRate / filters.length);
+            bucketOf[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * @return true if the key was not seen in the window (it is now), false if it (maybe) was
+     */
+    public boolean addIfAbsent(String key, long timeMillis) {
+        long bucket = Math.floorDiv(timeMillis, bucketMillis);
+        if (bucket > newest) {
+            advance(bucket);
+        } else if (!isLive(bucket)) {
+            return true;
+        }
+        long hash = BloomFilter.hash(key);
+        for (int i = 0; i < filters.length; i++) {
+            if (isLive(bucketOf[i]) && filters[i].mightContain(hash)) {
+                return false;
+            }
+        }
+        int slot = slotOf(bucket);
+        filters[slot].put(hash);
+        added[slot]++;
+        return true;
+    }
+
+    /** Bucket number of a time — keys of the same bucket expire together */
+    public long bucketOf(long timeMillis) {
+        return Math.floorDiv(timeMillis, bucketMillis);
+    }
+
+    /** Whether keys added in this bucket are still remembered */
+    public boolean isLive(long bucket) {
+        return newest != Long.MIN_VALUE && bucket != Long.MIN_VALUE && bucket > newest - filters.length;
+    }
+
+    /** Chance that a new key is reported as seen right now: 1 - Π(1 - fpr) over the live filters */
+    public double falsePositiveRate() {
+        double none = 1;
+        for (int i = 0; i < filters.length; i++) {
+            if (isLive(bucketOf[i]) && added[i] > 0) {
+                none *= 1 - filters[i].falsePositiveRate(added[i]);
+            }
+        }
+        return 1 - none;
+    }
+
+    public long sizeInBytes() {
+        return filters.length * filters[0].sizeInBytes();
+    }
+
+    private void advance(long bucket) {
+        long from = newest == Long.MIN_VALUE ? bucket : Math.max(newest + 1, bucket - filters.length + 1);
+        for (long b = from; b <= bucket; b++) {
+            int slot = slotOf(b);
+            filters[slot].clear();
+            bucketOf[slot] = b;
+            added[slot] = 0;
+        }
+        newest = bucket;
+    }
+
+    private int slotOf(long bucket) {
+        return (int) Math.floorMod(bucket, (long) filters.length);
+    }
+}
@@ -0,0 +1,121 @@
+package com.yk.url_shortener.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sliding-window top-K — "most frequent keys in the last N minutes" in constant memory.
+ *
+ * How it works:
+ * - A ring of buckets, one per bucket-millis of time (e.g. one per minute for the last hour)
+ * - Each bucket is a {@link SpaceSaving} summary of fixed capacity, stamped with its bucket number;
+ *   a write into a bucket whose stamp is stale clears it first — rotation needs no timer
+ * - top(window, n) merges the buckets covering the window (the current, partial bucket included):
+ *   counts of a key are summed across buckets, and a key missing from a FULL bucket may still
+ *   have been counted there up to that bucket's minimum — added to its error bound
+ *
+ * Memory: buckets x capacity counters, whatever the number of distinct keys.
+ * Resolution: one bucket — a 5-minute window with 1-minute buckets covers 5 to 6 minutes.
+ *
+ * Thread-safe: each bucket is its own lock, so writers only contend within the same bucket.
+ */
+public class SlidingWindowTopK {
+
+    /** One result row: estimated count, and how much of it may be over-counting */
+    public record Item(String key, long count, long error) {
+    }
+
+    private final long bucketMillis;
+    private final Bucket[] buckets;
+
+    private static final class Bucket {
+        final SpaceSaving summary;
+        long number = -1;
+
+        Bucket(int capacity) {
+            this.summary = new SpaceSaving(capacity);
+        }
+    }
+
+    /**
+     * @param bucketMillis  time covered by one bucket
+     * @param bucketCount   buckets kept — the longest window is (bucketCount - 1) buckets
+     * @param capacity      keys monitored per bucket
+     */
+    public SlidingWindowTopK(long bucketMillis, int bucketCount, int capacity) {
+        this.bucketMillis = Math.max(1, bucketMillis);
+        this.buckets = new Bucket[Math.max(2, bucketCount)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket(capacity);
+        }
+    }
+
+    public void add(String key, long n, long nowMillis) {
+        long number = nowMillis / bucketMillis;
+        Bucket bucket = buckets[(int) (number % buckets.length)];
+        synchronized (bucket) {
+            if (bucket.number != number) {
+                bucket.summary.clear();
+                bucket.number = number;
+            }
+            bucket.summary.offer(key, n);
+        }
+    }
+
+    /**
+     * Top n keys over the last windowMillis (clamped to {@link #maxWindowMillis()}), highest count first
+     */
+    public List<Item> top(long windowMillis, int n, long nowMillis) {
+        if (n <= 0) {
+            return new ArrayList<>();
+        }
+        long current = nowMillis / bucketMillis;
+        long covered = Math.max(1, Math.min(buckets.length, (windowMillis + bucketMillis - 1) / bucketMillis + 1));
+
+        Map<String, long[]> merged = new HashMap<>();
+        List<Long> minimums = new ArrayList<>();
+        List<Set<String>> present = new ArrayList<>();
+        for (long number = current - covered + 1; number <= current; number++) {
+            if (number < 0) {
+                continue;
+            }
+            Bucket bucket = buckets[(int) (number % buckets.length)];
+            synchronized (bucket) {
+                if (bucket.number != number) {
+                    continue; // nothing was written in that bucket
+                }
+                Set<String> keys = new HashSet<>();
+                for (SpaceSaving.Entry entry : bucket.summary.entries()) {
+                    long[] total = merged.computeIfAbsent(entry.key(), k -> new long[2]);
+                    total[0] += entry.count();
+                    total[1] += entry.error();
+                    keys.add(entry.key());
+                }
+                minimums.add(bucket.summary.minCount());
+                present.add(keys);
+            }
+        }
+
+        List<Item> items = new ArrayList<>(merged.size());
+        merged.forEach((key, total) -> {
+            long error = total[1];
+            for (int i = 0; i < present.size(); i++) {
+                if (!present.get(i).contains(key)) {
+                    error += minimums.get(i);
+                }
+            }
+            items.add(new Item(key, total[0], error));
+        });
+        items.sort((a, b) -> Long.compare(b.count(), a.count()));
+        return items.size() > n ? new ArrayList<>(items.subList(0, n)) : items;
+    }
+
+    /** The longest window that can be answered */
+    public long maxWindowMillis() {
+        return (buckets.length - 1) * bucketMillis;
+    }
+}
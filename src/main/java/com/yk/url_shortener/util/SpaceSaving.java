@@ -0,0 +1,134 @@
+package com.yk.url_shortener.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving — the top-K most frequent keys of a stream in a fixed number of counters.
+ *
+ * How it works (Metwally et al.):
+ * - Up to capacity counters, each (key, count, error)
+ * - offer(key) for a monitored key: count += n
+ * - offer(key) for a new key while full: the counter with the SMALLEST count is taken over —
+ *   the new key inherits that count (+ n) and records it as its error
+ *
+ * Guarantees: every key with true frequency > total / capacity is monitored, and for every
+ * monitored key  count - error ≤ true count ≤ count. Heavy hitters are never lost; the long tail
+ * just keeps recycling the minimum counter.
+ *
+ * The counters sit in an indexed min-heap (key → heap slot), so both cases are O(log capacity).
+ *
+ * Not thread-safe — callers synchronize (see {@link SlidingWindowTopK}).
+ */
+public class SpaceSaving {
+
+    /** One monitored key */
+    public record Entry(String key, long count, long error) {
+    }
+
+    private final int capacity;
+    private final String[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<String, Integer> slots;
+    private int size;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.keys = new String[this.capacity];
+        this.counts = new long[this.capacity];
+        this.errors = new long[this.capacity];
+        this.slots = new HashMap<>(this.capacity * 2);
+    }
+
+    public void offer(String key, long n) {
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            counts[slot] += n;
+            siftDown(slot);
+            return;
+        }
+        if (size < capacity) {
+            keys[size] = key;
+            counts[size] = n;
+            errors[size] = 0;
+            slots.put(key, size);
+            siftUp(size++);
+            return;
+        }
+        // Take over the minimum counter (the heap root)
+        slots.remove(keys[0]);
+        errors[0] = counts[0];
+        counts[0] += n;
+        keys[0] = key;
+        slots.put(key, 0);
+        siftDown(0);
+    }
+
+    /** Smallest monitored count — an upper bound for any key that is not monitored (0 until full) */
+    public long minCount() {
+        return size < capacity ? 0 : counts[0];
+    }
+
+    /** Monitored keys, in no particular order */
+    public List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry(keys[i], counts[i], errors[i]));
+        }
+        return entries;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, null);
+        slots.clear();
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[parent] <= counts[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left + 1 < size && counts[left + 1] < counts[left] ? left + 1 : left;
+            if (counts[i] <= counts[smallest]) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        String key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+        long error = errors[a];
+        errors[a] = errors[b];
+        errors[b] = error;
+        slots.put(keys[a], a);
+        slots.put(keys[b], b);
+    }
+}
@@ -0,0 +1,187 @@
+package com.yk.url_shortener.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact long-URL encoding for in-process caches — a learned dictionary of shared prefixes.
+ *
+ * Most links share a long head: the same scheme + host, the same first path segments
+ * ("https://www.youtube.com/watch?v=", "https://github.com/org/repo/blob/main/").
+ * Each distinct head is stored once here; an encoded URL is just
+ *
+ *   [prefix id varint][rest of the URL, UTF-8]        (id 0 = no prefix)
+ *
+ * so a cached link costs one byte[] of (1-3 + suffix) bytes instead of a String of the whole URL.
+ *
+ * How prefixes are learned (on encode):
+ * - Candidate cut points: after the host ("https://host/"), after each of the next
+ *   max-path-depth '/' of the path, and at the '?' of the query
+ * - The host prefix is admitted on first sight (few hosts, many links each)
+ * - Deeper prefixes are admitted once seen min-occurrences times — one-off paths never enter
+ * - The longest admitted candidate wins
+ * - Capped at max-entries; once full the dictionary stops growing (encodings stay valid —
+ *   ids are never reused or removed)
+ *
+ * Decoding is one array read plus one String allocation ({@link #decode}).
+ *
+ * Thread-safe. Encode takes a lock only when it admits a new prefix; decode never locks.
+ */
+public class UrlPrefixDictionary {
+
+    private final int maxEntries;
+    private final int maxPathDepth;
+    private final int minOccurrences;
+
+    /** Prefix → id */
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    /** Id → prefix bytes (UTF-8); index 0 unused. Replaced on growth, read without locking */
+    private volatile byte[][] prefixes = new byte[64][];
+    private int nextId = 1;
+    /** Sightings of not-yet-admitted deeper prefixes; cleared when it reaches its cap */
+    private final Map<String, Integer> candidates = new ConcurrentHashMap<>();
+
+    public UrlPrefixDictionary(int maxEntries, int maxPathDepth, int minOccurrences) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxPathDepth = Math.max(0, maxPathDepth);
+        this.minOccurrences = Math.max(1, minOccurrences);
+    }
+
+    public byte[] encode(String url) {
+        int[] cuts = cutPoints(url);
+        int prefixId = 0;
+        int prefixLength = 0;
+        for (int i = cuts.length - 1; i >= 0; i--) {
+            if (cuts[i] <= 0) {
+                continue;
+            }
+            String prefix = url.substring(0, cuts[i]);
+            Integer id = ids.get(prefix);
+            if (id == null) {
+                id = learn(prefix, i == 0);
+            }
+            if (id != null) {
+                prefixId = id;
+                prefixLength = cuts[i];
+                break;
+            }
+        }
+
+        byte[] suffix = url.substring(prefixLength).getBytes(StandardCharsets.UTF_8);
+        int header = varIntSize(prefixId);
+        byte[] encoded = new byte[header + suffix.length];
+        writeVarInt(encoded, prefixId);
+        System.arraycopy(suffix, 0, encoded, header, suffix.length);
+        return encoded;
+    }
+
+    public String decode(byte[] encoded) {
+        int prefixId = readVarInt(encoded);
+        int header = varIntSize(prefixId);
+        if (prefixId == 0) {
+            return new String(encoded, header, encoded.length - header, StandardCharsets.UTF_8);
+        }
+        byte[] prefix = prefixes[prefixId];
+        byte[] whole = Arrays.copyOf(prefix, prefix.length + encoded.length - header);
+        System.arraycopy(encoded, header, whole, prefix.length, encoded.length - header);
+        return new String(whole, StandardCharsets.UTF_8);
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    /** Bytes held by the prefixes themselves */
+    public long prefixBytes() {
+        long total = 0;
+        for (byte[] prefix : prefixes) {
+            total += prefix != null ? prefix.length : 0;
+        }
+        return total;
+    }
+
+    /**
+     * Cut points, shortest first: [host prefix, path prefixes..., query prefix]; 0 = none
+     */
+    private int[] cutPoints(String url) {
+        int[] cuts = new int[maxPathDepth + 2];
+        int scheme = url.indexOf("://");
+        if (scheme < 0) {
+            return cuts;
+        }
+        int query = url.indexOf('?');
+        int end = query >= 0 ? query : url.length();
+        int slash = url.indexOf('/', scheme + 3);
+        if (slash < 0 || slash >= end) {
+            // No path — the whole authority is the prefix
+            cuts[0] = end;
+        } else {
+            cuts[0] = slash + 1;
+            for (int depth = 1; depth <= maxPathDepth; depth++) {
+                slash = url.indexOf('/', slash + 1);
+                if (slash < 0 || slash >= end) {
+                    break;
+                }
+                cuts[depth] = slash + 1;
+            }
+        }
+        if (query >= 0) {
+            cuts[maxPathDepth + 1] = query + 1;
+        }
+        return cuts;
+    }
+
+    private Integer learn(String prefix, boolean hostPrefix) {
+        if (!hostPrefix) {
+            if (candidates.size() >= maxEntries * 4) {
+                candidates.clear();
+            }
+            if (candidates.merge(prefix, 1, Integer::sum) < minOccurrences) {
+                return null;
+            }
+            candidates.remove(prefix);
+        }
+        synchronized (this) {
+            Integer existing = ids.get(prefix);
+            if (existing != null || nextId > maxEntries) {
+                return existing;
+            }
+            int id = nextId++;
+            byte[][] table = prefixes;
+            if (id >= table.length) {
+                table = Arrays.copyOf(table, table.length * 2);
+            }
+            table[id] = prefix.getBytes(StandardCharsets.UTF_8);
+            // Publish the slot before the id can be handed out
+            prefixes = table;
+            ids.put(prefix, id);
+            return id;
+        }
+    }
+
+    private static int varIntSize(int value) {
+        return value < 0x80 ? 1 : value < 0x4000 ? 2 : value < 0x200000 ? 3 : 4;
+    }
+
+    private static void writeVarInt(byte[] target, int value) {
+        int i = 0;
+        while (value >= 0x80) {
+            target[i++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[i] = (byte) value;
+    }
+
+    private static int readVarInt(byte[] source) {
+        int value = 0;
+        for (int i = 0, shift = 0; ; i++, shift += 7) {
+            byte b = source[i];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
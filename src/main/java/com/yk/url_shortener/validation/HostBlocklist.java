@@ -0,0 +1,220 @@
+package com.yk.url_shortener.validation;
+
+import com.yk.url_shortener.util.BloomFilter;
+import com.yk.url_shortener.util.CidrTrie;
+import com.yk.url_shortener.util.IpLiteral;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Host classification for URL validation — private/local addresses and blocklisted hosts.
+ *
+ * How it works:
+ * - IP literals (every form: dotted, decimal, hex, octal, IPv6, IPv4-mapped IPv6) are parsed by
+ *   {@link IpLiteral} — no DNS, no regex — and looked up in {@link CidrTrie}s:
+ *   1. the built-in special-purpose ranges (loopback, RFC 1918, link-local, CGNAT, ULA, multicast, ...)
+ *      → PRIVATE
+ *   2. the CIDRs from the blocklist file → BLOCKED
+ * - Host names: "localhost", *.localhost and *.local → PRIVATE; otherwise the host and each parent
+ *   domain (a.b.evil.com, b.evil.com, evil.com) are checked against the blocklist's domains —
+ *   a Bloom filter answers "definitely not listed" for almost every host, and only a Bloom hit
+ *   pays for the exact binary search over the sorted domain array
+ *
+ * The blocklist file (app.blocklist.file, optional) has one entry per line: a domain, an IP, a CIDR,
+ * or a hosts-file line ("0.0.0.0 evil.com"); '#' starts a comment. It is re-read when its
+ * modification time changes (checked every reload-ms). A new snapshot is built off to the side and
+ * swapped in with one volatile write — validation never waits for a reload, and a file that
+ * cannot be read keeps the previous snapshot.
+ *
+ * Memory for n listed domains: the strings themselves plus ~1.2 bytes/domain of Bloom filter (1%).
+ */
+@Slf4j
+@Component
+public class HostBlocklist {
+
+    public enum Verdict {
+        ALLOWED,
+        /** Loopback, private network, link-local, ... */
+        PRIVATE,
+        /** On the blocklist */
+        BLOCKED
+    }
+
+    /** Special-purpose ranges (IANA IPv4/IPv6 special-purpose registries) that are never shortened */
+    static final String[] PRIVATE_RANGES = {
+            "0.0.0.0/8", "10.0.0.0/8", "100.64.0.0/10", "127.0.0.0/8", "169.254.0.0/16", "172.16.0.0/12",
+            "192.0.0.0/24", "192.0.2.0/24", "192.168.0.0/16", "198.18.0.0/15", "198.51.100.0/24",
+            "203.0.113.0/24", "224.0.0.0/4", "240.0.0.0/4",
+            "::/128", "::1/128", "64:ff9b:1::/48", "100::/64", "2001:db8::/32", "fc00::/7", "fe80::/10",
+            "fec0::/10", "ff00::/8"
+    };
+
+    private static final CidrTrie PRIVATE_CIDRS = new CidrTrie();
+
+    static {
+        for (String range : PRIVATE_RANGES) {
+            PRIVATE_CIDRS.add(range);
+        }
+    }
+
+    private record Snapshot(CidrTrie cidrs, BloomFilter domainFilter, String[] domains, long modifiedAt) {
+    }
+
+    private static final Snapshot EMPTY = new Snapshot(new CidrTrie(), new BloomFilter(1, 0.01), new String[0], -1);
+
+    private final Path file;
+    private volatile Snapshot snapshot = EMPTY;
+
+    public HostBlocklist(@Value("${app.blocklist.file:}") String file) {
+        this.file = file == null || file.isBlank() ? null : Path.of(file);
+        reloadIfChanged();
+    }
+
+    /** Only the built-in private ranges — for validators created outside Spring */
+    public static HostBlocklist builtIn() {
+        return new HostBlocklist(null);
+    }
+
+    public Verdict classify(String host) {
+        if (host == null || host.isEmpty()) {
+            return Verdict.ALLOWED;
+        }
+        host = host.toLowerCase(Locale.ROOT);
+        if (host.endsWith(".")) {
+            host = host.substring(0, host.length() - 1);
+        }
+
+        Snapshot current = snapshot;
+        byte[] address = IpLiteral.parse(host);
+        if (address != null) {
+            if (PRIVATE_CIDRS.contains(address)) {
+                return Verdict.PRIVATE;
+            }
+            return current.cidrs().contains(address) ? Verdict.BLOCKED : Verdict.ALLOWED;
+        }
+
+        if (host.equals("localhost") || host.endsWith(".localhost") || host.endsWith(".local")) {
+            return Verdict.PRIVATE;
+        }
+        if (current.domains().length > 0) {
+            for (int from = 0; from >= 0; from = nextLabel(host, from)) {
+                String domain = from == 0 ? host : host.substring(from);
+                if (current.domainFilter().mightContain(domain)
+                        && Arrays.binarySearch(current.domains(), domain) >= 0) {
+                    return Verdict.BLOCKED;
+                }
+            }
+        }
+        return Verdict.ALLOWED;
+    }
+
+    /**
+     * Re-read the blocklist file if it changed since the last load.
+     *
+     * @return true if a new snapshot was swapped in
+     */
+    @Scheduled(fixedDelayString = "${app.blocklist.reload-ms:30000}")
+    public boolean reloadIfChanged() {
+        if (file == null) {
+            return false;
+        }
+        try {
+            if (!Files.exists(file)) {
+                if (snapshot != EMPTY) {
+                    log.warn("Blocklist {} disappeared — keeping the last loaded one", file);
+                }
+                return false;
+            }
+            long modifiedAt = Files.getLastModifiedTime(file).toMillis();
+            if (modifiedAt == snapshot.modifiedAt()) {
+                return false;
+            }
+            long start = System.nanoTime();
+            Snapshot loaded = load(file, modifiedAt);
+            snapshot = loaded;
+            log.info("Loaded blocklist {}: {} domains, {} CIDRs in {} ms", file, loaded.domains().length,
+                    loaded.cidrs().size(), (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load blocklist {} — keeping the last loaded one: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    public int domainCount() {
+        return snapshot.domains().length;
+    }
+
+    public int cidrCount() {
+        return snapshot.cidrs().size();
+    }
+
+    private static Snapshot load(Path file, long modifiedAt) throws IOException {
+        CidrTrie cidrs = new CidrTrie();
+        List<String> domains = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comment = line.indexOf('#');
+                String entry = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                if (entry.isEmpty()) {
+                    continue;
+                }
+                // hosts-file format: "<address> <name>" — the name is the entry
+                int space = lastWhitespace(entry);
+                if (space >= 0) {
+                    entry = entry.substring(space + 1);
+                }
+                entry = entry.toLowerCase(Locale.ROOT);
+                int slash = entry.indexOf('/');
+                if (IpLiteral.parse(slash < 0 ? entry : entry.substring(0, slash)) != null) {
+                    cidrs.add(entry);
+                    continue;
+                }
+                if (entry.startsWith("*.")) {
+                    entry = entry.substring(2);
+                }
+                if (entry.endsWith(".")) {
+                    entry = entry.substring(0, entry.length() - 1);
+                }
+                if (!entry.isEmpty()) {
+                    domains.add(entry);
+                }
+            }
+        }
+
+        String[] sorted = domains.stream().distinct().sorted().toArray(String[]::new);
+        BloomFilter filter = new BloomFilter(sorted.length, 0.01);
+        for (String domain : sorted) {
+            filter.put(domain);
+        }
+        return new Snapshot(cidrs, filter, sorted, modifiedAt);
+    }
+
+    /** Start of the next parent domain, or -1 after the last label */
+    private static int nextLabel(String host, int from) {
+        int dot = host.indexOf('.', from);
+        return dot < 0 ? -1 : dot + 1;
+    }
+
+    private static int lastWhitespace(String entry) {
+        for (int i = entry.length() - 1; i >= 0; i--) {
+            if (Character.isWhitespace(entry.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
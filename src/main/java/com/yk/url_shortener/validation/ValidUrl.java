@@ -20,6 +20,14 @@ public @interface ValidUrl {
     /**
      * Whether to check if the URL is actually reachable
      * Default: false (to avoid network calls in validation)
+     *
+     * The check is advisory (ReachabilityService): it only rejects a host KNOWN to be down.
+     * - A probe still running after app.reachability.wait-ms is accepted (PENDING). With the default
+     *   wait-ms (1s) below timeout-ms (3s), the first submission for a host that never answers is
+     *   accepted; set wait-ms >= timeout-ms to reject it, at the cost of holding the request thread
+     *   for up to timeout-ms
+     * - Any HTTP answer below 500 counts as reachable, 4xx included: the result stands for the
+     *   whole host, and many servers answer HEAD with 403/404/405 while serving GET fine
      */
     boolean checkReachability() default false;
 
@@ -1,10 +1,11 @@
 package com.yk.url_shortener.validation;
 
+import com.yk.url_shortener.service.ReachabilityService;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
@@ -18,14 +19,29 @@ import java.util.List;
  * 1. Checks if the string is a valid URL
  * 2. Validates the protocol (http/https)
  * 3. Checks for valid host
- * 4. Optionally checks if URL is reachable
+ * 4. Rejects private/local addresses and blocklisted hosts ({@link HostBlocklist})
+ * 5. Optionally checks if URL is reachable ({@link ReachabilityService} — bounded wait, cached per host)
  */
 @Component
 public class ValidUrlValidator implements ConstraintValidator<ValidUrl, String> {
 
+    private final HostBlocklist hostBlocklist;
+    private final ReachabilityService reachabilityService;
+
     private boolean checkReachability;
     private List<String> allowedProtocols;
 
+    @Autowired
+    public ValidUrlValidator(HostBlocklist hostBlocklist, ReachabilityService reachabilityService) {
+        this.hostBlocklist = hostBlocklist;
+        this.reachabilityService = reachabilityService;
+    }
+
+    /** Outside Spring: built-in private ranges only, no blocklist file, default reachability settings */
+    public ValidUrlValidator() {
+        this(HostBlocklist.builtIn(), ReachabilityService.standalone());
+    }
+
     @Override
     public void initialize(ValidUrl constraintAnnotation) {
         this.checkReachability = constraintAnnotation.checkReachability();
@@ -84,16 +100,24 @@ public class ValidUrlValidator implements ConstraintValidator<ValidUrl, String>
                 return false;
             }
 
-            // Step 7: Check for localhost/internal IPs (optional security check)
-            if (isLocalOrPrivateAddress(host)) {
+            // Step 7: Check for localhost/internal IPs and blocklisted hosts
+            HostBlocklist.Verdict verdict = hostBlocklist.classify(host);
+            if (verdict == HostBlocklist.Verdict.PRIVATE) {
                 context.disableDefaultConstraintViolation();
                 context.buildConstraintViolationWithTemplate(
                     "Cannot shorten localhost or private network URLs"
                 ).addConstraintViolation();
                 return false;
             }
+            if (verdict == HostBlocklist.Verdict.BLOCKED) {
+                context.disableDefaultConstraintViolation();
+                context.buildConstraintViolationWithTemplate(
+                    "URL host is blocklisted"
+                ).addConstraintViolation();
+                return false;
+            }
 
-            // Step 8: Optional reachability check (network call - expensive!)
+            // Step 8: Optional reachability check (off-thread probe, cached per host)
             if (checkReachability && !isReachable(url)) {
                 context.disableDefaultConstraintViolation();
                 context.buildConstraintViolationWithTemplate(
@@ -120,52 +144,15 @@ public class ValidUrlValidator implements ConstraintValidator<ValidUrl, String>
     }
 
     /**
-     * Check if the URL points to localhost or private network
-     */
-    private boolean isLocalOrPrivateAddress(String host) {
-        host = host.toLowerCase();
-
-        // Check for localhost variants
-        if (host.equals("localhost") ||
-            host.equals("127.0.0.1") ||
-            host.equals("::1") ||
-            host.startsWith("127.") ||
-            host.endsWith(".local")) {
-            return true;
-        }
-
-        // Check for private IP ranges (192.168.x.x, 10.x.x.x, 172.16-31.x.x)
-        if (host.matches("^192\\.168\\..*") ||
-            host.matches("^10\\..*") ||
-            host.matches("^172\\.(1[6-9]|2[0-9]|3[0-1])\\..*")) {
-            return true;
-        }
-
-        return false;
-    }
-
-    /**
-     * Check if URL is reachable by making a HEAD request
-     * This is an expensive operation - use sparingly!
+     * Only a host known to be down fails validation. An answer that is not in yet (PENDING) is
+     * accepted — in verify-new-links mode the link is checked in the background instead, so only
+     * the cached result is consulted here.
      */
     private boolean isReachable(URL url) {
-        try {
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("HEAD");
-            connection.setConnectTimeout(3000); // 3 seconds timeout
-            connection.setReadTimeout(3000);
-            connection.setInstanceFollowRedirects(true);
-
-            int responseCode = connection.getResponseCode();
-            connection.disconnect();
-
-            // Accept 2xx and 3xx response codes
-            return responseCode >= 200 && responseCode < 400;
-
-        } catch (Exception e) {
-            // URL is not reachable
-            return false;
-        }
+        ReachabilityService.Status status = reachabilityService.isVerifyNewLinks()
+                ? reachabilityService.cached(url.toString()).orElse(ReachabilityService.Status.PENDING)
+                : reachabilityService.checkNow(url.toString());
+        return status != ReachabilityService.Status.UNREACHABLE;
     }
 }
 
@@ -0,0 +1,150 @@
+package com.yk.url_shortener.audit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogTest {
+
+    private static final long DAY = 24 * 3600 * 1000L;
+
+    @TempDir
+    Path directory;
+
+    private AuditLog auditLog;
+
+    @AfterEach
+    void tearDown() {
+        if (auditLog != null) {
+            auditLog.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Test 1: Range queries should span rotated segments and survive a reopen after a torn write")
+    void testRangeQueryAcrossSegments() throws IOException {
+        auditLog = new AuditLog(directory, 16 * 1024, DAY, 365 * DAY, Long.MAX_VALUE, 0, 0, true,
+                new SimpleMeterRegistry());
+        LocalDateTime base = LocalDateTime.of(2025, 6, 1, 0, 0);
+        for (int batch = 0; batch < 100; batch++) {
+            List<AuditRecord> records = new ArrayList<>();
+            for (int i = batch * 20; i < (batch + 1) * 20; i++) {
+                records.add(record(base.plusSeconds(i), i));
+            }
+            auditLog.append(records);
+        }
+        assertTrue(auditLog.segmentCount() > 3, "Should have rotated by size");
+        assertTrue(auditLog.sizeBytes() < 2_000L * 100, "Blocks should be compressed");
+
+        auditLog.close();
+        // A batch torn half-way through its block
+        Path newest;
+        try (Stream<Path> files = Files.list(directory)) {
+            newest = files.filter(file -> file.toString().endsWith(".log")).max(Path::compareTo).orElseThrow();
+        }
+        Files.write(newest, new byte[]{0x41, 0x55, 0x44, 0x54, 0, 0, 1}, StandardOpenOption.APPEND);
+        auditLog = new AuditLog(directory, 16 * 1024, DAY, 365 * DAY, Long.MAX_VALUE, 0, 0, true,
+                new SimpleMeterRegistry());
+
+        assertEquals(2_000, auditLog.recordCount());
+        List<AuditRecord> found = auditLog.query(base.plusSeconds(500), base.plusSeconds(1_500), 5_000);
+        assertEquals(1_000, found.size());
+        assertEquals("c000500", found.get(0).shortCode());
+        assertEquals("c001499", found.get(999).shortCode());
+        assertEquals(base.plusSeconds(500), found.get(0).createdAt());
+        assertEquals(record(base.plusSeconds(777), 777), found.get(277));
+        assertEquals(1_000, auditLog.count(base.plusSeconds(500), base.plusSeconds(1_500)));
+        assertEquals(10, auditLog.query(base.plusSeconds(500), null, 10).size());
+        assertEquals(0, auditLog.count(base.minusDays(1), base));
+
+        auditLog.append(List.of(record(base.plusSeconds(5_000), 5_000)));
+        assertEquals(2_001, auditLog.count(null, null));
+    }
+
+    @Test
+    @DisplayName("Test 2: Maintenance should drop expired segments and merge small ones without redelivered duplicates")
+    void testRetentionAndCompaction() throws IOException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // segment-ms 0: every batch ends up in a segment of its own, as on a quiet day
+        auditLog = new AuditLog(directory, 1024 * 1024, 0, 30 * DAY, Long.MAX_VALUE, 256 * 1024, 1_000, false,
+                meterRegistry);
+        LocalDateTime now = LocalDateTime.of(2025, 6, 1, 12, 0);
+        for (int batch = 0; batch < 10; batch++) {
+            auditLog.append(List.of(record(now.minusDays(40).plusMinutes(batch), batch)));
+        }
+        List<List<AuditRecord>> recent = new ArrayList<>();
+        for (int batch = 0; batch < 20; batch++) {
+            List<AuditRecord> records = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                int n = 1_000 + batch * 10 + i;
+                records.add(record(now.minusDays(1).plusSeconds(n), n));
+            }
+            recent.add(records);
+            auditLog.append(records);
+        }
+        auditLog.append(recent.get(19)); // redelivered poll
+        assertEquals(31, auditLog.segmentCount());
+        assertEquals(220, auditLog.count(null, null));
+
+        auditLog.maintain(now);
+
+        assertEquals(2, auditLog.segmentCount(), "One merged segment and the new active one");
+        assertTrue(Files.exists(directory.resolve("audit-00000011-00000031.log")));
+        assertFalse(Files.exists(directory.resolve("audit-00000001.log")));
+        assertEquals(200, auditLog.count(null, null), "Expired records and the duplicate poll are gone");
+        assertEquals(recent.get(3).get(7), auditLog.query(recent.get(3).get(7).createdAt(), null, 1).get(0));
+        assertEquals(10.0, meterRegistry.get("url.audit.maintenance").tag("action", "deleted").counter().count());
+        assertEquals(21.0, meterRegistry.get("url.audit.maintenance").tag("action", "compacted").counter().count());
+
+        auditLog.close();
+        auditLog = new AuditLog(directory, 1024 * 1024, 0, 30 * DAY, Long.MAX_VALUE, 256 * 1024, 1_000, false,
+                new SimpleMeterRegistry());
+        assertEquals(200, auditLog.count(now.minusDays(2), now));
+    }
+
+    @Test
+    @DisplayName("Test 3: A lone small segment rewritten by compaction should keep its records across a reopen")
+    void testLoneSegmentCompactedInPlace() throws IOException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        auditLog = new AuditLog(directory, 1024 * 1024, 0, 30 * DAY, Long.MAX_VALUE, 256 * 1024, 1_000, false,
+                meterRegistry);
+        LocalDateTime now = LocalDateTime.of(2025, 6, 1, 12, 0);
+        List<AuditRecord> records = List.of(record(now.minusHours(1), 1), record(now.minusHours(1).plusSeconds(1), 2));
+        auditLog.append(records);
+
+        // Sealed by the run itself, then merged on its own into the file it came from
+        auditLog.maintain(now);
+
+        assertEquals(1.0, meterRegistry.get("url.audit.maintenance").tag("action", "compacted").counter().count());
+        assertTrue(Files.exists(directory.resolve("audit-00000001.log")));
+        assertTrue(Files.exists(directory.resolve("audit-00000001.idx")));
+        assertEquals(records, auditLog.query(null, null, 10));
+
+        auditLog.close();
+        auditLog = new AuditLog(directory, 1024 * 1024, 0, 30 * DAY, Long.MAX_VALUE, 256 * 1024, 1_000, false,
+                new SimpleMeterRegistry());
+        assertEquals(records, auditLog.query(null, null, 10));
+    }
+
+    private static AuditRecord record(LocalDateTime createdAt, int n) {
+        String code = String.format("c%06d", n);
+        return new AuditRecord(createdAt.truncatedTo(ChronoUnit.MILLIS), code,
+                "https://example.com/articles/" + n + "?ref=" + UUID.nameUUIDFromBytes(code.getBytes()),
+                "http://localhost:8081/" + code);
+    }
+}
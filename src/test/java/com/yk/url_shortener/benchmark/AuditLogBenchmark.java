@@ -0,0 +1,118 @@
+package com.yk.url_shortener.benchmark;
+
+import com.yk.url_shortener.audit.AuditLog;
+import com.yk.url_shortener.audit.AuditRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Sustained write throughput of the url.created audit log, per batch size (= records per poll) and
+ * with / without the fsync per batch, followed by a time-range query over everything written.
+ *
+ * Each run appends for SECONDS into 64 MB segments (so it rotates), in a fresh temp directory.
+ *
+ * Run (after mvn test-compile):
+ *   java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *        com.yk.url_shortener.benchmark.AuditLogBenchmark
+ *
+ * Typical result (one core, container disk, ~110 raw bytes per record, 10 s per run):
+ *   batch 1     fsync ~9k records/s,    no fsync ~41k  — a block per record: 0.7x "compression"
+ *   batch 10    fsync ~72k records/s,   no fsync ~205k — 2.6x
+ *   batch 100   fsync ~330k records/s,  no fsync ~480k — 4.1x
+ *   batch 1000  fsync ~460k records/s,  no fsync ~490k — encoding + DEFLATE bound, 4.1x
+ *   compaction brings the small-block logs to 4.4x (~0.5M records/s merged); a one-minute range
+ *   (60k records) is counted and its first 10k listed in 10-30 ms out of ~5M records
+ *   → keep max-poll-records high: the fsync is paid per poll, not per event
+ */
+public class AuditLogBenchmark {
+
+    private static final int SECONDS = 10;
+    private static final int[] BATCH_SIZES = {1, 10, 100, 1000};
+
+    public static void main(String[] args) throws Exception {
+        for (boolean fsync : new boolean[]{true, false}) {
+            for (int batchSize : BATCH_SIZES) {
+                run(batchSize, fsync);
+            }
+        }
+    }
+
+    private static void run(int batchSize, boolean fsync) throws IOException {
+        Path directory = Files.createTempDirectory("audit-bench");
+        Random random = new Random(11);
+        LocalDateTime base = LocalDateTime.of(2025, 6, 1, 0, 0);
+        long totalRaw;
+        try (AuditLog auditLog = new AuditLog(directory, 64L * 1024 * 1024, Long.MAX_VALUE, Long.MAX_VALUE,
+                Long.MAX_VALUE, 0, 0, fsync, new SimpleMeterRegistry())) {
+            long records = 0;
+            long rawBytes = 0;
+            long start = System.nanoTime();
+            long deadline = start + SECONDS * 1_000_000_000L;
+            List<AuditRecord> batch = new ArrayList<>(batchSize);
+            while (System.nanoTime() < deadline) {
+                batch.clear();
+                for (int i = 0; i < batchSize; i++) {
+                    AuditRecord record = record(base.plusNanos(records * 1_000_000L), random);
+                    rawBytes += 8 + record.shortCode().length() + record.longUrl().length()
+                            + record.shortUrl().length();
+                    batch.add(record);
+                    records++;
+                }
+                auditLog.append(batch);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            // One minute somewhere in the middle of what was written (one record per millisecond)
+            LocalDateTime from = base.plusNanos(records / 2 * 1_000_000L);
+            long queryStart = System.nanoTime();
+            long count = auditLog.count(from, from.plusMinutes(1));
+            int listed = auditLog.query(from, from.plusMinutes(1), 10_000).size();
+            double queryMillis = (System.nanoTime() - queryStart) / 1e6;
+
+            System.out.printf("batch %-5d fsync %-5s %,10.0f records/s  %,9d records  %2d segments  "
+                            + "%.1fx compression  | 1-minute range: %,d counted, %,d listed in %.1f ms%n",
+                    batchSize, fsync, records / seconds, records, auditLog.segmentCount(),
+                    (double) rawBytes / auditLog.sizeBytes(), count, listed, queryMillis);
+            totalRaw = rawBytes;
+        }
+        try {
+            if (batchSize <= 10) {
+                compact(directory, totalRaw);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /** Reopen with segment-ms 0 so maintenance seals the active segment, then merge everything */
+    private static void compact(Path directory, long rawBytes) {
+        try (AuditLog auditLog = new AuditLog(directory, 1L << 30, 0, Long.MAX_VALUE, Long.MAX_VALUE,
+                Long.MAX_VALUE, 100_000, true, new SimpleMeterRegistry())) {
+            long start = System.nanoTime();
+            auditLog.maintain(LocalDateTime.of(2025, 6, 1, 0, 0));
+            System.out.printf("            compacted in %.1f s: %.1fx compression%n", (System.nanoTime() - start) / 1e9,
+                    (double) rawBytes / auditLog.sizeBytes());
+        }
+    }
+
+    private static AuditRecord record(LocalDateTime createdAt, Random random) {
+        String code = Long.toString(0x10000000000L + (random.nextLong() & 0xFFFFFFFFFFL), 36).substring(0, 7);
+        String longUrl = "https://" + DOMAINS[random.nextInt(DOMAINS.length)] + "/articles/"
+                + Integer.toHexString(random.nextInt()) + "/" + random.nextInt(100_000) + "?utm_source=newsletter";
+        return new AuditRecord(createdAt, code, longUrl, "http://localhost:8081/" + code);
+    }
+
+    private static final String[] DOMAINS = {"example.com", "news.example.org", "blog.example.net",
+            "shop.example.co.uk", "docs.example.io"};
+}
@@ -0,0 +1,292 @@
+package com.yk.url_shortener.benchmark;
+
+import com.yk.url_shortener.UrlShortenerApplication;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Redirect latency while the API side is saturated, with and without endpoint bulkheads.
+ *
+ * Boots the application (H2 in memory, no Redis / Kafka) with a 40-thread Tomcat and the default
+ * 10-connection pool, and a database whose statements take STATEMENT_DELAY_MS (a loaded remote
+ * database: requests wait on I/O, not CPU). Seeds LINKS links, then
+ *   1. REDIRECT_CLIENTS clients follow random short links                      — baseline
+ *   2. the same, plus API_CLIENTS clients creating new links and reading /api/metrics/domains
+ *      (a 503 makes the client wait out its Retry-After)
+ * and prints the redirect latency percentiles of both phases, and what the API clients got.
+ * Bulkheads for the small pool: redirect 20+10 threads, api 10+5 threads / 4 connections,
+ * metrics 2+2 threads / 2 connections.
+ *
+ * Run (after mvn test-compile):
+ *   java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *        com.yk.url_shortener.benchmark.BulkheadLoadBenchmark
+ *
+ * Typical result (one core shared by server and clients, 8 redirect + 120 API clients, 15 s per phase,
+ * 10 ms per statement; baselines vary between 8 and 23 ms p50 from run to run):
+ *   bulkheads off  saturated p50 ~520-660 ms, p99 ~1.1 s — 5% of the baseline redirect throughput:
+ *                  redirects queue behind API requests for Tomcat threads and pool connections
+ *   bulkheads on   saturated p50 ~14-22 ms, p99 ~65-100 ms — about half the baseline throughput,
+ *                  the rest is the CPU shared with the admitted API work; ~55% of the API requests
+ *                  are refused with 503 at once instead of waiting ~600 ms
+ */
+public class BulkheadLoadBenchmark {
+
+    private static final int LINKS = 1_000;
+    private static final int REDIRECT_CLIENTS = 8;
+    private static final int API_CLIENTS = 120;
+    private static final int SECONDS = 15;
+    private static final long STATEMENT_DELAY_MS = 10;
+
+    private static final Pattern SHORT_CODE = Pattern.compile("\"shortCode\":\"([a-zA-Z0-9]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        for (boolean bulkheads : new boolean[]{false, true}) {
+            run(bulkheads);
+        }
+    }
+
+    private static void run(boolean bulkheads) throws Exception {
+        ConfigurableApplicationContext context = SpringApplication.run(
+                new Class<?>[]{UrlShortenerApplication.class, LoadTestBeans.class},
+                new String[]{
+                "--server.port=0",
+                "--spring.main.allow-bean-definition-overriding=true",
+                "--server.tomcat.threads.max=40",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--spring.mvc.log-resolved-exception=false",
+                "--logging.level.com.yk.url_shortener.service.RateLimiterService=OFF",
+                "--spring.datasource.url=jdbc:h2:mem:bulkhead-" + bulkheads + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.cache.type=simple",
+                "--spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration,"
+                        + "org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration",
+                "--spring.kafka.enabled=false",
+                "--app.cache-warmup.hot-key-dump-file=",
+                "--app.analytics.shedding.enabled=false",
+                "--app.leaderboard.enabled=false",
+                "--app.hot-keys.share-via-redis=false",
+                "--app.rate-limit.max-requests=1000000000",
+                "--app.bulkhead.enabled=" + bulkheads,
+                "--app.bulkhead.redirect.max-concurrent=20",
+                "--app.bulkhead.redirect.max-queued=10",
+                "--app.bulkhead.api.max-concurrent=10",
+                "--app.bulkhead.api.max-queued=5",
+                "--app.bulkhead.metrics.max-concurrent=2",
+                "--app.bulkhead.metrics.max-queued=2"});
+        try {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            String base = "http://localhost:" + port;
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+            List<String> codes = new ArrayList<>();
+            for (int i = 0; i < LINKS; i++) {
+                codes.add(shorten(client, base, "https://example.com/seed/" + i).body());
+            }
+            codes.replaceAll(body -> {
+                Matcher matcher = SHORT_CODE.matcher(body);
+                return matcher.find() ? matcher.group(1) : null;
+            });
+
+            redirects(client, base, codes, 0); // warm-up
+            long[] baseline = redirects(client, base, codes, 0);
+            long[] saturated = redirects(client, base, codes, API_CLIENTS);
+            System.out.printf("bulkheads %-5s baseline  %s%n", bulkheads, percentiles(baseline));
+            System.out.printf("bulkheads %-5s saturated %s%n", bulkheads, percentiles(saturated));
+        } finally {
+            context.close();
+        }
+    }
+
+    /** Redirect latencies (nanos) over SECONDS, with apiClients hammering the API alongside */
+    private static long[] redirects(HttpClient client, String base, List<String> codes, int apiClients)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + SECONDS * 1_000_000_000L;
+        List<long[]> perClient = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        AtomicInteger errors = new AtomicInteger();
+        for (int c = 0; c < REDIRECT_CLIENTS; c++) {
+            long[] samples = new long[2_000_000];
+            perClient.add(samples);
+            threads.add(start(() -> {
+                int n = 1;
+                while (System.nanoTime() < deadline && n < samples.length) {
+                    String code = codes.get(ThreadLocalRandom.current().nextInt(codes.size()));
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(base + "/" + code))
+                                .build(), HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 302) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    samples[n++] = System.nanoTime() - start;
+                }
+                samples[0] = n - 1;
+            }));
+        }
+        Map<Integer, AtomicLong> apiStatuses = new ConcurrentHashMap<>();
+        AtomicLong apiNanos = new AtomicLong();
+        AtomicInteger created = new AtomicInteger();
+        for (int c = 0; c < apiClients; c++) {
+            int clientId = c;
+            threads.add(start(() -> {
+                int i = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = i++ % 10 == 0
+                                ? client.send(HttpRequest.newBuilder(URI.create(base + "/api/metrics/domains")).build(),
+                                        HttpResponse.BodyHandlers.discarding()).statusCode()
+                                : shorten(client, base, "https://load" + clientId + ".example.com/" + created.incrementAndGet())
+                                        .statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    apiNanos.addAndGet(System.nanoTime() - start);
+                    apiStatuses.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+                    if (status == 503) {
+                        pause(1_000); // Retry-After: 1
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (apiClients > 0) {
+            long total = apiStatuses.values().stream().mapToLong(AtomicLong::get).sum();
+            System.out.printf("  api: %,d requests, mean %.1f ms, by status %s%n", total,
+                    apiNanos.get() / 1e6 / Math.max(1, total), apiStatuses);
+        }
+        if (errors.get() > 0) {
+            System.out.printf("  redirects failed: %d%n", errors.get());
+        }
+        int total = perClient.stream().mapToInt(samples -> (int) samples[0]).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (long[] samples : perClient) {
+            System.arraycopy(samples, 1, all, offset, (int) samples[0]);
+            offset += (int) samples[0];
+        }
+        return all;
+    }
+
+    /**
+     * In-memory caches instead of RedisConfig's (no Redis here), and a DB whose statements take
+     * STATEMENT_DELAY_MS — a loaded remote database, where requests wait on I/O rather than CPU.
+     * Not a @Configuration, so never component-scanned.
+     */
+    static class LoadTestBeans {
+        @Bean
+        @Primary
+        public CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("urls", "stats", "domains");
+        }
+
+        @Bean
+        public static BeanPostProcessor slowDatabase() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if ("dataSource".equals(beanName) && bean instanceof HikariDataSource dataSource) {
+                        return new DelegatingDataSource(dataSource) {
+                            @Override
+                            public Connection getConnection() throws SQLException {
+                                return slow(super.getConnection());
+                            }
+                        };
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        private static Connection slow(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(BulkheadLoadBenchmark.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        return result instanceof PreparedStatement statement ? slow(statement) : result;
+                    });
+        }
+
+        private static PreparedStatement slow(PreparedStatement statement) {
+            return (PreparedStatement) Proxy.newProxyInstance(BulkheadLoadBenchmark.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        if (method.getName().startsWith("execute")) {
+                            pause(STATEMENT_DELAY_MS);
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Thread start(Runnable task) {
+        Thread thread = new Thread(task);
+        thread.start();
+        return thread;
+    }
+
+    private static HttpResponse<String> shorten(HttpClient client, String base, String url) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create(base + "/api/shorten"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"url\":\"" + url + "\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String percentiles(long[] nanos) {
+        Arrays.sort(nanos);
+        return String.format("%,7d redirects  p50 %6.1f ms  p99 %6.1f ms  max %7.1f ms", nanos.length,
+                nanos[nanos.length / 2] / 1e6, nanos[(int) (nanos.length * 0.99)] / 1e6,
+                nanos[nanos.length - 1] / 1e6);
+    }
+}
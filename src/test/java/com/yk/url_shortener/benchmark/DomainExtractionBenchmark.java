@@ -0,0 +1,82 @@
+package com.yk.url_shortener.benchmark;
+
+import com.yk.url_shortener.util.PublicSuffixTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Domain extraction for the top-domains metric: the old java.net.URI + "www." strip vs. the
+ * public-suffix trie scanning the host in place.
+ *
+ * Run (after mvn test-compile):
+ *   java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *        com.yk.url_shortener.benchmark.DomainExtractionBenchmark
+ *
+ * JMH's gc profiler is on: gc.alloc.rate.norm is the bytes allocated per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DomainExtractionBenchmark {
+
+    private static final String[] URLS = {
+            "https://www.youtube.com/watch?v=dQw4w9WgXcQ&list=PL123",
+            "https://en.wikipedia.org/wiki/Java_(programming_language)",
+            "https://www.bbc.co.uk/news/technology-12345678",
+            "https://someone.github.io/blog/2025/01/post.html",
+            "https://shop.example.com:8443/cart?utm_source=newsletter&utm_medium=email",
+            "https://stackoverflow.com/questions/123/how-to"
+    };
+
+    private PublicSuffixTrie trie;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        trie = PublicSuffixTrie.getDefault();
+    }
+
+    @Benchmark
+    public String uriHost() {
+        String url = URLS[next++ % URLS.length];
+        try {
+            String host = new URI(url).getHost();
+            if (host == null) {
+                return "unknown";
+            }
+            return host.startsWith("www.") ? host.substring(4) : host;
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+
+    @Benchmark
+    public String publicSuffixTrie() {
+        return trie.registrableDomain(URLS[next++ % URLS.length]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DomainExtractionBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
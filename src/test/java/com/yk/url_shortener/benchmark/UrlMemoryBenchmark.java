@@ -0,0 +1,98 @@
+package com.yk.url_shortener.benchmark;
+
+import com.yk.url_shortener.util.UrlPrefixDictionary;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * Heap per million cached long URLs: plain Strings vs. {@link UrlPrefixDictionary} byte arrays.
+ *
+ * Run (after mvn test-compile):
+ *   java -Xmx2g -cp target/test-classes:target/classes com.yk.url_shortener.benchmark.UrlMemoryBenchmark
+ *
+ * The URLs imitate real traffic: up to 500 hosts (skewed — a few huge ones), a handful of path
+ * templates per host, random ids, and UTM query strings on a third of them. Retained heap is
+ * measured after a full GC with both representations held in an array (array overhead included
+ * in both), and the dictionary itself is counted against the compact side.
+ *
+ * Typical result (JDK 17, compressed oops, avg 62 chars): ~109 MB as Strings vs. ~60 MB
+ * prefix-encoded per million links — 45% less; the UTM tails are what remains.
+ */
+public class UrlMemoryBenchmark {
+
+    private static final int LINKS = 1_000_000;
+
+    public static void main(String[] args) {
+        String[] source = generate(LINKS, new Random(42));
+        long plainChars = 0;
+        for (String url : source) {
+            plainChars += url.length();
+        }
+
+        long plain = retained(i -> new String(source[i].toCharArray()));
+
+        UrlPrefixDictionary dictionary = new UrlPrefixDictionary(65_536, 3, 2);
+        long compact = retained(i -> dictionary.encode(source[i]));
+
+        // Sanity check — every URL must round-trip
+        for (int i = 0; i < 10_000; i++) {
+            String url = source[i * (LINKS / 10_000)];
+            if (!url.equals(dictionary.decode(dictionary.encode(url)))) {
+                throw new IllegalStateException("Round trip failed for " + url);
+            }
+        }
+
+        System.out.printf("links:                 %,d (avg %.1f chars)%n", LINKS, (double) plainChars / LINKS);
+        System.out.printf("String:                %,d bytes  (%.1f MB per million)%n", plain, plain / 1e6);
+        System.out.printf("prefix-encoded byte[]: %,d bytes  (%.1f MB per million, dictionary: %,d prefixes)%n",
+                compact, compact / 1e6, dictionary.size());
+        System.out.printf("saved:                 %.0f%%%n", 100.0 * (plain - compact) / plain);
+    }
+
+    /** Heap retained by LINKS objects built by the factory (plus the array holding them) */
+    private static long retained(IntFunction<Object> factory) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long before = usedAfterGc(memory);
+        Object[] held = new Object[LINKS];
+        for (int i = 0; i < LINKS; i++) {
+            held[i] = factory.apply(i);
+        }
+        long after = usedAfterGc(memory);
+        if (held[LINKS - 1] == null) {
+            throw new IllegalStateException();
+        }
+        return after - before;
+    }
+
+    private static long usedAfterGc(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static String[] generate(int count, Random random) {
+        String[] templates = {"watch?v=", "article/", "products/", "blog/2025/", "docs/guide/", "p/"};
+        String[] campaigns = {"spring_sale", "newsletter", "launch", "retargeting"};
+        String[] urls = new String[count];
+        for (int i = 0; i < count; i++) {
+            int host = (int) Math.min(499, Math.abs(random.nextGaussian()) * 60);
+            StringBuilder url = new StringBuilder(160)
+                    .append("https://")
+                    .append(host % 3 == 0 ? "www." : "")
+                    .append("site").append(host).append(host % 2 == 0 ? ".com/" : ".co.uk/")
+                    .append(templates[(host + random.nextInt(2)) % templates.length]);
+            url.append(Long.toString(random.nextLong() & Long.MAX_VALUE, 36));
+            if (random.nextInt(3) == 0) {
+                url.append(url.indexOf("?") >= 0 ? '&' : '?')
+                        .append("utm_source=partner").append(random.nextInt(20))
+                        .append("&utm_medium=email&utm_campaign=").append(campaigns[random.nextInt(4)]);
+            }
+            urls[i] = url.toString();
+        }
+        return urls;
+    }
+}
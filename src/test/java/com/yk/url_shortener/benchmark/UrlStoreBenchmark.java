@@ -0,0 +1,126 @@
+package com.yk.url_shortener.benchmark;
+
+import com.yk.url_shortener.UrlShortenerApplication;
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.store.UrlStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JPA/H2 vs. embedded log store on the three hot paths: redirect lookup, create, click count.
+ *
+ * Run (after mvn test-compile):
+ *   java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *        com.yk.url_shortener.benchmark.UrlStoreBenchmark
+ *
+ * Each backend gets a full Spring context (web, Kafka, Redis and warm-up off) so the numbers
+ * include the same proxies and transactions the real service goes through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlStoreBenchmark {
+
+    private static final int PRELOADED_URLS = 10_000;
+
+    @Param({"jpa", "log"})
+    public String storeType;
+
+    private ConfigurableApplicationContext context;
+    private UrlStore urlStore;
+    private Path logDirectory;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        logDirectory = Files.createTempDirectory("url-log-bench");
+        context = new SpringApplicationBuilder(UrlShortenerApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "app.store.type=" + storeType,
+                        "app.store.log.dir=" + logDirectory,
+                        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show-sql=false",
+                        "spring.kafka.enabled=false",
+                        "spring.cache.type=simple",
+                        "spring.autoconfigure.exclude="
+                                + "org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration",
+                        "app.cache-warmup.enabled=false")
+                .run();
+        urlStore = context.getBean(UrlStore.class);
+        for (int i = 0; i < PRELOADED_URLS; i++) {
+            urlStore.save(url(code(i), "https://example.com/preloaded/" + i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (var files = Files.walk(logDirectory)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Object findByShortCode() {
+        return urlStore.findByShortCode(code(ThreadLocalRandom.current().nextInt(PRELOADED_URLS)));
+    }
+
+    @Benchmark
+    public Object save() {
+        long n = sequence.incrementAndGet();
+        return urlStore.save(url("n" + n, "https://example.com/new/" + storeType + "/" + n));
+    }
+
+    @Benchmark
+    public void incrementAccessCount() {
+        urlStore.incrementAccessCount(code(ThreadLocalRandom.current().nextInt(PRELOADED_URLS)), 1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(UrlStoreBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static String code(int i) {
+        return String.format("b%06d", i);
+    }
+
+    private static Url url(String shortCode, String longUrl) {
+        return Url.builder()
+                .shortCode(shortCode)
+                .longUrl(longUrl)
+                .createdAt(LocalDateTime.now())
+                .accessCount(0L)
+                .build();
+    }
+}
@@ -0,0 +1,152 @@
+package com.yk.url_shortener.bulkhead;
+
+import com.yk.url_shortener.exception.BulkheadFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    @Test
+    @DisplayName("Test 1: Requests over the limit should queue up to max-queued, then fail fast or time out")
+    void testConcurrencyLimitAndQueue() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Bulkhead bulkhead = new Bulkhead("api", 2, 1, 2_000, 0, 0, meterRegistry);
+
+        assertNull(bulkhead.tryEnter());
+        assertNull(bulkhead.tryEnter());
+        assertSame(bulkhead, Bulkhead.current());
+
+        CompletableFuture<String> waiting = CompletableFuture.supplyAsync(() -> {
+            String rejection = bulkhead.tryEnter();
+            if (rejection == null) {
+                bulkhead.exit();
+            }
+            return rejection;
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.queued() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, bulkhead.queued());
+        assertEquals("queue-full", bulkhead.tryEnter(), "The queue is full — refused at once");
+
+        bulkhead.exit();
+        assertNull(waiting.get(5, TimeUnit.SECONDS), "A freed slot admits the waiting request");
+        assertNull(Bulkhead.current());
+
+        Bulkhead quick = new Bulkhead("metrics", 1, 5, 20, 0, 0, meterRegistry);
+        assertNull(quick.tryEnter());
+        assertEquals("timeout", CompletableFuture.supplyAsync(quick::tryEnter).get(5, TimeUnit.SECONDS));
+
+        assertEquals(1.0, meterRegistry.get("url.bulkhead.rejected").tags("bulkhead", "api", "reason", "queue-full")
+                .counter().count());
+        assertEquals(1.0, meterRegistry.get("url.bulkhead.rejected").tags("bulkhead", "metrics", "reason", "timeout")
+                .counter().count());
+        assertEquals(1, meterRegistry.get("url.bulkhead.wait").tag("bulkhead", "api").timer().count());
+        assertEquals(0.5, meterRegistry.get("url.bulkhead.saturation").tag("bulkhead", "api").gauge().value());
+        bulkhead.exit();
+        quick.exit();
+    }
+
+    @Test
+    @DisplayName("Test 2: A partitioned bulkhead should hold at most max-connections, other callers are unaffected")
+    void testConnectionPartition() throws Exception {
+        BulkheadDataSource dataSource = dataSource("bulkhead");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Bulkhead api = new Bulkhead("api", 10, 0, 0, 2, 50, meterRegistry);
+
+        // Two requests of the class, each on its own thread, hold the two permits
+        Connection first = onRequestThread(api, dataSource::getConnection);
+        Connection second = onRequestThread(api, dataSource::getConnection);
+        assertEquals(2.0, meterRegistry.get("url.bulkhead.connections.active").gauge().value());
+
+        assertNull(api.tryEnter());
+        try {
+            assertThrows(BulkheadFullException.class, dataSource::getConnection);
+
+            // Outside the bulkhead (scheduled job, consumer thread) — straight to the pool
+            try (Connection other = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return dataSource.getConnection();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }).get(5, TimeUnit.SECONDS)) {
+                assertTrue(other.isValid(1));
+            }
+
+            first.close();
+            first.close(); // closing twice releases once
+            try (Connection third = dataSource.getConnection()) {
+                assertTrue(third.createStatement().execute("SELECT 1"));
+                assertThrows(ExecutionException.class, () -> onRequestThread(api, dataSource::getConnection));
+            }
+            second.close();
+            assertEquals(0.0, meterRegistry.get("url.bulkhead.connections.active").gauge().value());
+        } finally {
+            api.exit();
+        }
+    }
+
+    @Test
+    @DisplayName("Test 3: A nested connection should share its thread's permit instead of waiting for another one")
+    void testNestedConnectionReusesPermit() throws Exception {
+        BulkheadDataSource dataSource = dataSource("bulkhead-nested");
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // One permit, a long timeout: a nested request for a second permit would wait it out
+        Bulkhead api = new Bulkhead("api", 10, 0, 0, 1, 10_000, meterRegistry);
+
+        assertNull(api.tryEnter());
+        try {
+            long start = System.nanoTime();
+            Connection outer = dataSource.getConnection();
+            try (Connection nested = dataSource.getConnection()) { // e.g. a REQUIRES_NEW transaction
+                assertTrue(nested.createStatement().execute("SELECT 1"));
+            }
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "Did not wait for a permit");
+            assertEquals(1.0, meterRegistry.get("url.bulkhead.connections.active").gauge().value());
+
+            outer.close();
+            assertEquals(0.0, meterRegistry.get("url.bulkhead.connections.active").gauge().value());
+            // The permit is free for another request again
+            onRequestThread(api, dataSource::getConnection).close();
+        } finally {
+            api.exit();
+        }
+        assertEquals(0.0, meterRegistry.get("url.bulkhead.rejected").tags("bulkhead", "api", "reason", "connections")
+                .counter().count());
+    }
+
+    private static BulkheadDataSource dataSource(String name) {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return new BulkheadDataSource(h2);
+    }
+
+    private interface ConnectionSupplier {
+        Connection get() throws Exception;
+    }
+
+    /** Runs on a thread serving a request of the bulkhead; the slot is given back, the connection kept open */
+    private static Connection onRequestThread(Bulkhead bulkhead, ConnectionSupplier supplier) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            assertNull(bulkhead.tryEnter());
+            try {
+                return supplier.get();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            } finally {
+                bulkhead.exit();
+            }
+        }).get(5, TimeUnit.SECONDS);
+    }
+}
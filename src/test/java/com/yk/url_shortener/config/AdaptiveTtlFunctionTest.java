@@ -0,0 +1,73 @@
+package com.yk.url_shortener.config;
+
+import com.yk.url_shortener.model.Url;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveTtlFunctionTest {
+
+    private static final Duration MIN = Duration.ofMinutes(5);
+    private static final Duration MAX = Duration.ofHours(6);
+
+    @Test
+    @DisplayName("Test 1: TTL should grow with reads from min towards max, and shrink again as counters decay")
+    void testTtlFollowsAccessFrequency() {
+        AdaptiveTtlFunction ttl = new AdaptiveTtlFunction(new SimpleMeterRegistry(), MIN, MAX, 20);
+
+        assertEquals(MIN, ttl.getTimeToLive("cold", url("cold")), "Never read → min TTL");
+
+        Duration afterReads = Duration.ZERO;
+        for (int i = 0; i < 20; i++) {
+            afterReads = ttl.getTimeToLive("warm", null); // time-to-idle refresh = one read
+        }
+        // f = k → half way between min and max
+        assertEquals(MIN.toSeconds() + (MAX.toSeconds() - MIN.toSeconds()) / 2, afterReads.toSeconds(), 1);
+
+        Duration viral = Duration.ZERO;
+        for (int i = 0; i < 10_000; i++) {
+            viral = ttl.getTimeToLive("viral", null);
+        }
+        assertTrue(viral.compareTo(MAX) <= 0 && viral.compareTo(MAX.minusMinutes(15)) > 0, "Close to max: " + viral);
+
+        ttl.decay();
+        ttl.decay();
+        Duration cooled = ttl.getTimeToLive("warm", url("warm"));
+        assertTrue(cooled.compareTo(afterReads) < 0, "Old popularity fades: " + cooled + " < " + afterReads);
+        assertEquals(MIN, ttl.getTimeToLive("cold", url("cold")), "Writes are not counted as reads");
+    }
+
+    @Test
+    @DisplayName("Test 2: Memory saved and extended should be measured against the old static 1h TTL")
+    void testMemoryMetrics() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdaptiveTtlFunction ttl = new AdaptiveTtlFunction(meterRegistry, MIN, MAX, 20);
+
+        ttl.getTimeToLive("cold", url("cold"));
+        double saved = meterRegistry.get("cache.urls.memory.saved").counter().count();
+        long entryBytes = Math.round(saved / (AdaptiveTtlFunction.STATIC_TTL.toSeconds() - MIN.toSeconds()));
+        assertTrue(entryBytes > "https://example.com/cold".length(), "Entry size times the seconds saved");
+        assertEquals(0.0, meterRegistry.get("cache.urls.memory.extended").counter().count());
+
+        for (int i = 0; i < 1_000; i++) {
+            ttl.getTimeToLive("viral", null);
+        }
+        ttl.getTimeToLive("viral", url("viral"));
+        assertTrue(meterRegistry.get("cache.urls.memory.extended").counter().count() > 0);
+        assertEquals(1_002, meterRegistry.get("cache.urls.ttl.assigned").summary().count());
+    }
+
+    private static Url url(String shortCode) {
+        return Url.builder()
+                .shortCode(shortCode)
+                .longUrl("https://example.com/" + shortCode)
+                .createdAt(LocalDateTime.now())
+                .accessCount(0L)
+                .build();
+    }
+}
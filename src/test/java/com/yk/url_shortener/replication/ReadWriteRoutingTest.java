@@ -0,0 +1,92 @@
+package com.yk.url_shortener.replication;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.repository.UrlRepository;
+import com.yk.url_shortener.service.UrlEventProducer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Read/write split with two local in-memory H2 databases standing in for primary and replica.
+ * There is no replication between them — so where a row is visible tells us which route served the read.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rwprimary;DB_CLOSE_DELAY=-1",
+        "app.db.replicas.enabled=true",
+        "app.db.replicas.urls=jdbc:h2:mem:rwreplica;DB_CLOSE_DELAY=-1",
+        "app.cache-warmup.enabled=false"
+})
+class ReadWriteRoutingTest {
+
+    private static final String INSERT = "INSERT INTO urls (short_code, long_url, created_at, access_count) VALUES (?, ?, ?, ?)";
+
+    @MockitoBean
+    private UrlEventProducer urlEventProducer;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private ReadWriteDataSources dataSources;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(dataSources.getPrimary());
+        replica = new JdbcTemplate(dataSources.getReplicas().get(0));
+        // Replica stand-in gets the schema by hand (a real replica gets it through replication)
+        replica.execute("CREATE TABLE IF NOT EXISTS urls (short_code VARCHAR(255) PRIMARY KEY, "
+                + "long_url VARCHAR(2048) NOT NULL, created_at TIMESTAMP NOT NULL, access_count BIGINT NOT NULL, "
+                + "last_accessed_at TIMESTAMP, expires_at TIMESTAMP, max_clicks BIGINT, unique_access_count BIGINT)");
+        primary.update("DELETE FROM urls");
+        replica.update("DELETE FROM urls");
+    }
+
+    @Test
+    @DisplayName("Test 1: Reads of codes not written here should be served by the replica")
+    void testReadsGoToReplica() {
+        primary.update(INSERT, "onlyPri", "https://example.com/p", Timestamp.valueOf(LocalDateTime.now()), 0L);
+        replica.update(INSERT, "onlyRep", "https://example.com/r", Timestamp.valueOf(LocalDateTime.now()), 0L);
+
+        assertTrue(urlRepository.findByShortCode("onlyRep").isPresent());
+        assertTrue(urlRepository.findByShortCode("onlyPri").isEmpty(), "Read must not hit the primary");
+    }
+
+    @Test
+    @DisplayName("Test 2: A code created on this instance should resolve from the primary right away")
+    void testReadYourWrites() {
+        urlRepository.save(Url.builder()
+                .shortCode("fresh01")
+                .longUrl("https://example.com/fresh")
+                .createdAt(LocalDateTime.now())
+                .accessCount(0L)
+                .build());
+
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM urls", Integer.class), "Replica lags behind");
+        assertTrue(urlRepository.findByShortCode("fresh01").isPresent());
+        assertTrue(urlRepository.findByLongUrl("https://example.com/fresh").isPresent());
+    }
+
+    @Test
+    @DisplayName("Test 3: Each route should publish its own pool metrics")
+    void testPerRoutePoolMetrics() {
+        assertNotNull(meterRegistry.find("hikaricp.connections.max").tag("pool", "primary").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.max").tag("pool", "replica-0").gauge());
+    }
+}
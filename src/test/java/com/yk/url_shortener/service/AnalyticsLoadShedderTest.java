@@ -0,0 +1,141 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.dto.UrlAccessBatchEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AnalyticsLoadShedderTest {
+
+    private static final long SLOW = 500_000_000L;
+    private static final long FAST = 1_000_000L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Test 1: Sustained overload should step through sampling, count-only and drop, then recover step by step")
+    void testLevelsUnderOverload() {
+        AnalyticsLoadShedder shedder = shedder(Optional.of(mock(UrlEventProducer.class)), mock(UrlShortenerService.class));
+        assertEquals(AnalyticsLoadShedder.Admission.FULL, shedder.admit());
+
+        overloaded(shedder); // → 1/2
+        overloaded(shedder); // → 1/4
+        assertEquals(0.25, shedder.sampleRate());
+        int published = 0;
+        for (int i = 0; i < 4_000; i++) {
+            AnalyticsLoadShedder.Admission admission = shedder.admit();
+            if (admission.action() == AnalyticsLoadShedder.Action.PUBLISH) {
+                published++;
+                assertEquals(4, admission.weight());
+            } else {
+                assertEquals(AnalyticsLoadShedder.Action.SKIP, admission.action());
+            }
+        }
+        assertTrue(published > 850 && published < 1_150, "About 1 in 4 published: " + published);
+
+        overloaded(shedder);
+        assertEquals(AnalyticsLoadShedder.Action.COUNT, shedder.admit().action());
+        overloaded(shedder);
+        overloaded(shedder); // already at the last level
+        assertEquals(4, shedder.level());
+        assertEquals(AnalyticsLoadShedder.Action.SKIP, shedder.admit().action());
+
+        // Two calm intervals per step back
+        calm(shedder);
+        assertEquals(4, shedder.level());
+        calm(shedder);
+        assertEquals(3, shedder.level());
+        calm(shedder);
+        overloaded(shedder);
+        calm(shedder);
+        assertEquals(4, shedder.level(), "An overloaded interval restarts the count");
+
+        // A sampled click is worth 1/rate clicks to the consumers
+        assertEquals(4, UrlEventConsumer.clicksOf(Map.of("shortCode", "abc1234", "sampleRate", 0.25)));
+        assertEquals(1, UrlEventConsumer.clicksOf(Map.of("shortCode", "abc1234")));
+    }
+
+    @Test
+    @DisplayName("Test 2: Count-only clicks should be published as one aggregated event per short code")
+    void testCountOnlyFlush() {
+        UrlEventProducer producer = mock(UrlEventProducer.class);
+        AnalyticsLoadShedder shedder = shedder(Optional.of(producer), mock(UrlShortenerService.class));
+        for (int i = 0; i < 3; i++) {
+            overloaded(shedder);
+        }
+        assertEquals(AnalyticsLoadShedder.Action.COUNT, shedder.admit().action());
+
+        for (int i = 0; i < 5; i++) {
+            shedder.count("abc1234");
+        }
+        shedder.count("def5678");
+        shedder.count("def5678");
+        shedder.evaluate();
+
+        ArgumentCaptor<UrlAccessBatchEvent> events = ArgumentCaptor.forClass(UrlAccessBatchEvent.class);
+        verify(producer, times(2)).publishUrlAccessBatch(events.capture());
+        Map<String, Long> counts = new HashMap<>();
+        events.getAllValues().forEach(event -> counts.put(event.getShortCode(), event.getCount()));
+        assertEquals(Map.of("abc1234", 5L, "def5678", 2L), counts);
+
+        // Nothing new — nothing published
+        shedder.evaluate();
+        verify(producer, times(2)).publishUrlAccessBatch(any());
+        verify(producer, never()).publishUrlAccessed(any());
+
+        // The idle entry is gone; a later click starts a new one
+        shedder.count("abc1234");
+        shedder.evaluate();
+        verify(producer, times(3)).publishUrlAccessBatch(any());
+    }
+
+    @Test
+    @DisplayName("Test 3: DB connection waits should only escalate when clicks are counted with synchronous UPDATEs")
+    void testConnectionWaitsWithoutKafkaOnly() {
+        AtomicInteger pending = meterRegistry.gauge("hikaricp.connections.pending", new AtomicInteger(50));
+
+        AnalyticsLoadShedder withKafka = shedder(Optional.of(mock(UrlEventProducer.class)), mock(UrlShortenerService.class));
+        withKafka.evaluate();
+        assertEquals(0, withKafka.level(), "Clicks go to Kafka - the pool is the redirects' problem");
+
+        UrlShortenerService service = mock(UrlShortenerService.class);
+        AnalyticsLoadShedder withoutKafka = shedder(Optional.empty(), service);
+        withoutKafka.evaluate();
+        withoutKafka.evaluate();
+        withoutKafka.evaluate();
+        assertEquals(3, withoutKafka.level());
+
+        withoutKafka.count("abc1234");
+        withoutKafka.count("abc1234");
+        pending.set(0);
+        withoutKafka.evaluate();
+        verify(service).incrementAccessCount("abc1234", 2L);
+    }
+
+    private AnalyticsLoadShedder shedder(Optional<UrlEventProducer> producer, UrlShortenerService service) {
+        // 1/2 and 1/4 sampling, then count only (level 3), then drop (level 4); two calm intervals per step back
+        return new AnalyticsLoadShedder(meterRegistry, producer, Optional.empty(), service,
+                200, 20_000, 10, 0.25, 0.5, 2, 100_000);
+    }
+
+    /** A slow Kafka send in the last interval */
+    private void overloaded(AnalyticsLoadShedder shedder) {
+        meterRegistry.timer(UrlEventProducer.SEND_TIMER).record(SLOW, TimeUnit.NANOSECONDS);
+        shedder.evaluate();
+    }
+
+    private void calm(AnalyticsLoadShedder shedder) {
+        meterRegistry.timer(UrlEventProducer.SEND_TIMER).record(FAST, TimeUnit.NANOSECONDS);
+        shedder.evaluate();
+    }
+}
@@ -0,0 +1,122 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.sharding.RedisShardRouter;
+import com.yk.url_shortener.store.UrlStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CacheWarmupServiceTest {
+
+    private UrlStore urlStore;
+    private Cache urlsCache;
+    private UrlCacheBulkOperations bulkOperations;
+
+    private final List<Url> byAccessCount = IntStream.range(0, 5)
+            .mapToObj(i -> url("top" + i, 100 - i))
+            .toList();
+
+    @BeforeEach
+    void setUp() {
+        urlStore = mock(UrlStore.class);
+        when(urlStore.findMostAccessed(any(Pageable.class))).thenAnswer(invocation -> {
+            Pageable page = invocation.getArgument(0);
+            int from = (int) Math.min(page.getOffset(), byAccessCount.size());
+            int to = Math.min(from + page.getPageSize(), byAccessCount.size());
+            return new SliceImpl<>(byAccessCount.subList(from, to), page, to < byAccessCount.size());
+        });
+
+        urlsCache = new ConcurrentMapCache("urls");
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(urlsCache));
+        cacheManager.afterPropertiesSet();
+        bulkOperations = new UrlCacheBulkOperations(cacheManager, mock(RedisShardRouter.class));
+    }
+
+    @Test
+    @DisplayName("Test 1: Warm-up should load the top-N links page by page and only then report complete")
+    void testWarmsTopLinks() {
+        CacheWarmupService warmup = new CacheWarmupService(urlStore, bulkOperations, mock(LocalHotKeyCache.class),
+                detector(), true, 4, 2, "");
+        assertFalse(warmup.isComplete(), "Not ready before the runner has run");
+
+        warmup.run(new DefaultApplicationArguments());
+
+        assertTrue(warmup.isComplete());
+        assertEquals(4, warmup.getWarmedEntries());
+        verify(urlStore).findMostAccessed(PageRequest.of(0, 2));
+        verify(urlStore).findMostAccessed(PageRequest.of(1, 2));
+        verify(urlStore, times(2)).findMostAccessed(any(Pageable.class));
+        assertNotNull(urlsCache.get("top3"));
+        assertNull(urlsCache.get("top4"), "Beyond top-n");
+
+        // A failing store still ends the warm-up — a cold cache never keeps the instance out of rotation
+        UrlStore broken = mock(UrlStore.class);
+        when(broken.findMostAccessed(any(Pageable.class))).thenThrow(new IllegalStateException("db down"));
+        CacheWarmupService degraded = new CacheWarmupService(broken, bulkOperations, mock(LocalHotKeyCache.class),
+                detector(), true, 4, 2, "");
+        degraded.run(new DefaultApplicationArguments());
+        assertTrue(degraded.isComplete());
+    }
+
+    @Test
+    @DisplayName("Test 2: Hot keys dumped on shutdown should be pinned and hot again right after the next start")
+    void testHotKeyDumpIsReplayed(@TempDir Path dir) {
+        String dumpFile = dir.resolve("hot-keys.tsv").toString();
+        HotKeyDetector before = detector();
+        for (int i = 0; i < 500; i++) {
+            before.recordAccess("viral01");
+        }
+        new CacheWarmupService(urlStore, bulkOperations, mock(LocalHotKeyCache.class), before, false, 0, 1, dumpFile)
+                .dumpHotKeys();
+
+        Url viral = url("viral01", 5_000);
+        when(urlStore.findByShortCodeIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> codes = invocation.getArgument(0);
+            return codes.contains("viral01") ? List.of(viral) : List.of();
+        });
+        HotKeyDetector after = detector();
+        LocalHotKeyCache localTier = mock(LocalHotKeyCache.class);
+        CacheWarmupService warmup = new CacheWarmupService(urlStore, bulkOperations, localTier, after, true, 0, 1,
+                dumpFile);
+
+        warmup.run(new DefaultApplicationArguments());
+
+        assertTrue(after.isHot("viral01"), "Seeded from the dump without new traffic");
+        verify(localTier).pin(viral);
+        assertNotNull(urlsCache.get("viral01"));
+        assertEquals(1, warmup.getWarmedEntries());
+    }
+
+    private static HotKeyDetector detector() {
+        return new HotKeyDetector(mock(RedisShardRouter.class), true, 50, 1000, 10, 1.0, false);
+    }
+
+    private static Url url(String shortCode, long accessCount) {
+        return Url.builder()
+                .shortCode(shortCode)
+                .longUrl("https://example.com/" + shortCode)
+                .createdAt(LocalDateTime.now())
+                .accessCount(accessCount)
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.dto.UrlAccessBatchEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ClickAggregatorTest {
+
+    private UrlEventProducer urlEventProducer;
+
+    @BeforeEach
+    void setUp() {
+        urlEventProducer = mock(UrlEventProducer.class);
+    }
+
+    private List<UrlAccessBatchEvent> published(int times) {
+        ArgumentCaptor<UrlAccessBatchEvent> events = ArgumentCaptor.forClass(UrlAccessBatchEvent.class);
+        verify(urlEventProducer, times(times)).publishUrlAccessBatch(events.capture());
+        return events.getAllValues();
+    }
+
+    @Test
+    @DisplayName("Test 1: Concurrent clicks should collapse into one event per short code per window")
+    void testAggregatesPerWindow() throws InterruptedException {
+        ClickAggregator aggregator = new ClickAggregator(urlEventProducer, Optional.empty(), new SimpleMeterRegistry(), 4, 1000, 2);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8_000; i++) {
+            String code = i % 4 == 0 ? "other01" : "viral01";
+            String ip = "10.0.0." + (i % 5);
+            pool.execute(() -> aggregator.record(code, ip));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(2, aggregator.flush());
+        Map<String, UrlAccessBatchEvent> events = published(2).stream()
+                .collect(Collectors.toMap(UrlAccessBatchEvent::getShortCode, Function.identity()));
+        assertEquals(6_000L, events.get("viral01").getCount());
+        assertEquals(2_000L, events.get("other01").getCount());
+        assertEquals(2, events.get("viral01").getSampleIps().size(), "IP samples are capped");
+        assertNotNull(events.get("viral01").getWindowStart());
+
+        assertEquals(0, aggregator.flush(), "Nothing buffered after a flush");
+    }
+
+    @Test
+    @DisplayName("Test 2: A full buffer should publish early and shutdown should flush the rest")
+    void testBoundedBufferAndShutdownFlush() {
+        // one stripe holding at most 3 codes
+        ClickAggregator aggregator = new ClickAggregator(urlEventProducer, Optional.empty(), new SimpleMeterRegistry(), 1, 3, 0);
+        aggregator.record("code001", "1.1.1.1");
+        aggregator.record("code002", null);
+        verifyNoInteractions(urlEventProducer);
+
+        aggregator.record("code003", null);
+        assertEquals(3, published(3).size(), "Third distinct code filled the buffer");
+        assertTrue(published(3).stream().allMatch(event -> event.getSampleIps().isEmpty()));
+
+        aggregator.record("code004", null);
+        aggregator.shutdown();
+        assertEquals("code004", published(4).get(3).getShortCode());
+    }
+}
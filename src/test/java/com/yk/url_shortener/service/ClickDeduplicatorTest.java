@@ -0,0 +1,93 @@
+package com.yk.url_shortener.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickDeduplicatorTest {
+
+    /** Start of a 2 s bucket */
+    private static final long T0 = 1_000_000_000L;
+
+    @Test
+    @DisplayName("Test 1: A visitor's repeat click within the window should not be unique, a new visitor or a later click should")
+    void testWindowSemantics() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // 10 s window in 5 buckets of 2 s
+        ClickDeduplicator dedup = new ClickDeduplicator(meterRegistry, 10, 5, 100, 0.01, false, 2, 256, 1000);
+
+        assertTrue(dedup.isUnique("abc", "1.1.1.1", "curl", T0));
+        assertFalse(dedup.isUnique("abc", "1.1.1.1", "firefox", T0 + 9_000), "User agent ignored by default");
+        assertTrue(dedup.isUnique("abc", "2.2.2.2", null, T0 + 9_000), "Another visitor");
+        assertTrue(dedup.isUnique("xyz", "1.1.1.1", null, T0 + 9_000), "Another link");
+        assertTrue(dedup.isUnique("abc", "1.1.1.1", null, T0 + 12_000), "Window elapsed since the first click");
+        assertTrue(dedup.isUnique("abc", "3.3.3.3", null, T0 - 60_000), "Older than the filters - counted");
+
+        assertEquals(4.0, meterRegistry.get("url.click-dedup.clicks").tag("result", "unique").counter().count());
+        assertEquals(1.0, meterRegistry.get("url.click-dedup.clicks").tag("result", "repeat").counter().count());
+        assertEquals(1.0, meterRegistry.get("url.click-dedup.clicks").tag("result", "too-old").counter().count());
+
+        ClickDeduplicator perAgent = new ClickDeduplicator(new SimpleMeterRegistry(), 10, 5, 100, 0.01, true, 2, 256, 1000);
+        assertTrue(perAgent.isUnique("abc", "1.1.1.1", "curl", T0));
+        assertTrue(perAgent.isUnique("abc", "1.1.1.1", "firefox", T0 + 1_000));
+        assertFalse(perAgent.isUnique("abc", "1.1.1.1", "curl", T0 + 2_000));
+
+        // Kafka events: an aggregated window brings its own uniqueCount, a sampled click counts its weight
+        LocalDateTime accessedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(T0 + 13_000), ZoneId.systemDefault());
+        assertEquals(2, dedup.uniqueClicksOf(Map.of("shortCode", "abc", "count", 5, "uniqueCount", 2), "abc", 5, 0));
+        assertEquals(0, dedup.uniqueClicksOf(Map.of("shortCode", "abc", "count", 5), "abc", 5, 0));
+        Map<String, Object> click = Map.of("shortCode", "abc", "clientIp", "4.4.4.4",
+                "accessedAt", accessedAt.toString(), "sampleRate", 0.25);
+        assertEquals(4, dedup.uniqueClicksOf(click, "abc", 4, 0));
+        assertEquals(0, dedup.uniqueClicksOf(click, "abc", 4, 0), "Redelivered click is a repeat");
+
+        // A click judged at the redirect brings its own verdict - the consumer's filters are not asked
+        double uniqueBefore = meterRegistry.get("url.click-dedup.clicks").tag("result", "unique").counter().count();
+        Map<String, Object> judged = Map.of("shortCode", "abc", "clientIp", "5.5.5.5",
+                "accessedAt", accessedAt.toString(), "unique", true);
+        assertEquals(2, dedup.uniqueClicksOf(judged, "abc", 2, 0));
+        assertEquals(2, dedup.uniqueClicksOf(judged, "abc", 2, 0), "Salted onto another partition - still the redirect's call");
+        assertEquals(0, dedup.uniqueClicksOf(Map.of("shortCode", "abc", "unique", false), "abc", 2, 0));
+        assertEquals(uniqueBefore, meterRegistry.get("url.click-dedup.clicks").tag("result", "unique").counter().count());
+    }
+
+    @Test
+    @DisplayName("Test 2: A full window of distinct visitors should stay near the target false-positive rate, in constant memory")
+    void testFalsePositiveRate() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // 60 s window sized for 1000 clicks/s, every key sampled exactly
+        ClickDeduplicator dedup = new ClickDeduplicator(meterRegistry, 60, 6, 1000, 0.01, false, 4, 1, 1_000_000);
+        long memory = dedup.sizeInBytes();
+
+        int clicks = 60_000;
+        int falsePositives = 0;
+        for (int i = 0; i < clicks; i++) {
+            if (!dedup.isUnique("code" + (i % 500), "10." + (i / 500) + ".0.1", null, T0 + i)) {
+                falsePositives++;
+            }
+        }
+        double observed = (double) falsePositives / clicks;
+        assertTrue(observed < 0.02, "Observed false-positive rate " + observed);
+        assertEquals(observed, dedup.sampledFalsePositiveRate(), 1e-9, "Every key sampled - exact");
+
+        double estimated = meterRegistry.get("url.click-dedup.false-positive-rate").tag("source", "estimated")
+                .gauge().value();
+        assertTrue(estimated > 0 && estimated < 0.02, "Estimated " + estimated);
+        assertEquals(observed, meterRegistry.get("url.click-dedup.false-positive-rate").tag("source", "sampled")
+                .gauge().value(), 1e-9);
+
+        // Two more windows of traffic: filters are reused, memory does not grow
+        for (int i = 0; i < 2 * clicks; i++) {
+            dedup.isUnique("code" + (i % 500), "11." + (i / 500) + ".0.1", null, T0 + 60_000 + i);
+        }
+        assertEquals(memory, dedup.sizeInBytes());
+        assertEquals(memory, (long) meterRegistry.get("url.click-dedup.memory").gauge().value());
+    }
+}
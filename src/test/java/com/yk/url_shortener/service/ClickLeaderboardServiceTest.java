@@ -0,0 +1,128 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.sharding.RedisShardRouter;
+import com.yk.url_shortener.store.UrlStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.zset.Tuple;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ClickLeaderboardServiceTest {
+
+    private UrlStore urlStore;
+    private ZSetOperations<String, Object> zSet;
+    private RedisZSetCommands zSetCommands;
+    private ClickLeaderboardService leaderboard;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        urlStore = mock(UrlStore.class);
+        RedisShardRouter redisShardRouter = mock(RedisShardRouter.class);
+        RedisTemplate<String, Object> template = mock(RedisTemplate.class);
+        zSet = mock(ZSetOperations.class);
+        when(redisShardRouter.templateFor(anyString())).thenReturn(template);
+        when(template.opsForZSet()).thenReturn(zSet);
+        // ZADD GT goes through the raw connection
+        doReturn(RedisSerializer.string()).when(template).getKeySerializer();
+        doReturn(RedisSerializer.string()).when(template).getValueSerializer();
+        RedisConnection connection = mock(RedisConnection.class);
+        zSetCommands = mock(RedisZSetCommands.class);
+        when(connection.zSetCommands()).thenReturn(zSetCommands);
+        when(template.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArgument(0)).doInRedis(connection));
+        leaderboard = new ClickLeaderboardService(urlStore, redisShardRouter, true, 100, 10);
+    }
+
+    @Test
+    @DisplayName("Test 1: Flush should send one ZADD GT with the latest count per link and trim the board")
+    @SuppressWarnings("unchecked")
+    void testFlushCoalescesCounts() {
+        leaderboard.onAccessCount("viral01", 1);
+        leaderboard.onAccessCount("viral01", 3);
+        leaderboard.onAccessCount("viral01", 2); // reordered write — never moves a link down
+        leaderboard.onAccessCount("other01", 7);
+
+        leaderboard.flush();
+
+        ArgumentCaptor<Set<Tuple>> tuples = ArgumentCaptor.forClass(Set.class);
+        ArgumentCaptor<RedisZSetCommands.ZAddArgs> args = ArgumentCaptor.forClass(RedisZSetCommands.ZAddArgs.class);
+        verify(zSetCommands, times(1)).zAdd(eq(ClickLeaderboardService.REDIS_KEY.getBytes(StandardCharsets.UTF_8)),
+                tuples.capture(), args.capture());
+        Map<String, Double> scores = tuples.getValue().stream()
+                .collect(Collectors.toMap(tuple -> new String(tuple.getValue(), StandardCharsets.UTF_8), Tuple::getScore));
+        assertEquals(Map.of("viral01", 3.0, "other01", 7.0), scores);
+        assertTrue(args.getValue().contains(RedisZSetCommands.ZAddArgs.Flag.GT),
+                "A stale buffer from another instance must never lower a score");
+        verify(zSet).removeRange(ClickLeaderboardService.REDIS_KEY, 0, -101L);
+        verify(zSet, never()).add(anyString(), any(Set.class));
+
+        leaderboard.flush();
+        verify(zSetCommands, times(1)).zAdd(any(byte[].class), any(Set.class), any(RedisZSetCommands.ZAddArgs.class));
+    }
+
+    @Test
+    @DisplayName("Test 2: With Redis down a page should come straight from the DB with correct ranks")
+    void testFallsBackToStorePages() {
+        when(zSet.reverseRangeWithScores(anyString(), anyLong(), anyLong()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        // 25 links, access counts 25..1
+        List<Url> all = LongStream.rangeClosed(1, 25)
+                .mapToObj(i -> Url.builder().shortCode("code" + i).longUrl("https://example.com/" + i)
+                        .accessCount(26 - i).build())
+                .toList();
+        when(urlStore.findMostAccessed(any(Pageable.class))).thenAnswer(invocation -> {
+            PageRequest page = invocation.getArgument(0);
+            int from = (int) Math.min(page.getOffset(), all.size());
+            int to = Math.min(from + page.getPageSize(), all.size());
+            return new SliceImpl<>(all.subList(from, to), page, to < all.size());
+        });
+
+        List<ClickLeaderboardService.Entry> page = leaderboard.topLinks(7, 5);
+
+        assertEquals(List.of(8L, 9L, 10L, 11L, 12L), page.stream().map(ClickLeaderboardService.Entry::rank).toList());
+        assertEquals(List.of("code8", "code9", "code10", "code11", "code12"),
+                page.stream().map(entry -> entry.url().getShortCode()).toList());
+        assertEquals(18L, page.get(0).accessCount());
+    }
+
+    @Test
+    @DisplayName("Test 3: Pages should stop at max-size instead of reading ranks the board does not keep")
+    void testPagesStopAtMaxSize() {
+        when(zSet.reverseRangeWithScores(anyString(), anyLong(), anyLong())).thenReturn(Set.of());
+
+        leaderboard.topLinks(95, 10);
+        verify(zSet).reverseRangeWithScores(ClickLeaderboardService.REDIS_KEY, 95, 99);
+
+        assertEquals(List.of(), leaderboard.topLinks(100, 10));
+        verify(zSet, times(1)).reverseRangeWithScores(anyString(), anyLong(), anyLong());
+        verifyNoInteractions(urlStore);
+        assertEquals(100, leaderboard.getMaxSize());
+    }
+}
@@ -0,0 +1,204 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.dto.UrlAccessBatchEvent;
+import com.yk.url_shortener.dto.UrlAccessedEvent;
+import com.yk.url_shortener.util.ClickCountMap;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@EmbeddedKafka(partitions = 3, topics = {"url.accessed", "url.created"})
+class ClickReplayServiceTest {
+
+    private static final String GROUP = "replay-test-group";
+
+    @Test
+    @DisplayName("Test 1: A rebuild should set every counter to the clicks the live consumer has seen on the topic")
+    void testRebuildUpToLivePosition(EmbeddedKafkaBroker broker) throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:replay;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE urls (short_code VARCHAR(16) PRIMARY KEY, long_url VARCHAR(2048) NOT NULL,"
+                + " created_at TIMESTAMP NOT NULL, access_count BIGINT NOT NULL, last_accessed_at TIMESTAMP)");
+        for (String code : List.of("aaa1111", "bbb2222", "ccc3333", "ddd4444")) {
+            // Corrupted counters
+            jdbc.update("INSERT INTO urls VALUES (?, 'https://example.com', CURRENT_TIMESTAMP, 999, NULL)", code);
+        }
+
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        try (KafkaProducer<String, Object> producer = new KafkaProducer<>(producerProps,
+                new StringSerializer(), new JsonSerializer<>());
+             Admin admin = Admin.create(Map.of("bootstrap.servers", broker.getBrokersAsString()))) {
+            for (int i = 0; i < 3_000; i++) {
+                String code = i % 3 == 0 ? "aaa1111" : i % 3 == 1 ? "bbb2222" : "unknown";
+                producer.send(new ProducerRecord<>("url.accessed", code, UrlAccessedEvent.builder().shortCode(code)
+                        .longUrl("https://example.com").accessedAt(LocalDateTime.now()).clientIp("10.0.0.1").build()));
+            }
+            producer.send(new ProducerRecord<>("url.accessed", "ccc3333", UrlAccessBatchEvent.builder()
+                    .shortCode("ccc3333").count(250L).windowStart(1L).sampleIps(List.of("10.0.0.2")).build()));
+            producer.flush();
+
+            // The live consumer has processed everything so far...
+            Map<TopicPartition, OffsetAndMetadata> position = new HashMap<>();
+            try (KafkaConsumer<Object, Object> consumer = new KafkaConsumer<>(
+                    KafkaTestUtils.consumerProps("probe", "false", broker))) {
+                List<TopicPartition> partitions = List.of(new TopicPartition("url.accessed", 0),
+                        new TopicPartition("url.accessed", 1), new TopicPartition("url.accessed", 2));
+                consumer.endOffsets(partitions).forEach((partition, end) -> position.put(partition, new OffsetAndMetadata(end)));
+            }
+            admin.alterConsumerGroupOffsets(GROUP, position).all().get(30, TimeUnit.SECONDS);
+
+            // ...but not these: they stay for the live consumer after the rebuild
+            for (int i = 0; i < 100; i++) {
+                producer.send(new ProducerRecord<>("url.accessed", "aaa1111",
+                        UrlAccessedEvent.builder().shortCode("aaa1111").build()));
+            }
+            producer.flush();
+        }
+
+        ClickReplayService replay = new ClickReplayService(Map.of("bootstrap.servers", broker.getBrokersAsString()),
+                dataSource, Optional.empty(), List::of, partitions -> Map.of(), () -> { },
+                new SimpleMeterRegistry(), GROUP, true, 3, 2, 1000);
+        ClickReplayService.Progress progress = replay.replay(null, null);
+
+        assertEquals(ClickReplayService.State.DONE, progress.state(), progress.error());
+        assertEquals(3_001, progress.recordsTotal());
+        assertEquals(3_001, progress.recordsRead());
+        assertEquals(4, progress.codes());
+        assertEquals(4, progress.rowsWritten(), "Three replayed codes and one reset; unknown codes are not written");
+        assertEquals(1000L, count(jdbc, "aaa1111"));
+        assertEquals(1000L, count(jdbc, "bbb2222"));
+        assertEquals(250L, count(jdbc, "ccc3333"));
+        assertEquals(0L, count(jdbc, "ddd4444"), "No click on the topic");
+        assertNotNull(jdbc.queryForObject("SELECT last_accessed_at FROM urls WHERE short_code = 'aaa1111'",
+                Timestamp.class));
+    }
+
+    @Test
+    @DisplayName("Test 2: The event scan should read both event shapes and skip unknown fields")
+    void testEventScan() throws Exception {
+        ClickCountMap counts = new ClickCountMap(4);
+        ClickReplayService.count(bytes("{\"shortCode\":\"abc1234\",\"longUrl\":\"https://x\",\"accessedAt\":"
+                + "\"2025-01-01T10:00:00\",\"clientIp\":\"1.2.3.4\"}"), 10, counts);
+        ClickReplayService.count(bytes("{\"sampleIps\":[\"1.1.1.1\",\"2.2.2.2\"],\"meta\":{\"count\":99},"
+                + "\"shortCode\":\"abc1234\",\"count\":7,\"windowStart\":5}"), 30, counts);
+        ClickReplayService.count(bytes("{\"shortCode\":\"\"}"), 40, counts);
+        ClickReplayService.count(bytes("[1,2]"), 50, counts);
+
+        assertEquals(1, counts.size());
+        assertEquals(8, counts.count("abc1234"));
+        assertEquals(30, counts.lastSeen("abc1234"));
+    }
+
+    @Test
+    @DisplayName("Test 3: A replay up to the live position should be refused while another instance is in the consumer group")
+    void testRefusedWhileGroupHasOtherMembers(EmbeddedKafkaBroker broker) throws Exception {
+        String group = "replay-busy-group";
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:replay-busy;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE urls (short_code VARCHAR(16) PRIMARY KEY, long_url VARCHAR(2048) NOT NULL,"
+                + " created_at TIMESTAMP NOT NULL, access_count BIGINT NOT NULL, last_accessed_at TIMESTAMP)");
+        jdbc.update("INSERT INTO urls VALUES ('eee5555', 'https://example.com', CURRENT_TIMESTAMP, 42, NULL)");
+
+        ClickReplayService replay = new ClickReplayService(Map.of("bootstrap.servers", broker.getBrokersAsString()),
+                dataSource, Optional.empty(), List::of, partitions -> Map.of(), () -> { },
+                new SimpleMeterRegistry(), group, true, 3, 2, 1000);
+
+        // Another instance's live consumer
+        try (KafkaConsumer<Object, Object> other = new KafkaConsumer<>(
+                KafkaTestUtils.consumerProps(group, "false", broker))) {
+            other.subscribe(List.of("url.accessed"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (other.assignment().isEmpty()) {
+                assertTrue(System.nanoTime() < deadline, "Timed out");
+                other.poll(Duration.ofMillis(100));
+            }
+
+            ClickReplayService.Progress progress = replay.replay(null, null);
+
+            assertEquals(ClickReplayService.State.FAILED, progress.state());
+            assertTrue(progress.error().contains(group), progress.error());
+            assertEquals(42L, count(jdbc, "eee5555"), "Nothing written");
+        }
+    }
+
+    @Test
+    @DisplayName("Test 4: The instance's own url.created listener in the same group should not block a rebuild")
+    void testOwnUrlCreatedListenerDoesNotBlock(EmbeddedKafkaBroker broker) throws Exception {
+        String group = "replay-own-group";
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:replay-own;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE urls (short_code VARCHAR(16) PRIMARY KEY, long_url VARCHAR(2048) NOT NULL,"
+                + " created_at TIMESTAMP NOT NULL, access_count BIGINT NOT NULL, last_accessed_at TIMESTAMP)");
+        jdbc.update("INSERT INTO urls VALUES ('fff6666', 'https://example.com', CURRENT_TIMESTAMP, 42, NULL)");
+
+        // Like UrlEventConsumer: url.accessed and url.created listeners, one consumer group
+        ConcurrentMessageListenerContainer<Object, Object> clicks = container(broker, group, "url.accessed");
+        ConcurrentMessageListenerContainer<Object, Object> created = container(broker, group, "url.created");
+        clicks.start();
+        created.start();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (clicks.getAssignedPartitions().size() < 3 || created.getAssignedPartitions().size() < 3) {
+                assertTrue(System.nanoTime() < deadline, "Timed out");
+                Thread.sleep(100);
+            }
+
+            ClickReplayService replay = new ClickReplayService(Map.of("bootstrap.servers", broker.getBrokersAsString()),
+                    dataSource, Optional.empty(), () -> List.of(clicks), partitions -> Map.of(), () -> { },
+                    new SimpleMeterRegistry(), group, true, 3, 2, 1000);
+            ClickReplayService.Progress progress = replay.replay(null, null);
+
+            assertEquals(ClickReplayService.State.DONE, progress.state(), progress.error());
+            assertEquals(0L, count(jdbc, "fff6666"));
+            assertFalse(clicks.isPauseRequested(), "Resumed after the replay");
+        } finally {
+            clicks.stop();
+            created.stop();
+        }
+    }
+
+    private static ConcurrentMessageListenerContainer<Object, Object> container(EmbeddedKafkaBroker broker,
+                                                                              String group, String topic) {
+        ContainerProperties properties = new ContainerProperties(topic);
+        properties.setMessageListener((MessageListener<Object, Object>) record -> { });
+        return new ConcurrentMessageListenerContainer<>(
+                new DefaultKafkaConsumerFactory<>(KafkaTestUtils.consumerProps(group, "false", broker)), properties);
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long count(JdbcTemplate jdbc, String code) {
+        return jdbc.queryForObject("SELECT access_count FROM urls WHERE short_code = ?", Long.class, code);
+    }
+}
@@ -0,0 +1,169 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.service.ConsumerConcurrencyController.Decision;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@EmbeddedKafka(partitions = 4, topics = {ConsumerConcurrencyControllerTest.TOPIC, ConsumerConcurrencyControllerTest.SHARED_TOPIC})
+class ConsumerConcurrencyControllerTest {
+
+    static final String TOPIC = "autoscale.test";
+    static final String SHARED_TOPIC = "autoscale.shared";
+    private static final String GROUP = "autoscale-test-group";
+
+    @Test
+    @DisplayName("Test 1: Lag should scale the listener up to the partition count and a drained topic back down")
+    void testScalesWithLag(EmbeddedKafkaBroker broker) throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AtomicInteger processed = new AtomicInteger();
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps(GROUP, "false", broker);
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        ContainerProperties containerProperties = new ContainerProperties(TOPIC);
+        containerProperties.setAckMode(ContainerProperties.AckMode.RECORD);
+        containerProperties.setMessageListener((MessageListener<String, String>) record -> {
+            // A slow consumer: ~2ms per record, timed like UrlEventConsumer does
+            meterRegistry.timer(ConsumerConcurrencyController.PROCESSING_TIMER).record(() -> {
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            processed.incrementAndGet();
+        });
+        ConcurrentMessageListenerContainer<String, String> container = new ConcurrentMessageListenerContainer<>(
+                new DefaultKafkaConsumerFactory<>(consumerProps), containerProperties);
+        container.setConcurrency(1);
+
+        try (Admin admin = Admin.create(Map.of("bootstrap.servers", broker.getBrokersAsString()));
+             KafkaProducer<String, String> producer = new KafkaProducer<>(KafkaTestUtils.producerProps(broker),
+                     new StringSerializer(), new StringSerializer())) {
+            for (int i = 0; i < 4_000; i++) {
+                producer.send(new ProducerRecord<>(TOPIC, "code" + (i % 64), "click"));
+            }
+            producer.flush();
+
+            // target drain 100ms: 4000 records x 2ms on one thread is far behind; bounds 1..8 (4 partitions)
+            ConsumerConcurrencyController controller = new ConsumerConcurrencyController(() -> container, admin,
+                    meterRegistry, TOPIC, GROUP, 1, 8, 100, 100, 0, 2, 0);
+            container.start();
+            waitUntil(() -> processed.get() > 50);
+
+            assertEquals(Decision.UP, controller.evaluate());
+            assertEquals(2, container.getConcurrency());
+            assertTrue(controller.lastTotalLag() > 0);
+            waitUntilRebalanced(container);
+            assertEquals(Decision.UP, controller.evaluate());
+            waitUntilRebalanced(container);
+            assertEquals(Decision.UP, controller.evaluate());
+            assertEquals(4, container.getConcurrency());
+            waitUntilRebalanced(container);
+            assertEquals(Decision.HOLD, controller.evaluate(), "Capped by the partition count");
+
+            waitUntil(() -> processed.get() >= 4_000);
+            // Two quiet runs in a row → one thread less
+            waitUntil(() -> controller.evaluate() == Decision.DOWN);
+            assertEquals(3, container.getConcurrency());
+            assertEquals(0, controller.lastTotalLag());
+            assertEquals(3.0, meterRegistry.get("url.kafka.autoscale.decisions").tag("direction", "up").counter().count());
+            assertEquals(0.0, meterRegistry.get("url.kafka.consumer.lag").gauge().value());
+        } finally {
+            container.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Test 2: A backlog on another group member's partitions should not scale this instance up")
+    void testScalesOnOwnPartitionsOnly(EmbeddedKafkaBroker broker) throws Exception {
+        String group = "autoscale-shared-group";
+        ConcurrentMessageListenerContainer<String, String> local = container(broker, SHARED_TOPIC, group);
+        ConcurrentMessageListenerContainer<String, String> other = container(broker, SHARED_TOPIC, group);
+        try (Admin admin = Admin.create(Map.of("bootstrap.servers", broker.getBrokersAsString()));
+             KafkaProducer<String, String> producer = new KafkaProducer<>(KafkaTestUtils.producerProps(broker),
+                     new StringSerializer(), new StringSerializer())) {
+            local.start();
+            other.start();
+            waitUntil(() -> !local.getAssignedPartitions().isEmpty() && !other.getAssignedPartitions().isEmpty()
+                    && local.getAssignedPartitions().size() + other.getAssignedPartitions().size() == 4);
+            // The other member stops reading; its partitions stay assigned to it
+            other.pause();
+            waitUntil(other::isContainerPaused);
+
+            for (TopicPartition partition : other.getAssignedPartitions()) {
+                for (int i = 0; i < 500; i++) {
+                    producer.send(new ProducerRecord<>(SHARED_TOPIC, partition.partition(), "code" + i, "click"));
+                }
+            }
+            producer.flush();
+
+            ConsumerConcurrencyController controller = new ConsumerConcurrencyController(() -> local, admin,
+                    new SimpleMeterRegistry(), SHARED_TOPIC, group, 1, 8, 100, 100, 0, 100, 0);
+
+            assertEquals(Decision.HOLD, controller.evaluate(), "Group lag " + controller.lastTotalLag());
+            assertTrue(controller.lastTotalLag() >= 500);
+            assertEquals(0, controller.lastInstanceLag());
+            assertEquals(1, local.getConcurrency());
+        } finally {
+            local.stop();
+            other.stop();
+        }
+    }
+
+    private static ConcurrentMessageListenerContainer<String, String> container(EmbeddedKafkaBroker broker,
+                                                                              String topic, String group) {
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps(group, "false", broker);
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        ContainerProperties containerProperties = new ContainerProperties(topic);
+        containerProperties.setAckMode(ContainerProperties.AckMode.RECORD);
+        containerProperties.setMessageListener((MessageListener<String, String>) record -> { });
+        return new ConcurrentMessageListenerContainer<>(new DefaultKafkaConsumerFactory<>(consumerProps),
+                containerProperties);
+    }
+
+    /**
+     * Every consumer thread owns partitions again. No cooldown here, unlike production — restarting
+     * while the group is still joining can stall the next rebalance for the whole join timeout.
+     */
+    private static void waitUntilRebalanced(ConcurrentMessageListenerContainer<?, ?> container)
+            throws InterruptedException {
+        waitUntil(() -> {
+            Map<String, ? extends Collection<?>> assignments = container.getAssignmentsByClientId();
+            return assignments != null && assignments.size() == container.getConcurrency()
+                    && assignments.values().stream().allMatch(partitions -> partitions != null && !partitions.isEmpty());
+        });
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(100);
+        }
+    }
+}
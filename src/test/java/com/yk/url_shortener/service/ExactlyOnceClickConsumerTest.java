@@ -0,0 +1,160 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.repository.ConsumerOffsetRepository;
+import com.yk.url_shortener.repository.UrlRepository;
+import com.yk.url_shortener.sharding.DatabaseShardRouter;
+import com.yk.url_shortener.sharding.ShardContext;
+import com.yk.url_shortener.store.JpaUrlStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exactly-once counting against three in-memory H2 shards (no broker: batches are handed to the
+ * listener the way the container would, including redeliveries).
+ */
+@SpringBootTest(properties = {
+        "app.db.sharding.enabled=true",
+        "app.db.sharding.urls=jdbc:h2:mem:eo-shard0;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:eo-shard1;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:eo-shard2;DB_CLOSE_DELAY=-1",
+        "app.cache-warmup.enabled=false"
+})
+class ExactlyOnceClickConsumerTest {
+
+    @MockitoBean
+    private UrlEventProducer urlEventProducer;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private ConsumerOffsetRepository offsetRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DatabaseShardRouter router;
+
+    /** One short code per shard, in shard order */
+    private final List<String> codes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        urlRepository.deleteAll();
+        router.getShardIds().forEach(shardId -> ShardContext.pin(shardId, () -> {
+            offsetRepository.deleteAll();
+            return null;
+        }));
+        UrlShortenerService urlShortenerService = new UrlShortenerService(new JpaUrlStore(urlRepository),
+                Optional.empty(), Optional.of(router), Optional.empty(), Optional.empty(), Optional.empty());
+        Map<String, String> codeByShard = new HashMap<>();
+        for (int i = 0; codeByShard.size() < router.getShardIds().size(); i++) {
+            Url url = urlShortenerService.shortenUrl("https://example.com/eo/" + i);
+            codeByShard.putIfAbsent(router.shardForShortCode(url.getShortCode()), url.getShortCode());
+        }
+        codes.clear();
+        router.getShardIds().forEach(shardId -> codes.add(codeByShard.get(shardId)));
+    }
+
+    @Test
+    @DisplayName("Test 1: A redelivered batch should not be counted twice")
+    void testReplayNotCountedTwice() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ExactlyOnceClickConsumer consumer = consumer(plainService(), meterRegistry);
+
+        consumer.onUrlAccessedBatch(records(0, 100));
+        // Crash before the Kafka commit: the broker hands out 50..149, half of it already counted
+        consumer.onUrlAccessedBatch(records(50, 150));
+
+        Map<String, Long> expected = expectedCounts(0, 150);
+        codes.forEach(code -> assertEquals(expected.get(code), accessCount(code), code));
+        assertEquals(Map.of(0, 150L), consumer.storedOffsets(List.of(0)));
+        assertEquals(50.0, meterRegistry.get("url.kafka.exactly-once.records").tag("result", "skipped")
+                .counter().count());
+    }
+
+    @Test
+    @DisplayName("Test 2: A batch committed on some shards only should be completed on the others when redelivered")
+    void testTornBatchCompletedOnRedelivery() {
+        AtomicBoolean failOnce = new AtomicBoolean(true);
+        String failingCode = codes.get(1);
+        UrlShortenerService failingService = new UrlShortenerService(new JpaUrlStore(urlRepository),
+                Optional.empty(), Optional.of(router), Optional.empty(), Optional.empty(), Optional.empty()) {
+            @Override
+            public void incrementAccessCount(String shortCode, long clicks) {
+                super.incrementAccessCount(shortCode, clicks);
+                if (shortCode.equals(failingCode) && failOnce.getAndSet(false)) {
+                    throw new IllegalStateException("crash after the UPDATE");
+                }
+            }
+        };
+        ExactlyOnceClickConsumer consumer = consumer(failingService, new SimpleMeterRegistry());
+
+        // shard-0 commits, shard-1 rolls back, shard-2 is never reached
+        assertThrows(IllegalStateException.class, () -> consumer.onUrlAccessedBatch(records(0, 90)));
+        assertEquals(expectedCounts(0, 90).get(codes.get(0)), accessCount(codes.get(0)));
+        assertEquals(0L, accessCount(failingCode), "Rolled back together with its offset");
+        assertTrue(consumer.storedOffsets(List.of(0)).isEmpty(), "Not every shard has an offset yet");
+
+        consumer.onUrlAccessedBatch(records(0, 90));
+
+        Map<String, Long> expected = expectedCounts(0, 90);
+        codes.forEach(code -> assertEquals(expected.get(code), accessCount(code), code));
+        assertEquals(Map.of(0, 90L), consumer.storedOffsets(List.of(0)));
+    }
+
+    private ExactlyOnceClickConsumer consumer(UrlShortenerService service, SimpleMeterRegistry meterRegistry) {
+        return new ExactlyOnceClickConsumer(service, offsetRepository, transactionManager, Optional.of(router),
+                Optional.empty(), meterRegistry, "test-group", "jpa");
+    }
+
+    private UrlShortenerService plainService() {
+        return new UrlShortenerService(new JpaUrlStore(urlRepository), Optional.empty(), Optional.of(router),
+                Optional.empty(), Optional.empty(), Optional.empty());
+    }
+
+    /** Records [from, to) of partition 0: round-robin over the codes, every 5th an aggregated batch of 3 clicks */
+    private List<ConsumerRecord<String, Map<String, Object>>> records(int from, int to) {
+        List<ConsumerRecord<String, Map<String, Object>>> records = new ArrayList<>();
+        for (int offset = from; offset < to; offset++) {
+            String code = codes.get(offset % codes.size());
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("shortCode", code);
+            if (offset % 5 == 0) {
+                payload.put("count", 3);
+            }
+            records.add(new ConsumerRecord<>("url.accessed", 0, offset, code, payload));
+        }
+        return records;
+    }
+
+    private Map<String, Long> expectedCounts(int from, int to) {
+        Map<String, Long> counts = new HashMap<>();
+        records(from, to).forEach(record -> counts.merge(record.key(), UrlEventConsumer.clicksOf(record.value()),
+                Long::sum));
+        return counts;
+    }
+
+    private long accessCount(String code) {
+        return urlRepository.findByShortCode(code).orElseThrow().getAccessCount();
+    }
+}
@@ -0,0 +1,57 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.sharding.RedisShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class HotKeyDetectorTest {
+
+    private HotKeyDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        // threshold 50 req/s over a 1s window, Redis sharing off
+        detector = new HotKeyDetector(mock(RedisShardRouter.class), true, 50, 1000, 10, 1.0, false);
+    }
+
+    @Test
+    @DisplayName("Test 1: Viral key should be flagged hot, long-tail keys should not")
+    void testViralKeyIsDetected() {
+        for (int i = 0; i < 500; i++) {
+            detector.recordAccess("viral01");
+            detector.recordAccess("tail" + i);
+        }
+
+        assertTrue(detector.isHot("viral01"), "Key with 500 hits in the window should be hot");
+        assertFalse(detector.isHot("tail42"), "Key with a single hit should not be hot");
+        assertEquals("viral01", detector.getLocalHotKeys().get(0).shortCode());
+    }
+
+    @Test
+    @DisplayName("Test 2: Key should cool down after two quiet windows")
+    void testHotKeyCoolsDown() {
+        for (int i = 0; i < 500; i++) {
+            detector.recordAccess("viral01");
+        }
+        assertTrue(detector.isHot("viral01"));
+
+        detector.rotateWindow();
+        detector.rotateWindow();
+
+        assertFalse(detector.isHot("viral01"), "Key with no traffic for two windows should cool down");
+    }
+
+    @Test
+    @DisplayName("Test 3: Disabled detector should never flag keys")
+    void testDisabledDetector() {
+        HotKeyDetector disabled = new HotKeyDetector(mock(RedisShardRouter.class), false, 50, 1000, 10, 1.0, false);
+        for (int i = 0; i < 500; i++) {
+            assertFalse(disabled.recordAccess("viral01"));
+        }
+        assertTrue(disabled.getLocalHotKeys().isEmpty());
+    }
+}
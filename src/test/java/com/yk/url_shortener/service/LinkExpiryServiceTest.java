@@ -0,0 +1,130 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.store.UrlStore;
+import com.yk.url_shortener.util.HierarchicalTimingWheel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class LinkExpiryServiceTest {
+
+    private UrlStore urlStore;
+    private UrlCacheBulkOperations urlCacheBulkOperations;
+    private LocalHotKeyCache localHotKeyCache;
+    private LinkExpiryService linkExpiryService;
+
+    @BeforeEach
+    void setUp() {
+        urlStore = mock(UrlStore.class);
+        urlCacheBulkOperations = mock(UrlCacheBulkOperations.class);
+        localHotKeyCache = mock(LocalHotKeyCache.class);
+        // 10ms ticks, batches of 2, no pause between batches
+        linkExpiryService = new LinkExpiryService(urlStore, urlCacheBulkOperations, localHotKeyCache,
+                new SimpleMeterRegistry(), true, 10, 4, 2, 3, 0, 100);
+    }
+
+    @Test
+    @DisplayName("Test 1: Redirect check should honour expiry time and click limit")
+    void testIsExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        Url url = Url.builder().shortCode("abc1234").accessCount(5L).build();
+
+        assertFalse(LinkExpiryService.isExpired(url, now), "Permanent link never expires");
+
+        url.setExpiresAt(now.plusMinutes(1));
+        assertFalse(LinkExpiryService.isExpired(url, now));
+        assertTrue(LinkExpiryService.isExpired(url, now.plusMinutes(1)), "Expired at exactly expiresAt");
+
+        url.setExpiresAt(null);
+        url.setMaxClicks(6L);
+        assertFalse(LinkExpiryService.isExpired(url, now));
+        url.setAccessCount(6L);
+        assertTrue(LinkExpiryService.isExpired(url, now), "Click limit used up");
+    }
+
+    @Test
+    @DisplayName("Test 2: Timing wheel should fire deadlines on every level in order, once")
+    void testTimingWheelCascades() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, 3, 0);
+        wheel.schedule("soon", 5);
+        wheel.schedule("level1", 200);
+        wheel.schedule("level2", 10_000);
+        wheel.schedule("cancelled", 300);
+        wheel.cancel("cancelled");
+        assertFalse(wheel.schedule("beyond-horizon", 1L << 18));
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(199, fired::add);
+        assertEquals(List.of("soon"), fired);
+
+        wheel.advance(200, fired::add);
+        assertEquals(List.of("soon", "level1"), fired);
+
+        wheel.advance(20_000, fired::add);
+        assertEquals(List.of("soon", "level1", "level2"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Test 3: Links should be purged on their tick and at their click limit, caches evicted in bulk")
+    void testWheelAndClickLimitPurge() throws InterruptedException {
+        linkExpiryService.track(Url.builder().shortCode("exp0001").accessCount(0L)
+                .expiresAt(LocalDateTime.now().plusNanos(20_000_000)).build());
+        linkExpiryService.track(Url.builder().shortCode("lim0001").accessCount(0L).maxClicks(3L).build());
+
+        linkExpiryService.onAccessCount("lim0001", 2);
+        verifyNoInteractions(urlCacheBulkOperations);
+
+        linkExpiryService.onAccessCount("lim0001", 3);
+        verify(urlCacheBulkOperations).evictAll(List.of("lim0001"));
+
+        Thread.sleep(40);
+        linkExpiryService.tick();
+
+        verify(urlStore).deleteAllByShortCode(argThat(codes -> Set.copyOf(codes).equals(Set.of("exp0001", "lim0001"))));
+        verify(localHotKeyCache).evictAll(argThat(codes -> codes.size() == 2));
+    }
+
+    @Test
+    @DisplayName("Test 4: Sweep should purge in bounded batches")
+    void testSweepIsBatched() {
+        when(urlStore.findExpiredShortCodes(any(), anyInt())).thenReturn(List.of("a", "b"));
+
+        assertEquals(6, linkExpiryService.sweep(), "3 batches of 2, then stop until the next run");
+        verify(urlStore, times(3)).deleteAllByShortCode(List.of("a", "b"));
+        verify(urlCacheBulkOperations, times(3)).evictAll(List.of("a", "b"));
+    }
+
+    @Test
+    @DisplayName("Test 5: A link counted on an instance that never served it should still be evicted at its limit")
+    void testClickLimitLoadedFromStore() {
+        when(urlStore.findByShortCode("lim0002"))
+                .thenReturn(Optional.of(Url.builder().shortCode("lim0002").accessCount(0L).maxClicks(3L).build()));
+        when(urlStore.findByShortCode("perm001"))
+                .thenReturn(Optional.of(Url.builder().shortCode("perm001").accessCount(0L).build()));
+
+        linkExpiryService.onAccessCount("perm001", 1_000);
+        linkExpiryService.onAccessCount("perm001", 2_000);
+        linkExpiryService.onAccessCount("lim0002", 2);
+        verifyNoInteractions(urlCacheBulkOperations);
+
+        linkExpiryService.onAccessCount("lim0002", 3);
+        verify(urlCacheBulkOperations).evictAll(List.of("lim0002"));
+        verify(localHotKeyCache).evict("lim0002");
+        verify(urlStore, times(1)).findByShortCode("perm001");
+        verify(urlStore, times(1)).findByShortCode("lim0002");
+    }
+}
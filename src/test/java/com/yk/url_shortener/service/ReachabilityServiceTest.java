@@ -0,0 +1,122 @@
+package com.yk.url_shortener.service;
+
+import com.sun.net.httpserver.HttpServer;
+import com.yk.url_shortener.service.ReachabilityService.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReachabilityServiceTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/ok", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(404, -1); // host answered — a missing page is not "unreachable"
+            exchange.close();
+        });
+        server.createContext("/broken", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            requests.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    private ReachabilityService service(boolean verifyNewLinks, long waitMs) {
+        return new ReachabilityService(new SimpleMeterRegistry(), verifyNewLinks,
+                4, 100, 2000, waitMs, 600, 60, 100, 100);
+    }
+
+    @Test
+    @DisplayName("Test 1: Results should be cached per host and 5xx should count as unreachable")
+    void testPerHostCache() {
+        ReachabilityService reachability = service(false, 2000);
+
+        assertEquals(Status.REACHABLE, reachability.checkNow(baseUrl + "/ok"));
+        assertEquals(Status.REACHABLE, reachability.checkNow(baseUrl + "/ok?again"));
+        assertEquals(Status.REACHABLE, reachability.checkNow(baseUrl + "/other/path"), "Same host, cached");
+        assertEquals(1, requests.get());
+
+        ReachabilityService fresh = service(false, 2000);
+        assertEquals(Status.UNREACHABLE, fresh.checkNow(baseUrl + "/broken"));
+        assertEquals(Status.UNREACHABLE, fresh.cached(baseUrl + "/ok").orElseThrow(), "Negative result cached");
+        assertEquals(Status.UNREACHABLE, fresh.checkNow("http://127.0.0.1:1/"), "Connection refused");
+        fresh.shutdown();
+        reachability.shutdown();
+    }
+
+    @Test
+    @DisplayName("Test 2: A slow host should not hold the caller and concurrent checks should share one probe")
+    void testSlowHostBoundedWaitAndCoalescing() throws Exception {
+        ReachabilityService reachability = service(false, 100);
+
+        long start = System.nanoTime();
+        assertEquals(Status.PENDING, reachability.checkNow(baseUrl + "/slow"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "Bounded by wait-ms");
+
+        List<CompletableFuture<Status>> checks = IntStream.range(0, 10)
+                .mapToObj(i -> reachability.check(baseUrl + "/slow")).toList();
+        release.countDown();
+        for (CompletableFuture<Status> check : checks) {
+            assertEquals(Status.REACHABLE, check.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, requests.get(), "One probe per host in flight");
+        reachability.shutdown();
+    }
+
+    @Test
+    @DisplayName("Test 3: Accept-now-verify-later should mark links pending and settle them in the background")
+    void testVerifyLater() throws Exception {
+        ReachabilityService reachability = service(true, 0);
+
+        reachability.verifyLater("slow123", baseUrl + "/slow");
+        assertEquals(Status.PENDING, reachability.linkStatus("slow123").orElseThrow());
+        release.countDown();
+        reachability.check(baseUrl + "/slow").get(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 50 && reachability.linkStatus("slow123").orElseThrow() == Status.PENDING; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(Status.REACHABLE, reachability.linkStatus("slow123").orElseThrow());
+        assertTrue(reachability.linkStatus("unknown").isEmpty());
+        reachability.shutdown();
+    }
+}
@@ -0,0 +1,52 @@
+package com.yk.url_shortener.service;
+
+import org.apache.kafka.common.utils.Utils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SkewAwarePartitionerTest {
+
+    private static int partition(SkewAwarePartitioner partitioner, String topic, String key) {
+        return partitioner.partition(topic, key, key.getBytes(StandardCharsets.UTF_8), 6);
+    }
+
+    @Test
+    @DisplayName("Test 1: A hot key should be salted across partitions while cold keys keep their hash partition")
+    void testHotKeySalted() {
+        SkewAwarePartitioner partitioner = new SkewAwarePartitioner();
+        partitioner.configure(Map.of(SkewAwarePartitioner.HOT_SHARE, 0.2, SkewAwarePartitioner.MIN_RECORDS, 100,
+                SkewAwarePartitioner.WINDOW_MS, 60_000));
+
+        Set<Integer> viralPartitions = new HashSet<>();
+        for (int i = 0; i < 2_000; i++) {
+            String cold = "cold" + (i % 500);
+            assertEquals(Utils.toPositive(Utils.murmur2(cold.getBytes(StandardCharsets.UTF_8))) % 6,
+                    partition(partitioner, "url.accessed", cold), "Cold keys are partitioned like the default");
+            viralPartitions.add(partition(partitioner, "url.accessed", "viral01"));
+        }
+
+        assertTrue(partitioner.isHot("url.accessed", "viral01"));
+        assertFalse(partitioner.isHot("url.accessed", "cold1"));
+        assertEquals(6, viralPartitions.size(), "Hot key spread over every partition");
+    }
+
+    @Test
+    @DisplayName("Test 2: Topics that are not salted should always get the default keyed partition")
+    void testOtherTopicsUntouched() {
+        SkewAwarePartitioner partitioner = new SkewAwarePartitioner();
+        partitioner.configure(Map.of(SkewAwarePartitioner.MIN_RECORDS, 1));
+
+        int expected = Utils.toPositive(Utils.murmur2("viral01".getBytes(StandardCharsets.UTF_8))) % 6;
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(expected, partition(partitioner, "url.created", "viral01"));
+        }
+        assertFalse(partitioner.isHot("url.created", "viral01"));
+    }
+}
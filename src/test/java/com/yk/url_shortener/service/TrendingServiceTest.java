@@ -0,0 +1,36 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.util.SlidingWindowTopK;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendingServiceTest {
+
+    @Test
+    @DisplayName("Test 1: Trending links and domains should be ranked, with the limit clamped to 1..max-results")
+    void testRankingAndLimitClamp() {
+        // 1 min buckets, 60 min kept, 50 counters per bucket, at most 3 results
+        TrendingService trending = new TrendingService(60, 60, 50, 3);
+        for (int i = 0; i < 5; i++) {
+            trending.recordClicks("code" + i, 10 - i);
+            trending.recordCreated("https://www" + i + ".example" + i + ".com/page");
+        }
+        trending.recordCreated("https://news.example0.com/other");
+
+        List<String> top = trending.topLinks(Duration.ofMinutes(5), 2).stream().map(SlidingWindowTopK.Item::key).toList();
+        assertEquals(List.of("code0", "code1"), top);
+        assertEquals(3, trending.topLinks(Duration.ofMinutes(5), 100).size(), "Capped at max-results");
+        assertEquals(1, trending.topLinks(Duration.ofMinutes(5), -5).size(), "A negative limit is not a 500");
+        assertEquals(1, trending.topLinks(Duration.ofMinutes(5), 0).size());
+
+        SlidingWindowTopK.Item domain = trending.topDomains(Duration.ofHours(1), -1).get(0);
+        assertEquals("example0.com", domain.key());
+        assertEquals(2, domain.count());
+        assertEquals(Duration.ofHours(1), trending.maxWindow());
+    }
+}
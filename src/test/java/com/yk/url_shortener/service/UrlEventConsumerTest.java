@@ -0,0 +1,78 @@
+package com.yk.url_shortener.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UrlEventConsumerTest {
+
+    /** Kafka record time of the events below */
+    private static final long RECORD_TIME = 1_700_000_000_000L;
+
+    @Test
+    @DisplayName("Test 1: url.accessed events should add their unique clicks to unique_access_count, judged at the click time")
+    void testUniqueClicksFromEvents() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UrlShortenerService service = mock(UrlShortenerService.class);
+        // 10 s window
+        ClickDeduplicator dedup = new ClickDeduplicator(meterRegistry, 10, 5, 100, 0.01, false, 2, 256, 1000);
+        UrlEventConsumer consumer = new UrlEventConsumer(service, meterRegistry, Optional.empty(), Optional.of(dedup));
+
+        consumer.onUrlAccessed(click("1.1.1.1", null), RECORD_TIME);
+        verify(service).incrementAccessCount("abc1234", 1, 1);
+
+        // No accessedAt: the record time decides — 5 s later is a repeat, 20 s later a new unique click
+        consumer.onUrlAccessed(click("1.1.1.1", null), RECORD_TIME + 5_000);
+        consumer.onUrlAccessed(click("1.1.1.1", null), RECORD_TIME + 20_000);
+        verify(service).incrementAccessCount("abc1234", 1, 0);
+        verify(service, times(2)).incrementAccessCount("abc1234", 1, 1);
+
+        // accessedAt wins over the record time
+        consumer.onUrlAccessed(click("2.2.2.2", RECORD_TIME), RECORD_TIME + 60_000);
+        consumer.onUrlAccessed(click("2.2.2.2", RECORD_TIME + 1_000), RECORD_TIME + 120_000);
+        verify(service, times(3)).incrementAccessCount("abc1234", 1, 1);
+        verify(service, times(2)).incrementAccessCount("abc1234", 1, 0);
+
+        // No client IP — no visitor to count, and no shared "null" visitor either
+        consumer.onUrlAccessed(click(null, null), RECORD_TIME);
+        consumer.onUrlAccessed(click(null, null), RECORD_TIME + 60_000);
+        verify(service, times(4)).incrementAccessCount("abc1234", 1, 0);
+        assertEquals(2.0, meterRegistry.get("url.click-dedup.clicks").tag("result", "no-visitor").counter().count());
+
+        // An aggregated window brings its own unique count
+        consumer.onUrlAccessed(Map.of("shortCode", "abc1234", "count", 7, "uniqueCount", 3), RECORD_TIME);
+        verify(service).incrementAccessCount("abc1234", 7, 3);
+
+        // A click the redirect instance already judged keeps its verdict, whatever partition it came through
+        Map<String, Object> judged = click("3.3.3.3", RECORD_TIME);
+        judged.put("unique", true);
+        consumer.onUrlAccessed(judged, RECORD_TIME);
+        consumer.onUrlAccessed(judged, RECORD_TIME);
+        verify(service, times(5)).incrementAccessCount("abc1234", 1, 1);
+        assertEquals(10, meterRegistry.get(ConsumerConcurrencyController.PROCESSING_TIMER).timer().count());
+    }
+
+    private static Map<String, Object> click(String clientIp, Long accessedAtMillis) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("shortCode", "abc1234");
+        event.put("longUrl", "https://example.com");
+        if (clientIp != null) {
+            event.put("clientIp", clientIp);
+        }
+        if (accessedAtMillis != null) {
+            event.put("accessedAt", LocalDateTime.ofInstant(Instant.ofEpochMilli(accessedAtMillis),
+                    ZoneId.systemDefault()).toString());
+        }
+        return event;
+    }
+}
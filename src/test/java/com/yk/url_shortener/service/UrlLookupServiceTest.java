@@ -0,0 +1,154 @@
+package com.yk.url_shortener.service;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.store.UrlStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UrlLookupServiceTest {
+
+    private UrlStore urlStore;
+    private SimpleMeterRegistry meterRegistry;
+    private SlowCache slowCache;
+    private UrlLookupService lookupService;
+
+    private final Url url = Url.builder()
+            .shortCode("abc1234")
+            .longUrl("https://www.example.com/page")
+            .createdAt(LocalDateTime.now())
+            .accessCount(0L)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        urlStore = mock(UrlStore.class);
+        when(urlStore.findByShortCode("abc1234")).thenReturn(Optional.of(url));
+
+        slowCache = new SlowCache();
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(slowCache));
+        cacheManager.afterPropertiesSet();
+
+        meterRegistry = new SimpleMeterRegistry();
+        lookupService = new UrlLookupService(mock(UrlShortenerService.class), urlStore, cacheManager,
+                mock(LocalHotKeyCache.class), meterRegistry, true, 0.95, 2, 20, 0.5, 16);
+    }
+
+    @Test
+    @DisplayName("Test 1: Slow cache should be hedged and the DB result should win")
+    void testSlowCacheIsHedged() {
+        slowCache.put("abc1234", url);
+        slowCache.delayMillis = 1000;
+
+        long start = System.nanoTime();
+        Optional<Url> result = lookupService.getOriginalUrl("abc1234");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(result.isPresent(), "URL should be resolved by the hedged DB read");
+        assertTrue(elapsedMillis < 500, "Hedged read should not wait for the slow cache");
+        assertEquals(1.0, meterRegistry.counter("url.lookup.hedge.fired").count());
+        assertEquals(1.0, meterRegistry.counter("url.lookup.hedge.won", "winner", "db").count());
+    }
+
+    @Test
+    @DisplayName("Test 2: Fast cache hit should not fire a hedge")
+    void testFastCacheHitIsNotHedged() {
+        slowCache.put("abc1234", url);
+
+        Optional<Url> result = lookupService.getOriginalUrl("abc1234");
+
+        assertTrue(result.isPresent(), "URL should be served from cache");
+        assertEquals(0.0, meterRegistry.counter("url.lookup.hedge.fired").count());
+        verify(urlStore, never()).findByShortCode(anyString());
+    }
+
+    @Test
+    @DisplayName("Test 3: Hedge budget should cap the number of hedges")
+    void testHedgeBudgetIsEnforced() {
+        slowCache.put("abc1234", url);
+        slowCache.delayMillis = 100;
+
+        for (int i = 0; i < 30; i++) {
+            assertTrue(lookupService.getOriginalUrl("abc1234").isPresent());
+        }
+
+        double fired = meterRegistry.counter("url.lookup.hedge.fired").count();
+        double throttled = meterRegistry.counter("url.lookup.hedge.throttled").count();
+        assertTrue(fired < 30, "Budget should stop some hedges from firing");
+        assertTrue(throttled > 0, "Throttled hedges should be counted");
+    }
+
+    @Test
+    @DisplayName("Test 4: An interrupted hedged read should fall back to the DB, not report the link missing")
+    void testInterruptedHedgeFallsBackToDb() {
+        slowCache.put("abc1234", url);
+        slowCache.delayMillis = 1000;
+        AtomicInteger reads = new AtomicInteger();
+        when(urlStore.findByShortCode("abc1234")).thenAnswer(invocation -> {
+            if (reads.incrementAndGet() == 1) {
+                Thread.sleep(1000); // the hedged read is slow too
+            }
+            return Optional.of(url);
+        });
+        Thread caller = Thread.currentThread();
+        CompletableFuture.runAsync(caller::interrupt, CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS));
+
+        Optional<Url> result = lookupService.getOriginalUrl("abc1234");
+
+        assertTrue(Thread.interrupted(), "Interrupt flag is kept for the caller");
+        assertTrue(result.isPresent(), "An interrupt must not turn a valid link into a 404");
+        assertEquals(1.0, meterRegistry.counter("url.lookup.hedge.fired").count());
+    }
+
+    @Test
+    @DisplayName("Test 5: A hedged DB win after a cache miss should populate the cache")
+    void testHedgedDbWinIsCached() throws InterruptedException {
+        slowCache.delayMillis = 200;
+
+        assertTrue(lookupService.getOriginalUrl("abc1234").isPresent());
+        assertEquals(1.0, meterRegistry.counter("url.lookup.hedge.won", "winner", "db").count());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!slowCache.getNativeCache().containsKey("abc1234") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertSame(url, slowCache.getNativeCache().get("abc1234"), "The next lookup should be a cache hit");
+    }
+
+    /** In-memory cache whose reads can be slowed down to simulate a Redis stall */
+    private static class SlowCache extends ConcurrentMapCache {
+
+        volatile long delayMillis;
+
+        SlowCache() {
+            super("urls");
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            return super.get(key);
+        }
+    }
+}
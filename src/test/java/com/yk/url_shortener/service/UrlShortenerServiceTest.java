@@ -3,14 +3,17 @@ package com.yk.url_shortener.service;
 import com.yk.url_shortener.dto.DomainMetrics;
 import com.yk.url_shortener.model.Url;
 import com.yk.url_shortener.repository.UrlRepository;
+import com.yk.url_shortener.store.JpaUrlStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,7 +29,8 @@ class UrlShortenerServiceTest {
     void setUp() {
         urlRepository.deleteAll();
         // Pass Optional.empty() — tests don't need Kafka at all
-        urlShortenerService = new UrlShortenerService(urlRepository, Optional.empty());
+        urlShortenerService = new UrlShortenerService(new JpaUrlStore(urlRepository), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.empty());
     }
 
     // ...existing code...
@@ -105,8 +109,44 @@ class UrlShortenerServiceTest {
         assertEquals("youtube.com", topDomains.get(1).getDomain(), "Second domain should be youtube.com");
         assertEquals(4L, topDomains.get(1).getCount(), "YouTube count should be 4");
 
-        // Third should be en.wikipedia.org with count 2
-        assertEquals("en.wikipedia.org", topDomains.get(2).getDomain(), "Third domain should be en.wikipedia.org");
+        // Third should be wikipedia.org with count 2 (registrable domain, not the en. subdomain)
+        assertEquals("wikipedia.org", topDomains.get(2).getDomain(), "Third domain should be wikipedia.org");
         assertEquals(2L, topDomains.get(2).getCount(), "Wikipedia count should be 2");
     }
+
+    @Test
+    @DisplayName("Test 5: Links with expiry or click limit should never be deduplicated")
+    void testLimitedLinksAreNotDeduplicated() {
+        String longUrl = "https://www.example.com/campaign";
+
+        Url permanent = urlShortenerService.shortenUrl(longUrl);
+        Url expiring = urlShortenerService.shortenUrl(longUrl, LocalDateTime.now().plusDays(1), null);
+        Url limited = urlShortenerService.shortenUrl(longUrl, null, 10L);
+
+        assertNotEquals(permanent.getShortCode(), expiring.getShortCode(), "Expiring link needs its own code");
+        assertNotEquals(expiring.getShortCode(), limited.getShortCode(), "Each limited link gets its own code");
+        assertEquals(10L, limited.getMaxClicks());
+        assertEquals(permanent.getShortCode(), urlShortenerService.shortenUrl(longUrl).getShortCode(),
+                "Dedupe should still return the permanent link");
+    }
+
+    @Test
+    @DisplayName("Test 6: Expired-link sweep should find timed-out and clicked-out links, each once")
+    void testFindExpiredShortCodes() {
+        Url timedOut = urlShortenerService.shortenUrl("https://www.example.com/a", LocalDateTime.now().minusMinutes(1), null);
+        Url clickedOut = urlShortenerService.shortenUrl("https://www.example.com/b", null, 2L);
+        Url both = urlShortenerService.shortenUrl("https://www.example.com/c", LocalDateTime.now().minusMinutes(1), 1L);
+        Url stillLive = urlShortenerService.shortenUrl("https://www.example.com/d", null, 5L);
+        urlShortenerService.shortenUrl("https://www.example.com/e");
+        urlRepository.incrementAccessCount(clickedOut.getShortCode(), 2, LocalDateTime.now());
+        urlRepository.incrementAccessCount(both.getShortCode(), 1, LocalDateTime.now());
+        urlRepository.incrementAccessCount(stillLive.getShortCode(), 4, LocalDateTime.now());
+
+        JpaUrlStore store = new JpaUrlStore(urlRepository);
+        List<String> expired = store.findExpiredShortCodes(LocalDateTime.now(), 10);
+
+        assertEquals(3, expired.size(), "No duplicates: " + expired);
+        assertEquals(Set.of(timedOut.getShortCode(), clickedOut.getShortCode(), both.getShortCode()), Set.copyOf(expired));
+        assertEquals(2, store.findExpiredShortCodes(LocalDateTime.now(), 2).size(), "Batch size honoured");
+    }
 }
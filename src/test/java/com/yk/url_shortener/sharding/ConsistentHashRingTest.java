@@ -0,0 +1,75 @@
+package com.yk.url_shortener.sharding;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    @DisplayName("Test 1: Keys should spread evenly over 3 nodes with 160 virtual nodes")
+    void testBalancedDistribution() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(160);
+        ring.addNode("redis-1", "redis-1");
+        ring.addNode("redis-2", "redis-2");
+        ring.addNode("redis-3", "redis-3");
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.nodeFor("urls::code" + i), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        counts.values().forEach(count ->
+                assertTrue(Math.abs(count - KEYS / 3.0) < KEYS * 0.05,
+                        "Each node should own ~1/3 of keys, got " + counts));
+    }
+
+    @Test
+    @DisplayName("Test 2: Adding a node should only move ~1/N of keys, all onto the new node")
+    void testMinimalRemapOnAddNode() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(160);
+        ring.addNode("redis-1", "redis-1");
+        ring.addNode("redis-2", "redis-2");
+        ring.addNode("redis-3", "redis-3");
+
+        String[] before = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            before[i] = ring.nodeFor("urls::code" + i);
+        }
+
+        ring.addNode("redis-4", "redis-4");
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String after = ring.nodeFor("urls::code" + i);
+            if (!after.equals(before[i])) {
+                assertEquals("redis-4", after, "Keys should only ever move to the new node");
+                moved++;
+            }
+        }
+        assertTrue(moved > KEYS * 0.20 && moved < KEYS * 0.30,
+                "About 1/4 of keys should move, moved " + moved);
+    }
+
+    @Test
+    @DisplayName("Test 3: Unhealthy node should be skipped and its keys taken by neighbours")
+    void testSkipsUnacceptableNode() {
+        ConsistentHashRing<String> ring = new ConsistentHashRing<>(160);
+        ring.addNode("redis-1", "redis-1");
+        ring.addNode("redis-2", "redis-2");
+
+        for (int i = 0; i < 1000; i++) {
+            String key = "rate_limit:10.0.0." + i;
+            String healthyOwner = ring.nodeFor(key, node -> !node.equals("redis-2"));
+            assertEquals("redis-1", healthyOwner);
+        }
+        assertThrows(IllegalStateException.class, () -> new ConsistentHashRing<String>(160).nodeFor("x"));
+    }
+}
@@ -0,0 +1,197 @@
+package com.yk.url_shortener.sharding;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.repository.UrlRepository;
+import com.yk.url_shortener.service.UrlEventProducer;
+import com.yk.url_shortener.service.UrlShortenerService;
+import com.yk.url_shortener.store.JpaUrlStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sharded persistence against three local in-memory H2 databases.
+ */
+@SpringBootTest(properties = {
+        "app.db.sharding.enabled=true",
+        "app.db.sharding.urls=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1",
+        "app.cache-warmup.enabled=false",
+        "spring.main.allow-bean-definition-overriding=true"
+})
+class ShardedPersistenceTest {
+
+    /** Replaces RedisConfig's cache manager, which needs a Redis server — the proxied service caches in memory */
+    @TestConfiguration
+    static class InMemoryCache {
+        @Bean
+        @Primary
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("urls", "stats", "domains");
+        }
+    }
+
+    @MockitoBean
+    private UrlEventProducer urlEventProducer;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private DatabaseShardRouter router;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    /** The application bean — transactional and caching proxies included */
+    @Autowired
+    private UrlShortenerService proxiedService;
+
+    private UrlShortenerService urlShortenerService;
+
+    @BeforeEach
+    void setUp() {
+        urlRepository.deleteAll();
+        router.getShardIds().forEach(shardId -> jdbc(shardId).update("DELETE FROM url_dedup"));
+        // Plain instance (no cache proxy) on top of the sharded repository
+        urlShortenerService = new UrlShortenerService(new JpaUrlStore(urlRepository), Optional.empty(),
+                Optional.of(router), Optional.empty(), Optional.empty(), Optional.empty());
+    }
+
+    @Test
+    @DisplayName("Test 1: Created URLs should spread over all shards, each on the shard owning its code")
+    void testRowsLandOnOwningShard() {
+        for (int i = 0; i < 30; i++) {
+            urlShortenerService.shortenUrl("https://example.com/page/" + i);
+        }
+
+        for (String shardId : router.getShardIds()) {
+            List<String> codes = jdbc(shardId).queryForList("SELECT short_code FROM urls", String.class);
+            assertFalse(codes.isEmpty(), shardId + " should hold some rows");
+            codes.forEach(code -> assertEquals(shardId, router.shardForShortCode(code)));
+        }
+
+        Url created = urlShortenerService.shortenUrl("https://example.com/page/7");
+        assertTrue(urlRepository.findByShortCode(created.getShortCode()).isPresent());
+        assertEquals(30, urlRepository.count(), "Dedupe lookup should find the existing row on its shard");
+    }
+
+    @Test
+    @DisplayName("Test 2: Cross-shard reads should fan out and merge in global order")
+    void testFanOutReads() {
+        for (int i = 0; i < 12; i++) {
+            Url url = urlShortenerService.shortenUrl("https://example.com/top/" + i);
+            url.setAccessCount((long) i);
+            urlRepository.save(url);
+        }
+
+        assertEquals(12, urlRepository.findAll().size());
+
+        Slice<Url> secondPage = urlRepository.findByOrderByAccessCountDesc(PageRequest.of(1, 5));
+        assertEquals(List.of(6L, 5L, 4L, 3L, 2L),
+                secondPage.getContent().stream().map(Url::getAccessCount).toList());
+        assertTrue(secondPage.hasNext());
+    }
+
+    @Test
+    @DisplayName("Test 3: Rebalance should move a misplaced row to its owning shard")
+    void testRebalanceMovesMisplacedRows() {
+        String code = "mvMe001";
+        String owner = router.shardForShortCode(code);
+        String wrongShard = router.getShardIds().stream().filter(id -> !id.equals(owner)).findFirst().orElseThrow();
+        jdbc(wrongShard).update(
+                "INSERT INTO urls (short_code, long_url, created_at, access_count) VALUES (?, ?, ?, ?)",
+                code, "https://example.com/moved", Timestamp.valueOf(LocalDateTime.now()), 3L);
+
+        assertTrue(urlRepository.findByShortCode(code).isEmpty(), "Misplaced row is invisible to routing");
+        assertEquals(1L, shardRebalancer.status().get(wrongShard).get("misplaced"));
+
+        assertEquals(1, shardRebalancer.rebalance(100).get(wrongShard));
+
+        assertEquals(3L, urlRepository.findByShortCode(code).orElseThrow().getAccessCount());
+        assertEquals(0, jdbc(wrongShard).queryForObject(
+                "SELECT COUNT(*) FROM urls WHERE short_code = ?", Integer.class, code));
+    }
+
+    @Test
+    @DisplayName("Test 4: A link whose code and long URL hash to different shards should still dedupe after a rebalance")
+    void testRebalanceMovesDedupeEntryWithRow() {
+        // As after a split: the row sits on its long URL's shard, its code now belongs elsewhere
+        String longUrl = "https://example.com/split";
+        String longUrlShard = router.shardForLongUrl(longUrl);
+        String code = IntStream.range(0, 1000).mapToObj(i -> "split" + i)
+                .filter(candidate -> !router.shardForShortCode(candidate).equals(longUrlShard))
+                .findFirst().orElseThrow();
+        jdbc(longUrlShard).update(
+                "INSERT INTO urls (short_code, long_url, created_at, access_count) VALUES (?, ?, ?, ?)",
+                code, longUrl, Timestamp.valueOf(LocalDateTime.now()), 5L);
+
+        shardRebalancer.rebalance(100);
+
+        assertEquals(5L, urlRepository.findByShortCode(code).orElseThrow().getAccessCount());
+        assertEquals(1, jdbc(longUrlShard).queryForObject(
+                "SELECT COUNT(*) FROM url_dedup WHERE long_url = ? AND short_code = ?", Integer.class, longUrl, code));
+
+        // Through the transactional proxy: the dedupe lookup starts a transaction on the long URL's
+        // shard, the row is read on its own shard
+        assertEquals(code, proxiedService.shortenUrl(longUrl).getShortCode());
+        assertEquals(1, urlRepository.count(), "No second code for the same long URL");
+
+        Url other = proxiedService.shortenUrl("https://example.com/fresh");
+        assertEquals(router.shardForShortCode(other.getShortCode()), router.shardForLongUrl(other.getLongUrl()));
+        assertEquals(other.getShortCode(), proxiedService.shortenUrl("https://example.com/fresh").getShortCode());
+    }
+
+    @Test
+    @DisplayName("Test 5: Rebalance should walk a shard page by page, moving misplaced rows from every page")
+    void testRebalanceInPages() {
+        String shard = router.getShardIds().get(0);
+        List<String> codes = IntStream.range(0, 1000).mapToObj(i -> String.format("page%03d", i)).toList();
+        List<String> misplaced = codes.stream().filter(code -> !router.shardForShortCode(code).equals(shard)).limit(5).toList();
+        List<String> owned = codes.stream().filter(code -> router.shardForShortCode(code).equals(shard)).limit(3).toList();
+        for (String code : concat(misplaced, owned)) {
+            jdbc(shard).update("INSERT INTO urls (short_code, long_url, created_at, access_count) VALUES (?, ?, ?, ?)",
+                    code, "https://example.com/" + code, Timestamp.valueOf(LocalDateTime.now()), 1L);
+        }
+
+        assertEquals(Map.of("rows", 8L, "misplaced", 5L), shardRebalancer.status().get(shard));
+
+        // Pages of 2 rows: misplaced rows are deleted behind the cursor without shifting the next page
+        assertEquals(5, shardRebalancer.rebalance(2).get(shard));
+
+        assertEquals(Map.of("rows", 3L, "misplaced", 0L), shardRebalancer.status().get(shard));
+        for (String code : concat(misplaced, owned)) {
+            assertTrue(urlRepository.findByShortCode(code).isPresent(), code);
+        }
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        return Stream.concat(first.stream(), second.stream()).toList();
+    }
+
+    private JdbcTemplate jdbc(String shardId) {
+        return new JdbcTemplate(router.getDataSource(shardId));
+    }
+}
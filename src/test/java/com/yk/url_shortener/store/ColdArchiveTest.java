@@ -0,0 +1,95 @@
+package com.yk.url_shortener.store;
+
+import com.yk.url_shortener.model.Url;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColdArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    private ColdArchive archive;
+
+    @AfterEach
+    void tearDown() {
+        if (archive != null) {
+            archive.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Test 1: Archived links should be found across compressed blocks and survive a reopen")
+    void testArchiveAndFind() throws IOException {
+        archive = new ColdArchive(directory.toString());
+        List<Url> links = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            links.add(url(String.format("c%06d", i), "https://example.com/some/long/path/" + i));
+        }
+        links.get(7).setMaxClicks(5L);
+        links.get(1234).setUniqueAccessCount(321L);
+        archive.archive(links);
+
+        long rawBytes = 2_000L * 60;
+        assertTrue(archive.sizeBytes() < rawBytes, "Blocks should be compressed");
+
+        archive.close();
+        archive = new ColdArchive(directory.toString());
+
+        Url found = archive.find("c001234").orElseThrow();
+        assertEquals("https://example.com/some/long/path/1234", found.getLongUrl());
+        assertEquals(1234L, found.getAccessCount());
+        assertEquals(321L, found.getUniqueAccessCount());
+        assertNull(archive.find("c000007").orElseThrow().getUniqueAccessCount(), "Never counted stays NULL");
+        assertEquals(links.get(1234).getCreatedAt(), found.getCreatedAt());
+        assertEquals(5L, archive.find("c000007").orElseThrow().getMaxClicks());
+        assertTrue(archive.find("c999999").isEmpty());
+        assertTrue(archive.find("a").isEmpty(), "Sorts before the first block");
+    }
+
+    @Test
+    @DisplayName("Test 2: Rehydrated links should be masked until archived again, also after a reopen")
+    void testRehydrationMask() throws IOException {
+        archive = new ColdArchive(directory.toString());
+        archive.archive(List.of(url("abc1234", "https://example.com/a"), url("xyz9876", "https://example.com/b")));
+        archive.markRehydrated("abc1234");
+        assertTrue(archive.find("abc1234").isEmpty());
+
+        archive.close();
+        archive = new ColdArchive(directory.toString());
+        assertFalse(archive.contains("abc1234"), "Mask should be replayed from rehydrated.log");
+
+        // Dormant again → a newer segment is not covered by the mask
+        archive.archive(List.of(url("abc1234", "https://example.com/a")));
+        assertTrue(archive.contains("abc1234"));
+
+        List<String> live = new ArrayList<>();
+        archive.forEachLive(url -> live.add(url.getShortCode()));
+        assertEquals(List.of("abc1234", "xyz9876"), live.stream().sorted().toList());
+        assertEquals(2, archive.segmentCount());
+        assertTrue(Files.exists(ArchiveSegment.pathFor(directory, 2)));
+    }
+
+    private static Url url(String shortCode, String longUrl) {
+        LocalDateTime created = LocalDateTime.now().minusDays(90).truncatedTo(ChronoUnit.MILLIS);
+        long accessCount = shortCode.startsWith("c") ? Long.parseLong(shortCode.substring(1)) : 0L;
+        return Url.builder()
+                .shortCode(shortCode)
+                .longUrl(longUrl)
+                .createdAt(created)
+                .accessCount(accessCount)
+                .build();
+    }
+}
@@ -0,0 +1,175 @@
+package com.yk.url_shortener.store;
+
+import com.yk.url_shortener.model.Url;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogStructuredUrlStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private LogStructuredUrlStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Test 1: Should save, look up by code and long URL, and count accesses")
+    void testSaveFindAndIncrement() {
+        store = open(1 << 20);
+        store.save(url("abc1234", "https://example.com/a"));
+        store.save(url("xyz9876", "https://example.com/" + "x".repeat(300)));
+
+        assertEquals("https://example.com/a", store.findByShortCode("abc1234").orElseThrow().getLongUrl());
+        assertEquals("xyz9876", store.findByLongUrl("https://example.com/" + "x".repeat(300))
+                .orElseThrow().getShortCode());
+        assertTrue(store.existsByShortCode("abc1234"));
+        assertTrue(store.findByShortCode("missing").isEmpty());
+
+        store.incrementAccessCount("abc1234", 3);
+        store.incrementAccessCount("abc1234", 2);
+        assertEquals(5L, store.findByShortCode("abc1234").orElseThrow().getAccessCount());
+
+        List<Url> top = store.findMostAccessed(PageRequest.of(0, 1)).getContent();
+        assertEquals(List.of("abc1234"), top.stream().map(Url::getShortCode).toList());
+    }
+
+    @Test
+    @DisplayName("Test 2: Should recover after restart and truncate a torn tail record")
+    void testRecoveryTruncatesTornTail() throws IOException {
+        store = open(1 << 20);
+        store.save(url("abc1234", "https://example.com/a"));
+        store.incrementAccessCount("abc1234", 7);
+        store.close();
+
+        // Simulate a crash in the middle of an append
+        Path active = LogSegment.pathFor(directory, 1);
+        Files.write(active, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9}, StandardOpenOption.APPEND);
+        long tornSize = Files.size(active);
+
+        store = open(1 << 20);
+        assertEquals(7L, store.findByShortCode("abc1234").orElseThrow().getAccessCount());
+        assertEquals(tornSize - 9, Files.size(active), "Torn tail should be truncated");
+    }
+
+    @Test
+    @DisplayName("Test 3: Compaction should merge closed segments and keep every live value")
+    void testCompactionKeepsLiveData() {
+        store = open(512);
+        for (int i = 0; i < 40; i++) {
+            store.save(url(String.format("code%03d", i), "https://example.com/page/" + i));
+            store.incrementAccessCount(String.format("code%03d", i), i);
+        }
+        int before = store.segmentCount();
+        assertTrue(before > 3, "Small segments should have rolled over");
+
+        store.compact();
+        assertTrue(store.segmentCount() < before, "Closed segments should be merged");
+        assertEquals(39L, store.findByShortCode("code039").orElseThrow().getAccessCount());
+        assertEquals("code012", store.findByLongUrl("https://example.com/page/12").orElseThrow().getShortCode());
+
+        // Restart from the compacted segment + hint files
+        store.close();
+        store = open(512);
+        assertEquals(40, store.findAll().size());
+        assertEquals(21L, store.findByShortCode("code021").orElseThrow().getAccessCount());
+    }
+
+    @Test
+    @DisplayName("Test 4: Expiry limits and deletes should survive a restart")
+    void testLimitsAndDeletesSurviveRestart() {
+        store = open(1 << 20);
+        Url expiring = url("exp0001", "https://example.com/a");
+        expiring.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        Url limited = url("lim0001", "https://example.com/a");
+        limited.setMaxClicks(2L);
+        store.save(url("perm001", "https://example.com/a"));
+        store.save(expiring);
+        store.save(limited);
+        store.incrementAccessCount("lim0001", 2);
+
+        assertEquals("perm001", store.findByLongUrl("https://example.com/a").orElseThrow().getShortCode(),
+                "Limited links are never a dedupe target");
+        assertEquals(List.of("exp0001", "lim0001"),
+                store.findExpiredShortCodes(LocalDateTime.now(), 10).stream().sorted().toList());
+
+        store.deleteAllByShortCode(List.of("exp0001"));
+        store.close();
+        store = open(1 << 20);
+
+        assertTrue(store.findByShortCode("exp0001").isEmpty(), "Tombstone should be replayed");
+        assertEquals(2L, store.findByShortCode("lim0001").orElseThrow().getMaxClicks());
+        assertEquals(List.of("lim0001"), store.findExpiredShortCodes(LocalDateTime.now(), 10));
+    }
+
+    @Test
+    @DisplayName("Test 5: Concurrent increments should never lose a click, also across segment rolls and a restart")
+    void testConcurrentIncrements() throws Exception {
+        store = open(4096);
+        List<String> codes = IntStream.range(0, 8).mapToObj(i -> String.format("hot%04d", i)).toList();
+        codes.forEach(code -> store.save(url(code, "https://example.com/" + code)));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> workers = IntStream.range(0, 8).<Future<?>>mapToObj(t -> pool.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    store.incrementAccessCount(codes.get((t + i) % codes.size()), 1);
+                }
+            })).toList();
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertTrue(store.segmentCount() > 2, "Increments should have rolled segments");
+        codes.forEach(code -> assertEquals(500L, store.findByShortCode(code).orElseThrow().getAccessCount()));
+
+        store.close();
+        store = open(4096);
+        codes.forEach(code -> assertEquals(500L, store.findByShortCode(code).orElseThrow().getAccessCount()));
+    }
+
+    @Test
+    @DisplayName("Test 6: Should refuse to start with click de-duplication enabled - there is no unique counter")
+    void testRejectsClickDedup() {
+        IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+                new LogStructuredUrlStore(directory.toString(), 1 << 20, false, 2, 16, 4, true));
+        assertTrue(e.getMessage().contains("app.click-dedup.enabled"));
+    }
+
+    private LogStructuredUrlStore open(long maxSegmentBytes) {
+        return new LogStructuredUrlStore(directory.toString(), maxSegmentBytes, false, 2, 16, 4);
+    }
+
+    private static Url url(String shortCode, String longUrl) {
+        return Url.builder()
+                .shortCode(shortCode)
+                .longUrl(longUrl)
+                .createdAt(LocalDateTime.now())
+                .accessCount(0L)
+                .build();
+    }
+}
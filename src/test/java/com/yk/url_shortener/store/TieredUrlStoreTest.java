@@ -0,0 +1,170 @@
+package com.yk.url_shortener.store;
+
+import com.yk.url_shortener.model.Url;
+import com.yk.url_shortener.repository.UrlRepository;
+import com.yk.url_shortener.service.UrlEventProducer;
+import com.yk.url_shortener.service.UrlShortenerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hot tier (H2 through the real repositories and transaction manager) + cold archive on a temp directory.
+ */
+@SpringBootTest(properties = {
+        "app.archive.enabled=true",
+        "app.cache-warmup.enabled=false",
+        "spring.main.allow-bean-definition-overriding=true"
+})
+class TieredUrlStoreTest {
+
+    /** Replaces RedisConfig's cache manager, which needs a Redis server — the proxied service caches in memory */
+    @TestConfiguration
+    static class InMemoryCache {
+        @Bean
+        @Primary
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("urls", "stats", "domains");
+        }
+    }
+
+    @DynamicPropertySource
+    static void archiveDirectory(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("archive").toString();
+        registry.add("app.archive.dir", () -> directory);
+    }
+
+    @MockitoBean
+    private UrlEventProducer urlEventProducer;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private ColdArchive archive;
+
+    @Autowired
+    private TieredUrlStore store;
+
+    @Autowired
+    private JpaUrlStore hotStore;
+
+    /** The application bean — transactional and caching proxies included */
+    @Autowired
+    private UrlShortenerService urlShortenerService;
+
+    @BeforeEach
+    void setUp() {
+        urlRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Test 1: A redirect for an archived link should commit it back into the hot tier, despite its read-only transaction")
+    void testRehydratesThroughReadOnlyLookup() throws IOException {
+        archive.archive(List.of(url("old0001", "https://example.com/old", 7L)));
+        urlRepository.save(url("new0001", "https://example.com/new", 0L));
+
+        assertTrue(store.existsByShortCode("old0001"), "Archived codes must never be reissued");
+        assertEquals(List.of("new0001", "old0001"), store.findAll().stream().map(Url::getShortCode).sorted().toList());
+
+        Url served = urlShortenerService.getOriginalUrl("old0001").orElseThrow();
+        assertEquals("https://example.com/old", served.getLongUrl());
+
+        Url hot = urlRepository.findByShortCode("old0001").orElseThrow();
+        assertEquals(7L, hot.getAccessCount());
+        assertNotNull(hot.getLastAccessedAt(), "Not dormant again straight away");
+        assertTrue(archive.find("old0001").isEmpty(), "Masked once the hot copy committed");
+    }
+
+    @Test
+    @DisplayName("Test 2: A concurrent rehydration should keep the row another instance inserted first")
+    void testConcurrentRehydrationDoesNotOverwrite() throws IOException {
+        archive.archive(List.of(url("old0002", "https://example.com/old2", 3L)));
+        // Another instance rehydrated it and counted clicks before this one gets there
+        Url winner = url("old0002", "https://example.com/old2", 3L);
+        winner.setAccessCount(42L);
+        urlRepository.save(winner);
+
+        Url rehydrated = store.rehydrate("old0002").orElseThrow();
+
+        assertEquals(42L, rehydrated.getAccessCount());
+        assertEquals(42L, urlRepository.findByShortCode("old0002").orElseThrow().getAccessCount());
+        assertEquals(1, urlRepository.count());
+        assertTrue(archive.find("old0002").isEmpty());
+        assertTrue(store.rehydrate("missing").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test 3: Counting clicks should add to both counters in the hot row, and bring an archived link back first")
+    void testIncrementsBothCounters() throws IOException {
+        urlRepository.save(url("hot0001", "https://example.com/hot", 5L));
+        Url old = url("old0003", "https://example.com/old3", 9L);
+        old.setUniqueAccessCount(4L);
+        archive.archive(List.of(old));
+
+        assertEquals(8L, store.incrementAccessCount("hot0001", 3, 2));
+        assertEquals(9L, store.incrementAccessCount("hot0001", 1, 0));
+        Url hot = urlRepository.findByShortCode("hot0001").orElseThrow();
+        assertEquals(9L, hot.getAccessCount());
+        assertEquals(2L, hot.getUniqueAccessCount(), "A NULL unique counter starts from 0");
+        assertNotNull(hot.getLastAccessedAt());
+
+        assertEquals(10L, store.incrementAccessCount("old0003", 1, 1));
+        Url rehydrated = urlRepository.findByShortCode("old0003").orElseThrow();
+        assertEquals(10L, rehydrated.getAccessCount());
+        assertEquals(5L, rehydrated.getUniqueAccessCount(), "The archived unique count survives rehydration");
+
+        assertEquals(0, urlRepository.incrementAccessCounts("missing", 1, 1, LocalDateTime.now()));
+    }
+
+    @Test
+    @DisplayName("Test 4: The dormant-link scan should find followed and never-followed permanent links, up to the limit")
+    void testFindDormant() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
+        Url followedLongAgo = url("dor0001", "https://example.com/1", 4L);
+        followedLongAgo.setLastAccessedAt(cutoff.minusDays(1));
+        Url followedRecently = url("act0001", "https://example.com/2", 4L);
+        followedRecently.setLastAccessedAt(cutoff.plusDays(1));
+        Url neverFollowed = url("dor0002", "https://example.com/3", 0L);
+        Url neverFollowedNew = url("new0002", "https://example.com/4", 0L);
+        neverFollowedNew.setCreatedAt(cutoff.plusDays(1));
+        Url expiring = url("exp0001", "https://example.com/5", 0L);
+        expiring.setExpiresAt(LocalDateTime.now().plusDays(1));
+        urlRepository.saveAll(List.of(followedLongAgo, followedRecently, neverFollowed, neverFollowedNew, expiring));
+
+        assertEquals(List.of("dor0001", "dor0002"),
+                hotStore.findDormant(cutoff, 10).stream().map(Url::getShortCode).sorted().toList());
+        assertEquals(List.of("dor0001"), hotStore.findDormant(cutoff, 1).stream().map(Url::getShortCode).toList());
+
+        neverFollowed.setLastAccessedAt(LocalDateTime.now());
+        urlRepository.save(neverFollowed);
+        assertEquals(1, hotStore.deleteDormant(List.of("dor0001", "dor0002"), cutoff), "Followed since it was read");
+    }
+
+    private static Url url(String shortCode, String longUrl, long accessCount) {
+        return Url.builder()
+                .shortCode(shortCode)
+                .longUrl(longUrl)
+                .createdAt(LocalDateTime.now().minusDays(90).truncatedTo(ChronoUnit.MILLIS))
+                .accessCount(accessCount)
+                .build();
+    }
+}
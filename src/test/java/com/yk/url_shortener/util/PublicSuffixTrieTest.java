@@ -0,0 +1,51 @@
+package com.yk.url_shortener.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PublicSuffixTrieTest {
+
+    private final PublicSuffixTrie trie = PublicSuffixTrie.getDefault();
+
+    @Test
+    @DisplayName("Test 1: Should return the registrable domain for multi-label suffixes and odd URL shapes")
+    void testRegistrableDomain() {
+        assertEquals("wikipedia.org", trie.registrableDomain("https://en.wikipedia.org/wiki/Java"));
+        assertEquals("youtube.com", trie.registrableDomain("https://www.youtube.com/watch?v=abc"));
+        assertEquals("bbc.co.uk", trie.registrableDomain("https://www.bbc.co.uk/news"));
+        assertEquals("example.com", trie.registrableDomain("https://user:pw@Shop.Example.COM:8443/cart"));
+        assertEquals("example.com", trie.registrableDomain("http://example.com.?q=1"));
+        assertEquals("someone.github.io", trie.registrableDomain("https://someone.github.io/blog"));
+        assertEquals("unknown", trie.registrableDomain("not a url"));
+    }
+
+    @Test
+    @DisplayName("Test 2: Should honour wildcard and exception rules, IP literals and bare suffixes")
+    void testWildcardsAndExceptions() {
+        // *.ck and !www.ck
+        assertEquals("shop.foo.ck", trie.registrableDomain("https://a.shop.foo.ck/"));
+        assertEquals("www.ck", trie.registrableDomain("https://www.ck/"));
+        // *.kawasaki.jp and !city.kawasaki.jp
+        assertEquals("city.kawasaki.jp", trie.registrableDomain("https://www.city.kawasaki.jp/"));
+        assertEquals("192.168.0.1", trie.registrableDomain("http://192.168.0.1:8080/admin"));
+        assertEquals("[::1]", trie.registrableDomain("http://[::1]:8080/"));
+        assertEquals("co.uk", trie.registrableDomain("https://co.uk/"));
+        assertEquals("intranet", trie.registrableDomain("http://intranet/home"));
+    }
+
+    @Test
+    @DisplayName("Test 3: Should lower-case hosts the same way whatever the default locale")
+    void testLocaleIndependentLowerCase() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            assertEquals("wikipedia.org", trie.registrableDomain("https://EN.WIKIPEDIA.ORG/wiki/Java"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
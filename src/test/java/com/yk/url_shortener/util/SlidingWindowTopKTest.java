@@ -0,0 +1,57 @@
+package com.yk.url_shortener.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowTopKTest {
+
+    @Test
+    @DisplayName("Test 1: Space-Saving should keep heavy hitters with far fewer counters than keys")
+    void testHeavyHittersSurviveLongTail() {
+        SpaceSaving summary = new SpaceSaving(50);
+        for (int i = 0; i < 10_000; i++) {
+            summary.offer("tail-" + i, 1);
+            if (i % 10 == 0) {
+                summary.offer("viral", 1);
+            }
+            if (i % 20 == 0) {
+                summary.offer("popular", 1);
+            }
+        }
+
+        assertEquals(50, summary.size(), "Constant memory");
+        SpaceSaving.Entry viral = summary.entries().stream()
+                .filter(entry -> entry.key().equals("viral")).findFirst().orElseThrow();
+        assertTrue(viral.count() >= 1_000 && viral.count() - viral.error() <= 1_000,
+                "count - error <= true count <= count");
+        assertTrue(summary.entries().stream().anyMatch(entry -> entry.key().equals("popular")));
+    }
+
+    @Test
+    @DisplayName("Test 2: Windows should only count their own buckets and old buckets should rotate out")
+    void testWindowsAndRotation() {
+        SlidingWindowTopK topK = new SlidingWindowTopK(60_000, 61, 50);
+        long minute = 60_000;
+        long start = 1_000 * minute;
+
+        topK.add("old", 100, start);
+        topK.add("recent", 5, start + 50 * minute);
+        topK.add("recent", 5, start + 52 * minute);
+        topK.add("other", 3, start + 52 * minute);
+
+        long now = start + 52 * minute + 1_000;
+        assertEquals(List.of(new SlidingWindowTopK.Item("recent", 10, 0), new SlidingWindowTopK.Item("other", 3, 0)),
+                topK.top(5 * minute, 10, now));
+        assertEquals("old", topK.top(60 * minute, 1, now).get(0).key(), "Still inside the hour");
+
+        // 61 minutes later the first bucket has rotated out
+        now = start + 61 * minute + 1_000;
+        topK.add("fresh", 1, now);
+        assertTrue(topK.top(60 * minute, 10, now).stream().noneMatch(item -> item.key().equals("old")));
+        assertEquals(1, topK.top(1, 10, now).size(), "Sub-bucket windows cover the current bucket");
+    }
+}
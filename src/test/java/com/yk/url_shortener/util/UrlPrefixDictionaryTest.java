@@ -0,0 +1,49 @@
+package com.yk.url_shortener.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlPrefixDictionaryTest {
+
+    @Test
+    @DisplayName("Test 1: URLs should round-trip through encode and decode")
+    void testRoundTrip() {
+        UrlPrefixDictionary dictionary = new UrlPrefixDictionary(16, 3, 2);
+        List<String> urls = List.of(
+                "https://www.youtube.com/watch?v=abc",
+                "https://www.youtube.com/watch?v=xyz",
+                "https://github.com/org/repo/blob/main/README.md",
+                "https://example.com",
+                "https://en.wikipedia.org/wiki/Zürich",
+                "not a url at all");
+
+        for (String url : urls) {
+            byte[] encoded = dictionary.encode(url);
+            assertEquals(url, dictionary.decode(encoded));
+        }
+    }
+
+    @Test
+    @DisplayName("Test 2: Shared prefixes should be learned once and stop growing at the cap")
+    void testLearnsSharedPrefixes() {
+        UrlPrefixDictionary dictionary = new UrlPrefixDictionary(3, 3, 2);
+        String head = "https://shop.example.com/products/category/";
+
+        byte[] first = dictionary.encode(head + "1");
+        byte[] second = dictionary.encode(head + "2");
+        byte[] third = dictionary.encode(head + "3");
+        assertTrue(first.length > 2, "Deeper prefix not yet admitted: only the host is shared");
+        assertEquals(2, third.length, "Prefix id + the one-character tail");
+        assertEquals(head + "2", dictionary.decode(second));
+
+        for (int i = 0; i < 10; i++) {
+            dictionary.encode("https://host" + i + ".org/page");
+        }
+        assertEquals(3, dictionary.size(), "Capped at max-entries");
+        assertEquals("https://host9.org/page", dictionary.decode(dictionary.encode("https://host9.org/page")));
+    }
+}
@@ -0,0 +1,74 @@
+package com.yk.url_shortener.validation;
+
+import com.yk.url_shortener.validation.HostBlocklist.Verdict;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HostBlocklistTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Test 1: Every encoding of a private or loopback address should be rejected")
+    void testPrivateAddressForms() {
+        HostBlocklist blocklist = HostBlocklist.builtIn();
+
+        for (String host : new String[]{
+                "localhost", "LOCALHOST", "printer.local", "app.localhost",
+                "127.0.0.1", "127.1", "2130706433", "0x7f000001", "0177.0.0.1", "0x7f.1",
+                "10.1.2.3", "172.16.0.1", "172.31.255.255", "192.168.1.1", "169.254.169.254",
+                "100.64.0.1", "0.0.0.0",
+                "[::1]", "[::]", "[fe80::1%25eth0]", "[fd12:3456::1]", "[::ffff:127.0.0.1]",
+                "[::ffff:a9fe:a9fe]"}) {
+            assertEquals(Verdict.PRIVATE, blocklist.classify(host), host);
+        }
+        for (String host : new String[]{
+                "example.com", "172.32.0.1", "8.8.8.8", "134744072", "[2606:4700::1111]",
+                "[::ffff:8.8.8.8]", "10.example.com", "0x7f.example.com"}) {
+            assertEquals(Verdict.ALLOWED, blocklist.classify(host), host);
+        }
+    }
+
+    @Test
+    @DisplayName("Test 2: Blocklist file should block domains, subdomains and CIDRs and reload on change")
+    void testBlocklistFileAndReload() throws IOException {
+        Path file = tempDir.resolve("blocklist.txt");
+        Files.writeString(file, """
+                # malware
+                evil.com
+                0.0.0.0 phish.example.org   # hosts-file line
+                *.tracker.net
+                203.0.114.0/24
+                2001:db9::/32
+                """);
+        HostBlocklist blocklist = new HostBlocklist(file.toString());
+
+        assertEquals(3, blocklist.domainCount());
+        assertEquals(2, blocklist.cidrCount());
+        assertEquals(Verdict.BLOCKED, blocklist.classify("evil.com"));
+        assertEquals(Verdict.BLOCKED, blocklist.classify("cdn.Evil.COM"));
+        assertEquals(Verdict.BLOCKED, blocklist.classify("phish.example.org"));
+        assertEquals(Verdict.BLOCKED, blocklist.classify("x.tracker.net"));
+        assertEquals(Verdict.BLOCKED, blocklist.classify("203.0.114.77"));
+        assertEquals(Verdict.BLOCKED, blocklist.classify("[2001:db9::5]"));
+        assertEquals(Verdict.ALLOWED, blocklist.classify("notevil.com"), "Suffix match is per label");
+        assertEquals(Verdict.ALLOWED, blocklist.classify("example.org"));
+        assertEquals(Verdict.ALLOWED, blocklist.classify("203.0.115.1"));
+
+        assertFalse(blocklist.reloadIfChanged(), "Unchanged file is not re-read");
+        Files.writeString(file, "good-now.com\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5_000));
+        assertTrue(blocklist.reloadIfChanged());
+        assertEquals(Verdict.ALLOWED, blocklist.classify("evil.com"));
+        assertEquals(Verdict.BLOCKED, blocklist.classify("good-now.com"));
+    }
+}